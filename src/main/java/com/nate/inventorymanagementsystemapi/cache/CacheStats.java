@@ -0,0 +1,12 @@
+package com.nate.inventorymanagementsystemapi.cache;
+
+/**
+ * Point-in-time counters of an {@link ExpiringCache}
+ */
+public record CacheStats(long hits, long misses, long evictions, int size, int maxSize) {
+
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,333 @@
+package com.nate.inventorymanagementsystemapi.cache;
+
+import com.nate.inventorymanagementsystemapi.dto.ProductDto;
+import com.nate.inventorymanagementsystemapi.event.InventoryChangedEvent;
+import com.nate.inventorymanagementsystemapi.event.ProductChangedEvent;
+import com.nate.inventorymanagementsystemapi.event.StockLevelChangedEvent;
+import com.nate.inventorymanagementsystemapi.exception.InsufficientStockException;
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
+import com.nate.inventorymanagementsystemapi.exception.ProductNotFoundException;
+import com.nate.inventorymanagementsystemapi.model.CurrentUser;
+import com.nate.inventorymanagementsystemapi.model.ProductChange;
+import com.nate.inventorymanagementsystemapi.model.StockMovement;
+import com.nate.inventorymanagementsystemapi.repository.ProductOutbox;
+import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import com.nate.inventorymanagementsystemapi.repository.StockMovementRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stock levels of a configured set of hot products kept in memory, so stock adjustments on them do not queue
+ * on the product row lock. Every hot product has its own lock-free counter; adjustments only compare-and-set it
+ * and the net movement of each product is written back with one {@code UPDATE} per flush, every
+ * {@code flush-ms} or once {@code flush-threshold} adjustments have piled up.
+ * <p>
+ * A counter is seeded from the database on first use and holds the database value plus the movements not yet
+ * flushed, so reads of a hot product return it instead of the row. PATCH of a hot product flushes and drops its
+ * counter first, and drops it again once the PATCH commits, so the absolute quantity wins even over adjustments
+ * that reseeded from the old row in between; a delete drops it unflushed.
+ * <p>
+ * Crash safety: an adjustment is acknowledged before it is written, so a crash loses the movements accepted since
+ * the last flush (at most {@code flush-ms} or {@code flush-threshold} of them). A graceful shutdown flushes. Every
+ * product is written in its own transaction, and one whose write fails is retried with the next flush without
+ * holding up the others. The counters belong to this instance, so only enable this with
+ * a single instance.
+ * <p>
+ * The stock totals of {@link ProductTotals} and the {@link LowStockWatchlist} only move when a flush commits.
+ */
+@Component
+public class HotStockCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(HotStockCounters.class);
+
+    //Stored in a counter once it has been flushed and dropped, adjustments seeing it start over with a fresh one
+    private static final long DROPPED = Long.MIN_VALUE;
+
+    private static final class Counter {
+        final Long productId;
+        final Long ownerId;
+        final BigDecimal price;
+        final AtomicLong available;
+        //The level last written to the database and the row version it left, only used under the flush lock
+        long flushed;
+        long version;
+
+        Counter(Long productId, Long ownerId, BigDecimal price, long quantity, long version) {
+            this.productId = productId;
+            this.ownerId = ownerId;
+            this.price = price;
+            this.available = new AtomicLong(quantity);
+            this.flushed = quantity;
+            this.version = version;
+        }
+    }
+
+    private final ProductRepository repo;
+    private final ProductOutbox outbox;
+    private final StockMovementRepository movements;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final Set<Long> hotIds;
+    private final int flushThreshold;
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    //Shared by every hot product, so it is striped rather than a single atomic
+    private final LongAdder sinceFlush = new LongAdder();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public HotStockCounters(ProductRepository repo, ProductOutbox outbox, StockMovementRepository movements,
+                            PlatformTransactionManager transactionManager, ApplicationEventPublisher events,
+                            @Value("${inventory.stock.hot-skus.enabled:false}") boolean enabled,
+                            @Value("${inventory.stock.hot-skus.product-ids:}") Set<Long> hotIds,
+                            @Value("${inventory.stock.hot-skus.flush-threshold:1000}") int flushThreshold) {
+        this.repo = repo;
+        this.outbox = outbox;
+        this.movements = movements;
+        this.events = events;
+        this.tx = new TransactionTemplate(transactionManager);
+        //Flushes commit on their own, whatever the caller is doing
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.hotIds = Set.copyOf(hotIds);
+        this.flushThreshold = flushThreshold;
+    }
+
+    /**
+     * @param productId the id of the product
+     * @return whether stock adjustments of the product go through these counters
+     */
+    public boolean isHot(Long productId) {
+        return enabled && hotIds.contains(productId);
+    }
+
+    /**
+     * Adjusts the in-memory stock level of a hot product, never below zero
+     *
+     * @see #adjust(Long, int, long, CurrentUser)
+     */
+    public long adjust(Long productId, int delta, CurrentUser user) {
+        return adjust(productId, delta, 0, user);
+    }
+
+    /**
+     * Adjusts the in-memory stock level of a hot product
+     *
+     * @param productId the id of a hot product
+     * @param delta the units to add, negative to remove
+     * @param floor the lowest level a removal may leave, e.g. the units held by reservations
+     * @param user the logged in user
+     * @return the stock level after the adjustment
+     * @throws ProductNotFoundException if the product does not exist
+     * @throws AccessDeniedException if the user is not the owner or is not Admin
+     * @throws InsufficientStockException if removing delta units would take the stock below floor
+     * @throws InvalidRequestException if adding delta units would take the stock past {@link Integer#MAX_VALUE}
+     */
+    public long adjust(Long productId, int delta, long floor, CurrentUser user) {
+        while (true) {
+            Counter counter = counterOf(productId);
+            if (!user.isAdmin() && !counter.ownerId.equals(user.id())) {
+                throw new AccessDeniedException("Access Denied");
+            }
+
+            long current = counter.available.get();
+            if (current == DROPPED) {
+                counters.remove(productId, counter);
+                continue;
+            }
+            long next = current + delta;
+            if (delta < 0 && next < floor) {
+                throw new InsufficientStockException(productId, delta);
+            }
+            //The level is read and flushed as an INT, so it must stay in range like the column
+            if (next > Integer.MAX_VALUE) {
+                throw new InvalidRequestException("Stock cannot exceed " + Integer.MAX_VALUE + " units");
+            }
+            if (counter.available.compareAndSet(current, next)) {
+                sinceFlush.increment();
+                if (sinceFlush.sum() >= flushThreshold && flushLock.tryLock()) {
+                    try {
+                        flushLocked();
+                    } finally {
+                        flushLock.unlock();
+                    }
+                }
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Replaces the quantity of a hot product that has a counter with its in-memory level
+     *
+     * @param product the product as read from the database
+     */
+    public void merge(ProductDto product) {
+        if (counters.isEmpty()) {
+            return;
+        }
+        Counter counter = counters.get(product.getId());
+        if (counter != null) {
+            long level = counter.available.get();
+            if (level != DROPPED) {
+                product.setQuantity((int) level);
+            }
+        }
+    }
+
+    /**
+     * Writes the pending movements of one product and drops its counter, so the next adjustment reseeds from the
+     * row. Called before the quantity is set some other way.
+     *
+     * @param productId the id of the product
+     */
+    public void release(Long productId) {
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            long last = counter.available.getAndSet(DROPPED);
+            if (last != DROPPED && last != counter.flushed) {
+                try {
+                    tx.execute(s -> write(counter, last));
+                } catch (RuntimeException e) {
+                    //Puts the movements back so the next flush writes them
+                    counter.available.set(last);
+                    throw e;
+                }
+            }
+            counters.remove(productId, counter);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.DELETED) {
+            drop(event.productId());
+        } else if (event.type() == ProductChangedEvent.Type.UPDATED && counters.containsKey(event.productId())) {
+            //An adjustment between release and commit reseeded from the row the update replaced, so that counter
+            //is stale. Held under the flush lock so a flush cannot write it back afterwards.
+            flushLock.lock();
+            try {
+                drop(event.productId());
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes the net movement of every hot product since the last flush, one {@code UPDATE} per product, each in
+     * its own transaction
+     */
+    @Scheduled(fixedDelayString = "${inventory.stock.hot-skus.flush-ms:200}")
+    @PreDestroy
+    public void flush() {
+        if (counters.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushLocked() {
+        sinceFlush.reset();
+
+        List<Counter> dirty = new ArrayList<>();
+        List<Long> levels = new ArrayList<>();
+        for (Counter counter : counters.values()) {
+            long level = counter.available.get();
+            if (level != DROPPED && level != counter.flushed) {
+                dirty.add(counter);
+                levels.add(level);
+            }
+        }
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        int failed = 0;
+        for (int i = 0; i < dirty.size(); i++) {
+            Counter counter = dirty.get(i);
+            long level = levels.get(i);
+            try {
+                if (Boolean.TRUE.equals(tx.execute(s -> write(counter, level)))) {
+                    //Only advanced once the write committed, so a failed write is retried in full
+                    counter.flushed = level;
+                    counter.version++;
+                } else {
+                    //The row is gone or holds less than the counter thinks, retrying would never succeed
+                    log.warn("Stock of hot product {} no longer matches its row, dropping {} unwritten units",
+                            counter.productId, level - counter.flushed);
+                    drop(counter.productId);
+                }
+            } catch (RuntimeException e) {
+                failed++;
+                log.error("Flushing stock of hot product {} failed, retrying with the next flush", counter.productId, e);
+            }
+        }
+        log.debug("Flushed stock of {} hot products, {} failed", dirty.size() - failed, failed);
+    }
+
+    private void drop(Long productId) {
+        Counter counter = counters.remove(productId);
+        if (counter != null) {
+            counter.available.set(DROPPED);
+        }
+    }
+
+    //Runs inside the flush transaction, so the outbox and ledger rows commit with the write and the listeners only see
+    //it after. The ledger gets the net movement of the flush, not every adjustment in it.
+    //Every flush bumps the row version once, nothing else writes a hot product's row while it has a counter.
+    //Returns false without writing anything if the guarded update matched no row
+    private boolean write(Counter counter, long level) {
+        long delta = level - counter.flushed;
+        if (repo.addStock(counter.productId, (int) delta) == 0) {
+            return false;
+        }
+        outbox.append(ProductChange.of(ProductChange.Type.STOCK, counter.productId, counter.ownerId, (int) level, counter.version + 1));
+        movements.save(StockMovement.of(StockMovement.Reason.HOT_FLUSH, counter.productId, counter.ownerId, null, (int) delta, (int) level));
+        events.publishEvent(new InventoryChangedEvent(counter.ownerId, 0, delta, InventoryChangedEvent.valueOf(delta, counter.price)));
+        events.publishEvent(new StockLevelChangedEvent(counter.productId, counter.ownerId, null, (int) level, counter.version + 1));
+        return true;
+    }
+
+    private Counter counterOf(Long productId) {
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            //Loaded outside the map so the bin is not locked during the query
+            ProductDto product = repo.findVisible(productId, null, true).orElseThrow(() -> new ProductNotFoundException(productId));
+            counter = counters.computeIfAbsent(productId,
+                    id -> new Counter(id, product.getUserId(), product.getPrice(), product.getQuantity(), product.getVersion()));
+        }
+        return counter;
+    }
+}
@@ -0,0 +1,130 @@
+package com.nate.inventorymanagementsystemapi.cache;
+
+import com.nate.inventorymanagementsystemapi.dto.ReorderLevel;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Products with a reorder threshold, with the ones at or below it kept sorted by urgency, globally and per owner,
+ * so the watchlist is read off the front of a sorted set instead of being filtered out of every product.
+ * <p>
+ * Urgency: out of stock first, then by how full the stock is relative to the threshold (quantity / threshold),
+ * then by how many units are missing. Every product is kept with the version it was last seen at, so a level
+ * that arrives late, or twice, never replaces a newer one. Reads never lock; writes are serialized so the sets stay
+ * consistent with each other.
+ */
+public class LowStockIndex {
+
+    static final Comparator<ReorderLevel> URGENCY = Comparator
+            .comparing((ReorderLevel level) -> level.quantity() > 0)
+            //quantity / threshold without division, only low products are compared so the thresholds are above 0 here
+            .thenComparing((a, b) -> Long.compare((long) a.quantity() * b.threshold(), (long) b.quantity() * a.threshold()))
+            .thenComparing(level -> level.quantity() - level.threshold())
+            .thenComparing(ReorderLevel::productId);
+
+    private record Entry(ReorderLevel level, long version) {
+    }
+
+    private final Map<Long, Entry> watched = new ConcurrentHashMap<>();
+    private final NavigableSet<ReorderLevel> low = new ConcurrentSkipListSet<>(URGENCY);
+    private final Map<Long, NavigableSet<ReorderLevel>> lowByOwner = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a product or sets its threshold. A product without a threshold is removed. When a newer version of the
+     * product is already indexed only the threshold is taken.
+     *
+     * @param level the product and its threshold
+     * @param version the version of the product the level was read at
+     */
+    public synchronized void put(ReorderLevel level, long version) {
+        Entry current = watched.get(level.productId());
+        if (current != null && current.version() > version) {
+            ReorderLevel newer = current.level();
+            level = new ReorderLevel(newer.productId(), newer.userId(), newer.name(), newer.quantity(), level.threshold());
+            version = current.version();
+        }
+        remove(level.productId());
+        if (level.threshold() != null) {
+            add(new Entry(level, version));
+        }
+    }
+
+    /**
+     * Sets the quantity (and name) of a watched product, unless the index already has this version or a newer one.
+     * Products that are not watched are ignored.
+     *
+     * @param productId the id of the product
+     * @param name the new name, null to keep the current one
+     * @param quantity the new quantity
+     * @param version the version of the product after the change
+     */
+    public synchronized void update(long productId, String name, int quantity, long version) {
+        Entry current = watched.get(productId);
+        if (current == null || current.version() >= version) {
+            return;
+        }
+        ReorderLevel level = current.level();
+        remove(productId);
+        add(new Entry(new ReorderLevel(productId, level.userId(), name == null ? level.name() : name, quantity, level.threshold()), version));
+    }
+
+    public synchronized void remove(long productId) {
+        Entry entry = watched.remove(productId);
+        if (entry == null || !entry.level().isLow()) {
+            return;
+        }
+        ReorderLevel level = entry.level();
+        low.remove(level);
+        NavigableSet<ReorderLevel> owned = lowByOwner.get(level.userId());
+        if (owned != null) {
+            owned.remove(level);
+            if (owned.isEmpty()) {
+                lowByOwner.remove(level.userId());
+            }
+        }
+    }
+
+    /**
+     * The most urgent products at or below their threshold
+     *
+     * @param ownerId only products of this owner, or null for every owner
+     * @param limit the most products to return
+     * @return the products, most urgent first
+     */
+    public List<ReorderLevel> low(Long ownerId, int limit) {
+        NavigableSet<ReorderLevel> source = ownerId == null ? low : lowByOwner.get(ownerId);
+        List<ReorderLevel> result = new ArrayList<>();
+        if (source == null) {
+            return result;
+        }
+        for (ReorderLevel level : source) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(level);
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of watched products, low or not
+     */
+    public int size() {
+        return watched.size();
+    }
+
+    private void add(Entry entry) {
+        ReorderLevel level = entry.level();
+        watched.put(level.productId(), entry);
+        if (level.isLow()) {
+            low.add(level);
+            lowByOwner.computeIfAbsent(level.userId(), id -> new ConcurrentSkipListSet<>(URGENCY)).add(level);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.nate.inventorymanagementsystemapi.cache;
+
+import com.nate.inventorymanagementsystemapi.dto.ReorderLevel;
+import com.nate.inventorymanagementsystemapi.event.ProductChangedEvent;
+import com.nate.inventorymanagementsystemapi.event.ReorderThresholdChangedEvent;
+import com.nate.inventorymanagementsystemapi.event.StockLevelChangedEvent;
+import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The low stock watchlist behind {@code GET /product/low-stock}, served from a {@link LowStockIndex} so frequent
+ * polling never scans the product table.
+ * <p>
+ * Built once the application is ready (or by the first request, if it comes earlier), kept current by the committed
+ * {@link StockLevelChangedEvent}s, {@link ReorderThresholdChangedEvent}s and deletes, and rebuilt periodically to pick
+ * up writes made by other instances. Levels carry the product version, so events applied out of commit order, or
+ * replayed onto a rebuild that already read them, change nothing. Hot product movements show once flushed.
+ */
+@Component
+public class LowStockWatchlist {
+
+    private static final Logger log = LoggerFactory.getLogger(LowStockWatchlist.class);
+
+    private final ProductRepository repo;
+    //Only one rebuild loads at a time, events keep flowing meanwhile
+    private final Object rebuildLock = new Object();
+
+    private volatile LowStockIndex index;
+
+    //Changes that commit while a rebuild is loading, replayed onto the new index before it is swapped in
+    private List<Consumer<LowStockIndex>> pending;
+
+    public LowStockWatchlist(ProductRepository repo) {
+        this.repo = repo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${inventory.low-stock.rebuild-ms:600000}",
+            fixedDelayString = "${inventory.low-stock.rebuild-ms:600000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                pending = new ArrayList<>();
+            }
+
+            long start = System.currentTimeMillis();
+            LowStockIndex fresh = new LowStockIndex();
+            for (Object[] row : repo.findWatched()) {
+                fresh.put(new ReorderLevel((Long) row[0], (Long) row[1], (String) row[2], (Integer) row[3], (Integer) row[4]), (Long) row[5]);
+            }
+
+            synchronized (this) {
+                pending.forEach(change -> change.accept(fresh));
+                pending = null;
+                index = fresh;
+            }
+            log.info("Indexed {} watched products for the low stock watchlist in {} ms", fresh.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockLevelChanged(StockLevelChangedEvent event) {
+        apply(index -> index.update(event.productId(), event.name(), event.quantity(), event.version()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onThresholdChanged(ReorderThresholdChangedEvent event) {
+        apply(index -> index.put(new ReorderLevel(event.productId(), event.userId(), event.name(), event.quantity(), event.threshold()),
+                event.version()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.DELETED) {
+            apply(index -> index.remove(event.productId()));
+        }
+    }
+
+    /**
+     * The most urgent products at or below their reorder threshold
+     *
+     * @param ownerId only products of this user, or null for every user
+     * @param limit the most products to return
+     * @return the products, most urgent first
+     */
+    public List<ReorderLevel> low(Long ownerId, int limit) {
+        LowStockIndex current = index;
+        if (current == null) {
+            synchronized (rebuildLock) {
+                if (index == null) {
+                    rebuild();
+                }
+            }
+            current = index;
+        }
+        return current.low(ownerId, limit);
+    }
+
+    private synchronized void apply(Consumer<LowStockIndex> change) {
+        if (pending != null) {
+            pending.add(change);
+        }
+        if (index != null) {
+            change.accept(index);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.nate.inventorymanagementsystemapi.cache;
+
+import com.nate.inventorymanagementsystemapi.event.ProductChangedEvent;
+import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user product counts kept in memory, so listings can report totals without a COUNT query.
+ * <p>
+ * A user's count is seeded from the database the first time it is asked for and then moved by
+ * committed {@link ProductChangedEvent}s. A change that commits while a seed is running can be
+ * missed, and other instances do not see this instance's events, so every seeded count is
+ * periodically replaced with the real one.
+ */
+@Component
+public class ProductCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCounters.class);
+
+    private final ProductRepository repo;
+    private final Map<Long, AtomicLong> counts = new ConcurrentHashMap<>();
+
+    public ProductCounters(ProductRepository repo) {
+        this.repo = repo;
+    }
+
+    /**
+     * Number of products owned by the user, seeding it from the database on first use
+     *
+     * @param userId the id of the user
+     * @return the number of products the user owns
+     */
+    public long count(Long userId) {
+        AtomicLong count = counts.get(userId);
+        if (count == null) {
+            //Counted outside the map so the bin is not locked during the query
+            long seeded = repo.countByUserId(userId);
+            count = counts.computeIfAbsent(userId, id -> new AtomicLong(seeded));
+        }
+        return Math.max(0, count.get());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        //Unseeded users are skipped, their first count() reads the committed row anyway
+        AtomicLong count = counts.get(event.userId());
+        if (count == null) {
+            return;
+        }
+        switch (event.type()) {
+            case CREATED -> count.incrementAndGet();
+            case DELETED -> count.decrementAndGet();
+            default -> { }
+        }
+    }
+
+    /**
+     * Replaces every seeded count with the real one in a single grouped query
+     */
+    @Scheduled(initialDelayString = "${inventory.product-counts.reconcile-ms:300000}",
+            fixedDelayString = "${inventory.product-counts.reconcile-ms:300000}")
+    public void reconcile() {
+        if (counts.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Long> actual = new HashMap<>();
+        List<Object[]> rows = repo.countPerUser();
+        for (Object[] row : rows) {
+            actual.put((Long) row[0], (Long) row[1]);
+        }
+
+        int drifted = 0;
+        for (Map.Entry<Long, AtomicLong> entry : counts.entrySet()) {
+            Long real = actual.get(entry.getKey());
+            if (real == null) {
+                //No products left (or the user is gone), reseeded on next use
+                counts.remove(entry.getKey());
+            } else if (entry.getValue().getAndSet(real) != real) {
+                drifted++;
+            }
+        }
+        log.debug("Reconciled {} product counters, {} had drifted", counts.size(), drifted);
+    }
+}
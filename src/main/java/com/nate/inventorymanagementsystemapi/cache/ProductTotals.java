@@ -0,0 +1,124 @@
+package com.nate.inventorymanagementsystemapi.cache;
+
+import com.nate.inventorymanagementsystemapi.dto.ProductSummary;
+import com.nate.inventorymanagementsystemapi.event.InventoryChangedEvent;
+import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stock totals (SKU count, units and value) per user and across every product, kept in memory so the summary
+ * never sums over the product table.
+ * <p>
+ * Works like {@link ProductCounters}: a user's totals, and the global ones, are seeded from the database the first
+ * time they are asked for and then moved by the committed {@link InventoryChangedEvent}s of every write. A change
+ * that commits while a seed is running can be missed, and other instances do not see this instance's events, so
+ * every seeded total is periodically replaced with the real one.
+ */
+@Component
+public class ProductTotals {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductTotals.class);
+
+    private final ProductRepository repo;
+    private final Map<Long, AtomicReference<ProductSummary>> users = new ConcurrentHashMap<>();
+    //Empty until an Admin first asks for it
+    private final AtomicReference<ProductSummary> global = new AtomicReference<>();
+
+    public ProductTotals(ProductRepository repo) {
+        this.repo = repo;
+    }
+
+    /**
+     * Totals of the products owned by the user, seeding them from the database on first use
+     *
+     * @param userId the id of the user
+     * @return the totals of the user's products
+     */
+    public ProductSummary ofUser(Long userId) {
+        AtomicReference<ProductSummary> totals = users.get(userId);
+        if (totals == null) {
+            //Summed outside the map so the bin is not locked during the query
+            ProductSummary seeded = repo.summarizeByUserId(userId);
+            totals = users.computeIfAbsent(userId, id -> new AtomicReference<>(seeded));
+        }
+        return totals.get();
+    }
+
+    /**
+     * Totals of every product, seeding them from the database on first use
+     *
+     * @return the totals of every product
+     */
+    public ProductSummary ofAll() {
+        ProductSummary totals = global.get();
+        if (totals == null) {
+            ProductSummary seeded = repo.summarizeAll();
+            global.compareAndSet(null, seeded);
+            totals = global.get();
+        }
+        return totals;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        //Unseeded totals are skipped, their first read sums the committed rows anyway
+        AtomicReference<ProductSummary> totals = users.get(event.userId());
+        if (totals != null) {
+            totals.updateAndGet(t -> t.plus(event.skus(), event.units(), event.value()));
+        }
+        global.updateAndGet(t -> t == null ? null : t.plus(event.skus(), event.units(), event.value()));
+    }
+
+    /**
+     * Replaces every seeded total with the real one in a single grouped query
+     */
+    @Scheduled(initialDelayString = "${inventory.product-summary.reconcile-ms:300000}",
+            fixedDelayString = "${inventory.product-summary.reconcile-ms:300000}")
+    public void reconcile() {
+        if (users.isEmpty() && global.get() == null) {
+            return;
+        }
+
+        Map<Long, ProductSummary> actual = new HashMap<>();
+        ProductSummary all = ProductSummary.EMPTY;
+        List<Object[]> rows = repo.summarizePerUser();
+        for (Object[] row : rows) {
+            ProductSummary totals = new ProductSummary(((Number) row[1]).longValue(), ((Number) row[2]).longValue(), (BigDecimal) row[3]);
+            all = all.plus(totals.skus(), totals.units(), totals.value());
+            if (row[0] != null) {
+                actual.put((Long) row[0], totals);
+            }
+        }
+
+        int drifted = 0;
+        for (Map.Entry<Long, AtomicReference<ProductSummary>> entry : users.entrySet()) {
+            ProductSummary real = actual.get(entry.getKey());
+            if (real == null) {
+                //No products left (or the user is gone), reseeded on next use
+                users.remove(entry.getKey());
+            } else if (!same(entry.getValue().getAndSet(real), real)) {
+                drifted++;
+            }
+        }
+        if (global.get() != null) {
+            global.set(all);
+        }
+        log.debug("Reconciled {} product totals, {} had drifted", users.size(), drifted);
+    }
+
+    //BigDecimal equals also compares the scale, 1.0 and 1.00 are the same total
+    private static boolean same(ProductSummary a, ProductSummary b) {
+        return a.skus() == b.skus() && a.units() == b.units() && a.value().compareTo(b.value()) == 0;
+    }
+}
@@ -0,0 +1,69 @@
+package com.nate.inventorymanagementsystemapi.cache;
+
+import com.nate.inventorymanagementsystemapi.model.User;
+import com.nate.inventorymanagementsystemapi.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of {@link User} rows keyed by username, sitting in front of {@link UserRepository}.
+ * <p>
+ * Every caller gets its own copy of the cached user, so entities are never shared between
+ * threads or persistence contexts. Anything that changes a user must call {@link #invalidate(String)}.
+ */
+@Component
+public class UserCache {
+
+    private final UserRepository repo;
+    private final ExpiringCache<String, User> cache;
+    private final long ttlMillis;
+
+    //Bumped on every invalidation so a load that raced with a write does not cache stale data
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public UserCache(UserRepository repo,
+                     @Value("${inventory.user-cache.max-size:10000}") int maxSize,
+                     @Value("${inventory.user-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.repo = repo;
+        this.cache = new ExpiringCache<>(maxSize);
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * Finds a user by username, loading it from the database on a miss
+     *
+     * @param username the username to look up
+     * @return the user, or empty if no user has that username
+     */
+    public Optional<User> findByUsername(String username) {
+        User cached = cache.get(username);
+        if (cached != null) {
+            return Optional.of(copyOf(cached));
+        }
+
+        long stamp = invalidations.get();
+        Optional<User> user = repo.findByUsername(username);
+        user.ifPresent(u -> {
+            if (invalidations.get() == stamp) {
+                cache.put(username, copyOf(u), System.currentTimeMillis() + ttlMillis);
+            }
+        });
+        return user;
+    }
+
+    public void invalidate(String username) {
+        invalidations.incrementAndGet();
+        cache.invalidate(username);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static User copyOf(User user) {
+        return new User(user.getId(), user.getUsername(), user.getPassword(), user.getRole());
+    }
+}
@@ -1,23 +1,61 @@
 package com.nate.inventorymanagementsystemapi.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nate.inventorymanagementsystemapi.dto.Availability;
+import com.nate.inventorymanagementsystemapi.dto.BulkResponse;
+import com.nate.inventorymanagementsystemapi.dto.CursorResponse;
+import com.nate.inventorymanagementsystemapi.dto.ImportSummary;
 import com.nate.inventorymanagementsystemapi.dto.PaginatedResponse;
 import com.nate.inventorymanagementsystemapi.dto.PostProduct;
 import com.nate.inventorymanagementsystemapi.dto.ProductDto;
+import com.nate.inventorymanagementsystemapi.dto.ProductFilter;
+import com.nate.inventorymanagementsystemapi.dto.ReorderLevel;
+import com.nate.inventorymanagementsystemapi.dto.ReorderThresholdRequest;
+import com.nate.inventorymanagementsystemapi.dto.ReservationDto;
+import com.nate.inventorymanagementsystemapi.dto.ReservationRequest;
+import com.nate.inventorymanagementsystemapi.dto.SliceResponse;
+import com.nate.inventorymanagementsystemapi.dto.StockAdjustment;
+import com.nate.inventorymanagementsystemapi.dto.StockHistory;
+import com.nate.inventorymanagementsystemapi.dto.StockLevel;
+import com.nate.inventorymanagementsystemapi.dto.StockMovementDto;
+import com.nate.inventorymanagementsystemapi.dto.SummaryResponse;
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
+import com.nate.inventorymanagementsystemapi.exporter.ExportFormat;
+import com.nate.inventorymanagementsystemapi.exporter.ProductExportWriter;
+import com.nate.inventorymanagementsystemapi.importer.ImportFormat;
+import com.nate.inventorymanagementsystemapi.importer.ProductRowReader;
+import com.nate.inventorymanagementsystemapi.model.CurrentUser;
 import com.nate.inventorymanagementsystemapi.model.CustomerDetails;
 import com.nate.inventorymanagementsystemapi.service.IProductService;
+import com.nate.inventorymanagementsystemapi.service.IReservationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 @Tag(name = "Product Controller", description = "End points for managing products")
 @RestController
@@ -26,6 +64,8 @@ import java.util.List;
 public class ProductController {
 
     private IProductService service;
+    private IReservationService reservations;
+    private ObjectMapper mapper;
 
     @Operation(summary = "Create new product")
     @ApiResponses(value = {
@@ -35,7 +75,169 @@ public class ProductController {
     })
     @PostMapping
     public ResponseEntity<ProductDto> createProduct(@RequestBody @Valid PostProduct dto, @AuthenticationPrincipal CustomerDetails customerDetails){
-        return ResponseEntity.status(HttpStatus.CREATED).body(service.addProduct(dto, customerDetails.getUsername()));
+        return ResponseEntity.status(HttpStatus.CREATED).body(service.addProduct(dto, CurrentUser.from(customerDetails.getUser())));
+    }
+
+    @Operation(summary = "Create many products at once",
+            description = "Validates every item on its own, inserts the valid ones in one transaction and reports the id or the errors of each item by index")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Items were processed, see the per-item results"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"),
+    })
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkResponse> createProducts(@RequestBody List<PostProduct> products, @AuthenticationPrincipal CustomerDetails customerDetails){
+        return ResponseEntity.ok(service.bulkAddProducts(products, CurrentUser.from(customerDetails.getUser())));
+    }
+
+    @Operation(summary = "Imports products from an uploaded CSV or NDJSON file",
+            description = "The file is read as a stream and saved in chunks. The response is NDJSON: one line per rejected row, then a summary line")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Streamed import report"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"),
+    })
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> importProductFile(@RequestPart("file") MultipartFile file,
+                                                                   @AuthenticationPrincipal CustomerDetails customerDetails) throws IOException {
+        ImportFormat format = ImportFormat.detect(file.getContentType(), file.getOriginalFilename());
+        CurrentUser user = CurrentUser.from(customerDetails.getUser());
+        //Large uploads are spooled to disk by the multipart resolver, so this reads from the temp file
+        InputStream in = file.getInputStream();
+        ProductRowReader rows = openRows(in, format);
+        return importReport(out -> {
+            try (in) {
+                return service.importProducts(rows, user, writeLine(out));
+            }
+        });
+    }
+
+    @Operation(summary = "Imports products from a CSV or NDJSON request body",
+            description = "Same as the file upload, with the body sent as text/csv or application/x-ndjson")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Streamed import report"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"),
+    })
+    @PostMapping(value = "/import", consumes = {ImportFormat.CSV_TYPE, ImportFormat.NDJSON_TYPE})
+    public ResponseEntity<StreamingResponseBody> importProductBody(HttpServletRequest request,
+                                                                   @AuthenticationPrincipal CustomerDetails customerDetails) throws IOException {
+        ImportFormat format = ImportFormat.detect(request.getContentType(), null);
+        CurrentUser user = CurrentUser.from(customerDetails.getUser());
+        ProductRowReader rows = openRows(request.getInputStream(), format);
+        return importReport(out -> service.importProducts(rows, user, writeLine(out)));
+    }
+
+    @Operation(summary = "Exports products as CSV or NDJSON",
+            description = "Streams every product of the caller, or every product for Admin, in id order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Streamed products"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"),
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "ndjson") String format,
+                                                                @AuthenticationPrincipal CustomerDetails customerDetails){
+        ExportFormat exportFormat = ExportFormat.from(format);
+        CurrentUser user = CurrentUser.from(customerDetails.getUser());
+
+        //Rows go straight from the database cursor to the response, nothing is collected first
+        StreamingResponseBody body = out -> {
+            ProductExportWriter writer = new ProductExportWriter(out, exportFormat, mapper);
+            service.exportProducts(user, writer::write);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    private interface ImportTask {
+        ImportSummary run(OutputStream out) throws IOException;
+    }
+
+    //Reads the CSV header before the response is committed, so a bad header is still a 400
+    private ProductRowReader openRows(InputStream in, ImportFormat format) throws IOException {
+        try {
+            return ProductRowReader.open(in, format);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    //Runs the import while the response is written, rejected rows go out as they are found and the summary last
+    private ResponseEntity<StreamingResponseBody> importReport(ImportTask task) {
+        StreamingResponseBody body = out -> {
+            writeLine(out).accept(task.run(out));
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(ImportFormat.NDJSON_TYPE)).body(body);
+    }
+
+    private <T> Consumer<T> writeLine(OutputStream out) {
+        return value -> {
+            try {
+                out.write(mapper.writeValueAsBytes(value));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    @Operation(summary = "Suggests product names for autocomplete",
+            description = "Names of the caller's products starting with the prefix, or of every product for Admin")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching product names"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden")
+    })
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggestProductNames(@AuthenticationPrincipal CustomerDetails customerDetails,
+                                                            @RequestParam(defaultValue = "") String prefix,
+                                                            @RequestParam(defaultValue = "10") int limit){
+        return ResponseEntity.ok(service.suggestProductNames(CurrentUser.from(customerDetails.getUser()),prefix,limit));
+    }
+
+    @Operation(summary = "Retrieves the stock summary",
+            description = "Number of products, units in stock and their value (quantity * price) of the caller, plus the totals of every product for Admin")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock totals"),
+            @ApiResponse(responseCode = "403", description = "Forbidden")
+    })
+    @GetMapping("/summary")
+    public ResponseEntity<SummaryResponse> getSummary(@AuthenticationPrincipal CustomerDetails customerDetails){
+        return ResponseEntity.ok(service.getSummary(CurrentUser.from(customerDetails.getUser())));
+    }
+
+    @Operation(summary = "Retrieves the low stock watchlist",
+            description = "Products of the caller, or of every user for Admin, at or below their reorder threshold. Out of stock first, then by the share of the threshold still in stock")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Low products, most urgent first"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden")
+    })
+    @GetMapping("/low-stock")
+    public ResponseEntity<List<ReorderLevel>> getLowStock(@AuthenticationPrincipal CustomerDetails customerDetails,
+                                                          @RequestParam(defaultValue = "50") int limit){
+        return ResponseEntity.ok(service.getLowStock(CurrentUser.from(customerDetails.getUser()),limit));
+    }
+
+    @Operation(summary = "Streams product changes as Server-Sent Events",
+            description = "Creates, updates, deletes and stock changes of the caller's products, or of every product for Admin, as they commit. "
+                    + "Send the id of the last event seen as Last-Event-ID (or after) to resume; a reset event means that point is gone and the caller should reload")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden")
+    })
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@AuthenticationPrincipal CustomerDetails customerDetails,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                    @RequestParam(required = false) Long after){
+        return service.streamChanges(CurrentUser.from(customerDetails.getUser()),lastEventId != null ? lastEventId : after);
     }
 
     @Operation(summary = "Retrieves product by id")
@@ -47,22 +249,165 @@ public class ProductController {
     })
     @GetMapping("/{id}")
     public ResponseEntity<ProductDto> getProductById(@PathVariable Long id, @AuthenticationPrincipal CustomerDetails details){
-        return ResponseEntity.ok(service.getProduct(id, details.getUsername()));
+        return withETag(service.getProduct(id, CurrentUser.from(details.getUser())));
     }
 
-    @Operation(summary = "Updates Product")
+    @Operation(summary = "Updates Product",
+            description = "Send the ETag of the product as If-Match to only update it if nobody changed it since")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Product was returned"),
             @ApiResponse(responseCode = "400", description = "Bad Request"),
             @ApiResponse(responseCode = "403", description = "Forbidden"),
-            @ApiResponse(responseCode = "404", description = "Not Found")
+            @ApiResponse(responseCode = "404", description = "Not Found"),
+            @ApiResponse(responseCode = "412", description = "Product was changed since the If-Match version")
     })
     @PatchMapping("/{id}")
-    public ResponseEntity<ProductDto> updateProduct(@PathVariable Long id, @RequestBody @Valid ProductDto dto, @AuthenticationPrincipal CustomerDetails details){
-        return ResponseEntity.ok(service.udpateProduct(id,dto,details.getUsername()));
+    public ResponseEntity<ProductDto> updateProduct(@PathVariable Long id, @RequestBody @Valid ProductDto dto,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                    @AuthenticationPrincipal CustomerDetails details){
+        return withETag(service.udpateProduct(id,dto,expectedVersion(ifMatch),CurrentUser.from(details.getUser())));
+    }
+
+    private static ResponseEntity<ProductDto> withETag(ProductDto product){
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if(product.getVersion() != null){
+            response.eTag(String.valueOf(product.getVersion()));
+        }
+        return response.body(product);
+    }
+
+    //Reads the version out of an If-Match header such as "3" or W/"3", * or no header means any version
+    private static Long expectedVersion(String ifMatch){
+        if(ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")){
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if(tag.startsWith("W/")){
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        try{
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e){
+            throw new InvalidRequestException("If-Match must be a single product ETag");
+        }
     }
 
 
+    @Operation(summary = "Adjusts the stock of a product",
+            description = "Adds delta units, or removes them when delta is negative, in one atomic update. Returns the new level")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "New stock level"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"),
+            @ApiResponse(responseCode = "404", description = "Not Found"),
+            @ApiResponse(responseCode = "409", description = "Not enough stock")
+    })
+    @PostMapping("/{id}/stock")
+    public ResponseEntity<StockLevel> adjustStock(@PathVariable Long id, @RequestBody @Valid StockAdjustment adjustment, @AuthenticationPrincipal CustomerDetails details){
+        return ResponseEntity.ok(service.adjustStock(id,adjustment.getDelta(),CurrentUser.from(details.getUser())));
+    }
+
+    @Operation(summary = "Retrieves the stock movements of a product",
+            description = "Every change of the product's quantity with its reason and who made it, newest first. "
+                    + "Pass an empty before parameter for the latest movements, then the nextCursor of each response")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of movements and the cursor of the next (older) page"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"),
+            @ApiResponse(responseCode = "404", description = "Not Found")
+    })
+    @GetMapping("/{id}/movements")
+    public ResponseEntity<CursorResponse<StockMovementDto>> getMovements(@PathVariable Long id,
+                                                                         @RequestParam(required = false) String before,
+                                                                         @RequestParam(defaultValue = "50") int size,
+                                                                         @AuthenticationPrincipal CustomerDetails details){
+        return ResponseEntity.ok(service.getMovements(id,before,size,CurrentUser.from(details.getUser())));
+    }
+
+    @Operation(summary = "Retrieves the stock level history of a product",
+            description = "The min, max and last quantity of every minute, hour or day bucket in the range that saw a change, oldest first. "
+                    + "from and to are ISO-8601 instants; without them the range ends now and spans a day of minutes, 30 days of hours or a year of days")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock level history"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"),
+            @ApiResponse(responseCode = "404", description = "Not Found")
+    })
+    @GetMapping("/{id}/history")
+    public ResponseEntity<StockHistory> getHistory(@PathVariable Long id,
+                                                   @RequestParam(required = false) Instant from,
+                                                   @RequestParam(required = false) Instant to,
+                                                   @RequestParam(defaultValue = "hour") String resolution,
+                                                   @AuthenticationPrincipal CustomerDetails details){
+        return ResponseEntity.ok(service.getHistory(id,from,to,resolution,CurrentUser.from(details.getUser())));
+    }
+
+    @Operation(summary = "Sets the reorder threshold of a product",
+            description = "The product shows on the low stock watchlist while its quantity is at or below the threshold. A null threshold takes it off")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock and threshold of the product"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"),
+            @ApiResponse(responseCode = "404", description = "Not Found")
+    })
+    @PutMapping("/{id}/reorder-threshold")
+    public ResponseEntity<ReorderLevel> setReorderThreshold(@PathVariable Long id, @RequestBody @Valid ReorderThresholdRequest request, @AuthenticationPrincipal CustomerDetails details){
+        return ResponseEntity.ok(service.setReorderThreshold(id,request.getThreshold(),CurrentUser.from(details.getUser())));
+    }
+
+    @Operation(summary = "Reserves stock of a product",
+            description = "Holds quantity units for ttlSeconds without changing the stock. Confirm the reservation to take them off the stock, or release it")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Reservation placed"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"),
+            @ApiResponse(responseCode = "404", description = "Not Found"),
+            @ApiResponse(responseCode = "409", description = "Not enough stock available")
+    })
+    @PostMapping("/{id}/reservations")
+    public ResponseEntity<ReservationDto> reserveStock(@PathVariable Long id, @RequestBody @Valid ReservationRequest request, @AuthenticationPrincipal CustomerDetails details){
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(reservations.reserve(id,request.getQuantity(),request.getTtlSeconds(),CurrentUser.from(details.getUser())));
+    }
+
+    @Operation(summary = "Confirms a reservation", description = "Takes the reserved units off the stock of the product")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reservation confirmed"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"),
+            @ApiResponse(responseCode = "404", description = "Reservation not found or expired"),
+            @ApiResponse(responseCode = "409", description = "Stock was reduced below the reservation")
+    })
+    @PostMapping("/{id}/reservations/{reservationId}/confirm")
+    public ResponseEntity<ReservationDto> confirmReservation(@PathVariable Long id, @PathVariable UUID reservationId, @AuthenticationPrincipal CustomerDetails details){
+        return ResponseEntity.ok(reservations.confirm(id,reservationId,CurrentUser.from(details.getUser())));
+    }
+
+    @Operation(summary = "Releases a reservation", description = "The reserved units become available again")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reservation released"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"),
+            @ApiResponse(responseCode = "404", description = "Reservation not found or expired")
+    })
+    @DeleteMapping("/{id}/reservations/{reservationId}")
+    public ResponseEntity<ReservationDto> releaseReservation(@PathVariable Long id, @PathVariable UUID reservationId, @AuthenticationPrincipal CustomerDetails details){
+        return ResponseEntity.ok(reservations.release(id,reservationId,CurrentUser.from(details.getUser())));
+    }
+
+    @Operation(summary = "Retrieves the availability of a product", description = "The stock, the units held by reservations and what is left")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Availability of the product"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"),
+            @ApiResponse(responseCode = "404", description = "Not Found")
+    })
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<Availability> getAvailability(@PathVariable Long id, @AuthenticationPrincipal CustomerDetails details){
+        return ResponseEntity.ok(reservations.availability(id,CurrentUser.from(details.getUser())));
+    }
+
     @Operation(summary = "Deletes Product")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Product was returned"),
@@ -72,19 +417,27 @@ public class ProductController {
     })
     @DeleteMapping("/{id}")
     public ResponseEntity<Boolean> deleteProd(@PathVariable Long id, @AuthenticationPrincipal CustomerDetails customerDetails){
-        return ResponseEntity.ok(service.deleteProduct(id, customerDetails.getUsername()));
+        return ResponseEntity.ok(service.deleteProduct(id, CurrentUser.from(customerDetails.getUser())));
     }
 
 
+    @Operation(summary = "Retrieves a page of products",
+            description = "minPrice, maxPrice, minQty, maxQty, createdFrom and createdTo narrow the listing, every bound is inclusive. sortBy is one of name, quantity, price, created or id")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of products"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden")
+    })
     @GetMapping
     public ResponseEntity<PaginatedResponse<ProductDto>> getAllProductsByUser(@AuthenticationPrincipal CustomerDetails customerDetails,
                                                                   @RequestParam(defaultValue = "0") int page,
                                                                   @RequestParam(defaultValue = "5") int size,
                                                                   @RequestParam(defaultValue = "name") String sortBy,
                                                                   @RequestParam(defaultValue = "asc") String direction,
-                                                                  @RequestParam(required = false) String search){
+                                                                  @RequestParam(required = false) String search,
+                                                                  @ParameterObject ProductFilter filter){
 
-        Page<ProductDto> productDtoPage = service.getAllUserProductsByUsername(customerDetails.getUsername(),page,size,sortBy,direction,search);
+        Page<ProductDto> productDtoPage = service.getAllUserProducts(CurrentUser.from(customerDetails.getUser()),page,size,sortBy,direction,search,filter);
 
         PaginatedResponse<ProductDto> response = new PaginatedResponse<>(
                 productDtoPage.getContent(),
@@ -97,4 +450,51 @@ public class ProductController {
         return ResponseEntity.ok().body(response);
 
     }
+
+    @Operation(summary = "Retrieves a slice of products without totals",
+            description = "Same as the paginated listing but only reports whether there is a next page, so no rows are counted")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Slice of products"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden")
+    })
+    //A cursor request that also says slice=true goes to the cursor listing, both mappings would match it otherwise
+    @GetMapping(params = {"slice=true", "!after"})
+    public ResponseEntity<SliceResponse<ProductDto>> getProductSliceByUser(@AuthenticationPrincipal CustomerDetails customerDetails,
+                                                                          @RequestParam(defaultValue = "0") int page,
+                                                                          @RequestParam(defaultValue = "5") int size,
+                                                                          @RequestParam(defaultValue = "name") String sortBy,
+                                                                          @RequestParam(defaultValue = "asc") String direction,
+                                                                          @RequestParam(required = false) String search,
+                                                                          @ParameterObject ProductFilter filter){
+
+        Slice<ProductDto> productDtoSlice = service.getUserProductSlice(CurrentUser.from(customerDetails.getUser()),page,size,sortBy,direction,search,filter);
+
+        SliceResponse<ProductDto> response = new SliceResponse<>(
+                productDtoSlice.getContent(),
+                productDtoSlice.getNumber(),
+                productDtoSlice.getSize(),
+                productDtoSlice.hasNext()
+        );
+
+        return ResponseEntity.ok().body(response);
+    }
+
+    @Operation(summary = "Retrieves products with cursor pagination",
+            description = "Pass an empty after parameter for the first page, then the nextCursor of each response")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of products and the cursor of the next page"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden")
+    })
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorResponse<ProductDto>> getProductsAfter(@AuthenticationPrincipal CustomerDetails customerDetails,
+                                                                       @RequestParam String after,
+                                                                       @RequestParam(defaultValue = "5") int size,
+                                                                       @RequestParam(defaultValue = "name") String sortBy,
+                                                                       @RequestParam(defaultValue = "asc") String direction,
+                                                                       @RequestParam(required = false) String search,
+                                                                       @ParameterObject ProductFilter filter){
+        return ResponseEntity.ok(service.getUserProductsAfter(CurrentUser.from(customerDetails.getUser()),after,size,sortBy,direction,search,filter));
+    }
 }
@@ -0,0 +1,52 @@
+package com.nate.inventorymanagementsystemapi.controller;
+
+import com.nate.inventorymanagementsystemapi.dto.ReportJobDto;
+import com.nate.inventorymanagementsystemapi.dto.ReportRequest;
+import com.nate.inventorymanagementsystemapi.service.IReportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.UUID;
+
+@Tag(name = "Report Controller", description = "End points for running admin reports in the background")
+@RestController
+@RequestMapping("/reports")
+@AllArgsConstructor
+public class ReportController {
+
+    private final IReportService service;
+
+    @Operation(summary = "Starts a report",
+            description = "Queues the report and returns its job at once, poll GET /reports/{id} for the result. An equal report on unchanged data returns the same job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Report queued, returns the job"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"),
+            @ApiResponse(responseCode = "503", description = "Too many reports queued")
+    })
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping
+    public ResponseEntity<ReportJobDto> submitReport(@RequestBody ReportRequest request){
+        ReportJobDto job = service.submit(request);
+        return ResponseEntity.accepted().location(URI.create("/reports/" + job.id())).body(job);
+    }
+
+    @Operation(summary = "Getting a report job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "returns the job, with the result once it is DONE"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"),
+            @ApiResponse(responseCode = "404", description = "Not Found")
+    })
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/{id}")
+    public ResponseEntity<ReportJobDto> getReport(@PathVariable UUID id){
+        return ResponseEntity.ok(service.getJob(id));
+    }
+}
@@ -1,7 +1,9 @@
 package com.nate.inventorymanagementsystemapi.controller;
 
+import com.nate.inventorymanagementsystemapi.cache.CacheStats;
 import com.nate.inventorymanagementsystemapi.dto.*;
 import com.nate.inventorymanagementsystemapi.exception.UserNotFoundException;
+import com.nate.inventorymanagementsystemapi.model.Role;
 import com.nate.inventorymanagementsystemapi.model.User;
 import com.nate.inventorymanagementsystemapi.service.IUserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -103,4 +105,30 @@ public class UserController {
         return ResponseEntity.ok(service.deleteUser(username));
     }
 
+    @Operation(summary = "Changing the role of a user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "returns the updated user"),
+            @ApiResponse(responseCode = "400", description = "Bad Request"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"),
+            @ApiResponse(responseCode = "404", description = "Not Found")
+    })
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PatchMapping("/{username}/role")
+    public ResponseEntity<UserDto> updateRole(@PathVariable String username, @RequestParam Role role){
+        return ResponseEntity.ok(service.updateRole(username, role));
+    }
+
+    @Operation(summary = "Getting user cache statistics")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "returns hit, miss and eviction counts"),
+            @ApiResponse(responseCode = "403", description = "Forbidden")
+    })
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/stats/user-cache")
+    public ResponseEntity<CacheStats> getUserCacheStats(){
+        return ResponseEntity.ok(service.userCacheStats());
+    }
+
 }
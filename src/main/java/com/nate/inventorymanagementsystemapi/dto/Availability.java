@@ -0,0 +1,12 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import lombok.*;
+
+@Data
+@AllArgsConstructor @NoArgsConstructor @Getter @Setter
+public class Availability {
+    private Long productId;
+    private int quantity;
+    private long held;
+    private long available;
+}
@@ -0,0 +1,15 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor @NoArgsConstructor @Getter @Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+    private int index;
+    private Long id;
+    private List<String> errors;
+}
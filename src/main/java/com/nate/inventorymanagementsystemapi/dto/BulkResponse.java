@@ -0,0 +1,12 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import lombok.*;
+
+import java.util.List;
+@Data
+@AllArgsConstructor @NoArgsConstructor @Getter @Setter
+public class BulkResponse {
+    private int created;
+    private int rejected;
+    private List<BulkItemResult> results;
+}
@@ -0,0 +1,25 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import com.nate.inventorymanagementsystemapi.model.ProductChange;
+
+import java.time.Instant;
+
+/**
+ * A product change as sent to {@code GET /product/changes} subscribers
+ *
+ * @param offset the position of the change in the feed, resume after it with Last-Event-ID
+ * @param type what happened to the product
+ * @param productId the id of the product
+ * @param userId the id of the owner of the product
+ * @param quantity the quantity after the change, null when the product was deleted
+ * @param version the version after the change, null when the product was deleted
+ * @param occurredAt when the change was written
+ */
+public record ChangeEvent(long offset, ProductChange.Type type, Long productId, Long userId, Integer quantity,
+                          Long version, Instant occurredAt) {
+
+    public static ChangeEvent of(ProductChange change) {
+        return new ChangeEvent(change.getRelaySeq(), change.getType(), change.getProductId(), change.getUserId(),
+                change.getQuantity(), change.getVersion(), change.getOccurredAt());
+    }
+}
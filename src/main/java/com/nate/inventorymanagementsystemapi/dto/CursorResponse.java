@@ -0,0 +1,12 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import lombok.*;
+
+import java.util.List;
+@Data
+@AllArgsConstructor @NoArgsConstructor @Getter @Setter
+public class CursorResponse<T> {
+    private List<T> data;
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,12 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import java.util.List;
+
+/**
+ * A line of an import file that was rejected
+ *
+ * @param line the 1-based line number in the file
+ * @param errors why the line was rejected
+ */
+public record ImportRowError(long line, List<String> errors) {
+}
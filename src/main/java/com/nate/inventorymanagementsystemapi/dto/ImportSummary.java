@@ -0,0 +1,14 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Last line of an import report
+ *
+ * @param imported how many products were saved
+ * @param rejected how many lines were rejected
+ * @param error why the import stopped early, null if the whole file was read
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ImportSummary(long imported, long rejected, String error) {
+}
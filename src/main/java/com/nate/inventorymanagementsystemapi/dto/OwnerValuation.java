@@ -0,0 +1,15 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * A row of the valuation report: the stock of one owner
+ *
+ * @param userId the id of the owner
+ * @param username the username of the owner
+ * @param skus the number of products
+ * @param units the sum of their quantities
+ * @param value the sum of quantity * price
+ */
+public record OwnerValuation(Long userId, String username, long skus, long units, BigDecimal value) {
+}
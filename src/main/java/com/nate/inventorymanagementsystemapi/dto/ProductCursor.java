@@ -0,0 +1,49 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
+import com.nate.inventorymanagementsystemapi.repository.ProductSortField;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a keyset listing: the sort settings plus the sort key and id of the last row returned.
+ * Clients only ever see it as an opaque string.
+ *
+ * @param sortBy the field the listing is sorted by
+ * @param descending whether the listing is sorted descending
+ * @param key the sort key of the last row, as a string
+ * @param id the id of the last row, used as tie breaker
+ */
+public record ProductCursor(ProductSortField sortBy, boolean descending, String key, Long id) {
+
+    public String encode() {
+        String raw = sortBy.name() + ":" + (descending ? "desc" : "asc") + ":" + id + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a cursor previously returned by {@link #encode()}
+     *
+     * @param cursor the opaque cursor
+     * @return the decoded {@link ProductCursor}
+     * @throws InvalidRequestException if the cursor was not produced by this API
+     */
+    public static ProductCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            //The key goes last so it may itself contain ':'
+            String[] parts = raw.split(":", 4);
+            ProductSortField sortBy = ProductSortField.valueOf(parts[0]);
+            ProductCursor decoded = new ProductCursor(sortBy, parts[1].equals("desc"), parts[3], Long.valueOf(parts[2]));
+            decoded.keyValue();
+            return decoded;
+        } catch (RuntimeException e) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+    }
+
+    public Comparable<?> keyValue() {
+        return sortBy.parse(key);
+    }
+}
@@ -1,5 +1,10 @@
 package com.nate.inventorymanagementsystemapi.dto;
 
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -11,9 +16,17 @@ import java.time.Instant;
 @Setter @Getter @AllArgsConstructor @NoArgsConstructor
 public class ProductDto {
     private Long id;
+    @NotBlank(message = "Product name cannot be empty")
     private String name;
+    @Min(value = 0, message = "Quantity cannot be negative")
     private int quantity;
+    @NotNull(message = "Price cannot be null")
+    @Positive(message = "Price must be greater than 0")
+    //Same floor as Product.price, PATCH writes with an UPDATE so the entity constraint never runs
+    @DecimalMin(value = "1", message = "Price must be at least 1")
     private BigDecimal price;
     private Long userId;
     private Instant createdAt;
+    //Changes with every write, also sent as the ETag
+    private Long version;
 }
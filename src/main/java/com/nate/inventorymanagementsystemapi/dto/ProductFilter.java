@@ -0,0 +1,50 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Range filters of the product listings, every bound is inclusive and optional
+ *
+ * @param minPrice the lowest price
+ * @param maxPrice the highest price
+ * @param minQty the lowest quantity
+ * @param maxQty the highest quantity
+ * @param createdFrom the earliest creation time
+ * @param createdTo the latest creation time
+ */
+public record ProductFilter(BigDecimal minPrice, BigDecimal maxPrice, Integer minQty, Integer maxQty,
+                            Instant createdFrom, Instant createdTo) {
+
+    public static final ProductFilter NONE = new ProductFilter(null, null, null, null, null, null);
+
+    /**
+     * @return whether no bound is set
+     */
+    public boolean isEmpty() {
+        return equals(NONE);
+    }
+
+    /**
+     * @throws InvalidRequestException if a bound is negative or a range is empty
+     */
+    public void validate() {
+        if ((minQty != null && minQty < 0) || (maxQty != null && maxQty < 0)) {
+            throw new InvalidRequestException("minQty and maxQty must not be negative");
+        }
+        if ((minPrice != null && minPrice.signum() < 0) || (maxPrice != null && maxPrice.signum() < 0)) {
+            throw new InvalidRequestException("minPrice and maxPrice must not be negative");
+        }
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new InvalidRequestException("minPrice must not be above maxPrice");
+        }
+        if (minQty != null && maxQty != null && minQty > maxQty) {
+            throw new InvalidRequestException("minQty must not be above maxQty");
+        }
+        if (createdFrom != null && createdTo != null && createdFrom.isAfter(createdTo)) {
+            throw new InvalidRequestException("createdFrom must not be after createdTo");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Stock totals of a set of products
+ *
+ * @param skus the number of products
+ * @param units the sum of their quantities
+ * @param value the sum of quantity * price
+ */
+public record ProductSummary(long skus, long units, BigDecimal value) {
+
+    public static final ProductSummary EMPTY = new ProductSummary(0, 0, BigDecimal.ZERO);
+
+    public ProductSummary plus(long skus, long units, BigDecimal value) {
+        return new ProductSummary(this.skus + skus, this.units + units, this.value.add(value));
+    }
+}
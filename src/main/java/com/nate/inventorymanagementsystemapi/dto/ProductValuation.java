@@ -0,0 +1,19 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A row of the top value and stale stock reports
+ *
+ * @param id the id of the product
+ * @param userId the id of the owner
+ * @param name the name of the product
+ * @param quantity the units in stock
+ * @param price the price of one unit
+ * @param value quantity * price
+ * @param created when the product was created
+ */
+public record ProductValuation(Long id, Long userId, String name, int quantity, BigDecimal price, BigDecimal value,
+                               Instant created) {
+}
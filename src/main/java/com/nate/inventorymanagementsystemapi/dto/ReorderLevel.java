@@ -0,0 +1,17 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+/**
+ * Stock of a product against its reorder threshold
+ *
+ * @param productId the id of the product
+ * @param userId the id of the owner of the product
+ * @param name the name of the product
+ * @param quantity the units in stock
+ * @param threshold the product is low on stock at or below this quantity, null when it is not watched
+ */
+public record ReorderLevel(Long productId, Long userId, String name, int quantity, Integer threshold) {
+
+    public boolean isLow() {
+        return threshold != null && quantity <= threshold;
+    }
+}
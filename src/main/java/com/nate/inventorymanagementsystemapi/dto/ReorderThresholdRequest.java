@@ -0,0 +1,17 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @NoArgsConstructor
+@AllArgsConstructor @Setter
+@Schema(description = "Reorder threshold request")
+public class ReorderThresholdRequest {
+    @Schema(description = "The product is low on stock at or below this quantity, null to stop watching it", example = "5")
+    @Min(value = 0, message = "Threshold must not be negative")
+    private Integer threshold;
+}
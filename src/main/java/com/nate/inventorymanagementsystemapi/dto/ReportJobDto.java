@@ -0,0 +1,23 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.nate.inventorymanagementsystemapi.report.ReportParams;
+import com.nate.inventorymanagementsystemapi.report.ReportStatus;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * @param id the id to poll the job with
+ * @param params what the job computes
+ * @param status where the job is
+ * @param dataVersion the data version the job was submitted at, equal requests on the same version share the job
+ * @param submittedAt when the job was submitted
+ * @param completedAt when the job finished, null while it runs
+ * @param result the rows of the report once it is done
+ * @param error why the job failed
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ReportJobDto(UUID id, ReportParams params, ReportStatus status, long dataVersion, Instant submittedAt,
+                           Instant completedAt, Object result, String error) {
+}
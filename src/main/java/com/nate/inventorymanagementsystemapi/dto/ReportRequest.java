@@ -0,0 +1,9 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+/**
+ * @param report valuation, top-value or stale-stock
+ * @param limit the most rows returned, null for the default
+ * @param olderThanDays for stale-stock, the age in days past which stock is stale, null for the default
+ */
+public record ReportRequest(String report, Integer limit, Integer olderThanDays) {
+}
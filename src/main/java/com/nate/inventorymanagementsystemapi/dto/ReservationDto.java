@@ -0,0 +1,19 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import com.nate.inventorymanagementsystemapi.reservation.ReservationStatus;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor @NoArgsConstructor @Getter @Setter
+public class ReservationDto {
+    private UUID id;
+    private Long productId;
+    private int quantity;
+    private ReservationStatus status;
+    private Instant expiresAt;
+    //Units of the product still available after this operation
+    private long available;
+}
@@ -0,0 +1,22 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @NoArgsConstructor
+@AllArgsConstructor @Setter
+@Schema(description = "Stock reservation request")
+public class ReservationRequest {
+    @Schema(description = "Units to hold", example = "2")
+    @NotNull(message = "Quantity is required")
+    @Min(1)
+    private Integer quantity;
+    @Schema(description = "How long the hold lasts, the configured default when left out", example = "600")
+    @Min(1)
+    private Integer ttlSeconds;
+}
@@ -0,0 +1,13 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import lombok.*;
+
+import java.util.List;
+@Data
+@AllArgsConstructor @NoArgsConstructor @Getter @Setter
+public class SliceResponse<T> {
+    private List<T> data;
+    private int currentPage;
+    private int pageSize;
+    private boolean hasNext;
+}
@@ -0,0 +1,17 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @NoArgsConstructor
+@AllArgsConstructor @Setter
+@Schema(description = "Stock adjustment request")
+public class StockAdjustment {
+    @Schema(description = "Units to add, negative to remove", example = "-2")
+    @NotNull(message = "Delta is required")
+    private Integer delta;
+}
@@ -0,0 +1,20 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import com.nate.inventorymanagementsystemapi.model.StockRollup;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The stock level of a product over a time range. Buckets without a change have no point.
+ *
+ * @param productId the id of the product
+ * @param resolution the size of the buckets
+ * @param from the start of the range, inclusive
+ * @param to the end of the range, exclusive
+ * @param opening the quantity the product had at {@code from}, null when no earlier level is kept
+ * @param points the buckets with a change, oldest first
+ */
+public record StockHistory(Long productId, StockRollup.Resolution resolution, Instant from, Instant to,
+                           Integer opening, List<StockHistoryPoint> points) {
+}
@@ -0,0 +1,14 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import java.time.Instant;
+
+/**
+ * The stock level of a product over one bucket of its history
+ *
+ * @param bucket the start of the bucket
+ * @param min the lowest quantity in the bucket
+ * @param max the highest quantity in the bucket
+ * @param last the quantity at the end of the bucket, it holds until the next bucket with a point
+ */
+public record StockHistoryPoint(Instant bucket, int min, int max, int last) {
+}
@@ -0,0 +1,10 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import lombok.*;
+
+@Data
+@AllArgsConstructor @NoArgsConstructor @Getter @Setter
+public class StockLevel {
+    private Long productId;
+    private int quantity;
+}
@@ -0,0 +1,20 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import com.nate.inventorymanagementsystemapi.model.StockMovement;
+
+import java.time.Instant;
+
+/**
+ * A stock movement of a product
+ *
+ * @param id the id of the movement, later movements of a product have higher ids
+ * @param productId the id of the product
+ * @param delta the units added, negative when removed
+ * @param quantity the quantity the movement left
+ * @param reason what moved the stock
+ * @param actorId the id of the user who moved it, null for hot product flushes
+ * @param occurredAt when the movement was written
+ */
+public record StockMovementDto(Long id, Long productId, int delta, int quantity, StockMovement.Reason reason,
+                               Long actorId, Instant occurredAt) {
+}
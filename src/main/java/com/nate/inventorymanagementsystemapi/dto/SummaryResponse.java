@@ -0,0 +1,11 @@
+package com.nate.inventorymanagementsystemapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * @param user the totals of the caller's own products
+ * @param global the totals of every product, only for Admin
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SummaryResponse(ProductSummary user, ProductSummary global) {
+}
@@ -0,0 +1,22 @@
+package com.nate.inventorymanagementsystemapi.event;
+
+import java.math.BigDecimal;
+
+/**
+ * Published with every write that changes how many products a user has, their stock or its value, carrying the
+ * change rather than the new state. The in-memory totals add it up after the surrounding transaction commits.
+ *
+ * @param userId the id of the owner of the products
+ * @param skus the change in the number of products
+ * @param units the change in the sum of the quantities
+ * @param value the change in the sum of quantity * price
+ */
+public record InventoryChangedEvent(Long userId, long skus, long units, BigDecimal value) {
+
+    /**
+     * @return the stock value of quantity units at the price, zero when there is no price
+     */
+    public static BigDecimal valueOf(long quantity, BigDecimal price) {
+        return price == null ? BigDecimal.ZERO : price.multiply(BigDecimal.valueOf(quantity));
+    }
+}
@@ -0,0 +1,20 @@
+package com.nate.inventorymanagementsystemapi.event;
+
+/**
+ * Published by the product service whenever a product is created, updated or deleted.
+ * In-memory views listen for it after the surrounding transaction commits, so they never
+ * see a change that was rolled back.
+ *
+ * @param type what happened to the product
+ * @param productId the id of the product
+ * @param userId the id of the owner of the product
+ * @param name the name of the product after the change, null when it was deleted
+ */
+public record ProductChangedEvent(Type type, Long productId, Long userId, String name) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
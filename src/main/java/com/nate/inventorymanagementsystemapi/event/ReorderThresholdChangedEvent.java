@@ -0,0 +1,15 @@
+package com.nate.inventorymanagementsystemapi.event;
+
+/**
+ * Published when the reorder threshold of a product is set or cleared, with the product at the version the change
+ * was written against.
+ *
+ * @param productId the id of the product
+ * @param userId the id of the owner of the product
+ * @param name the name of the product
+ * @param quantity the quantity of the product
+ * @param version the version of the product, the threshold is not part of it
+ * @param threshold the new threshold, null when the product is no longer watched
+ */
+public record ReorderThresholdChangedEvent(Long productId, Long userId, String name, int quantity, long version, Integer threshold) {
+}
@@ -0,0 +1,14 @@
+package com.nate.inventorymanagementsystemapi.event;
+
+/**
+ * Published with every write that changes the quantity of a single product, carrying the level it left and the
+ * version of the row that holds it, so listeners can drop a level older than one they already have.
+ *
+ * @param productId the id of the product
+ * @param userId the id of the owner of the product
+ * @param name the name of the product after the change, null when the write did not set it
+ * @param quantity the quantity after the change
+ * @param version the version of the product after the change
+ */
+public record StockLevelChangedEvent(Long productId, Long userId, String name, int quantity, long version) {
+}
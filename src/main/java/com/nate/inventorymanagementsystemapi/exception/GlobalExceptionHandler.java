@@ -32,6 +32,18 @@ public class GlobalExceptionHandler {
         return new ApiError(Instant.now(),404,"Not Found", ex.getMessage(),req.getRequestURI());
     }
 
+    @ExceptionHandler(ReservationNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ApiError handleReservationNotFound(ReservationNotFoundException ex, jakarta.servlet.http.HttpServletRequest req){
+        return new ApiError(Instant.now(),404,"Not Found",ex.getMessage(),req.getRequestURI());
+    }
+
+    @ExceptionHandler(ReportNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ApiError handleReportNotFound(ReportNotFoundException ex, jakarta.servlet.http.HttpServletRequest req){
+        return new ApiError(Instant.now(),404,"Not Found",ex.getMessage(),req.getRequestURI());
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     @ResponseStatus(HttpStatus.FORBIDDEN)
     public ApiError handleAccessDenied(AccessDeniedException ex, jakarta.servlet.http.HttpServletRequest req){
@@ -61,6 +73,30 @@ public class GlobalExceptionHandler {
         return new ApiError(Instant.now(),400,"Bad Request",ex.getMessage(),req.getRequestURI());
     }
 
+    @ExceptionHandler(InvalidRequestException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiError handleInvalidRequest(InvalidRequestException ex, jakarta.servlet.http.HttpServletRequest req){
+        return new ApiError(Instant.now(),400,"Bad Request",ex.getMessage(),req.getRequestURI());
+    }
+
+    @ExceptionHandler(InsufficientStockException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApiError handleInsufficientStock(InsufficientStockException ex, jakarta.servlet.http.HttpServletRequest req){
+        return new ApiError(Instant.now(),409,"Conflict",ex.getMessage(),req.getRequestURI());
+    }
+
+    @ExceptionHandler(ProductVersionConflictException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ApiError handleVersionConflict(ProductVersionConflictException ex, jakarta.servlet.http.HttpServletRequest req){
+        return new ApiError(Instant.now(),412,"Precondition Failed",ex.getMessage(),req.getRequestURI());
+    }
+
+    @ExceptionHandler(ReportQueueFullException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApiError handleReportQueueFull(ReportQueueFullException ex, jakarta.servlet.http.HttpServletRequest req){
+        return new ApiError(Instant.now(),503,"Service Unavailable",ex.getMessage(),req.getRequestURI());
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ApiError handleException(Exception ex, jakarta.servlet.http.HttpServletRequest req){
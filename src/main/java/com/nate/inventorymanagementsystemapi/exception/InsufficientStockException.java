@@ -0,0 +1,7 @@
+package com.nate.inventorymanagementsystemapi.exception;
+
+public class InsufficientStockException extends RuntimeException {
+    public InsufficientStockException(Long id, int delta) {
+        super("Product with ID " + id + " does not have enough stock to remove " + Math.abs(delta));
+    }
+}
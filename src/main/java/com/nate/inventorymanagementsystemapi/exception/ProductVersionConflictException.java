@@ -0,0 +1,7 @@
+package com.nate.inventorymanagementsystemapi.exception;
+
+public class ProductVersionConflictException extends RuntimeException {
+    public ProductVersionConflictException(Long id, long expected, Long actual) {
+        super("Product with ID " + id + " was changed: expected version " + expected + " but it is " + actual);
+    }
+}
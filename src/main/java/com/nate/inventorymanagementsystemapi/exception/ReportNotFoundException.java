@@ -0,0 +1,9 @@
+package com.nate.inventorymanagementsystemapi.exception;
+
+import java.util.UUID;
+
+public class ReportNotFoundException extends RuntimeException {
+    public ReportNotFoundException(UUID id) {
+        super("Report " + id + " was not found or has expired");
+    }
+}
@@ -0,0 +1,7 @@
+package com.nate.inventorymanagementsystemapi.exception;
+
+public class ReportQueueFullException extends RuntimeException {
+    public ReportQueueFullException() {
+        super("Too many reports are queued, try again later");
+    }
+}
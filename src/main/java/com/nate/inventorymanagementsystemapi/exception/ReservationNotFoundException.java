@@ -0,0 +1,9 @@
+package com.nate.inventorymanagementsystemapi.exception;
+
+import java.util.UUID;
+
+public class ReservationNotFoundException extends RuntimeException {
+    public ReservationNotFoundException(UUID id) {
+        super("Reservation " + id + " was not found or has expired");
+    }
+}
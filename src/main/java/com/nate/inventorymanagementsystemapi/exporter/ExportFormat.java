@@ -0,0 +1,42 @@
+package com.nate.inventorymanagementsystemapi.exporter;
+
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
+
+import java.util.Locale;
+
+/**
+ * File formats the product export can write
+ */
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @param value the format name, case is ignored
+     * @return the matching format
+     * @throws InvalidRequestException if the format is not supported
+     */
+    public static ExportFormat from(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new InvalidRequestException("Unsupported export format: " + value + ", use csv or ndjson");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.nate.inventorymanagementsystemapi.exporter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nate.inventorymanagementsystemapi.dto.ProductDto;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes exported products to a stream one row at a time. CSV output starts with a header line and uses the
+ * same columns {@code POST /product/import} reads, so an export can be imported again.
+ */
+public class ProductExportWriter {
+
+    private static final String CSV_HEADER = "id,name,quantity,price,userId,createdAt";
+
+    private final Writer writer;
+    private final ExportFormat format;
+    private final ObjectMapper mapper;
+
+    public ProductExportWriter(OutputStream out, ExportFormat format, ObjectMapper mapper) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.format = format;
+        this.mapper = mapper;
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * @param product the row to write
+     * @throws UncheckedIOException if the client went away
+     */
+    public void write(ProductDto product) {
+        try {
+            if (format == ExportFormat.CSV) {
+                writer.write(String.valueOf(product.getId()));
+                writer.write(',');
+                writer.write(csvField(product.getName()));
+                writer.write(',');
+                writer.write(String.valueOf(product.getQuantity()));
+                writer.write(',');
+                writer.write(product.getPrice() == null ? "" : product.getPrice().toPlainString());
+                writer.write(',');
+                writer.write(String.valueOf(product.getUserId()));
+                writer.write(',');
+                writer.write(product.getCreatedAt() == null ? "" : product.getCreatedAt().toString());
+            } else {
+                writer.write(mapper.writeValueAsString(product));
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    //Quotes a field only when it holds a separator, a quote or a line break
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
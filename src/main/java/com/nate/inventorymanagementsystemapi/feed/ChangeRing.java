@@ -0,0 +1,81 @@
+package com.nate.inventorymanagementsystemapi.feed;
+
+import com.nate.inventorymanagementsystemapi.dto.ChangeEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Fixed size ring of the latest changes of the feed. Offsets are dense, so the slot of an offset is the offset
+ * modulo the capacity and resuming after any offset still in the ring needs no search. Appending past the capacity
+ * overwrites the oldest change.
+ */
+public class ChangeRing {
+
+    private final ChangeEvent[] slots;
+    //Offset of the newest change, and of the oldest one still held
+    private long last;
+    private long first = 1;
+
+    public ChangeRing(int capacity) {
+        this.slots = new ChangeEvent[capacity];
+    }
+
+    /**
+     * Empties the ring and sets where it continues from, the changes must follow each other
+     *
+     * @param changes the latest changes, in offset order
+     * @param lastOffset the offset of the newest change relayed so far
+     */
+    public synchronized void reset(List<ChangeEvent> changes, long lastOffset) {
+        Arrays.fill(slots, null);
+        last = lastOffset;
+        first = lastOffset + 1;
+        for (ChangeEvent change : changes) {
+            if (change.offset() > lastOffset - slots.length) {
+                slots[slot(change.offset())] = change;
+                first = Math.min(first, change.offset());
+            }
+        }
+    }
+
+    /**
+     * @param change the next change, its offset must be the last offset + 1
+     */
+    public synchronized void append(ChangeEvent change) {
+        if (change.offset() != last + 1) {
+            throw new IllegalArgumentException("Expected offset " + (last + 1) + " but got " + change.offset());
+        }
+        slots[slot(change.offset())] = change;
+        last = change.offset();
+        first = Math.max(first, last - slots.length + 1);
+    }
+
+    /**
+     * The changes after an offset
+     *
+     * @param after the offset the reader has seen, 0 for the start of the feed
+     * @param limit the most changes to return
+     * @return the changes in offset order, or empty if changes after the offset are no longer held
+     */
+    public synchronized Optional<List<ChangeEvent>> after(long after, int limit) {
+        if (after < first - 1 || after > last) {
+            return Optional.empty();
+        }
+        List<ChangeEvent> changes = new ArrayList<>((int) Math.min(limit, last - after));
+        for (long offset = after + 1; offset <= last && changes.size() < limit; offset++) {
+            changes.add(slots[slot(offset)]);
+        }
+        return Optional.of(changes);
+    }
+
+    public synchronized long last() {
+        return last;
+    }
+
+    private int slot(long offset) {
+        return (int) (offset % slots.length);
+    }
+}
@@ -0,0 +1,239 @@
+package com.nate.inventorymanagementsystemapi.feed;
+
+import com.nate.inventorymanagementsystemapi.dto.ChangeEvent;
+import com.nate.inventorymanagementsystemapi.repository.ProductOutbox;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes product changes to Server-Sent Events subscribers, so clients stop polling {@code GET /product}.
+ * <p>
+ * A relay reads the {@link ProductOutbox} every {@code relay-ms}, numbers the new changes, appends them to a
+ * {@link ChangeRing} of the latest {@code buffer-size} changes and sends them to every subscriber. A subscriber
+ * resumes after the offset it last saw (its {@code Last-Event-ID}); when that is no longer in the ring it gets a
+ * {@code reset} event and should reload before following the feed again. The ring is refilled from the outbox on
+ * startup, so offsets survive a restart. The outbox is numbered by this instance's relay, so only run one.
+ * <p>
+ * The sends run on {@code sender-threads} threads of their own, never on the shared scheduler thread. A subscriber
+ * is queued at most once at a time, so a slow one holds up a single sender and none of the scheduled jobs.
+ */
+@Component
+public class ProductChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeFeed.class);
+
+    //Deliveries are coalesced per subscriber, so the queue only fills when every sender is stuck and heartbeats pile up
+    private static final int SEND_QUEUE_SIZE = 10_000;
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        //Null when the subscriber sees every user's changes
+        final Long ownerId;
+        //The last offset sent, only used while holding the subscriber's lock
+        long cursor;
+        //Set while a delivery is queued for a sender thread
+        final AtomicBoolean queued = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter, Long ownerId, long cursor) {
+            this.emitter = emitter;
+            this.ownerId = ownerId;
+            this.cursor = cursor;
+        }
+    }
+
+    private final ProductOutbox outbox;
+    private final ChangeRing ring;
+    private final int bufferSize;
+    private final int batchSize;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor senders;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    //Set when a delivery could not be queued, so the next relay queues every subscriber even without new changes
+    private final AtomicBoolean skipped = new AtomicBoolean();
+    //Offset of the last relayed change, only used by the relay
+    private long lastOffset;
+
+    public ProductChangeFeed(ProductOutbox outbox,
+                             @Value("${inventory.changes.buffer-size:10000}") int bufferSize,
+                             @Value("${inventory.changes.relay-batch-size:500}") int batchSize,
+                             @Value("${inventory.changes.timeout-ms:1800000}") long timeoutMs,
+                             @Value("${inventory.changes.sender-threads:4}") int senderThreads) {
+        this.outbox = outbox;
+        this.ring = new ChangeRing(bufferSize);
+        this.bufferSize = bufferSize;
+        this.batchSize = batchSize;
+        this.timeoutMs = timeoutMs;
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(SEND_QUEUE_SIZE), new CustomizableThreadFactory("change-feed-"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void onReady() {
+        List<ChangeEvent> latest = outbox.latest(bufferSize);
+        lastOffset = latest.isEmpty() ? 0 : latest.get(latest.size() - 1).offset();
+        ring.reset(latest, lastOffset);
+        log.info("Loaded {} product changes into the change feed, last offset {}", latest.size(), lastOffset);
+    }
+
+    /**
+     * Subscribes to the changes after an offset
+     *
+     * @param ownerId only send changes of this user's products, or null for every user
+     * @param after the last offset the subscriber saw, or null to only get changes from now on
+     * @return the emitter the changes are sent to
+     */
+    public SseEmitter subscribe(Long ownerId, Long after) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, ownerId, after == null ? ring.last() : after);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        subscribers.add(subscriber);
+        //Catches up on what it missed, from then on the relay sends it the new changes
+        deliver(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Relays the changes not relayed yet and sends them to the subscribers
+     *
+     * @return the number of changes relayed
+     */
+    @Scheduled(initialDelayString = "${inventory.changes.relay-ms:200}", fixedDelayString = "${inventory.changes.relay-ms:200}")
+    public synchronized int relay() {
+        int relayed = 0;
+        try {
+            List<ChangeEvent> batch;
+            do {
+                batch = outbox.relay(lastOffset, batchSize);
+                for (ChangeEvent change : batch) {
+                    ring.append(change);
+                    lastOffset = change.offset();
+                }
+                relayed += batch.size();
+            } while (batch.size() == batchSize);
+        } catch (RuntimeException e) {
+            //Nothing of the failed batch was committed, the next relay reads it again
+            log.error("Relaying product changes failed after {} changes", relayed, e);
+        }
+
+        if (relayed > 0 || skipped.getAndSet(false)) {
+            subscribers.forEach(this::schedule);
+        }
+        return relayed;
+    }
+
+    /**
+     * Deletes relayed changes that no longer fit in the ring, the outbox only has to refill it on startup
+     */
+    @Scheduled(initialDelayString = "${inventory.changes.purge-ms:60000}", fixedDelayString = "${inventory.changes.purge-ms:60000}")
+    public void purge() {
+        long upTo = ring.last() - bufferSize;
+        if (upTo > 0) {
+            log.debug("Purged {} relayed product changes", outbox.purgeUpTo(upTo));
+        }
+    }
+
+    /**
+     * Keeps idle connections from being closed by proxies and drops subscribers that went away
+     */
+    @Scheduled(fixedDelayString = "${inventory.changes.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            submit(() -> {
+                synchronized (subscriber) {
+                    try {
+                        subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } catch (IOException | IllegalStateException e) {
+                        drop(subscriber);
+                    }
+                }
+            });
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    //Hands the subscriber to a sender thread, unless a delivery to it is already waiting for one
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.queued.compareAndSet(false, true) && !submit(() -> {
+            subscriber.queued.set(false);
+            deliver(subscriber);
+        })) {
+            subscriber.queued.set(false);
+            skipped.set(true);
+        }
+    }
+
+    private boolean submit(Runnable send) {
+        try {
+            senders.execute(send);
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("Every change feed sender is busy, skipping a send");
+            return false;
+        }
+    }
+
+    //Sends the subscriber everything after its cursor, on a sender thread or the subscribing request's thread
+    private void deliver(Subscriber subscriber) {
+        synchronized (subscriber) {
+            try {
+                while (true) {
+                    Optional<List<ChangeEvent>> changes = ring.after(subscriber.cursor, batchSize);
+                    if (changes.isEmpty()) {
+                        //Fell out of the ring: the subscriber has to reload and follows the feed from here
+                        subscriber.cursor = ring.last();
+                        subscriber.emitter.send(SseEmitter.event().name("reset").id(String.valueOf(subscriber.cursor)).data(subscriber.cursor));
+                        continue;
+                    }
+                    if (changes.get().isEmpty()) {
+                        return;
+                    }
+                    for (ChangeEvent change : changes.get()) {
+                        if (subscriber.ownerId == null || subscriber.ownerId.equals(change.userId())) {
+                            subscriber.emitter.send(SseEmitter.event().name("product").id(String.valueOf(change.offset()))
+                                    .data(change, MediaType.APPLICATION_JSON));
+                        }
+                        subscriber.cursor = change.offset();
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                drop(subscriber);
+            }
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.emitter.completeWithError(new IOException("Subscriber went away"));
+    }
+}
@@ -0,0 +1,147 @@
+package com.nate.inventorymanagementsystemapi.history;
+
+import com.nate.inventorymanagementsystemapi.event.ProductChangedEvent;
+import com.nate.inventorymanagementsystemapi.event.StockLevelChangedEvent;
+import com.nate.inventorymanagementsystemapi.model.StockRollup;
+import com.nate.inventorymanagementsystemapi.repository.StockRollupStore;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns the committed stock level changes into the rollups behind {@code GET /product/{id}/history}.
+ * <p>
+ * Every {@link StockLevelChangedEvent} is folded into the pending minute, hour and day bucket of its product, which
+ * only keep the min, max and last quantity, so a burst of changes costs no more than one. Every {@code flush-ms} the
+ * pending buckets are merged into {@code stock_rollup}, one row per bucket, so the history lags by up to that long.
+ * Raw changes are never stored or read back. Buckets past the retention of their resolution are purged every
+ * {@code purge-ms}. The rollups of deleted products are dropped with the next flush.
+ * <p>
+ * Pending buckets belong to this instance and a crash loses them. Buckets are merged, not replaced, so several
+ * instances may flush the same bucket.
+ */
+@Component
+public class StockRollupPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(StockRollupPipeline.class);
+
+    private record Bucket(int min, int max, int last, long version) {
+
+        //Keeps the last quantity of the newer version, events may come in out of commit order
+        Bucket merge(Bucket other) {
+            boolean newer = other.version >= version;
+            return new Bucket(Math.min(min, other.min), Math.max(max, other.max),
+                    newer ? other.last : last, newer ? other.version : version);
+        }
+    }
+
+    private final StockRollupStore store;
+    private final Map<StockRollup.Resolution, Duration> retention = new EnumMap<>(StockRollup.Resolution.class);
+
+    private final Map<StockRollup.Key, Bucket> pending = new ConcurrentHashMap<>();
+    private final Set<Long> deleted = ConcurrentHashMap.newKeySet();
+
+    public StockRollupPipeline(StockRollupStore store,
+                               @Value("${inventory.history.minute-retention-days:2}") int minuteRetentionDays,
+                               @Value("${inventory.history.hour-retention-days:90}") int hourRetentionDays,
+                               @Value("${inventory.history.day-retention-days:1825}") int dayRetentionDays) {
+        this.store = store;
+        retention.put(StockRollup.Resolution.MINUTE, Duration.ofDays(minuteRetentionDays));
+        retention.put(StockRollup.Resolution.HOUR, Duration.ofDays(hourRetentionDays));
+        retention.put(StockRollup.Resolution.DAY, Duration.ofDays(dayRetentionDays));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockLevelChanged(StockLevelChangedEvent event) {
+        record(event.productId(), event.quantity(), event.version(), Instant.now());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.DELETED) {
+            pending.keySet().removeIf(key -> key.getProductId().equals(event.productId()));
+            //Left to the flush, so deletes do not pay for a statement on the rollups
+            deleted.add(event.productId());
+        }
+    }
+
+    /**
+     * Folds a stock level into the pending buckets of every resolution
+     *
+     * @param productId the id of the product
+     * @param quantity the quantity the change left
+     * @param version the version of the product after the change
+     * @param at when the change happened
+     */
+    public void record(Long productId, int quantity, long version, Instant at) {
+        Bucket level = new Bucket(quantity, quantity, quantity, version);
+        for (StockRollup.Resolution resolution : StockRollup.Resolution.values()) {
+            pending.merge(new StockRollup.Key(productId, resolution, resolution.bucketOf(at)), level, Bucket::merge);
+        }
+    }
+
+    /**
+     * Merges the pending buckets into the stored rollups, in one transaction, and drops the rollups of the products
+     * deleted since the last flush
+     */
+    @Scheduled(initialDelayString = "${inventory.history.flush-ms:10000}", fixedDelayString = "${inventory.history.flush-ms:10000}")
+    @PreDestroy
+    public synchronized void flush() {
+        if (!deleted.isEmpty()) {
+            List<Long> ids = List.copyOf(deleted);
+            try {
+                store.deleteProducts(ids);
+                ids.forEach(deleted::remove);
+            } catch (RuntimeException e) {
+                log.error("Dropping the stock rollups of {} deleted products failed, retrying with the next flush", ids.size(), e);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        //Taken out one at a time, so changes recorded meanwhile start a new pending bucket
+        Map<StockRollup.Key, Bucket> taken = new HashMap<>();
+        for (StockRollup.Key key : List.copyOf(pending.keySet())) {
+            Bucket bucket = pending.remove(key);
+            if (bucket != null) {
+                taken.put(key, bucket);
+            }
+        }
+
+        List<StockRollup> rollups = new ArrayList<>(taken.size());
+        taken.forEach((key, bucket) -> rollups.add(new StockRollup(key.getProductId(), key.getResolution(), key.getBucket(),
+                bucket.min(), bucket.max(), bucket.last(), bucket.version())));
+        try {
+            store.merge(rollups);
+            log.debug("Flushed {} stock rollup buckets", rollups.size());
+        } catch (RuntimeException e) {
+            //Put back under anything recorded since, the next flush writes them
+            taken.forEach((key, bucket) -> pending.merge(key, bucket, Bucket::merge));
+            log.error("Flushing {} stock rollup buckets failed, retrying with the next flush", rollups.size(), e);
+        }
+    }
+
+    /**
+     * Deletes the buckets of every resolution that are past its retention
+     */
+    @Scheduled(initialDelayString = "${inventory.history.purge-ms:3600000}", fixedDelayString = "${inventory.history.purge-ms:3600000}")
+    public void purge() {
+        Instant now = Instant.now();
+        retention.forEach((resolution, keep) ->
+                log.debug("Purged {} {} stock rollup buckets", store.purgeBefore(resolution, resolution.bucketOf(now.minus(keep))), resolution));
+    }
+}
@@ -0,0 +1,38 @@
+package com.nate.inventorymanagementsystemapi.importer;
+
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
+
+import java.util.Locale;
+
+/**
+ * File formats accepted by the product import
+ */
+public enum ImportFormat {
+    /** Comma separated, first line is a header naming the name, quantity and price columns */
+    CSV,
+    /** One JSON product object per line */
+    NDJSON;
+
+    public static final String CSV_TYPE = "text/csv";
+    public static final String NDJSON_TYPE = "application/x-ndjson";
+
+    /**
+     * Works out the format from the content type, falling back to the file extension
+     *
+     * @param contentType the content type of the body or file part, may be null
+     * @param filename the name of the uploaded file, may be null
+     * @return the format
+     * @throws InvalidRequestException if neither identifies a supported format
+     */
+    public static ImportFormat detect(String contentType, String filename) {
+        String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        String name = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+        if (type.startsWith(CSV_TYPE) || name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (type.startsWith(NDJSON_TYPE) || type.startsWith("application/jsonl") || name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new InvalidRequestException("Unsupported import format, use CSV (.csv) or NDJSON (.ndjson)");
+    }
+}
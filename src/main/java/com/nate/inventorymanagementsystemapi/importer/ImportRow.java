@@ -0,0 +1,13 @@
+package com.nate.inventorymanagementsystemapi.importer;
+
+import com.nate.inventorymanagementsystemapi.dto.PostProduct;
+
+/**
+ * One parsed line of an import file
+ *
+ * @param line the 1-based line number in the file
+ * @param product the parsed product, null if the line could not be parsed
+ * @param error why the line could not be parsed, null if it was
+ */
+public record ImportRow(long line, PostProduct product, String error) {
+}
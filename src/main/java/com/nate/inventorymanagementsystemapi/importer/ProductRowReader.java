@@ -0,0 +1,198 @@
+package com.nate.inventorymanagementsystemapi.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.nate.inventorymanagementsystemapi.dto.PostProduct;
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads an import file one line at a time, so only the current line is ever held in memory.
+ * Lines that cannot be parsed come back as an {@link ImportRow} with an error instead of failing the import.
+ * <p>
+ * CSV files need a header naming the {@code name}, {@code quantity} and {@code price} columns (any order,
+ * other columns are ignored). Fields may be quoted, with {@code ""} for a quote; a record cannot span lines.
+ * <p>
+ * No line may be longer than {@link #MAX_LINE_LENGTH} characters. A longer row is rejected and skipped without
+ * being buffered, and a longer header fails the import.
+ */
+public class ProductRowReader {
+
+    public static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private static final ObjectReader JSON = new ObjectMapper().readerFor(PostProduct.class);
+
+    private final BufferedReader reader;
+    private final ImportFormat format;
+    private final StringBuilder buffer = new StringBuilder();
+    private long line;
+    private boolean tooLong;
+
+    private int nameColumn = -1;
+    private int quantityColumn = -1;
+    private int priceColumn = -1;
+
+    public ProductRowReader(BufferedReader reader, ImportFormat format) throws IOException {
+        this.reader = reader;
+        this.format = format;
+        if (format == ImportFormat.CSV) {
+            readHeader();
+        }
+    }
+
+    /**
+     * Opens a reader over UTF-8 input, reading the CSV header straight away.
+     *
+     * @throws InvalidRequestException if a CSV file has no usable header
+     * @throws IOException if the header cannot be read
+     */
+    public static ProductRowReader open(InputStream input, ImportFormat format) throws IOException {
+        return new ProductRowReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), format);
+    }
+
+    /**
+     * @return the next non blank line, or null at the end of the file
+     * @throws IOException if the input cannot be read
+     */
+    public ImportRow next() throws IOException {
+        String text;
+        do {
+            text = readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (!tooLong && text.isBlank());
+
+        if (tooLong) {
+            return new ImportRow(line, null, "Line is longer than " + MAX_LINE_LENGTH + " characters");
+        }
+
+        try {
+            PostProduct product = format == ImportFormat.CSV ? fromCsv(text) : JSON.readValue(text);
+            return new ImportRow(line, product, null);
+        } catch (JsonProcessingException e) {
+            return new ImportRow(line, null, "Malformed JSON: " + e.getOriginalMessage());
+        } catch (IllegalArgumentException e) {
+            return new ImportRow(line, null, e.getMessage());
+        }
+    }
+
+    private void readHeader() throws IOException {
+        String header = readLine();
+        line++;
+        if (header == null) {
+            throw new InvalidRequestException("CSV file is empty, a header line is required");
+        }
+        if (tooLong) {
+            throw new InvalidRequestException("CSV header is longer than " + MAX_LINE_LENGTH + " characters");
+        }
+        //Strips a UTF-8 byte order mark left by spreadsheet exports
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        List<String> columns = split(header);
+        for (int i = 0; i < columns.size(); i++) {
+            switch (columns.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "name" -> nameColumn = i;
+                case "quantity" -> quantityColumn = i;
+                case "price" -> priceColumn = i;
+                default -> { }
+            }
+        }
+        if (nameColumn < 0 || quantityColumn < 0 || priceColumn < 0) {
+            throw new InvalidRequestException("CSV header must contain name, quantity and price columns");
+        }
+    }
+
+    //Like BufferedReader.readLine, but stops buffering at MAX_LINE_LENGTH and skips the rest of the line
+    private String readLine() throws IOException {
+        buffer.setLength(0);
+        tooLong = false;
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        while (c != -1 && c != '\n') {
+            if (c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') {
+                    reader.reset();
+                }
+                break;
+            }
+            if (buffer.length() < MAX_LINE_LENGTH) {
+                buffer.append((char) c);
+            } else {
+                tooLong = true;
+            }
+            c = reader.read();
+        }
+        return tooLong ? "" : buffer.toString();
+    }
+
+    private PostProduct fromCsv(String text) {
+        List<String> fields = split(text);
+        int needed = Math.max(nameColumn, Math.max(quantityColumn, priceColumn)) + 1;
+        if (fields.size() < needed) {
+            throw new IllegalArgumentException("Expected at least " + needed + " columns, found " + fields.size());
+        }
+
+        PostProduct product = new PostProduct();
+        product.setName(fields.get(nameColumn).trim());
+        try {
+            product.setQuantity(Integer.parseInt(fields.get(quantityColumn).trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("quantity: not a whole number");
+        }
+        String price = fields.get(priceColumn).trim();
+        try {
+            product.setPrice(price.isEmpty() ? null : new BigDecimal(price));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("price: not a number");
+        }
+        return product;
+    }
+
+    //Splits one CSV record, honouring quoted fields
+    static List<String> split(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
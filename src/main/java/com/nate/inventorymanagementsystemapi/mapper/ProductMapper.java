@@ -19,7 +19,9 @@ public class ProductMapper {
                 productDto.getQuantity(),
                 productDto.getPrice(),
                 user,
-                productDto.getCreatedAt()
+                productDto.getCreatedAt(),
+                productDto.getVersion(),
+                null
         );
     }
 
@@ -34,7 +36,8 @@ public class ProductMapper {
                 product.getQuantity(),
                 product.getPrice(),
                 product.getUser() != null ? product.getUser().getId() : null,
-                product.getCreated() != null ? product.getCreated() : Instant.now()
+                product.getCreated() != null ? product.getCreated() : Instant.now(),
+                product.getVersion()
         );
     }
 
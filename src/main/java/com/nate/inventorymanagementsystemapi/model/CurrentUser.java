@@ -0,0 +1,20 @@
+package com.nate.inventorymanagementsystemapi.model;
+
+/**
+ * The already authenticated user of a request, passed to the services so they do not have
+ * to look the user up again.
+ *
+ * @param id the id of the user
+ * @param username the username of the user
+ * @param role the role of the user
+ */
+public record CurrentUser(Long id, String username, Role role) {
+
+    public static CurrentUser from(User user) {
+        return new CurrentUser(user.getId(), user.getUsername(), user.getRole());
+    }
+
+    public boolean isAdmin() {
+        return Role.ADMIN.equals(role);
+    }
+}
@@ -16,17 +16,23 @@ import java.time.Instant;
 @Entity
 public class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Long id;
     @NotBlank(message = "Name is required")
     private String name;
-    @Min(1)
+    @Min(0)
     private int quantity;
     @DecimalMin("1")
     private BigDecimal price;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
     @Column(nullable = false, updatable = false)
     private Instant created;
+    @Version
+    private Long version;
+    //Null when the product is not on the low stock watchlist
+    @Min(0)
+    private Integer reorderThreshold;
 }
@@ -0,0 +1,57 @@
+package com.nate.inventorymanagementsystemapi.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A row of the product change outbox, written in the same transaction as the change it describes
+ */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+@Entity
+@Table(name = "product_change")
+public class ProductChange {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STOCK
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_change_seq")
+    @SequenceGenerator(name = "product_change_seq", sequenceName = "product_change_seq", allocationSize = 50)
+    private Long id;
+    //Set by the relay, null until the change has been relayed
+    @Column(name = "relay_seq")
+    private Long relaySeq;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type type;
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    //The quantity and version the change left, null when the product was deleted
+    private Integer quantity;
+    private Long version;
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    public static ProductChange of(Type type, Long productId, Long userId, Integer quantity, Long version) {
+        return new ProductChange(null, null, type, productId, userId, quantity, version, Instant.now());
+    }
+}
@@ -0,0 +1,67 @@
+package com.nate.inventorymanagementsystemapi.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A row of the stock movement ledger, written in the same transaction as the quantity change it records and never
+ * updated afterwards
+ */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+@Entity
+@Table(name = "stock_movement")
+public class StockMovement {
+
+    public enum Reason {
+        //The stock a product was created or imported with
+        CREATED,
+        //POST /product/{id}/stock
+        ADJUSTED,
+        //A confirmed stock reservation
+        RESERVATION,
+        //PATCH replaced the quantity
+        SET,
+        //The net movement of a hot product written by a flush
+        HOT_FLUSH
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movement_seq")
+    @SequenceGenerator(name = "stock_movement_seq", sequenceName = "stock_movement_seq", allocationSize = 50)
+    private Long id;
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    //The owner of the product
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    //The user who moved the stock, null for hot product flushes which add up many users' adjustments
+    @Column(name = "actor_id")
+    private Long actorId;
+    @Column(nullable = false)
+    private int delta;
+    //The quantity the movement left
+    @Column(nullable = false)
+    private int quantity;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Reason reason;
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    public static StockMovement of(Reason reason, Long productId, Long userId, Long actorId, int delta, int quantity) {
+        return new StockMovement(null, productId, userId, actorId, delta, quantity, reason, Instant.now());
+    }
+}
@@ -0,0 +1,29 @@
+package com.nate.inventorymanagementsystemapi.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A stock reservation as written by the periodic ledger snapshot. Live reservations are only kept in memory.
+ */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+@Entity
+public class StockReservation {
+    @Id
+    private UUID id;
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    private int quantity;
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,106 @@
+package com.nate.inventorymanagementsystemapi.model;
+
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * The stock level of a product over one time bucket: the lowest, highest and last quantity it had. Buckets of a
+ * coarser resolution hold the same three values over a longer span, so a range is answered with one row per bucket
+ * whatever the number of changes in it.
+ */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+@Entity
+@Table(name = "stock_rollup")
+@IdClass(StockRollup.Key.class)
+public class StockRollup {
+
+    public enum Resolution {
+        MINUTE(ChronoUnit.MINUTES, Duration.ofDays(1)),
+        HOUR(ChronoUnit.HOURS, Duration.ofDays(30)),
+        DAY(ChronoUnit.DAYS, Duration.ofDays(365));
+
+        private final ChronoUnit unit;
+        private final Duration defaultSpan;
+
+        Resolution(ChronoUnit unit, Duration defaultSpan) {
+            this.unit = unit;
+            this.defaultSpan = defaultSpan;
+        }
+
+        /**
+         * @param at a point in time
+         * @return the start of the bucket holding it, buckets are aligned to UTC
+         */
+        public Instant bucketOf(Instant at) {
+            return at.truncatedTo(unit);
+        }
+
+        public Duration getBucketSize() {
+            return unit.getDuration();
+        }
+
+        /**
+         * @return how far back a history request goes when it does not say
+         */
+        public Duration getDefaultSpan() {
+            return defaultSpan;
+        }
+
+        /**
+         * Looks up a resolution by name
+         *
+         * @param resolution the name given by the client (e.g minute, hour)
+         * @return the matching {@link Resolution}
+         * @throws InvalidRequestException if there is no such resolution
+         */
+        public static Resolution from(String resolution) {
+            for (Resolution value : values()) {
+                if (value.name().equalsIgnoreCase(resolution)) {
+                    return value;
+                }
+            }
+            throw new InvalidRequestException("Unknown resolution " + resolution);
+        }
+    }
+
+    @Getter @Setter @NoArgsConstructor @AllArgsConstructor @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long productId;
+        private Resolution resolution;
+        private Instant bucket;
+    }
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+    @Id
+    @Enumerated(EnumType.STRING)
+    private Resolution resolution;
+    @Id
+    private Instant bucket;
+    @Column(name = "min_quantity", nullable = false)
+    private int minQuantity;
+    @Column(name = "max_quantity", nullable = false)
+    private int maxQuantity;
+    @Column(name = "last_quantity", nullable = false)
+    private int lastQuantity;
+    //The product version of the last quantity, so a late change never replaces a newer one
+    @Column(name = "last_version", nullable = false)
+    private long lastVersion;
+}
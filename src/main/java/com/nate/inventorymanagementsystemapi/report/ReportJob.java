@@ -0,0 +1,75 @@
+package com.nate.inventorymanagementsystemapi.report;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One run of a report. Written by the report thread and read by the requests polling it, so the state it moves
+ * through is volatile.
+ */
+public class ReportJob {
+
+    private final UUID id = UUID.randomUUID();
+    private final ReportParams params;
+    private final long dataVersion;
+    private final Instant submittedAt = Instant.now();
+
+    private volatile ReportStatus status = ReportStatus.QUEUED;
+    private volatile Instant completedAt;
+    private volatile Object result;
+    private volatile String error;
+
+    ReportJob(ReportParams params, long dataVersion) {
+        this.params = params;
+        this.dataVersion = dataVersion;
+    }
+
+    void start() {
+        status = ReportStatus.RUNNING;
+    }
+
+    //The result is written before the status, so whoever sees DONE sees the result
+    void complete(Object result) {
+        this.result = result;
+        this.completedAt = Instant.now();
+        this.status = ReportStatus.DONE;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        this.completedAt = Instant.now();
+        this.status = ReportStatus.FAILED;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public ReportParams getParams() {
+        return params;
+    }
+
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public ReportStatus getStatus() {
+        return status;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public Object getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
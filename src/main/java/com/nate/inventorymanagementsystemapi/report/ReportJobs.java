@@ -0,0 +1,126 @@
+package com.nate.inventorymanagementsystemapi.report;
+
+import com.nate.inventorymanagementsystemapi.cache.ExpiringCache;
+import com.nate.inventorymanagementsystemapi.event.InventoryChangedEvent;
+import com.nate.inventorymanagementsystemapi.event.ProductChangedEvent;
+import com.nate.inventorymanagementsystemapi.exception.ReportQueueFullException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs report jobs on a small pool of its own, so heavy reports never hold a servlet thread and never take more
+ * than {@code threads} connections from the pool the product requests need. At most {@code queue-size} jobs wait
+ * for a thread, past that submissions are turned away.
+ * <p>
+ * Results are reused by (params, data version): the data version moves with every committed product write, so a
+ * report is only computed again once something it reads changed, or after {@code result-ttl-seconds} as the
+ * stale stock report also depends on the time. Writes of other instances do not move the version and only show
+ * after that ttl. Jobs are kept for {@code job-ttl-seconds} to be polled.
+ */
+@Component
+public class ReportJobs {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobs.class);
+
+    private record Key(ReportParams params, long dataVersion) {}
+
+    private final ThreadPoolExecutor executor;
+    private final ExpiringCache<UUID, ReportJob> jobs;
+    private final ExpiringCache<Key, ReportJob> results;
+    private final long resultTtlMillis;
+    private final long jobTtlMillis;
+
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    public ReportJobs(@Value("${inventory.reports.threads:2}") int threads,
+                      @Value("${inventory.reports.queue-size:50}") int queueSize,
+                      @Value("${inventory.reports.max-jobs:1000}") int maxJobs,
+                      @Value("${inventory.reports.result-ttl-seconds:300}") long resultTtlSeconds,
+                      @Value("${inventory.reports.job-ttl-seconds:3600}") long jobTtlSeconds) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new CustomizableThreadFactory("report-"));
+        this.jobs = new ExpiringCache<>(maxJobs);
+        this.results = new ExpiringCache<>(maxJobs);
+        this.resultTtlMillis = resultTtlSeconds * 1000;
+        this.jobTtlMillis = jobTtlSeconds * 1000;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        dataVersion.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        dataVersion.incrementAndGet();
+    }
+
+    /**
+     * Queues a report, or returns the job that already ran or is running it on the current data
+     *
+     * @param params what to compute
+     * @param report computes the result, on a report thread
+     * @return the job
+     * @throws ReportQueueFullException if every thread is busy and the queue is full
+     */
+    public synchronized ReportJob submit(ReportParams params, Supplier<Object> report) {
+        Key key = new Key(params, dataVersion.get());
+        ReportJob cached = results.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        ReportJob job = new ReportJob(params, key.dataVersion());
+        //Registered first, a job that fails right away must find its result entry to drop
+        long now = System.currentTimeMillis();
+        jobs.put(job.getId(), job, now + jobTtlMillis);
+        results.put(key, job, now + resultTtlMillis);
+        try {
+            executor.execute(() -> run(job, key, report));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.getId());
+            results.invalidate(key);
+            throw new ReportQueueFullException();
+        }
+        return job;
+    }
+
+    /**
+     * @param id the id of the job
+     * @return the job, or null if it is unknown or expired
+     */
+    public ReportJob get(UUID id) {
+        return jobs.get(id);
+    }
+
+    private void run(ReportJob job, Key key, Supplier<Object> report) {
+        job.start();
+        try {
+            job.complete(report.get());
+            log.info("Report {} {} done", job.getParams().report(), job.getId());
+        } catch (RuntimeException e) {
+            //Not reused, the next request for it runs it again
+            results.invalidate(key);
+            job.fail(e.getMessage());
+            log.error("Report {} {} failed", job.getParams().report(), job.getId(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
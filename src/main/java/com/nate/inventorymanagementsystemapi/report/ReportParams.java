@@ -0,0 +1,14 @@
+package com.nate.inventorymanagementsystemapi.report;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * What a report job computes, with the defaults filled in, so equal requests have equal params
+ *
+ * @param report the report
+ * @param limit the most rows returned
+ * @param olderThanDays the age in days past which stock is stale, only for {@link ReportType#STALE_STOCK}
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ReportParams(ReportType report, int limit, Integer olderThanDays) {
+}
@@ -0,0 +1,8 @@
+package com.nate.inventorymanagementsystemapi.report;
+
+public enum ReportStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
@@ -0,0 +1,30 @@
+package com.nate.inventorymanagementsystemapi.report;
+
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
+
+import java.util.Locale;
+
+/**
+ * The admin reports that run as background jobs
+ */
+public enum ReportType {
+    //Stock value of every owner, highest first
+    VALUATION,
+    //The products holding the most stock value
+    TOP_VALUE,
+    //Products created longer ago than a number of days that still hold stock, oldest first
+    STALE_STOCK;
+
+    /**
+     * @param value the report name, case is ignored and dashes may stand for underscores
+     * @return the matching report
+     * @throws InvalidRequestException if there is no such report
+     */
+    public static ReportType from(String value) {
+        try {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new InvalidRequestException("Unknown report: " + value + ", use valuation, top-value or stale-stock");
+        }
+    }
+}
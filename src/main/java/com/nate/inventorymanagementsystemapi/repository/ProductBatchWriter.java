@@ -0,0 +1,74 @@
+package com.nate.inventorymanagementsystemapi.repository;
+
+import com.nate.inventorymanagementsystemapi.model.Product;
+import com.nate.inventorymanagementsystemapi.model.ProductChange;
+import com.nate.inventorymanagementsystemapi.model.StockMovement;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Inserts many products in JDBC batches. Every {@code batchSize} products the session is flushed, which sends
+ * them as one batched INSERT, and cleared, so the persistence context never holds more than one batch. The
+ * CREATED change of every product goes to the outbox, and its initial stock to the movement ledger, in the same
+ * batches.
+ * Joins the caller's transaction, or runs in its own when there is none.
+ */
+@Repository
+public class ProductBatchWriter {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final int batchSize;
+    private final int maxItems;
+
+    public ProductBatchWriter(@Value("${inventory.product.bulk.batch-size:500}") int batchSize,
+                              @Value("${inventory.product.bulk.max-items:10000}") int maxItems) {
+        this.batchSize = batchSize;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Persists the products, their ids are set once this returns
+     *
+     * @param products new products, all with a user reference set
+     */
+    @Transactional
+    public void insertAll(List<Product> products) {
+        Session session = em.unwrap(Session.class);
+        Integer previous = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(batchSize);
+        try {
+            for (int i = 0; i < products.size(); i++) {
+                Product product = products.get(i);
+                em.persist(product);
+                em.persist(ProductChange.of(ProductChange.Type.CREATED, product.getId(), product.getUser().getId(),
+                        product.getQuantity(), product.getVersion()));
+                em.persist(StockMovement.of(StockMovement.Reason.CREATED, product.getId(), product.getUser().getId(),
+                        product.getUser().getId(), product.getQuantity(), product.getQuantity()));
+                if ((i + 1) % batchSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+        } finally {
+            session.setJdbcBatchSize(previous);
+        }
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+}
@@ -0,0 +1,84 @@
+package com.nate.inventorymanagementsystemapi.repository;
+
+import com.nate.inventorymanagementsystemapi.dto.ChangeEvent;
+import com.nate.inventorymanagementsystemapi.model.ProductChange;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The product change outbox. Changes are appended in the transaction of the write they describe, so a change is
+ * relayed if and only if the write committed. The relay numbers them in the order it reads them; those numbers are
+ * the offsets of the change feed.
+ */
+@Repository
+public class ProductOutbox {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    /**
+     * Appends a change, only inside the transaction of the write it describes
+     *
+     * @param change the change
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(ProductChange change) {
+        em.persist(change);
+    }
+
+    /**
+     * Numbers the oldest changes not relayed yet, in id order, after the last relayed offset
+     *
+     * @param lastOffset the offset of the last relayed change
+     * @param limit the most changes to relay
+     * @return the relayed changes, in offset order
+     */
+    @Transactional
+    public List<ChangeEvent> relay(long lastOffset, int limit) {
+        List<ProductChange> pending = em.createQuery(
+                        "select c from ProductChange c where c.relaySeq is null order by c.id", ProductChange.class)
+                .setMaxResults(limit)
+                .getResultList();
+
+        List<ChangeEvent> relayed = new ArrayList<>(pending.size());
+        for (ProductChange change : pending) {
+            change.setRelaySeq(++lastOffset);
+            relayed.add(ChangeEvent.of(change));
+        }
+        return relayed;
+    }
+
+    /**
+     * @param limit the most changes to return
+     * @return the latest relayed changes, in offset order
+     */
+    @Transactional(readOnly = true)
+    public List<ChangeEvent> latest(int limit) {
+        List<ProductChange> changes = new ArrayList<>(em.createQuery(
+                        "select c from ProductChange c where c.relaySeq is not null order by c.relaySeq desc", ProductChange.class)
+                .setMaxResults(limit)
+                .getResultList());
+        Collections.reverse(changes);
+        return changes.stream().map(ChangeEvent::of).toList();
+    }
+
+    /**
+     * Deletes relayed changes up to an offset
+     *
+     * @param offset the last offset to delete
+     * @return the number of deleted changes
+     */
+    @Transactional
+    public int purgeUpTo(long offset) {
+        return em.createQuery("delete from ProductChange c where c.relaySeq <= :offset")
+                .setParameter("offset", offset)
+                .executeUpdate();
+    }
+}
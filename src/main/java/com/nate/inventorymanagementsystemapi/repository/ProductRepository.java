@@ -1,23 +1,245 @@
 package com.nate.inventorymanagementsystemapi.repository;
 
+import com.nate.inventorymanagementsystemapi.dto.OwnerValuation;
+import com.nate.inventorymanagementsystemapi.dto.ProductDto;
+import com.nate.inventorymanagementsystemapi.dto.ProductSummary;
+import com.nate.inventorymanagementsystemapi.dto.ProductValuation;
 import com.nate.inventorymanagementsystemapi.model.Product;
-import jakarta.validation.constraints.NotBlank;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductRepository extends JpaRepository<Product,Long> {
-    Page<Product> findByUserUsername(String username, Pageable pageable);
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+public interface ProductRepository extends JpaRepository<Product,Long>, ProductRepositoryCustom {
+    /*
+     * Listings select straight into ProductDto: only the owner's id is read from the product row,
+     * so no User is loaded and nothing is tracked by the persistence context.
+     */
 
-    @Query("""
-            SELECT p FROM Product p
-            WHERE p.user.username = :username
+    String DTO = "new com.nate.inventorymanagementsystemapi.dto.ProductDto(p.id, p.name, p.quantity, p.price, p.user.id, p.created, p.version)";
+
+    @Query(value = "SELECT " + DTO + """
+             FROM Product p
+            WHERE p.user.id = :userId
+            AND LOWER(p.name) LIKE LOWER(CONCAT('%',:search,'%'))
+        """, countQuery = """
+            SELECT COUNT(p) FROM Product p
+            WHERE p.user.id = :userId
+            AND LOWER(p.name) LIKE LOWER(CONCAT('%',:search,'%'))
+        """)
+    Page<ProductDto> searchProductByUserAndName(@Param("userId") Long userId, @Param("search") String search, Pageable pageable);
+
+    @Query(value = "SELECT " + DTO + """
+             FROM Product p
+            WHERE LOWER(p.name) LIKE LOWER(CONCAT('%',:search,'%'))
+        """, countQuery = """
+            SELECT COUNT(p) FROM Product p
+            WHERE LOWER(p.name) LIKE LOWER(CONCAT('%',:search,'%'))
+        """)
+    Page<ProductDto> findByNameContainingIgnoreCase(@Param("search") String search, Pageable pageable);
+
+    /*
+     * Slice variants of the listings above: they fetch one extra row to work out hasNext
+     * and never run a COUNT query.
+     */
+
+    @Query("SELECT " + DTO + " FROM Product p WHERE p.user.id = :userId")
+    Slice<ProductDto> findSliceByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT " + DTO + """
+             FROM Product p
+            WHERE p.user.id = :userId
             AND LOWER(p.name) LIKE LOWER(CONCAT('%',:search,'%'))
         """)
-    Page<Product> searchProductByUserAndName(@RequestParam("username") String username, @RequestParam("search") String search, Pageable pageable);
+    Slice<ProductDto> searchSliceByUserAndName(@Param("userId") Long userId, @Param("search") String search, Pageable pageable);
+
+    @Query("SELECT " + DTO + """
+             FROM Product p
+            WHERE LOWER(p.name) LIKE LOWER(CONCAT('%',:search,'%'))
+        """)
+    Slice<ProductDto> findSliceByNameContainingIgnoreCase(@Param("search") String search, Pageable pageable);
+
+    @Query("SELECT " + DTO + " FROM Product p WHERE p.id IN :ids")
+    List<ProductDto> findByIdIn(@Param("ids") Collection<Long> ids, Pageable pageable);
+
+    //Written out because the derived query joins users and filters on users.id, so product is scanned in full
+    @Query("SELECT COUNT(p) FROM Product p WHERE p.user.id = :userId")
+    long countByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT p.user.id, COUNT(p) FROM Product p GROUP BY p.user.id")
+    List<Object[]> countPerUser();
+
+    /*
+     * Stock totals: SKU count, units and value (quantity * price). Only used to seed and reconcile the
+     * in-memory totals, which are otherwise moved by the deltas of every write.
+     */
+
+    String SUMMARY = "new com.nate.inventorymanagementsystemapi.dto.ProductSummary(COUNT(p), COALESCE(SUM(p.quantity), 0), COALESCE(SUM(p.quantity * p.price), 0))";
+
+    @Query("SELECT " + SUMMARY + " FROM Product p WHERE p.user.id = :userId")
+    ProductSummary summarizeByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT " + SUMMARY + " FROM Product p")
+    ProductSummary summarizeAll();
+
+    @Query("""
+            SELECT p.user.id, COUNT(p), COALESCE(SUM(p.quantity), 0), COALESCE(SUM(p.quantity * p.price), 0)
+            FROM Product p GROUP BY p.user.id
+        """)
+    List<Object[]> summarizePerUser();
+
+    /*
+     * Admin reports, run as background jobs by the ReportService
+     */
+
+    @Query("""
+            SELECT new com.nate.inventorymanagementsystemapi.dto.OwnerValuation(u.id, u.username, COUNT(p),
+                   COALESCE(SUM(p.quantity), 0), COALESCE(SUM(p.quantity * p.price), 0))
+              FROM Product p JOIN p.user u
+             GROUP BY u.id, u.username
+             ORDER BY COALESCE(SUM(p.quantity * p.price), 0) DESC, u.id
+        """)
+    List<OwnerValuation> valuationByOwner(Pageable pageable);
+
+    String VALUATION = "new com.nate.inventorymanagementsystemapi.dto.ProductValuation(p.id, p.user.id, p.name, p.quantity, p.price, p.quantity * p.price, p.created)";
+
+    @Query("SELECT " + VALUATION + " FROM Product p ORDER BY p.quantity * p.price DESC, p.id")
+    List<ProductValuation> findTopByValue(Pageable pageable);
+
+    @Query("SELECT " + VALUATION + " FROM Product p WHERE p.created < :before AND p.quantity > 0 ORDER BY p.created, p.id")
+    List<ProductValuation> findStale(@Param("before") Instant before, Pageable pageable);
+
+    @Query("SELECT p.id, p.user.id, p.name FROM Product p")
+    List<Object[]> findAllNames();
+
+    @Query("SELECT p.id, p.user.id, p.name, p.quantity, p.reorderThreshold, p.version FROM Product p WHERE p.reorderThreshold IS NOT NULL")
+    List<Object[]> findWatched();
+
+    @Query("""
+            SELECT DISTINCT p.name FROM Product p
+            WHERE p.user.id = :userId
+            AND LOWER(p.name) LIKE CONCAT(LOWER(:prefix),'%')
+            ORDER BY p.name
+        """)
+    List<String> suggestNamesByUser(@Param("userId") Long userId, @Param("prefix") String prefix, Pageable pageable);
+
+    @Query("""
+            SELECT DISTINCT p.name FROM Product p
+            WHERE LOWER(p.name) LIKE CONCAT(LOWER(:prefix),'%')
+            ORDER BY p.name
+        """)
+    List<String> suggestNames(@Param("prefix") String prefix, Pageable pageable);
+
+    /*
+     * Export streams: rows are read through a forward-only cursor, fetchSize rows per round trip,
+     * and must be consumed inside a transaction (PostgreSQL only uses a cursor when autocommit is off).
+     */
+
+    String EXPORT_FETCH_SIZE = "1000";
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT " + DTO + " FROM Product p WHERE p.user.id = :userId ORDER BY p.id")
+    Stream<ProductDto> streamByUserId(@Param("userId") Long userId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT " + DTO + " FROM Product p ORDER BY p.id")
+    Stream<ProductDto> streamAll();
+
+    @Query("SELECT p.user.id FROM Product p WHERE p.id = :id")
+    Optional<Long> findOwnerId(@Param("id") Long id);
+
+    /*
+     * Ownership checked operations: the owner/admin predicate is part of the statement, so a
+     * single round trip both authorizes and performs the operation. An empty result or zero
+     * affected rows means the product is missing or belongs to someone else.
+     * Every write bumps the version, these bulk statements do not do it on their own.
+     */
+
+    @Query("SELECT " + DTO + """
+             FROM Product p
+            WHERE p.id = :id
+            AND (p.user.id = :userId OR :admin = true)
+        """)
+    Optional<ProductDto> findVisible(@Param("id") Long id, @Param("userId") Long userId, @Param("admin") boolean admin);
+
+    /*
+     * Versioned writes: each only applies if nobody wrote the product since the given version was read, so the
+     * values read are exactly the ones replaced without locking the row first. 0 rows means a lost race.
+     */
+
+    @Modifying
+    @Query("""
+            UPDATE Product p
+            SET p.name = :name, p.quantity = :quantity, p.price = :price, p.version = p.version + 1
+            WHERE p.id = :id
+            AND (p.user.id = :userId OR :admin = true)
+            AND p.version = :version
+        """)
+    int updateOwnedIfVersion(@Param("id") Long id, @Param("name") String name, @Param("quantity") int quantity,
+                             @Param("price") BigDecimal price, @Param("userId") Long userId, @Param("admin") boolean admin,
+                             @Param("version") long version);
+
+    //The threshold is not part of the product representation, so the version is checked but left alone
+    @Modifying
+    @Query("""
+            UPDATE Product p
+            SET p.reorderThreshold = :threshold
+            WHERE p.id = :id
+            AND (p.user.id = :userId OR :admin = true)
+            AND p.version = :version
+        """)
+    int setReorderThresholdIfVersion(@Param("id") Long id, @Param("threshold") Integer threshold,
+                                     @Param("userId") Long userId, @Param("admin") boolean admin, @Param("version") long version);
+
+    @Modifying
+    @Query("""
+            DELETE FROM Product p
+            WHERE p.id = :id
+            AND (p.user.id = :userId OR :admin = true)
+            AND p.version = :version
+        """)
+    int deleteOwnedIfVersion(@Param("id") Long id, @Param("userId") Long userId, @Param("admin") boolean admin,
+                             @Param("version") long version);
+
+    //The new level is computed by the database, so concurrent adjustments never overwrite each other. floor is the
+    //lowest level allowed, the units held by reservations. The bounds are compared in BIGINT so neither can overflow,
+    //a level past the INT column's maximum matches no row instead of failing the statement
+    @Modifying
+    @Query("""
+            UPDATE Product p
+            SET p.quantity = p.quantity + :delta, p.version = p.version + 1
+            WHERE p.id = :id
+            AND (p.user.id = :userId OR :admin = true)
+            AND p.quantity >= :floor - :delta
+            AND p.quantity <= 2147483647 - CAST(:delta AS Long)
+        """)
+    int adjustStockOwned(@Param("id") Long id, @Param("delta") int delta, @Param("floor") long floor,
+                         @Param("userId") Long userId, @Param("admin") boolean admin);
+
+    //Write-behind of the net movement of a hot product. The counters already checked the level, the guard keeps a
+    //counter that fell out of step with the row from tripping the CHECK or overflowing the INT column
+    @Modifying
+    @Query("""
+            UPDATE Product p SET p.quantity = p.quantity + :delta, p.version = p.version + 1
+            WHERE p.id = :id
+            AND p.quantity >= 0 - CAST(:delta AS Long)
+            AND p.quantity <= 2147483647 - CAST(:delta AS Long)
+        """)
+    int addStock(@Param("id") Long id, @Param("delta") int delta);
 
-    Page<Product> findByNameContainingIgnoreCase(String search, Pageable pageable);
+    @Query("SELECT p.quantity FROM Product p WHERE p.id = :id")
+    Optional<Integer> findQuantity(@Param("id") Long id);
 }
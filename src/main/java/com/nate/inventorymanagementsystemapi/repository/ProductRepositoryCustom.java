@@ -0,0 +1,46 @@
+package com.nate.inventorymanagementsystemapi.repository;
+
+import com.nate.inventorymanagementsystemapi.dto.ProductDto;
+import com.nate.inventorymanagementsystemapi.dto.ProductFilter;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Keyset listing: seeks past (afterKey, afterId) on the sort key and id instead of skipping rows with OFFSET
+     *
+     * @param userId the owner to list for, or {@code null} for every owner
+     * @param search optional part of the name to filter by
+     * @param filter the range filters
+     * @param sortBy the field to sort and seek on
+     * @param descending whether to sort descending
+     * @param afterKey the sort key of the last row already returned, ignored when afterId is null
+     * @param afterId the id of the last row already returned, or {@code null} for the first page
+     * @param limit the maximum number of rows
+     * @return the next rows in order
+     */
+    List<ProductDto> findPageAfter(Long userId, String search, ProductFilter filter, ProductSortField sortBy,
+                                   boolean descending, Comparable<?> afterKey, Long afterId, int limit);
+
+    /**
+     * Offset listing with range filters, built as one query from {@link ProductSpecifications#listing}
+     *
+     * @param userId the owner to list for, or {@code null} for every owner
+     * @param search optional part of the name to filter by
+     * @param filter the range filters
+     * @param pageable the page and its sort, the sort must be on a {@link ProductSortField}
+     * @param limit the maximum number of rows, the page size or one more to know whether there is a next page
+     * @return the rows of the page in order
+     */
+    List<ProductDto> findFiltered(Long userId, String search, ProductFilter filter, Pageable pageable, int limit);
+
+    /**
+     * @param userId the owner to count for, or {@code null} for every owner
+     * @param search optional part of the name to filter by
+     * @param filter the range filters
+     * @return the number of products matching
+     */
+    long countFiltered(Long userId, String search, ProductFilter filter);
+}
@@ -0,0 +1,95 @@
+package com.nate.inventorymanagementsystemapi.repository;
+
+import com.nate.inventorymanagementsystemapi.dto.ProductDto;
+import com.nate.inventorymanagementsystemapi.dto.ProductFilter;
+import com.nate.inventorymanagementsystemapi.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<ProductDto> findPageAfter(Long userId, String search, ProductFilter filter, ProductSortField sortBy,
+                                          boolean descending, Comparable<?> afterKey, Long afterId, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<ProductDto> cq = cb.createQuery(ProductDto.class);
+        Root<Product> p = cq.from(Product.class);
+
+        Path<Long> id = p.get("id");
+        Path<Comparable> key = p.get(sortBy.getAttribute());
+
+        List<Predicate> where = listing(p, cq, cb, userId, search, filter);
+
+        //Seek: rows strictly after (afterKey, afterId) in the sort order
+        if (afterId != null) {
+            Predicate idAfter = descending ? cb.lessThan(id, afterId) : cb.greaterThan(id, afterId);
+            if (sortBy == ProductSortField.ID) {
+                where.add(idAfter);
+            } else {
+                Comparable k = afterKey;
+                Predicate keyAfter = descending ? cb.lessThan(key, k) : cb.greaterThan(key, k);
+                where.add(cb.or(keyAfter, cb.and(cb.equal(key, k), idAfter)));
+            }
+        }
+
+        List<Order> order = new ArrayList<>();
+        if (sortBy != ProductSortField.ID) {
+            order.add(descending ? cb.desc(key) : cb.asc(key));
+        }
+        order.add(descending ? cb.desc(id) : cb.asc(id));
+
+        cq.select(dto(p, cb)).where(where.toArray(Predicate[]::new)).orderBy(order);
+        return em.createQuery(cq).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<ProductDto> findFiltered(Long userId, String search, ProductFilter filter, Pageable pageable, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<ProductDto> cq = cb.createQuery(ProductDto.class);
+        Root<Product> p = cq.from(Product.class);
+
+        cq.select(dto(p, cb))
+                .where(listing(p, cq, cb, userId, search, filter).toArray(Predicate[]::new))
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), p, cb));
+        return em.createQuery(cq)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public long countFiltered(Long userId, String search, ProductFilter filter) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Product> p = cq.from(Product.class);
+
+        cq.select(cb.count(p)).where(listing(p, cq, cb, userId, search, filter).toArray(Predicate[]::new));
+        return em.createQuery(cq).getSingleResult();
+    }
+
+    private static List<Predicate> listing(Root<Product> p, CriteriaQuery<?> cq, CriteriaBuilder cb,
+                                           Long userId, String search, ProductFilter filter) {
+        List<Predicate> where = new ArrayList<>();
+        Predicate matching = ProductSpecifications.listing(userId, search, filter).toPredicate(p, cq, cb);
+        if (matching != null) {
+            where.add(matching);
+        }
+        return where;
+    }
+
+    //Only the owner's id is selected, the User row is never read
+    private static CompoundSelection<ProductDto> dto(Root<Product> p, CriteriaBuilder cb) {
+        return cb.construct(ProductDto.class, p.get("id"), p.get("name"), p.get("quantity"), p.get("price"),
+                p.get("user").get("id"), p.get("created"), p.get("version"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.nate.inventorymanagementsystemapi.repository;
+
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.function.Function;
+
+/**
+ * The product fields a listing can be sorted and seeked on, with how a cursor value
+ * for the field is read back from its string form.
+ */
+public enum ProductSortField {
+    NAME("name", s -> s),
+    QUANTITY("quantity", Integer::valueOf),
+    PRICE("price", BigDecimal::new),
+    CREATED("created", Instant::parse),
+    ID("id", Long::valueOf);
+
+    private final String attribute;
+    private final Function<String, Comparable<?>> parser;
+
+    ProductSortField(String attribute, Function<String, Comparable<?>> parser) {
+        this.attribute = attribute;
+        this.parser = parser;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public Comparable<?> parse(String value) {
+        return parser.apply(value);
+    }
+
+    /**
+     * Looks up a sort field by its attribute name
+     *
+     * @param sortBy the name given by the client (e.g name, quantity)
+     * @return the matching {@link ProductSortField}
+     * @throws InvalidRequestException if the field can not be sorted on
+     */
+    public static ProductSortField from(String sortBy) {
+        for (ProductSortField field : values()) {
+            if (field.attribute.equalsIgnoreCase(sortBy)) {
+                return field;
+            }
+        }
+        throw new InvalidRequestException("Cannot sort by " + sortBy);
+    }
+}
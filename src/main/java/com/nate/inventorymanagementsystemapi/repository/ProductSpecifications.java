@@ -0,0 +1,76 @@
+package com.nate.inventorymanagementsystemapi.repository;
+
+import com.nate.inventorymanagementsystemapi.dto.ProductFilter;
+import com.nate.inventorymanagementsystemapi.model.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The conditions of the product listings. They only touch product columns, the owner is matched on
+ * {@code user_id} so the User row is never joined. A price, quantity or created range seeks on the V2
+ * (user_id, column, id) index of that column whatever the sort. Only one range is a seek: with several,
+ * the database picks one index and checks the other bounds on the rows it reads, and when the sort is on
+ * another column the matching rows are sorted before the page is cut.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> ownedBy(Long userId) {
+        return (p, q, cb) -> cb.equal(p.get("user").get("id"), userId);
+    }
+
+    public static Specification<Product> nameContains(String search) {
+        return (p, q, cb) -> cb.like(cb.lower(p.get("name")), "%" + search.toLowerCase() + "%");
+    }
+
+    /**
+     * @param filter the range filters
+     * @return one condition per bound that is set
+     */
+    public static List<Specification<Product>> matching(ProductFilter filter) {
+        List<Specification<Product>> specs = new ArrayList<>();
+        if (filter.minPrice() != null) {
+            specs.add((p, q, cb) -> cb.greaterThanOrEqualTo(p.get("price"), filter.minPrice()));
+        }
+        if (filter.maxPrice() != null) {
+            specs.add((p, q, cb) -> cb.lessThanOrEqualTo(p.get("price"), filter.maxPrice()));
+        }
+        if (filter.minQty() != null) {
+            specs.add((p, q, cb) -> cb.greaterThanOrEqualTo(p.get("quantity"), filter.minQty()));
+        }
+        if (filter.maxQty() != null) {
+            specs.add((p, q, cb) -> cb.lessThanOrEqualTo(p.get("quantity"), filter.maxQty()));
+        }
+        if (filter.createdFrom() != null) {
+            specs.add((p, q, cb) -> cb.greaterThanOrEqualTo(p.get("created"), filter.createdFrom()));
+        }
+        if (filter.createdTo() != null) {
+            specs.add((p, q, cb) -> cb.lessThanOrEqualTo(p.get("created"), filter.createdTo()));
+        }
+        return specs;
+    }
+
+    /**
+     * Everything a listing filters on, as one condition
+     *
+     * @param userId the owner to list for, or {@code null} for every owner
+     * @param search optional part of the name to filter by
+     * @param filter the range filters
+     * @return the combined condition, matching every product when nothing is set
+     */
+    public static Specification<Product> listing(Long userId, String search, ProductFilter filter) {
+        List<Specification<Product>> specs = new ArrayList<>();
+        if (userId != null) {
+            specs.add(ownedBy(userId));
+        }
+        if (search != null) {
+            specs.add(nameContains(search));
+        }
+        specs.addAll(matching(filter));
+        return Specification.allOf(specs);
+    }
+}
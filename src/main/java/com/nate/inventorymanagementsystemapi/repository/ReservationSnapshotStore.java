@@ -0,0 +1,58 @@
+package com.nate.inventorymanagementsystemapi.repository;
+
+import com.nate.inventorymanagementsystemapi.model.StockReservation;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Stores the snapshot of the reservation ledger. A snapshot replaces the previous one as a whole, in one
+ * transaction, so a crash mid-write leaves the last complete snapshot behind.
+ */
+@Repository
+public class ReservationSnapshotStore {
+
+    private static final int BATCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    /**
+     * Replaces the stored snapshot
+     *
+     * @param reservations every live reservation
+     */
+    @Transactional
+    public void replace(List<StockReservation> reservations) {
+        em.createQuery("delete from StockReservation").executeUpdate();
+
+        Session session = em.unwrap(Session.class);
+        Integer previous = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(BATCH_SIZE);
+        try {
+            for (int i = 0; i < reservations.size(); i++) {
+                em.persist(reservations.get(i));
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+        } finally {
+            session.setJdbcBatchSize(previous);
+        }
+    }
+
+    /**
+     * @return the reservations of the last snapshot, expired ones included
+     */
+    @Transactional(readOnly = true)
+    public List<StockReservation> load() {
+        return em.createQuery("select r from StockReservation r", StockReservation.class).getResultList();
+    }
+}
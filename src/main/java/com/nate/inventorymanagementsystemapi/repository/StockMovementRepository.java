@@ -0,0 +1,25 @@
+package com.nate.inventorymanagementsystemapi.repository;
+
+import com.nate.inventorymanagementsystemapi.dto.StockMovementDto;
+import com.nate.inventorymanagementsystemapi.model.StockMovement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface StockMovementRepository extends JpaRepository<StockMovement,Long> {
+    /*
+     * The ledger is only appended to and read newest first, a page seeks below the id of the last row of the
+     * previous one on (product_id, id) instead of using OFFSET.
+     */
+
+    String DTO = "new com.nate.inventorymanagementsystemapi.dto.StockMovementDto(m.id, m.productId, m.delta, m.quantity, m.reason, m.actorId, m.occurredAt)";
+
+    @Query("SELECT " + DTO + " FROM StockMovement m WHERE m.productId = :productId ORDER BY m.id DESC")
+    List<StockMovementDto> findLatest(@Param("productId") Long productId, Pageable pageable);
+
+    @Query("SELECT " + DTO + " FROM StockMovement m WHERE m.productId = :productId AND m.id < :before ORDER BY m.id DESC")
+    List<StockMovementDto> findBefore(@Param("productId") Long productId, @Param("before") Long before, Pageable pageable);
+}
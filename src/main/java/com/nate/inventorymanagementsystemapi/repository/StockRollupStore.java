@@ -0,0 +1,146 @@
+package com.nate.inventorymanagementsystemapi.repository;
+
+import com.nate.inventorymanagementsystemapi.dto.StockHistoryPoint;
+import com.nate.inventorymanagementsystemapi.model.StockRollup;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The stock level rollups. Buckets are merged into their row rather than replacing it, so a bucket written by
+ * several flushes keeps the min and max of all of them and the last quantity of the newest version.
+ */
+@Repository
+public class StockRollupStore {
+
+    //Plain SQL so every bucket of a flush goes out in one JDBC batch, JPQL updates are sent one by one
+    static final String MERGE_UPDATE = """
+            UPDATE stock_rollup
+               SET min_quantity = CASE WHEN min_quantity < ? THEN min_quantity ELSE ? END,
+                   max_quantity = CASE WHEN max_quantity > ? THEN max_quantity ELSE ? END,
+                   last_quantity = CASE WHEN last_version > ? THEN last_quantity ELSE ? END,
+                   last_version = CASE WHEN last_version > ? THEN last_version ELSE ? END
+             WHERE product_id = ? AND resolution = ? AND bucket = ?
+            """;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    /**
+     * Merges buckets into the stored ones, inserting the buckets not stored yet. All the updates go out as one
+     * JDBC batch, and the buckets they did not find are inserted in Hibernate's insert batches.
+     *
+     * @param rollups the buckets, at most one per product, resolution and bucket start
+     */
+    @Transactional
+    public void merge(Collection<StockRollup> rollups) {
+        if (rollups.isEmpty()) {
+            return;
+        }
+        List<StockRollup> buckets = List.copyOf(rollups);
+        int[] updated = em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(MERGE_UPDATE)) {
+                for (StockRollup rollup : buckets) {
+                    ps.setInt(1, rollup.getMinQuantity());
+                    ps.setInt(2, rollup.getMinQuantity());
+                    ps.setInt(3, rollup.getMaxQuantity());
+                    ps.setInt(4, rollup.getMaxQuantity());
+                    ps.setLong(5, rollup.getLastVersion());
+                    ps.setInt(6, rollup.getLastQuantity());
+                    ps.setLong(7, rollup.getLastVersion());
+                    ps.setLong(8, rollup.getLastVersion());
+                    ps.setLong(9, rollup.getProductId());
+                    ps.setString(10, rollup.getResolution().name());
+                    ps.setObject(11, rollup.getBucket().atOffset(ZoneOffset.UTC));
+                    ps.addBatch();
+                }
+                return ps.executeBatch();
+            }
+        });
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                em.persist(buckets.get(i));
+            }
+        }
+    }
+
+    /**
+     * @param productId the id of the product
+     * @param resolution the size of the buckets
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @return the stored buckets of the product in the range, oldest first
+     */
+    @Transactional(readOnly = true)
+    public List<StockHistoryPoint> find(Long productId, StockRollup.Resolution resolution, Instant from, Instant to) {
+        return em.createQuery("""
+                        SELECT new com.nate.inventorymanagementsystemapi.dto.StockHistoryPoint(r.bucket, r.minQuantity, r.maxQuantity, r.lastQuantity)
+                          FROM StockRollup r
+                         WHERE r.productId = :productId AND r.resolution = :resolution AND r.bucket >= :from AND r.bucket < :to
+                         ORDER BY r.bucket
+                        """, StockHistoryPoint.class)
+                .setParameter("productId", productId)
+                .setParameter("resolution", resolution)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+
+    /**
+     * @param productId the id of the product
+     * @param resolution the size of the buckets
+     * @param before a point in time
+     * @return the last quantity of the newest stored bucket that starts before the given time
+     */
+    @Transactional(readOnly = true)
+    public Optional<Integer> lastBefore(Long productId, StockRollup.Resolution resolution, Instant before) {
+        return em.createQuery("""
+                        SELECT r.lastQuantity FROM StockRollup r
+                         WHERE r.productId = :productId AND r.resolution = :resolution AND r.bucket < :before
+                         ORDER BY r.bucket DESC
+                        """, Integer.class)
+                .setParameter("productId", productId)
+                .setParameter("resolution", resolution)
+                .setParameter("before", before)
+                .setMaxResults(1)
+                .getResultStream()
+                .findFirst();
+    }
+
+    /**
+     * Deletes the buckets of a resolution that start before a point in time
+     *
+     * @param resolution the size of the buckets
+     * @param before the cutoff
+     * @return the number of deleted buckets
+     */
+    @Transactional
+    public int purgeBefore(StockRollup.Resolution resolution, Instant before) {
+        return em.createQuery("DELETE FROM StockRollup r WHERE r.resolution = :resolution AND r.bucket < :before")
+                .setParameter("resolution", resolution)
+                .setParameter("before", before)
+                .executeUpdate();
+    }
+
+    /**
+     * Deletes the history of deleted products
+     *
+     * @param productIds the ids of the deleted products
+     * @return the number of deleted buckets
+     */
+    @Transactional
+    public int deleteProducts(Collection<Long> productIds) {
+        return em.createQuery("DELETE FROM StockRollup r WHERE r.productId IN :productIds")
+                .setParameter("productIds", productIds)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,55 @@
+package com.nate.inventorymanagementsystemapi.reservation;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A quantity of one product held for a limited time. Only its status changes, always by compare-and-set, so
+ * confirm, release and expiry racing for the same hold have exactly one winner.
+ */
+public final class Hold {
+
+    private final UUID id;
+    private final Long productId;
+    private final Long userId;
+    private final int quantity;
+    private final Instant expiresAt;
+    private final AtomicReference<ReservationStatus> status = new AtomicReference<>(ReservationStatus.ACTIVE);
+
+    public Hold(UUID id, Long productId, Long userId, int quantity, Instant expiresAt) {
+        this.id = id;
+        this.productId = productId;
+        this.userId = userId;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public ReservationStatus getStatus() {
+        return status.get();
+    }
+
+    boolean transition(ReservationStatus from, ReservationStatus to) {
+        return status.compareAndSet(from, to);
+    }
+}
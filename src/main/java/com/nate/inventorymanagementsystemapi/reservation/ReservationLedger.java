@@ -0,0 +1,258 @@
+package com.nate.inventorymanagementsystemapi.reservation;
+
+import com.nate.inventorymanagementsystemapi.event.ProductChangedEvent;
+import com.nate.inventorymanagementsystemapi.exception.InsufficientStockException;
+import com.nate.inventorymanagementsystemapi.exception.ReservationNotFoundException;
+import com.nate.inventorymanagementsystemapi.model.CurrentUser;
+import com.nate.inventorymanagementsystemapi.model.StockReservation;
+import com.nate.inventorymanagementsystemapi.repository.ReservationSnapshotStore;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-limited stock reservations (holds), kept in memory instead of as rows so placing and releasing one costs
+ * no write. Per product the total held quantity is one atomic counter that a new hold compare-and-sets, so holds
+ * never add up to more than the stock; the available quantity of a product is its stock minus that total. Other
+ * stock removals and PATCH check against {@link #held} so they cannot take the stock below it either.
+ * <p>
+ * Expiry runs on a {@link TimingWheel} advanced every {@code tick-ms}. Confirming a hold decrements the stock of
+ * the product, the only write of a reservation.
+ * <p>
+ * Recovery: the live holds are written to {@code stock_reservation} every {@code snapshot-ms} when something
+ * changed, and read back on startup. Holds placed after the last snapshot are lost in a crash, and holds settled
+ * after it come back until they expire. The ledger belongs to this instance, so only use it with a single instance.
+ */
+@Component
+public class ReservationLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationLedger.class);
+
+    private static final int WHEEL_SLOTS = 512;
+
+    private final ReservationSnapshotStore store;
+    private final TimingWheel<Hold> wheel;
+
+    private final Map<UUID, Hold> holds = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> held = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    public ReservationLedger(ReservationSnapshotStore store,
+                             @Value("${inventory.reservations.tick-ms:100}") long tickMs) {
+        this.store = store;
+        this.wheel = new TimingWheel<>(tickMs, WHEEL_SLOTS, System.currentTimeMillis());
+    }
+
+    /**
+     * Holds quantity units of a product if that many are still available
+     *
+     * @param productId the id of the product
+     * @param stock the current stock of the product
+     * @param quantity the units to hold
+     * @param expiresAt when the hold lapses
+     * @param user the logged in user, the only one besides Admin who may settle the hold
+     * @return the new hold
+     * @throws InsufficientStockException if fewer than quantity units are available
+     */
+    public Hold reserve(Long productId, int stock, int quantity, Instant expiresAt, CurrentUser user) {
+        AtomicLong total = held.computeIfAbsent(productId, id -> new AtomicLong());
+        while (true) {
+            long current = total.get();
+            if (stock - current < quantity) {
+                throw new InsufficientStockException(productId, -quantity);
+            }
+            if (total.compareAndSet(current, current + quantity)) {
+                break;
+            }
+        }
+
+        Hold hold = new Hold(UUID.randomUUID(), productId, user.id(), quantity, expiresAt);
+        holds.put(hold.getId(), hold);
+        wheel.schedule(hold, expiresAt.toEpochMilli());
+        dirty.set(true);
+        return hold;
+    }
+
+    /**
+     * @param productId the id of the product
+     * @return the units of the product held by live reservations
+     */
+    public long held(Long productId) {
+        AtomicLong total = held.get(productId);
+        return total == null ? 0 : total.get();
+    }
+
+    /**
+     * Starts confirming a hold. Its units stay held until {@link #confirmed} or {@link #reinstate} is called, so
+     * they cannot be given to another reservation while the stock is being decremented.
+     *
+     * @param productId the id of the product the hold is for
+     * @param holdId the id of the hold
+     * @param user the logged in user
+     * @return the hold, now {@link ReservationStatus#CONFIRMING}
+     * @throws ReservationNotFoundException if there is no live hold with that id on the product
+     * @throws AccessDeniedException if the user did not place the hold and is not Admin
+     */
+    public Hold beginConfirm(Long productId, UUID holdId, CurrentUser user) {
+        Hold hold = live(productId, holdId, user);
+        if (!hold.transition(ReservationStatus.ACTIVE, ReservationStatus.CONFIRMING)) {
+            throw new ReservationNotFoundException(holdId);
+        }
+        return hold;
+    }
+
+    /**
+     * Finishes a confirm once the stock decrement committed
+     */
+    public void confirmed(Hold hold) {
+        if (hold.transition(ReservationStatus.CONFIRMING, ReservationStatus.CONFIRMED)) {
+            settle(hold);
+        }
+    }
+
+    /**
+     * Puts a hold back after its stock decrement failed, it can be confirmed again or released
+     */
+    public void reinstate(Hold hold) {
+        hold.transition(ReservationStatus.CONFIRMING, ReservationStatus.ACTIVE);
+    }
+
+    /**
+     * Releases a hold, giving its units back
+     *
+     * @param productId the id of the product the hold is for
+     * @param holdId the id of the hold
+     * @param user the logged in user
+     * @return the released hold
+     * @throws ReservationNotFoundException if there is no live hold with that id on the product
+     * @throws AccessDeniedException if the user did not place the hold and is not Admin
+     */
+    public Hold release(Long productId, UUID holdId, CurrentUser user) {
+        Hold hold = live(productId, holdId, user);
+        if (!hold.transition(ReservationStatus.ACTIVE, ReservationStatus.RELEASED)) {
+            throw new ReservationNotFoundException(holdId);
+        }
+        settle(hold);
+        return hold;
+    }
+
+    /**
+     * Expires every hold whose time is up
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservations.tick-ms:100}")
+    public void expire() {
+        expire(System.currentTimeMillis());
+    }
+
+    int expire(long nowMs) {
+        List<Hold> busy = new ArrayList<>();
+        int expired = wheel.advance(nowMs, hold -> {
+            if (hold.transition(ReservationStatus.ACTIVE, ReservationStatus.EXPIRED)) {
+                settle(hold);
+            } else if (hold.getStatus() == ReservationStatus.CONFIRMING) {
+                //Checked again next tick, in case the confirm fails and puts it back
+                busy.add(hold);
+            }
+        });
+        busy.forEach(hold -> wheel.schedule(hold, nowMs));
+        return expired - busy.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.DELETED) {
+            for (Hold hold : holds.values()) {
+                if (hold.getProductId().equals(event.productId())
+                        && hold.transition(ReservationStatus.ACTIVE, ReservationStatus.RELEASED)) {
+                    settle(hold);
+                }
+            }
+            held.remove(event.productId());
+        }
+    }
+
+    /**
+     * Writes the live holds to the database if any changed since the last snapshot
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservations.snapshot-ms:5000}")
+    @PreDestroy
+    public void snapshot() {
+        //Cleared first, so changes made while this runs are written by the next one
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        List<StockReservation> rows = new ArrayList<>();
+        for (Hold hold : holds.values()) {
+            rows.add(new StockReservation(hold.getId(), hold.getProductId(), hold.getUserId(), hold.getQuantity(), hold.getExpiresAt()));
+        }
+        try {
+            store.replace(rows);
+            log.debug("Snapshot of {} reservations written", rows.size());
+        } catch (RuntimeException e) {
+            dirty.set(true);
+            log.error("Writing the reservation snapshot failed, retrying with the next one", e);
+        }
+    }
+
+    /**
+     * Loads the holds of the last snapshot that have not expired yet
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        Instant now = Instant.now();
+        int restored = 0;
+        for (StockReservation row : store.load()) {
+            if (row.getExpiresAt().isAfter(now) && !holds.containsKey(row.getId())) {
+                Hold hold = new Hold(row.getId(), row.getProductId(), row.getUserId(), row.getQuantity(), row.getExpiresAt());
+                holds.put(hold.getId(), hold);
+                held.computeIfAbsent(hold.getProductId(), id -> new AtomicLong()).addAndGet(hold.getQuantity());
+                wheel.schedule(hold, hold.getExpiresAt().toEpochMilli());
+                restored++;
+            }
+        }
+        if (restored > 0) {
+            log.info("Restored {} reservations from the last snapshot", restored);
+        }
+    }
+
+    private Hold live(Long productId, UUID holdId, CurrentUser user) {
+        Hold hold = holds.get(holdId);
+        if (hold == null || !hold.getProductId().equals(productId)) {
+            throw new ReservationNotFoundException(holdId);
+        }
+        if (!user.isAdmin() && !hold.getUserId().equals(user.id())) {
+            throw new AccessDeniedException("Access Denied");
+        }
+        //The wheel can run a tick late, a hold past its time is never confirmed
+        if (!hold.getExpiresAt().isAfter(Instant.now())
+                && hold.transition(ReservationStatus.ACTIVE, ReservationStatus.EXPIRED)) {
+            settle(hold);
+        }
+        return hold;
+    }
+
+    private void settle(Hold hold) {
+        holds.remove(hold.getId());
+        AtomicLong total = held.get(hold.getProductId());
+        if (total != null) {
+            total.addAndGet(-hold.getQuantity());
+        }
+        dirty.set(true);
+    }
+}
@@ -0,0 +1,10 @@
+package com.nate.inventorymanagementsystemapi.reservation;
+
+public enum ReservationStatus {
+    ACTIVE,
+    //Being confirmed: its stock is still held until the decrement commits
+    CONFIRMING,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED
+}
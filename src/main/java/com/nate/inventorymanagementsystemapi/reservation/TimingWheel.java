@@ -0,0 +1,90 @@
+package com.nate.inventorymanagementsystemapi.reservation;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: deadlines are bucketed into a fixed ring of slots of {@code tickMs} each, so scheduling is
+ * one lock-free queue append and expiring only visits the slots the clock moved over, whatever the number of
+ * pending entries. Deadlines further out than one turn of the wheel share a slot with nearer ones and are skipped
+ * until their turn comes.
+ * <p>
+ * Any thread may schedule, a single thread advances. An entry scheduled into a slot the advancing thread has just
+ * passed waits for the next turn, so expiry can be up to one turn late in that race.
+ */
+public final class TimingWheel<T> {
+
+    private record Entry<T>(T value, long deadlineTick) {
+    }
+
+    private final long tickMs;
+    private final Queue<Entry<T>>[] slots;
+    private final int mask;
+    //The last tick whose slot was expired, only written by the advancing thread
+    private volatile long currentTick;
+
+    /**
+     * @param tickMs the width of one slot in milliseconds
+     * @param slots number of slots, rounded up to a power of two
+     * @param startMs the time the wheel starts at
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMs, int slots, long startMs) {
+        int size = Integer.highestOneBit(Math.max(2, slots) - 1) << 1;
+        this.tickMs = tickMs;
+        this.slots = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            this.slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.mask = size - 1;
+        this.currentTick = startMs / tickMs;
+    }
+
+    /**
+     * @param value what to hand back once the deadline has passed
+     * @param deadlineMs the deadline in epoch milliseconds
+     */
+    public void schedule(T value, long deadlineMs) {
+        //Rounded up so nothing expires before its deadline, deadlines already passed go to the next slot
+        long tick = Math.max(Math.floorDiv(deadlineMs + tickMs - 1, tickMs), currentTick + 1);
+        slots[(int) (tick & mask)].add(new Entry<>(value, tick));
+    }
+
+    /**
+     * Moves the wheel to the given time and hands over every entry whose deadline has passed
+     *
+     * @param nowMs the current time in epoch milliseconds
+     * @param expired receives the expired values
+     * @return how many values expired
+     */
+    public int advance(long nowMs, Consumer<T> expired) {
+        long target = nowMs / tickMs;
+        long from = currentTick + 1;
+        if (target < from) {
+            return 0;
+        }
+        //After a long pause one sweep over every slot is enough
+        long last = Math.min(target, from + mask);
+
+        int count = 0;
+        for (long tick = from; tick <= last; tick++) {
+            Iterator<Entry<T>> entries = slots[(int) (tick & mask)].iterator();
+            while (entries.hasNext()) {
+                Entry<T> entry = entries.next();
+                if (entry.deadlineTick() <= target) {
+                    entries.remove();
+                    expired.accept(entry.value());
+                    count++;
+                }
+            }
+        }
+        currentTick = target;
+        return count;
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+}
@@ -0,0 +1,113 @@
+package com.nate.inventorymanagementsystemapi.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sorted index of names for prefix lookups. A prefix is a contiguous range of a sorted map, so a lookup
+ * walks only the names it returns.
+ * <p>
+ * Names are kept once per distinct lowercased value with a reference count, globally and per owner (the
+ * owner id is prepended to the key so one owner's names are also contiguous). Reads never lock; writes
+ * are serialized so the maps stay consistent with each other.
+ */
+public class PrefixIndex {
+
+    private static final char OWNER_SEPARATOR = '\u0000';
+
+    private final ConcurrentSkipListMap<String, Name> global = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, Name> byOwner = new ConcurrentSkipListMap<>();
+    private final Map<Long, Doc> docs = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a document, replacing any previous version with the same id
+     *
+     * @param id the id of the document
+     * @param ownerId the id of the owner
+     * @param name the name to suggest
+     */
+    public synchronized void put(long id, long ownerId, String name) {
+        remove(id);
+        docs.put(id, new Doc(ownerId, name));
+        String key = normalize(name);
+        add(global, key, name);
+        add(byOwner, ownerKey(ownerId, key), name);
+    }
+
+    public synchronized void remove(long id) {
+        Doc doc = docs.remove(id);
+        if (doc == null) {
+            return;
+        }
+        String key = normalize(doc.name());
+        release(global, key);
+        release(byOwner, ownerKey(doc.ownerId(), key));
+    }
+
+    public int size() {
+        return docs.size();
+    }
+
+    /**
+     * Distinct names starting with the prefix, ignoring case, in alphabetical order
+     *
+     * @param prefix the start of the name
+     * @param ownerId only names of this owner, or null for every owner
+     * @param limit the most names to return
+     * @return the matching names
+     */
+    public List<String> suggest(String prefix, Long ownerId, int limit) {
+        String from = ownerId == null ? normalize(prefix) : ownerKey(ownerId, normalize(prefix));
+        ConcurrentSkipListMap<String, Name> map = ownerId == null ? global : byOwner;
+
+        List<String> names = new ArrayList<>(Math.min(limit, 16));
+        for (Map.Entry<String, Name> entry : map.tailMap(from).entrySet()) {
+            if (names.size() == limit || !entry.getKey().startsWith(from)) {
+                break;
+            }
+            names.add(entry.getValue().display);
+        }
+        return names;
+    }
+
+    private static void add(ConcurrentSkipListMap<String, Name> map, String key, String display) {
+        Name existing = map.get(key);
+        if (existing == null) {
+            map.put(key, new Name(display));
+        } else {
+            existing.count++;
+        }
+    }
+
+    private static void release(ConcurrentSkipListMap<String, Name> map, String key) {
+        Name existing = map.get(key);
+        if (existing != null && --existing.count == 0) {
+            map.remove(key);
+        }
+    }
+
+    private static String ownerKey(long ownerId, String key) {
+        return Long.toString(ownerId) + OWNER_SEPARATOR + key;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private record Doc(long ownerId, String name) {
+    }
+
+    //Several products can share a name, it is suggested (spelled as first seen) while any of them is left
+    private static final class Name {
+        private final String display;
+        private int count = 1;
+
+        private Name(String display) {
+            this.display = display;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.nate.inventorymanagementsystemapi.search;
+
+import com.nate.inventorymanagementsystemapi.event.ProductChangedEvent;
+import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Trigram index over every product name, so name searches do not need a {@code LIKE '%x%'} table scan.
+ * <p>
+ * Built from the database once the application is ready, kept current by committed
+ * {@link ProductChangedEvent}s and rebuilt periodically to pick up rows written by anything else.
+ * Until the first build finishes, and for terms it cannot answer cheaply, {@link #search} returns
+ * empty and callers fall back to SQL.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private final ProductRepository repo;
+    private final boolean enabled;
+    private final int maxCandidates;
+
+    private volatile TrigramIndex index;
+
+    //Changes that commit while a rebuild is loading, replayed onto the new index before it is swapped in
+    private List<ProductChangedEvent> pending;
+
+    public ProductSearchIndex(ProductRepository repo,
+                              @Value("${inventory.search.trigram-index.enabled:true}") boolean enabled,
+                              @Value("${inventory.search.trigram-index.max-candidates:10000}") int maxCandidates) {
+        this.repo = repo;
+        this.enabled = enabled;
+        this.maxCandidates = maxCandidates;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${inventory.search.trigram-index.rebuild-ms:600000}",
+            fixedDelayString = "${inventory.search.trigram-index.rebuild-ms:600000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+
+        long start = System.currentTimeMillis();
+        TrigramIndex fresh = new TrigramIndex();
+        for (Object[] row : repo.findAllNames()) {
+            fresh.put((Long) row[0], (Long) row[1], (String) row[2]);
+        }
+
+        synchronized (this) {
+            pending.forEach(event -> apply(fresh, event));
+            pending = null;
+            index = fresh;
+        }
+        log.info("Indexed {} product names in {} ms", fresh.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (this) {
+            if (pending != null) {
+                pending.add(event);
+            }
+            if (index != null) {
+                apply(index, event);
+            }
+        }
+    }
+
+    /**
+     * Finds the ids of the products whose name contains the term, ignoring case
+     *
+     * @param term the part of the name to look for
+     * @param ownerId only return products of this user, or null for every user
+     * @return the matching ids, or empty if the index cannot answer and the caller should use SQL
+     */
+    public Optional<List<Long>> search(String term, Long ownerId) {
+        TrigramIndex current = index;
+        if (current == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(current.search(term, ownerId, maxCandidates));
+    }
+
+    private static void apply(TrigramIndex target, ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.DELETED) {
+            target.remove(event.productId());
+        } else {
+            target.put(event.productId(), event.userId(), event.name());
+        }
+    }
+}
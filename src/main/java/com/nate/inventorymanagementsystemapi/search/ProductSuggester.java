@@ -0,0 +1,107 @@
+package com.nate.inventorymanagementsystemapi.search;
+
+import com.nate.inventorymanagementsystemapi.event.ProductChangedEvent;
+import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Prefix autocomplete over product names, served from memory so typing in the UI does not hit the database.
+ * <p>
+ * Built once the application is ready, kept current by committed {@link ProductChangedEvent}s and rebuilt
+ * periodically. Until the first build finishes {@link #suggest} returns empty and callers fall back to SQL.
+ */
+@Component
+public class ProductSuggester {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSuggester.class);
+
+    private final ProductRepository repo;
+    private final boolean enabled;
+
+    private volatile PrefixIndex index;
+
+    //Changes that commit while a rebuild is loading, replayed onto the new index before it is swapped in
+    private List<ProductChangedEvent> pending;
+
+    public ProductSuggester(ProductRepository repo,
+                            @Value("${inventory.search.suggest.enabled:true}") boolean enabled) {
+        this.repo = repo;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${inventory.search.suggest.rebuild-ms:600000}",
+            fixedDelayString = "${inventory.search.suggest.rebuild-ms:600000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+
+        long start = System.currentTimeMillis();
+        PrefixIndex fresh = new PrefixIndex();
+        for (Object[] row : repo.findAllNames()) {
+            fresh.put((Long) row[0], (Long) row[1], (String) row[2]);
+        }
+
+        synchronized (this) {
+            pending.forEach(event -> apply(fresh, event));
+            pending = null;
+            index = fresh;
+        }
+        log.info("Indexed {} product names for suggestions in {} ms", fresh.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (this) {
+            if (pending != null) {
+                pending.add(event);
+            }
+            if (index != null) {
+                apply(index, event);
+            }
+        }
+    }
+
+    /**
+     * Distinct product names starting with the prefix, in alphabetical order
+     *
+     * @param prefix the start of the name, case is ignored
+     * @param ownerId only suggest names of this user's products, or null for every user
+     * @param limit the most names to return
+     * @return the names, or empty if the index is not built yet and the caller should use SQL
+     */
+    public Optional<List<String>> suggest(String prefix, Long ownerId, int limit) {
+        PrefixIndex current = index;
+        if (current == null) {
+            return Optional.empty();
+        }
+        return Optional.of(current.suggest(prefix, ownerId, limit));
+    }
+
+    private static void apply(PrefixIndex target, ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.DELETED) {
+            target.remove(event.productId());
+        } else {
+            target.put(event.productId(), event.userId(), event.name());
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.nate.inventorymanagementsystemapi.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index from the three character substrings (trigrams) of a name to the documents containing them,
+ * answering case-insensitive "name contains" queries without scanning every name.
+ * <p>
+ * Documents live in append-only slots and every posting list is a sorted array of slots, so a query is a
+ * merge intersection of the posting lists of its trigrams followed by a check of the surviving names.
+ * Replacing or removing a document only tombstones its slot; the index compacts itself once dead slots
+ * outnumber live ones. Reads share a lock, writes are exclusive.
+ */
+public class TrigramIndex {
+
+    private static final int MIN_COMPACT = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] ids = new long[16];
+    private long[] owners = new long[16];
+    private String[] names = new String[16];
+    private int slots;
+    private int dead;
+
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    /**
+     * Adds a document, replacing any previous version with the same id
+     *
+     * @param id the id of the document
+     * @param ownerId the id of the owner, used to scope queries
+     * @param name the text to index
+     */
+    public void put(long id, long ownerId, String name) {
+        String normalized = normalize(name);
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            int slot = slots++;
+            if (slot == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                owners = Arrays.copyOf(owners, capacity);
+                names = Arrays.copyOf(names, capacity);
+            }
+            ids[slot] = id;
+            owners[slot] = ownerId;
+            names[slot] = normalized;
+            slotById.put(id, slot);
+            for (long trigram : trigrams(normalized)) {
+                postings.computeIfAbsent(trigram, t -> new Postings()).add(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the ids of every document whose name contains the term, ignoring case
+     *
+     * @param term the substring to look for, at least three characters
+     * @param ownerId only return documents of this owner, or null for every owner
+     * @param limit the most matches the caller is willing to handle
+     * @return the matching ids in insertion order, or null if the term is too short or there are more than {@code limit} matches
+     */
+    public List<Long> search(String term, Long ownerId, int limit) {
+        String normalized = normalize(term);
+        long[] wanted = trigrams(normalized);
+        if (wanted.length == 0) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            //Intersects starting from the rarest trigram so the candidate set only shrinks
+            Postings[] lists = new Postings[wanted.length];
+            for (int i = 0; i < wanted.length; i++) {
+                lists[i] = postings.get(wanted[i]);
+                if (lists[i] == null) {
+                    return List.of();
+                }
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+            int[] candidates = Arrays.copyOf(lists[0].slots, lists[0].size);
+            int count = candidates.length;
+            for (int i = 1; i < lists.length && count > 0; i++) {
+                count = intersect(candidates, count, lists[i]);
+            }
+
+            //Trigrams can match out of order, so every candidate is checked against the real name
+            List<Long> matches = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int slot = candidates[i];
+                String name = names[slot];
+                if (name == null || (ownerId != null && owners[slot] != ownerId) || !name.contains(normalized)) {
+                    continue;
+                }
+                if (matches.size() == limit) {
+                    return null;
+                }
+                matches.add(ids[slot]);
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(long id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        names[slot] = null;
+        dead++;
+        if (dead > MIN_COMPACT && dead > slotById.size()) {
+            compact();
+        }
+    }
+
+    //Rewrites the slots and posting lists without the tombstoned documents
+    private void compact() {
+        long[] oldIds = ids;
+        long[] oldOwners = owners;
+        String[] oldNames = names;
+        int oldSlots = slots;
+
+        int capacity = Math.max(16, slotById.size() * 2);
+        ids = new long[capacity];
+        owners = new long[capacity];
+        names = new String[capacity];
+        slots = 0;
+        dead = 0;
+        slotById.clear();
+        postings.clear();
+
+        for (int slot = 0; slot < oldSlots; slot++) {
+            if (oldNames[slot] == null) {
+                continue;
+            }
+            int next = slots++;
+            ids[next] = oldIds[slot];
+            owners[next] = oldOwners[slot];
+            names[next] = oldNames[slot];
+            slotById.put(oldIds[slot], next);
+            for (long trigram : trigrams(oldNames[slot])) {
+                postings.computeIfAbsent(trigram, t -> new Postings()).add(next);
+            }
+        }
+    }
+
+    //Keeps the candidates that also appear in the posting list, both are sorted
+    private static int intersect(int[] candidates, int count, Postings list) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < list.size; i++) {
+            int slot = candidates[i];
+            while (j < list.size && list.slots[j] < slot) {
+                j++;
+            }
+            if (j < list.size && list.slots[j] == slot) {
+                candidates[kept++] = slot;
+            }
+        }
+        return kept;
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    //Distinct trigrams of an already normalized string, each packed into a long
+    static long[] trigrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] result = new long[text.length() - 2];
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            result[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return Arrays.stream(result).distinct().toArray();
+    }
+
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int size;
+
+        //Slots are handed out in increasing order, so appending keeps the list sorted
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+}
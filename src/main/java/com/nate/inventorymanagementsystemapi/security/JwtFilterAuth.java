@@ -1,13 +1,16 @@
 package com.nate.inventorymanagementsystemapi.security;
 
 import com.nate.inventorymanagementsystemapi.model.CustomerDetails;
+import com.nate.inventorymanagementsystemapi.model.Role;
+import com.nate.inventorymanagementsystemapi.model.User;
 import com.nate.inventorymanagementsystemapi.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -18,10 +21,12 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
 @Component
-@AllArgsConstructor
 public class JwtFilterAuth extends OncePerRequestFilter {
 
     private final UserDetailsService service;
+    private final VerifiedTokenCache tokenCache;
+    private final TokenVersionRegistry tokenVersions;
+    private final boolean stateless;
     private static final String[] EXCLUDED_PATHS = {
             "/auth/login",
             "/auth/register",
@@ -36,7 +41,13 @@ public class JwtFilterAuth extends OncePerRequestFilter {
             "/webjars/"
     };
 
-
+    public JwtFilterAuth(UserDetailsService service, VerifiedTokenCache tokenCache, TokenVersionRegistry tokenVersions,
+                         @Value("${inventory.jwt.stateless:false}") boolean stateless) {
+        this.service = service;
+        this.tokenCache = tokenCache;
+        this.tokenVersions = tokenVersions;
+        this.stateless = stateless;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
@@ -56,13 +67,28 @@ public class JwtFilterAuth extends OncePerRequestFilter {
 
         String token = authHeader.substring(7);
 
-        if(!JwtUtil.tokenValidation(token)){
+        //Verifies the token once and reuses the claims, repeated tokens are served from the cache
+        Claims claims = tokenCache.verify(token);
+        if(claims == null){
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             response.getWriter().write("Invalid or Expired token");
             return;
         }
 
-        CustomerDetails customerDetails = (CustomerDetails) service.loadUserByUsername(JwtUtil.extractUsername(token));
+        CustomerDetails customerDetails;
+        if(stateless && isClaimsOnly(claims)){
+            //Stateless mode: the token carries id and role, only the version table is consulted
+            long version = claims.get(JwtUtil.VERSION_CLAIM, Long.class);
+            if(!tokenVersions.isCurrent(claims.getSubject(), version)){
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                response.getWriter().write("Token has been revoked");
+                return;
+            }
+            customerDetails = fromClaims(claims);
+        }
+        else {
+            customerDetails = (CustomerDetails) service.loadUserByUsername(claims.getSubject());
+        }
 
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(customerDetails, null, customerDetails.getAuthorities());
 
@@ -72,6 +98,27 @@ public class JwtFilterAuth extends OncePerRequestFilter {
 
     }
 
+    /**
+     * A token can skip the user lookup only if it has all the claims needed to rebuild the user
+     * and was issued after the version table started, older tokens could predate a revocation
+     * that the in-memory table no longer knows about.
+     */
+    private boolean isClaimsOnly(Claims claims) {
+        return claims.get(JwtUtil.USER_ID_CLAIM) != null
+                && claims.get(JwtUtil.VERSION_CLAIM) != null
+                && claims.get(JwtUtil.ROLE_CLAIM) != null
+                && claims.getIssuedAt() != null
+                && claims.getIssuedAt().getTime() >= tokenVersions.getStartedAt() / 1000 * 1000;
+    }
+
+    private static CustomerDetails fromClaims(Claims claims) {
+        User user = new User();
+        user.setId(claims.get(JwtUtil.USER_ID_CLAIM, Long.class));
+        user.setUsername(claims.getSubject());
+        user.setRole(Role.valueOf(claims.get(JwtUtil.ROLE_CLAIM, String.class)));
+        return new CustomerDetails(user);
+    }
+
     private boolean isExcluded(String path) {
         for (String exclude : EXCLUDED_PATHS) {
             if (path.contains(exclude)) {
@@ -1,5 +1,6 @@
 package com.nate.inventorymanagementsystemapi.security;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.xml.ws.WebEndpoint;
 import lombok.AllArgsConstructor;
 import org.springframework.context.annotation.Bean;
@@ -24,6 +25,8 @@ public class SecurityConfig {
                 .csrf(c-> c.disable())
                 .sessionManagement(sm-> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        //Streamed responses finish on an async dispatch of a request that was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/auth/login","/auth/register","/v3/api-docs/**","/swagger-ui/**", "/swagger-ui.html","/swagger-resources/**"
                         ,"/webjars/**").permitAll()
                         .requestMatchers("/product/**").authenticated()
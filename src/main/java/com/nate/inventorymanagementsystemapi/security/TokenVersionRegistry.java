@@ -0,0 +1,42 @@
+package com.nate.inventorymanagementsystemapi.security;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory table of per-user token versions used to revoke claims-only tokens.
+ * <p>
+ * Every token records the version of its user at login. Bumping the version (on delete or
+ * role change) invalidates all tokens issued before. The table only lives as long as the
+ * process, so {@link JwtFilterAuth} trusts it only for tokens issued after {@link #getStartedAt()}.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+
+    public long current(String username) {
+        return versions.getOrDefault(username, 0L);
+    }
+
+    /**
+     * Revokes every token issued so far for the given user
+     *
+     * @param username the username of the user
+     * @return the new token version
+     */
+    public long bump(String username) {
+        return versions.merge(username, 1L, Long::sum);
+    }
+
+    public boolean isCurrent(String username, long version) {
+        return current(username) == version;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+}
@@ -0,0 +1,81 @@
+package com.nate.inventorymanagementsystemapi.security;
+
+import com.nate.inventorymanagementsystemapi.cache.CacheStats;
+import com.nate.inventorymanagementsystemapi.cache.ExpiringCache;
+import com.nate.inventorymanagementsystemapi.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Caches the claims of tokens whose signature has already been verified, so a bearer token
+ * that is replayed many times is only parsed and checked once.
+ * <p>
+ * Entries are keyed by a SHA-256 digest of the token and never outlive the token's own
+ * {@code exp} claim.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final Logger log = LoggerFactory.getLogger(VerifiedTokenCache.class);
+
+    private final ExpiringCache<String, Claims> cache;
+    private final long ttlMillis;
+
+    public VerifiedTokenCache(@Value("${inventory.jwt.token-cache.max-size:10000}") int maxSize,
+                              @Value("${inventory.jwt.token-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.cache = new ExpiringCache<>(maxSize);
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * Returns the verified claims of the token
+     *
+     * @param token the compact JWT taken from the Authorization header
+     * @return the {@link Claims} of the token, or {@code null} if it is invalid or expired
+     */
+    public Claims verify(String token) {
+        String key = digest(token);
+
+        //Cache hit, the signature was already checked and the token has not expired yet
+        Claims claims = cache.get(key);
+        if (claims != null) {
+            return claims;
+        }
+
+        try {
+            claims = JwtUtil.parseClaims(token);
+        } catch (Exception e) {
+            log.debug("Rejected token: {}", e.getMessage());
+            return null;
+        }
+
+        //Never keep a token around past its own expiry
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        if (claims.getExpiration() != null) {
+            expiresAt = Math.min(expiresAt, claims.getExpiration().getTime());
+        }
+        cache.put(key, claims, expiresAt);
+        return claims;
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
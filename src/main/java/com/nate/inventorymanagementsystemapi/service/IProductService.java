@@ -1,10 +1,28 @@
 package com.nate.inventorymanagementsystemapi.service;
 
+import com.nate.inventorymanagementsystemapi.dto.BulkResponse;
+import com.nate.inventorymanagementsystemapi.dto.CursorResponse;
+import com.nate.inventorymanagementsystemapi.dto.ImportRowError;
+import com.nate.inventorymanagementsystemapi.dto.ImportSummary;
 import com.nate.inventorymanagementsystemapi.dto.PostProduct;
 import com.nate.inventorymanagementsystemapi.dto.ProductDto;
+import com.nate.inventorymanagementsystemapi.dto.ProductFilter;
+import com.nate.inventorymanagementsystemapi.dto.ReorderLevel;
+import com.nate.inventorymanagementsystemapi.dto.StockHistory;
+import com.nate.inventorymanagementsystemapi.dto.StockLevel;
+import com.nate.inventorymanagementsystemapi.dto.StockMovementDto;
+import com.nate.inventorymanagementsystemapi.dto.SummaryResponse;
+import com.nate.inventorymanagementsystemapi.importer.ProductRowReader;
+import com.nate.inventorymanagementsystemapi.model.CurrentUser;
+import com.nate.inventorymanagementsystemapi.model.StockMovement;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 public interface IProductService {
 
@@ -14,4 +32,30 @@ public interface IProductService {
     boolean deleteProduct(Long id,String username);
     ProductDto udpateProduct(Long id, ProductDto productUpdate,String username);
 
+    //Variants for an already authenticated user, these never look the user up again
+    Page<ProductDto> getAllUserProducts(CurrentUser user, int page, int size, String sortBy, String direction, String search);
+    Page<ProductDto> getAllUserProducts(CurrentUser user, int page, int size, String sortBy, String direction, String search, ProductFilter filter);
+    ProductDto addProduct(PostProduct product, CurrentUser user);
+    ProductDto getProduct(Long id, CurrentUser user);
+    boolean deleteProduct(Long id, CurrentUser user);
+    ProductDto udpateProduct(Long id, ProductDto productUpdate, CurrentUser user);
+    ProductDto udpateProduct(Long id, ProductDto productUpdate, Long expectedVersion, CurrentUser user);
+    ProductDto modifyProduct(Long id, UnaryOperator<ProductDto> change, CurrentUser user);
+    Slice<ProductDto> getUserProductSlice(CurrentUser user, int page, int size, String sortBy, String direction, String search);
+    Slice<ProductDto> getUserProductSlice(CurrentUser user, int page, int size, String sortBy, String direction, String search, ProductFilter filter);
+    BulkResponse bulkAddProducts(List<PostProduct> products, CurrentUser user);
+    List<String> suggestProductNames(CurrentUser user, String prefix, int limit);
+    CursorResponse<ProductDto> getUserProductsAfter(CurrentUser user, String after, int size, String sortBy, String direction, String search);
+    CursorResponse<ProductDto> getUserProductsAfter(CurrentUser user, String after, int size, String sortBy, String direction, String search, ProductFilter filter);
+    StockLevel adjustStock(Long id, int delta, CurrentUser user);
+    StockLevel adjustStock(Long id, int delta, StockMovement.Reason reason, CurrentUser user);
+    ReorderLevel setReorderThreshold(Long id, Integer threshold, CurrentUser user);
+    List<ReorderLevel> getLowStock(CurrentUser user, int limit);
+    SseEmitter streamChanges(CurrentUser user, Long after);
+    CursorResponse<StockMovementDto> getMovements(Long id, String before, int size, CurrentUser user);
+    StockHistory getHistory(Long id, Instant from, Instant to, String resolution, CurrentUser user);
+    SummaryResponse getSummary(CurrentUser user);
+    long exportProducts(CurrentUser user, Consumer<ProductDto> sink);
+    ImportSummary importProducts(ProductRowReader reader, CurrentUser user, Consumer<ImportRowError> rejected);
+
 }
@@ -0,0 +1,13 @@
+package com.nate.inventorymanagementsystemapi.service;
+
+import com.nate.inventorymanagementsystemapi.dto.ReportJobDto;
+import com.nate.inventorymanagementsystemapi.dto.ReportRequest;
+
+import java.util.UUID;
+
+public interface IReportService {
+
+    ReportJobDto submit(ReportRequest request);
+    ReportJobDto getJob(UUID id);
+
+}
@@ -0,0 +1,16 @@
+package com.nate.inventorymanagementsystemapi.service;
+
+import com.nate.inventorymanagementsystemapi.dto.Availability;
+import com.nate.inventorymanagementsystemapi.dto.ReservationDto;
+import com.nate.inventorymanagementsystemapi.model.CurrentUser;
+
+import java.util.UUID;
+
+public interface IReservationService {
+
+    ReservationDto reserve(Long productId, int quantity, Integer ttlSeconds, CurrentUser user);
+    ReservationDto confirm(Long productId, UUID reservationId, CurrentUser user);
+    ReservationDto release(Long productId, UUID reservationId, CurrentUser user);
+    Availability availability(Long productId, CurrentUser user);
+
+}
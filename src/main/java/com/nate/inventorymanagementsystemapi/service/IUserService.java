@@ -1,9 +1,11 @@
 package com.nate.inventorymanagementsystemapi.service;
 
+import com.nate.inventorymanagementsystemapi.cache.CacheStats;
 import com.nate.inventorymanagementsystemapi.dto.JwtResponse;
 import com.nate.inventorymanagementsystemapi.dto.LoginDto;
 import com.nate.inventorymanagementsystemapi.dto.RegisterDto;
 import com.nate.inventorymanagementsystemapi.dto.UserDto;
+import com.nate.inventorymanagementsystemapi.model.Role;
 import org.springframework.data.domain.Page;
 
 import java.util.List;
@@ -14,5 +16,7 @@ public interface IUserService {
     Page<UserDto> getUsers(int page, int size, String sortBy, String direction);
     boolean deleteUser(String username);
     JwtResponse login(LoginDto loginDto);
+    UserDto updateRole(String username, Role role);
+    CacheStats userCacheStats();
 
 }
@@ -0,0 +1,68 @@
+package com.nate.inventorymanagementsystemapi.service;
+
+import com.nate.inventorymanagementsystemapi.exception.ProductVersionConflictException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Bounded retry for read-modify-write callers that lose an optimistic locking race, e.g.
+ * {@code retry.run(() -> productService.modifyProduct(id, change, user))}. PATCH without {@code If-Match}, delete
+ * and reorder threshold changes run through it. Every attempt must read the latest version: either in its own
+ * transaction, or with a query that is not answered from the persistence context. Waits a short, jittered,
+ * growing backoff between attempts and gives up after {@code max-attempts}, rethrowing the last conflict.
+ * <p>
+ * Not used for a PATCH with {@code If-Match}: that client asked to be told about the conflict.
+ */
+@Component
+public class OptimisticRetry {
+
+    private static final Logger log = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    private final int maxAttempts;
+    private final long backoffMs;
+
+    public OptimisticRetry(@Value("${inventory.product.update.max-attempts:5}") int maxAttempts,
+                           @Value("${inventory.product.update.backoff-ms:5}") long backoffMs) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = backoffMs;
+    }
+
+    /**
+     * @param attempt one transactional attempt
+     * @return the result of the first attempt that did not conflict
+     * @throws ProductVersionConflictException if every attempt conflicted
+     */
+    public <T> T run(Supplier<T> attempt) {
+        for (int i = 1; ; i++) {
+            try {
+                return attempt.get();
+            } catch (ProductVersionConflictException | ObjectOptimisticLockingFailureException e) {
+                if (i >= maxAttempts) {
+                    log.warn("Giving up after {} conflicting attempts", i);
+                    throw e;
+                }
+                pause(i);
+            }
+        }
+    }
+
+    //Jitter keeps the losers of one race from colliding again on the next attempt
+    private void pause(int attempt) {
+        if (backoffMs <= 0) {
+            return;
+        }
+        long ceiling = backoffMs * (1L << Math.min(attempt - 1, 6));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying", e);
+        }
+    }
+}
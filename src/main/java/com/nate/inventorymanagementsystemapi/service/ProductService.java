@@ -1,35 +1,108 @@
 package com.nate.inventorymanagementsystemapi.service;
 
+import com.nate.inventorymanagementsystemapi.cache.HotStockCounters;
+import com.nate.inventorymanagementsystemapi.cache.LowStockWatchlist;
+import com.nate.inventorymanagementsystemapi.cache.ProductCounters;
+import com.nate.inventorymanagementsystemapi.cache.ProductTotals;
+import com.nate.inventorymanagementsystemapi.cache.UserCache;
+import com.nate.inventorymanagementsystemapi.dto.BulkItemResult;
+import com.nate.inventorymanagementsystemapi.dto.BulkResponse;
+import com.nate.inventorymanagementsystemapi.dto.CursorResponse;
+import com.nate.inventorymanagementsystemapi.dto.ImportRowError;
+import com.nate.inventorymanagementsystemapi.dto.ImportSummary;
 import com.nate.inventorymanagementsystemapi.dto.PostProduct;
+import com.nate.inventorymanagementsystemapi.dto.ProductCursor;
 import com.nate.inventorymanagementsystemapi.dto.ProductDto;
+import com.nate.inventorymanagementsystemapi.dto.ProductFilter;
+import com.nate.inventorymanagementsystemapi.dto.ReorderLevel;
+import com.nate.inventorymanagementsystemapi.dto.StockHistory;
+import com.nate.inventorymanagementsystemapi.dto.StockHistoryPoint;
+import com.nate.inventorymanagementsystemapi.dto.StockLevel;
+import com.nate.inventorymanagementsystemapi.dto.StockMovementDto;
+import com.nate.inventorymanagementsystemapi.dto.SummaryResponse;
+import com.nate.inventorymanagementsystemapi.event.InventoryChangedEvent;
+import com.nate.inventorymanagementsystemapi.event.ProductChangedEvent;
+import com.nate.inventorymanagementsystemapi.event.ReorderThresholdChangedEvent;
+import com.nate.inventorymanagementsystemapi.event.StockLevelChangedEvent;
+import com.nate.inventorymanagementsystemapi.exception.InsufficientStockException;
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
 import com.nate.inventorymanagementsystemapi.exception.ProductNotFoundException;
+import com.nate.inventorymanagementsystemapi.exception.ProductVersionConflictException;
 import com.nate.inventorymanagementsystemapi.exception.UserNotFoundException;
+import com.nate.inventorymanagementsystemapi.feed.ProductChangeFeed;
+import com.nate.inventorymanagementsystemapi.importer.ImportRow;
+import com.nate.inventorymanagementsystemapi.importer.ProductRowReader;
 import com.nate.inventorymanagementsystemapi.mapper.ProductMapper;
+import com.nate.inventorymanagementsystemapi.model.CurrentUser;
 import com.nate.inventorymanagementsystemapi.model.Product;
-import com.nate.inventorymanagementsystemapi.model.Role;
+import com.nate.inventorymanagementsystemapi.model.ProductChange;
+import com.nate.inventorymanagementsystemapi.model.StockMovement;
+import com.nate.inventorymanagementsystemapi.model.StockRollup;
 import com.nate.inventorymanagementsystemapi.model.User;
+import com.nate.inventorymanagementsystemapi.repository.ProductBatchWriter;
+import com.nate.inventorymanagementsystemapi.repository.ProductOutbox;
 import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import com.nate.inventorymanagementsystemapi.repository.ProductSortField;
+import com.nate.inventorymanagementsystemapi.repository.StockMovementRepository;
+import com.nate.inventorymanagementsystemapi.repository.StockRollupStore;
 import com.nate.inventorymanagementsystemapi.repository.UserRepository;
+import com.nate.inventorymanagementsystemapi.reservation.ReservationLedger;
+import com.nate.inventorymanagementsystemapi.search.ProductSearchIndex;
+import com.nate.inventorymanagementsystemapi.search.ProductSuggester;
+import jakarta.validation.Validator;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 @AllArgsConstructor
 @Service
 public class ProductService implements IProductService {
 
     private static final Logger log = LoggerFactory.getLogger(ProductService.class);
+    private static final int MAX_HISTORY_BUCKETS = 5000;
     private final ProductRepository repo;
     private final UserRepository repoU;
+    private final UserCache userCache;
+    private final ProductCounters productCounters;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggester suggester;
+    private final ApplicationEventPublisher events;
+    private final ProductBatchWriter batchWriter;
+    private final Validator validator;
+    private final HotStockCounters hotStock;
+    private final ProductTotals productTotals;
+    private final LowStockWatchlist lowStock;
+    private final ProductOutbox outbox;
+    private final ProductChangeFeed changeFeed;
+    private final StockMovementRepository movements;
+    private final StockRollupStore rollups;
+    private final OptimisticRetry retry;
+    private final ReservationLedger reservations;
 
 
     /**
@@ -45,38 +118,239 @@ public class ProductService implements IProductService {
      */
     @Override
     public Page<ProductDto> getAllUserProductsByUsername(String username, int page, int size, String sortBy, String direction,String search) {
-        log.info("Fetching products for user: {}, page {}, size {}, sortBy {}, direction {} ",username,page,size,sortBy,direction);
-        //Finds user by username, throws exception if not found
-       User user = repoU.findByUsername(username).orElseThrow(()->{
-            log.error("User not found: {}",username);
-            return new UserNotFoundException(username);
-       });
+        return getAllUserProducts(currentUser(username),page,size,sortBy,direction,search);
+    }
 
-       //Configures sorting (ascending or descending)
-       Sort sort = direction.equalsIgnoreCase("desc") ? Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+    /**
+     * Retrieves a Paginated and sorted list of products from the already authenticated user
+     *
+     * @param user the logged in user
+     * @param page  the page number that the user wants to retrieve (0-based)
+     * @param size  the amount of items per page
+     * @param sortBy the field the page is sorted by (e.g name, quantity etc)
+     * @param direction the way the pages are sorted (e.g asc or desc)
+     * @param search optional part of the product name to filter by
+     * @return a paginated page {@link Page} of {@link ProductDto} objects
+     * @throws InvalidRequestException if the sort field can not be sorted on
+     */
+    @Override
+    public Page<ProductDto> getAllUserProducts(CurrentUser user, int page, int size, String sortBy, String direction, String search) {
+        return getAllUserProducts(user,page,size,sortBy,direction,search,ProductFilter.NONE);
+    }
+
+    /**
+     * Retrieves a Paginated and sorted list of products from the already authenticated user, narrowed by range filters
+     *
+     * @param user the logged in user
+     * @param page  the page number that the user wants to retrieve (0-based)
+     * @param size  the amount of items per page
+     * @param sortBy the field the page is sorted by (e.g name, quantity etc)
+     * @param direction the way the pages are sorted (e.g asc or desc)
+     * @param search optional part of the product name to filter by
+     * @param filter the price, quantity and creation time ranges to filter by
+     * @return a paginated page {@link Page} of {@link ProductDto} objects
+     * @throws InvalidRequestException if the sort field can not be sorted on or a range is invalid
+     */
+    @Override
+    public Page<ProductDto> getAllUserProducts(CurrentUser user, int page, int size, String sortBy, String direction, String search, ProductFilter filter) {
+        log.info("Fetching products for user: {}, page {}, size {}, sortBy {}, direction {} ",user.username(),page,size,sortBy,direction);
+        filter.validate();
 
-       //Creates a Pageable object that defines page number , size and sorting
-        Pageable pageable = PageRequest.of(page,size,sort);
+        //Creates a Pageable object that defines page number , size and sorting
+        Pageable pageable = pageRequest(page,size,sortBy,direction);
 
         //Fetches Paginated product data for the given user
-        Page<Product> productPage;
+        Page<ProductDto> productPage;
 
-        if(user.getRole().equals(Role.ADMIN) && search!= null && !search.trim().isEmpty()){
+        //Name searches are answered by the trigram index when it can, otherwise by SQL
+        Optional<Page<ProductDto>> indexed = filter.isEmpty() ? searchByIndex(user,search,pageable) : Optional.empty();
+
+        if(!filter.isEmpty()){
+            //Range filters and the name search compile into one query, only counted when the page does not tell the total
+            String term = searchTerm(search);
+            Long ownerId = listingOwner(user,term);
+            List<ProductDto> rows = repo.findFiltered(ownerId,term,filter,pageable,size);
+            productPage = PageableExecutionUtils.getPage(rows,pageable,()-> repo.countFiltered(ownerId,term,filter));
+        } else if(indexed.isPresent()){
+            productPage = indexed.get();
+        } else if(user.isAdmin() && search!= null && !search.trim().isEmpty()){
             productPage = repo.findByNameContainingIgnoreCase(search,pageable);
         } else if (search!=null && !search.trim().isEmpty()) {
-            productPage = repo.searchProductByUserAndName(username,search,pageable);
+            productPage = repo.searchProductByUserAndName(user.id(),search,pageable);
         }
         else {
-            productPage = repo.findByUserUsername(username,pageable);
+            //The total comes from the per-user counter instead of a COUNT query
+            Slice<ProductDto> slice = repo.findSliceByUserId(user.id(),pageable);
+            productPage = new PageImpl<>(slice.getContent(),pageable,productCounters.count(user.id()));
         }
 
-        //if user is Admin, fetches product regardless
-        if (user.getRole().equals(Role.ADMIN)) {
-            return productPage.map(ProductMapper::toDto);
+        //Rows are selected straight into ProductDto, no mapping needed, hot products show their in-memory stock
+        productPage.forEach(hotStock::merge);
+        return productPage;
+    }
+
+    /**
+     * Retrieves a sorted slice of products from the already authenticated user. Unlike
+     * {@link #getAllUserProducts} it only reports whether there is a next page, so it never counts rows.
+     *
+     * @param user the logged in user
+     * @param page  the page number that the user wants to retrieve (0-based)
+     * @param size  the amount of items per page
+     * @param sortBy the field the page is sorted by (e.g name, quantity etc)
+     * @param direction the way the pages are sorted (e.g asc or desc)
+     * @param search optional part of the product name to filter by
+     * @return a {@link Slice} of {@link ProductDto} objects
+     * @throws InvalidRequestException if the sort field can not be sorted on
+     */
+    @Override
+    public Slice<ProductDto> getUserProductSlice(CurrentUser user, int page, int size, String sortBy, String direction, String search) {
+        return getUserProductSlice(user,page,size,sortBy,direction,search,ProductFilter.NONE);
+    }
+
+    /**
+     * Retrieves a sorted slice of products from the already authenticated user, narrowed by range filters
+     *
+     * @param user the logged in user
+     * @param page  the page number that the user wants to retrieve (0-based)
+     * @param size  the amount of items per page
+     * @param sortBy the field the page is sorted by (e.g name, quantity etc)
+     * @param direction the way the pages are sorted (e.g asc or desc)
+     * @param search optional part of the product name to filter by
+     * @param filter the price, quantity and creation time ranges to filter by
+     * @return a {@link Slice} of {@link ProductDto} objects
+     * @throws InvalidRequestException if the sort field can not be sorted on or a range is invalid
+     */
+    @Override
+    public Slice<ProductDto> getUserProductSlice(CurrentUser user, int page, int size, String sortBy, String direction, String search, ProductFilter filter) {
+        log.info("Fetching product slice for user: {}, page {}, size {}, sortBy {}, direction {} ",user.username(),page,size,sortBy,direction);
+        filter.validate();
+
+        Pageable pageable = pageRequest(page,size,sortBy,direction);
+
+        //Fetches one row more than the page size to know if there is a next page
+        Slice<ProductDto> productSlice;
+
+        Optional<Page<ProductDto>> indexed = filter.isEmpty() ? searchByIndex(user,search,pageable) : Optional.empty();
+
+        if(!filter.isEmpty()){
+            String term = searchTerm(search);
+            List<ProductDto> rows = repo.findFiltered(listingOwner(user,term),term,filter,pageable,size + 1);
+            boolean hasNext = rows.size() > size;
+            productSlice = new SliceImpl<>(hasNext ? rows.subList(0,size) : rows,pageable,hasNext);
+        } else if(indexed.isPresent()){
+            productSlice = indexed.get();
+        } else if(user.isAdmin() && search!= null && !search.trim().isEmpty()){
+            productSlice = repo.findSliceByNameContainingIgnoreCase(search,pageable);
+        } else if (search!=null && !search.trim().isEmpty()) {
+            productSlice = repo.searchSliceByUserAndName(user.id(),search,pageable);
         }
+        else {
+            productSlice = repo.findSliceByUserId(user.id(),pageable);
+        }
+
+        productSlice.forEach(hotStock::merge);
+        return productSlice;
+    }
 
-        //Map Product entities to ProductDto objects using the mapper
-        return productPage.map(ProductMapper::toDto);
+    /**
+     * Suggests product names starting with the given prefix, for autocomplete. Admins get suggestions
+     * from every product, everyone else only from their own. Served from memory once the suggester is built.
+     *
+     * @param user the logged in user
+     * @param prefix the start of the product name, case is ignored
+     * @param limit the most names to return
+     * @return distinct product names in alphabetical order
+     * @throws InvalidRequestException if the limit is not between 1 and 50
+     */
+    @Override
+    public List<String> suggestProductNames(CurrentUser user, String prefix, int limit) {
+        if(limit < 1 || limit > 50){
+            throw new InvalidRequestException("Limit must be between 1 and 50");
+        }
+        Long ownerId = user.isAdmin() ? null : user.id();
+        String start = prefix == null ? "" : prefix.trim();
+
+        //Falls back to a prefix LIKE until the suggester has been built
+        return suggester.suggest(start,ownerId,limit)
+                .orElseGet(()-> ownerId == null
+                        ? repo.suggestNames(start,PageRequest.of(0,limit))
+                        : repo.suggestNamesByUser(ownerId,start,PageRequest.of(0,limit)));
+    }
+
+    /**
+     * Retrieves the next page of a keyset (cursor) listing for the already authenticated user.
+     * Pages seek on (sort key, id) instead of using OFFSET, so deep pages cost the same as the first
+     * and no COUNT query is run.
+     *
+     * @param user the logged in user
+     * @param after the cursor returned with the previous page, or empty for the first page
+     * @param size the amount of items per page
+     * @param sortBy the field the listing is sorted by, ignored when a cursor is given
+     * @param direction the way the listing is sorted, ignored when a cursor is given
+     * @param search optional part of the product name to filter by
+     * @return a {@link CursorResponse} with the page and the cursor of the next page
+     * @throws InvalidRequestException if the cursor, size or sort field is invalid
+     */
+    @Override
+    public CursorResponse<ProductDto> getUserProductsAfter(CurrentUser user, String after, int size, String sortBy, String direction, String search) {
+        return getUserProductsAfter(user,after,size,sortBy,direction,search,ProductFilter.NONE);
+    }
+
+    /**
+     * Retrieves the next page of a keyset (cursor) listing for the already authenticated user, narrowed by range
+     * filters. The filters are not part of the cursor, send the same ones with every page.
+     *
+     * @param user the logged in user
+     * @param after the cursor returned with the previous page, or empty for the first page
+     * @param size the amount of items per page
+     * @param sortBy the field the listing is sorted by, ignored when a cursor is given
+     * @param direction the way the listing is sorted, ignored when a cursor is given
+     * @param search optional part of the product name to filter by
+     * @param filter the price, quantity and creation time ranges to filter by
+     * @return a {@link CursorResponse} with the page and the cursor of the next page
+     * @throws InvalidRequestException if the cursor, size, sort field or a range is invalid
+     */
+    @Override
+    public CursorResponse<ProductDto> getUserProductsAfter(CurrentUser user, String after, int size, String sortBy, String direction, String search, ProductFilter filter) {
+        log.info("Fetching products for user: {} after cursor, size {}",user.username(),size);
+        if(size < 1 || size > 1000){
+            throw new InvalidRequestException("Size must be between 1 and 1000");
+        }
+        filter.validate();
+
+        //The cursor carries the sort settings of the listing it came from
+        ProductCursor cursor = after == null || after.isBlank() ? null : ProductCursor.decode(after);
+        ProductSortField sortField = cursor != null ? cursor.sortBy() : ProductSortField.from(sortBy);
+        boolean descending = cursor != null ? cursor.descending() : direction.equalsIgnoreCase("desc");
+
+        //Same scoping as the paged listing: admins search every product, everyone else only their own
+        String term = searchTerm(search);
+
+        //Fetches one extra row to know whether there is a next page
+        List<ProductDto> rows = repo.findPageAfter(listingOwner(user,term), term, filter, sortField, descending,
+                cursor != null ? cursor.keyValue() : null, cursor != null ? cursor.id() : null, size + 1);
+
+        boolean hasNext = rows.size() > size;
+        List<ProductDto> pageRows = hasNext ? rows.subList(0, size) : rows;
+        pageRows.forEach(hotStock::merge);
+
+        String nextCursor = null;
+        if(hasNext){
+            ProductDto last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new ProductCursor(sortField, descending, sortKeyOf(last, sortField), last.getId()).encode();
+        }
+
+        return new CursorResponse<>(pageRows, nextCursor, hasNext);
+    }
+
+    private static String sortKeyOf(ProductDto product, ProductSortField field) {
+        return switch (field) {
+            case NAME -> product.getName();
+            case QUANTITY -> String.valueOf(product.getQuantity());
+            case PRICE -> product.getPrice().toPlainString();
+            case CREATED -> product.getCreatedAt().toString();
+            case ID -> String.valueOf(product.getId());
+        };
     }
 
     /**
@@ -89,13 +363,20 @@ public class ProductService implements IProductService {
      */
     @Override
     public ProductDto addProduct(PostProduct product, String username) {
+        return addProduct(product,currentUser(username));
+    }
+
+    /**
+     * Add a new Product for the already authenticated user
+     *
+     * @param product product thats given by client to Add
+     * @param user the logged in user
+     * @return a {@link ProductDto} object
+     */
+    @Override
+    @Transactional
+    public ProductDto addProduct(PostProduct product, CurrentUser user) {
         log.info("Adding new product: {}",product.getName());
-        //Finds user by username, throws exception if not found
-        User user = repoU.findByUsername(username)
-                .orElseThrow(()->{
-                    log.error("User not found: {}",username);
-                    return new UserNotFoundException(username);
-                });
 
         //Creates a ProductDto to store the data retrieved from user
         ProductDto dto = new ProductDto();
@@ -104,16 +385,208 @@ public class ProductService implements IProductService {
         dto.setPrice(product.getPrice());
         dto.setCreatedAt(Instant.now());
 
-        //Map the ProductDto to Product entity using the mapper
-        Product product1 = ProductMapper.toEntity(dto,user);
+        //Map the ProductDto to Product entity using the mapper, the owner is only a reference so no SELECT is needed
+        Product product1 = ProductMapper.toEntity(dto,repoU.getReferenceById(user.id()));
         //Saves the Product entity to the repo
         Product saved = repo.save(product1);
         log.debug("Saves product id {} to repo",saved.getName());
+        outbox.append(ProductChange.of(ProductChange.Type.CREATED,saved.getId(),user.id(),saved.getQuantity(),saved.getVersion()));
+        movements.save(StockMovement.of(StockMovement.Reason.CREATED,saved.getId(),user.id(),user.id(),saved.getQuantity(),saved.getQuantity()));
+        events.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.CREATED,saved.getId(),user.id(),saved.getName()));
+        events.publishEvent(new StockLevelChangedEvent(saved.getId(),user.id(),saved.getName(),saved.getQuantity(),saved.getVersion()));
+        events.publishEvent(new InventoryChangedEvent(user.id(),1,saved.getQuantity(),
+                InventoryChangedEvent.valueOf(saved.getQuantity(),saved.getPrice())));
 
         //Map the Product entity to ProductDto object using the mapper
         return ProductMapper.toDto(saved);
     }
 
+    /**
+     * Adds many products for the already authenticated user in one transaction. Every item is validated on its
+     * own: invalid items are reported and skipped, the valid ones are inserted in JDBC batches.
+     *
+     * @param products the products to add, in request order
+     * @param user the logged in user
+     * @return a {@link BulkResponse} with the id or the validation errors of every item, by index
+     * @throws InvalidRequestException if no products or more than the configured maximum were given
+     */
+    @Override
+    @Transactional
+    public BulkResponse bulkAddProducts(List<PostProduct> products, CurrentUser user) {
+        if(products == null || products.isEmpty()){
+            throw new InvalidRequestException("No products given");
+        }
+        if(products.size() > batchWriter.getMaxItems()){
+            throw new InvalidRequestException("At most " + batchWriter.getMaxItems() + " products per request");
+        }
+        log.info("Bulk adding {} products for user: {}",products.size(),user.username());
+
+        //Every product shares the owner reference and creation time
+        User owner = repoU.getReferenceById(user.id());
+        Instant now = Instant.now();
+
+        List<BulkItemResult> results = new ArrayList<>(products.size());
+        List<Product> accepted = new ArrayList<>();
+        List<BulkItemResult> acceptedResults = new ArrayList<>();
+
+        for(int i = 0; i < products.size(); i++){
+            PostProduct post = products.get(i);
+            List<String> errors = post == null ? List.of("Product is required") : violations(post);
+
+            Product product = null;
+            if(errors.isEmpty()){
+                product = new Product(null,post.getName(),post.getQuantity(),post.getPrice(),owner,now,null,null);
+                errors = violations(product);
+            }
+
+            BulkItemResult result = new BulkItemResult(i,null,errors.isEmpty() ? null : errors);
+            results.add(result);
+            if(errors.isEmpty()){
+                accepted.add(product);
+                acceptedResults.add(result);
+            }
+        }
+
+        batchWriter.insertAll(accepted);
+
+        for(int i = 0; i < accepted.size(); i++){
+            Product saved = accepted.get(i);
+            acceptedResults.get(i).setId(saved.getId());
+            events.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.CREATED,saved.getId(),user.id(),saved.getName()));
+            events.publishEvent(new StockLevelChangedEvent(saved.getId(),user.id(),saved.getName(),saved.getQuantity(),saved.getVersion()));
+        }
+        publishCreated(accepted,user);
+        log.debug("Bulk added {} products, rejected {}",accepted.size(),products.size() - accepted.size());
+
+        return new BulkResponse(accepted.size(),products.size() - accepted.size(),results);
+    }
+
+    /**
+     * Imports products for the already authenticated user from a CSV or NDJSON stream. The input is read one line
+     * at a time and valid rows are saved in chunks of the configured batch size, each chunk in its own transaction,
+     * so memory use does not grow with the file. Rows are validated like {@link #bulkAddProducts}; rejected rows are
+     * handed to {@code rejected} as soon as they are read.
+     * <p>
+     * If reading or saving fails part way the import stops there: chunks already saved stay saved and the
+     * summary carries the error.
+     *
+     * @param reader the rows of the file, with any CSV header already read
+     * @param user the logged in user
+     * @param rejected called with every rejected row, in file order
+     * @return an {@link ImportSummary} with the number of imported and rejected rows
+     */
+    @Override
+    public ImportSummary importProducts(ProductRowReader reader, CurrentUser user, Consumer<ImportRowError> rejected) {
+        log.info("Importing products for user: {}",user.username());
+
+        User owner = repoU.getReferenceById(user.id());
+        Instant now = Instant.now();
+
+        List<Product> chunk = new ArrayList<>(batchWriter.getBatchSize());
+        long imported = 0;
+        long rejectedRows = 0;
+
+        ImportRow row = null;
+        try{
+            while((row = reader.next()) != null){
+                List<String> errors = row.error() != null ? List.of(row.error()) : violations(row.product());
+
+                Product product = null;
+                if(errors.isEmpty()){
+                    PostProduct post = row.product();
+                    product = new Product(null,post.getName(),post.getQuantity(),post.getPrice(),owner,now,null,null);
+                    errors = violations(product);
+                }
+
+                if(!errors.isEmpty()){
+                    rejectedRows++;
+                    rejected.accept(new ImportRowError(row.line(),errors));
+                    continue;
+                }
+
+                chunk.add(product);
+                if(chunk.size() == batchWriter.getBatchSize()){
+                    imported += saveChunk(chunk,user);
+                }
+            }
+            imported += saveChunk(chunk,user);
+        } catch (IOException | RuntimeException e) {
+            //Rows before the failing chunk are already committed, so report how far the import got
+            log.error("Import for user {} stopped after {} products",user.username(),imported,e);
+            String where = row != null ? "Import stopped at line " + row.line() : "Import stopped";
+            return new ImportSummary(imported,rejectedRows,where + ": " + e.getMessage());
+        }
+
+        log.debug("Imported {} products, rejected {}",imported,rejectedRows);
+        return new ImportSummary(imported,rejectedRows,null);
+    }
+
+    //Inserts one chunk in its own transaction and empties it, so only one chunk of products is ever held
+    private int saveChunk(List<Product> chunk, CurrentUser user) {
+        if(chunk.isEmpty()){
+            return 0;
+        }
+        batchWriter.insertAll(chunk);
+        for(Product saved : chunk){
+            events.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.CREATED,saved.getId(),user.id(),saved.getName()));
+            events.publishEvent(new StockLevelChangedEvent(saved.getId(),user.id(),saved.getName(),saved.getQuantity(),saved.getVersion()));
+        }
+        publishCreated(chunk,user);
+        int saved = chunk.size();
+        chunk.clear();
+        return saved;
+    }
+
+    //One totals delta for a whole batch of new products
+    private void publishCreated(List<Product> created, CurrentUser user) {
+        if(created.isEmpty()){
+            return;
+        }
+        long units = 0;
+        BigDecimal value = BigDecimal.ZERO;
+        for(Product product : created){
+            units += product.getQuantity();
+            value = value.add(InventoryChangedEvent.valueOf(product.getQuantity(),product.getPrice()));
+        }
+        events.publishEvent(new InventoryChangedEvent(user.id(),created.size(),units,value));
+    }
+
+    /**
+     * Streams every product visible to the already authenticated user, in id order: admins get every product,
+     * everyone else only their own. Rows are read through a database cursor and handed to {@code sink} one at a
+     * time, so nothing is collected in memory.
+     *
+     * @param user the logged in user
+     * @param sink called with every product
+     * @return the number of products exported
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportProducts(CurrentUser user, Consumer<ProductDto> sink) {
+        log.info("Exporting products for user: {}",user.username());
+
+        long exported = 0;
+        try(Stream<ProductDto> rows = user.isAdmin() ? repo.streamAll() : repo.streamByUserId(user.id())){
+            Iterator<ProductDto> it = rows.iterator();
+            while(it.hasNext()){
+                ProductDto product = it.next();
+                hotStock.merge(product);
+                sink.accept(product);
+                exported++;
+            }
+        }
+
+        log.debug("Exported {} products",exported);
+        return exported;
+    }
+
+    private <T> List<String> violations(T target) {
+        return validator.validate(target).stream()
+                .map(v-> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .toList();
+    }
+
     /**
      * Retrieves a product with the specified id
      *
@@ -126,29 +599,27 @@ public class ProductService implements IProductService {
      */
     @Override
     public ProductDto getProduct(Long id,String username) {
-        log.info("Fetching product with id: {}",id);
-        //Fetches the user by username, throws exception if not found
-        User user = repoU.findByUsername(username)
-                .orElseThrow(()->{
-                    log.error("User not found: {}",username);
-                   return new UserNotFoundException(username);
-                });
-
-        //Fetches Product by id , throws exception if not found
-        Product product = repo.findById(id)
-                .orElseThrow(()-> {
-                    log.error("Product not found id: {}",id);
-                    return new ProductNotFoundException(id);
-                });
+        return getProduct(id,currentUser(username));
+    }
 
-        //if User is not owner of product or is not admin, throws exception
-        if(!product.getUser().getId().equals(user.getId()) && !user.getRole().equals(Role.ADMIN)){
-            log.error("Unauthorized access for this product id: {}",id);
-            throw new AccessDeniedException("Not Authorized");
-        }
+    /**
+     * Retrieves a product with the specified id for the already authenticated user
+     *
+     * @param id the id of the specified product
+     * @param user the logged in user
+     * @return a {@link ProductDto} object of the retrieved product
+     * @throws ProductNotFoundException if the product with the given id was not found
+     * @throws AccessDeniedException if the user is not the owner of the product or is not Admin
+     */
+    @Override
+    public ProductDto getProduct(Long id, CurrentUser user) {
+        log.info("Fetching product with id: {}",id);
 
-        //Map Product entity to ProductDto object using the mapper
-        return ProductMapper.toDto(product);
+        //Fetches Product by id only if the user owns it or is admin, straight into a ProductDto
+        ProductDto product = repo.findVisible(id,user.id(),user.isAdmin())
+                .orElseThrow(()-> notFoundOrDenied(id));
+        hotStock.merge(product);
+        return product;
     }
 
     /**
@@ -162,38 +633,44 @@ public class ProductService implements IProductService {
      * @throws AccessDeniedException if the user thats trying to delete the product is not the owner or is not admin
      */
     @Override
+    @Transactional
     public boolean deleteProduct(Long id, String username) {
+        return deleteProduct(id,currentUser(username));
+    }
+
+    /**
+     * Deletes the product by id for the already authenticated user
+     *
+     * @param id the id of the specified product
+     * @param user the logged in user
+     * @return boolean that indicates whether the item was deleted successfully or not
+     * @throws ProductNotFoundException if product with specified id was not found
+     * @throws AccessDeniedException if the user is not the owner or is not admin
+     */
+    @Override
+    @Transactional
+    public boolean deleteProduct(Long id, CurrentUser user) {
         log.error("Deleting product id: {}",id);
-        //Fetches user by username ,throws exception if not found
-        User user = repoU.findByUsername(username)
-                .orElseThrow(()->{
-                    log.error("User not found: {}",username);
-                    return new UserNotFoundException(username);
-                });
+        return retry.run(()-> deleteIfUnchanged(id,user));
+    }
 
-        //Fetches Product by id , throws exception if not found
-        Product product = repo.findById(id)
-                .orElseThrow(()-> {
-                    log.error("Product not found id: {}",id);
-                    return new ProductNotFoundException(id);
-                });
+    //Reads what is deleted, admins regardless of ownership, and only deletes that version, so the counters and totals
+    //move by exactly what was removed. A write in between is a conflict and the caller retries on a fresh read
+    private boolean deleteIfUnchanged(Long id, CurrentUser user) {
+        ProductDto deleted = repo.findVisible(id,user.id(),user.isAdmin())
+                .orElseThrow(()-> notFoundOrDenied(id));
 
-        //If User is admin, deletes product regardless of ownership
-        if (user.getRole().equals(Role.ADMIN)) {
-            log.debug("Admin: Found and deleting product id: {}",id);
-            repo.delete(product);
-            return true;
-        }
-        //if User is owner, deletes product
-        else if (product.getUser().getId().equals(user.getId())) {
-            log.debug("User: Found and deleting product id: {}", id);
-            repo.delete(product);
-            return true;
+        if(repo.deleteOwnedIfVersion(id,user.id(),user.isAdmin(),deleted.getVersion()) == 0){
+            throw changedSince(deleted,user);
         }
+        outbox.append(ProductChange.of(ProductChange.Type.DELETED,id,deleted.getUserId(),null,null));
+        events.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.DELETED,id,deleted.getUserId(),null));
+        //Unflushed hot stock movements were never counted, so the row's own quantity is taken off
+        events.publishEvent(new InventoryChangedEvent(deleted.getUserId(),-1,-deleted.getQuantity(),
+                InventoryChangedEvent.valueOf(deleted.getQuantity(),deleted.getPrice()).negate()));
 
-        //if User is not owner of product or not an admin, throws exception
-        log.error("Unauthorized access for product id: {}",id);
-        throw new AccessDeniedException("Dont have Authorization");
+        log.debug("Found and deleted product id: {}",id);
+        return true;
     }
 
     /**
@@ -208,35 +685,463 @@ public class ProductService implements IProductService {
      * @throws AccessDeniedException if the user with the specified username is not the owner or is not Admin
      */
     @Override
+    @Transactional
     public ProductDto udpateProduct(Long id, ProductDto productUpdate,String username) {
+        return udpateProduct(id,productUpdate,currentUser(username));
+    }
+
+    /**
+     * Updates specified product by id for the already authenticated user
+     *
+     * @param id the id of the specified product
+     * @param productUpdate the updated {@link ProductDto} object
+     * @param user the logged in user
+     * @return a updated {@link ProductDto} object
+     * @throws ProductNotFoundException if the product with the specified id is not found
+     * @throws AccessDeniedException if the user is not the owner or is not Admin
+     */
+    @Override
+    @Transactional
+    public ProductDto udpateProduct(Long id, ProductDto productUpdate, CurrentUser user) {
+        return udpateProduct(id,productUpdate,null,user);
+    }
+
+    /**
+     * Updates specified product by id for the already authenticated user, optionally only if it is still at the
+     * version the caller read (optimistic locking)
+     *
+     * @param id the id of the specified product
+     * @param productUpdate the updated {@link ProductDto} object
+     * @param expectedVersion the version the caller last saw, or null to update whatever the version
+     * @param user the logged in user
+     * @return a updated {@link ProductDto} object, with its new version
+     * @throws ProductNotFoundException if the product with the specified id is not found
+     * @throws AccessDeniedException if the user is not the owner or is not Admin
+     * @throws ProductVersionConflictException if the product was changed since the expected version
+     * @throws InsufficientStockException if it lowers the quantity below the units held by reservations
+     */
+    @Override
+    @Transactional
+    public ProductDto udpateProduct(Long id, ProductDto productUpdate, Long expectedVersion, CurrentUser user) {
         log.error("Updating product id: {}",id);
-        //Fetches user by username, throws exception if not found
-        User user = repoU.findByUsername(username).orElseThrow(()-> {
-            log.error("User not found: {}",username);
-            return new UserNotFoundException(username);
-        });
-
-        //Fetches product by id , throws exception id if not found
-        Product product = repo.findById(id)
-                .orElseThrow(()-> {
-                    log.error("Product not found id: {}",id);
-                    return new ProductNotFoundException(id);
-                });
 
-        //if User is not owner of product or not admin, throws exception
-        if(!product.getUser().getId().equals(user.getId()) && !user.getRole().equals(Role.ADMIN)){
+        //Without If-Match the caller does not care what it replaces, so a lost race is retried on a fresh read
+        if(expectedVersion == null){
+            return retry.run(()-> modifyProduct(id,current -> productUpdate,user));
+        }
+
+        ProductDto before = readForUpdate(id,user);
+        if(!expectedVersion.equals(before.getVersion())){
+            log.error("Version conflict for product id: {}",id);
+            throw new ProductVersionConflictException(id,expectedVersion,before.getVersion());
+        }
+        return replace(before,productUpdate,user);
+    }
+
+    /**
+     * Reads a product, applies the change and writes it back only if nobody wrote it in between. PATCH without
+     * If-Match runs through here, wrapped in {@link OptimisticRetry} so a lost race is retried with a fresh read.
+     *
+     * @param id the id of the product
+     * @param change turns a copy of the current product into the updated one, may modify and return its argument
+     * @param user the logged in user
+     * @return the updated product, with its new version
+     * @throws ProductNotFoundException if the product with the specified id is not found
+     * @throws AccessDeniedException if the user is not the owner or is not Admin
+     * @throws ProductVersionConflictException if the product was changed after it was read
+     * @throws InsufficientStockException if it lowers the quantity below the units held by reservations
+     */
+    @Override
+    @Transactional
+    public ProductDto modifyProduct(Long id, UnaryOperator<ProductDto> change, CurrentUser user) {
+        ProductDto before = readForUpdate(id,user);
+        ProductDto copy = new ProductDto(before.getId(),before.getName(),before.getQuantity(),before.getPrice(),
+                before.getUserId(),before.getCreatedAt(),before.getVersion());
+        return replace(before,change.apply(copy),user);
+    }
+
+    //Reads the product that is about to be replaced, admins regardless of ownership. A hot product's pending stock
+    //movements are written first, the quantity written after this read then replaces them
+    private ProductDto readForUpdate(Long id, CurrentUser user) {
+        hotStock.release(id);
+        return repo.findVisible(id,user.id(),user.isAdmin())
+                .orElseThrow(()-> notFoundOrDenied(id));
+    }
+
+    //Writes the update only if the row is still at the version read, without locking it first. When it applies,
+    //the values read are exactly the ones replaced, so the response and the totals delta need no second read
+    private ProductDto replace(ProductDto before, ProductDto productUpdate, CurrentUser user) {
+        Long id = before.getId();
+        //The UPDATE skips the entity constraints, so the values are checked here for callers that did not validate
+        List<String> errors = violations(productUpdate);
+        if(!errors.isEmpty()){
+            throw new InvalidRequestException(String.join(", ",errors));
+        }
+        //Units held by live reservations cannot be set away, raising the stock is always fine
+        int delta = productUpdate.getQuantity() - before.getQuantity();
+        if(delta < 0 && productUpdate.getQuantity() < reservations.held(id)){
+            log.error("Update of product id: {} would take stock below its reserved units",id);
+            throw new InsufficientStockException(id,delta);
+        }
+        if(repo.updateOwnedIfVersion(id,productUpdate.getName(),productUpdate.getQuantity(),productUpdate.getPrice(),
+                user.id(),user.isAdmin(),before.getVersion()) == 0){
+            throw changedSince(before,user);
+        }
+        log.debug("Found and updated product id: {}",id);
+
+        ProductDto product = new ProductDto(id,productUpdate.getName(),productUpdate.getQuantity(),productUpdate.getPrice(),
+                before.getUserId(),before.getCreatedAt(),before.getVersion() + 1);
+        outbox.append(ProductChange.of(ProductChange.Type.UPDATED,id,product.getUserId(),product.getQuantity(),product.getVersion()));
+        if(product.getQuantity() != before.getQuantity()){
+            movements.save(StockMovement.of(StockMovement.Reason.SET,id,product.getUserId(),user.id(),
+                    product.getQuantity() - before.getQuantity(),product.getQuantity()));
+        }
+        events.publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED,id,product.getUserId(),product.getName()));
+        events.publishEvent(new InventoryChangedEvent(product.getUserId(),0,product.getQuantity() - before.getQuantity(),
+                InventoryChangedEvent.valueOf(product.getQuantity(),product.getPrice())
+                        .subtract(InventoryChangedEvent.valueOf(before.getQuantity(),before.getPrice()))));
+        events.publishEvent(new StockLevelChangedEvent(id,product.getUserId(),product.getName(),product.getQuantity(),product.getVersion()));
+
+        return product;
+    }
+
+    //Only runs on the failure path of a versioned write: a product that is still visible was written since it was read
+    private RuntimeException changedSince(ProductDto read, CurrentUser user) {
+        Optional<ProductDto> current = repo.findVisible(read.getId(),user.id(),user.isAdmin());
+        if(current.isEmpty()){
+            return notFoundOrDenied(read.getId());
+        }
+        log.error("Version conflict for product id: {}",read.getId());
+        return new ProductVersionConflictException(read.getId(),read.getVersion(),current.get().getVersion());
+    }
+
+    /**
+     * Adds to or removes from the stock of a product in a single conditional UPDATE, so concurrent adjustments
+     * are applied one after the other by the database instead of overwriting each other. Stock never goes below zero.
+     * Products configured as hot are adjusted in memory by {@link HotStockCounters} and written back in batches.
+     *
+     * @param id the id of the product
+     * @param delta the units to add, negative to remove
+     * @param user the logged in user
+     * @return the {@link StockLevel} after the adjustment
+     * @throws InvalidRequestException if the delta is zero, or adding it would take the stock past {@link Integer#MAX_VALUE}
+     * @throws InsufficientStockException if removing delta units would take the stock below zero, or below the units
+     * held by reservations
+     * @throws ProductNotFoundException if the product with the specified id is not found
+     * @throws AccessDeniedException if the user is not the owner or is not Admin
+     */
+    @Override
+    @Transactional
+    public StockLevel adjustStock(Long id, int delta, CurrentUser user) {
+        return adjustStock(id,delta,StockMovement.Reason.ADJUSTED,user);
+    }
+
+    /**
+     * Adjusts the stock of a product like {@link #adjustStock(Long, int, CurrentUser)}, recording the movement in
+     * the ledger under the given reason. Movements of hot products are recorded when they are flushed.
+     *
+     * @param id the id of the product
+     * @param delta the units to add, negative to remove
+     * @param reason what moves the stock
+     * @param user the logged in user
+     * @return the {@link StockLevel} after the adjustment
+     * @throws InvalidRequestException if the delta is zero, or adding it would take the stock past {@link Integer#MAX_VALUE}
+     * @throws InsufficientStockException if removing delta units would take the stock below zero, or below the units
+     * held by reservations
+     * @throws ProductNotFoundException if the product with the specified id is not found
+     * @throws AccessDeniedException if the user is not the owner or is not Admin
+     */
+    @Override
+    @Transactional
+    public StockLevel adjustStock(Long id, int delta, StockMovement.Reason reason, CurrentUser user) {
+        if(delta == 0){
+            throw new InvalidRequestException("Delta must not be 0");
+        }
+        log.info("Adjusting stock of product id: {} by {}",id,delta);
+
+        long floor = floorOf(id,delta,reason);
+
+        //Hot products are adjusted in memory and written back in batches
+        if(hotStock.isHot(id)){
+            return new StockLevel(id,(int) hotStock.adjust(id,delta,floor,user));
+        }
+
+        if(repo.adjustStockOwned(id,delta,floor,user.id(),user.isAdmin()) == 0){
+            //Only runs on the failure path: tell a missing or foreign product apart from a short one
+            Long ownerId = repo.findOwnerId(id).orElseThrow(()-> new ProductNotFoundException(id));
+            if(!user.isAdmin() && !ownerId.equals(user.id())){
+                log.error("Unauthorized access for product id: {}",id);
+                throw new AccessDeniedException("Access Denied");
+            }
+            //Adding never goes below the floor, so only the ceiling rejects it
+            if(delta > 0){
+                throw new InvalidRequestException("Stock cannot exceed " + Integer.MAX_VALUE + " units");
+            }
+            throw new InsufficientStockException(id,delta);
+        }
+
+        //The row stays locked by the update until commit, so this reads the level this adjustment produced
+        ProductDto product = repo.findVisible(id,user.id(),user.isAdmin())
+                .orElseThrow(()-> new ProductNotFoundException(id));
+        outbox.append(ProductChange.of(ProductChange.Type.STOCK,id,product.getUserId(),product.getQuantity(),product.getVersion()));
+        movements.save(StockMovement.of(reason,id,product.getUserId(),user.id(),delta,product.getQuantity()));
+        events.publishEvent(new InventoryChangedEvent(product.getUserId(),0,delta,
+                InventoryChangedEvent.valueOf(delta,product.getPrice())));
+        events.publishEvent(new StockLevelChangedEvent(id,product.getUserId(),null,product.getQuantity(),product.getVersion()));
+        return new StockLevel(id,product.getQuantity());
+    }
+
+    //The lowest level a removal may leave: the units held by live reservations. A confirm removes units that are
+    //still counted as held, so only the other holds bind it
+    private long floorOf(Long id, int delta, StockMovement.Reason reason) {
+        if(delta > 0){
+            return 0;
+        }
+        long held = reservations.held(id);
+        return reason == StockMovement.Reason.RESERVATION ? Math.max(0,held + delta) : held;
+    }
+
+    /**
+     * Sets or clears the reorder threshold of a product, putting it on or taking it off the low stock watchlist
+     *
+     * @param id the id of the product
+     * @param threshold the product is low on stock at or below this quantity, null to stop watching it
+     * @param user the logged in user
+     * @return the {@link ReorderLevel} of the product
+     * @throws InvalidRequestException if the threshold is negative
+     * @throws ProductNotFoundException if the product with the specified id is not found
+     * @throws AccessDeniedException if the user is not the owner or is not Admin
+     */
+    @Override
+    @Transactional
+    public ReorderLevel setReorderThreshold(Long id, Integer threshold, CurrentUser user) {
+        if(threshold != null && threshold < 0){
+            throw new InvalidRequestException("Threshold must not be negative");
+        }
+        log.info("Setting reorder threshold of product id: {} to {}",id,threshold);
+
+        return retry.run(()-> setThresholdIfUnchanged(id,threshold,user));
+    }
+
+    //Only applies if the row is still at the version read, so the quantity handed to the watchlist is the one this
+    //threshold applies to
+    private ReorderLevel setThresholdIfUnchanged(Long id, Integer threshold, CurrentUser user) {
+        ProductDto product = repo.findVisible(id,user.id(),user.isAdmin())
+                .orElseThrow(()-> notFoundOrDenied(id));
+        if(repo.setReorderThresholdIfVersion(id,threshold,user.id(),user.isAdmin(),product.getVersion()) == 0){
+            throw changedSince(product,user);
+        }
+        events.publishEvent(new ReorderThresholdChangedEvent(id,product.getUserId(),product.getName(),product.getQuantity(),
+                product.getVersion(),threshold));
+        return new ReorderLevel(id,product.getUserId(),product.getName(),product.getQuantity(),threshold);
+    }
+
+    /**
+     * Retrieves the products of the already authenticated user that are at or below their reorder threshold,
+     * most urgent first: out of stock, then by the share of the threshold still in stock. Admins get every user's.
+     * Answered from an index kept in memory.
+     *
+     * @param user the logged in user
+     * @param limit the most products to return
+     * @return the low products, most urgent first
+     * @throws InvalidRequestException if the limit is not between 1 and 500
+     */
+    @Override
+    public List<ReorderLevel> getLowStock(CurrentUser user, int limit) {
+        if(limit < 1 || limit > 500){
+            throw new InvalidRequestException("Limit must be between 1 and 500");
+        }
+        return lowStock.low(user.isAdmin() ? null : user.id(),limit);
+    }
+
+    /**
+     * Reports the stock totals of the already authenticated user: how many products they have, how many units and
+     * what those are worth. Admins also get the totals of every product. Answered from totals kept in memory.
+     *
+     * @param user the logged in user
+     * @return a {@link SummaryResponse}
+     */
+    @Override
+    public SummaryResponse getSummary(CurrentUser user) {
+        log.info("Fetching stock summary for user: {}",user.username());
+        return new SummaryResponse(productTotals.ofUser(user.id()),user.isAdmin() ? productTotals.ofAll() : null);
+    }
+
+    /**
+     * Retrieves the stock movements of a product, newest first, a page at a time. Pages seek below the id of the
+     * last movement returned instead of using OFFSET, so older pages cost the same as the first.
+     *
+     * @param id the id of the product
+     * @param before the nextCursor returned with the previous page, or empty for the latest movements
+     * @param size the amount of movements per page
+     * @param user the logged in user
+     * @return a {@link CursorResponse} with the movements and the cursor of the next (older) page
+     * @throws InvalidRequestException if the cursor or size is invalid
+     * @throws ProductNotFoundException if the product with the specified id is not found
+     * @throws AccessDeniedException if the user is not the owner or is not Admin
+     */
+    @Override
+    public CursorResponse<StockMovementDto> getMovements(Long id, String before, int size, CurrentUser user) {
+        if(size < 1 || size > 1000){
+            throw new InvalidRequestException("Size must be between 1 and 1000");
+        }
+        Long beforeId;
+        try{
+            beforeId = before == null || before.isBlank() ? null : Long.valueOf(before);
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+        log.info("Fetching stock movements of product id: {}",id);
+
+        Long ownerId = repo.findOwnerId(id).orElseThrow(()-> new ProductNotFoundException(id));
+        if(!user.isAdmin() && !ownerId.equals(user.id())){
+            log.error("Unauthorized access for product id: {}",id);
+            throw new AccessDeniedException("Access Denied");
+        }
+
+        //Fetches one extra row to know whether there is a next page
+        Pageable limit = PageRequest.of(0,size + 1);
+        List<StockMovementDto> rows = beforeId == null
+                ? movements.findLatest(id,limit)
+                : movements.findBefore(id,beforeId,limit);
+
+        boolean hasNext = rows.size() > size;
+        List<StockMovementDto> pageRows = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? String.valueOf(pageRows.get(pageRows.size() - 1).id()) : null;
+        return new CursorResponse<>(pageRows, nextCursor, hasNext);
+    }
+
+    /**
+     * Retrieves the stock level of a product over a time range, one point per bucket of the given resolution that saw
+     * a change. Served from the rollups, so the cost follows the number of buckets, not the number of changes.
+     *
+     * @param id the id of the product
+     * @param from the start of the range, or null for the default span of the resolution before {@code to}
+     * @param to the end of the range, or null for now
+     * @param resolution the size of the buckets: minute, hour or day
+     * @param user the logged in user
+     * @return the {@link StockHistory} of the product
+     * @throws InvalidRequestException if the resolution is unknown, the range is empty or has too many buckets
+     * @throws ProductNotFoundException if the product with the specified id is not found
+     * @throws AccessDeniedException if the user is not the owner or is not Admin
+     */
+    @Override
+    public StockHistory getHistory(Long id, Instant from, Instant to, String resolution, CurrentUser user) {
+        StockRollup.Resolution buckets = StockRollup.Resolution.from(resolution);
+        Instant end = to != null ? to : Instant.now();
+        Instant start = buckets.bucketOf(from != null ? from : end.minus(buckets.getDefaultSpan()));
+        if(!start.isBefore(end)){
+            throw new InvalidRequestException("from must be before to");
+        }
+        if(Duration.between(start,end).dividedBy(buckets.getBucketSize()) > MAX_HISTORY_BUCKETS){
+            throw new InvalidRequestException("At most " + MAX_HISTORY_BUCKETS + " buckets per request, use a coarser resolution");
+        }
+        log.info("Fetching {} stock history of product id: {}",buckets,id);
+
+        Long ownerId = repo.findOwnerId(id).orElseThrow(()-> new ProductNotFoundException(id));
+        if(!user.isAdmin() && !ownerId.equals(user.id())){
             log.error("Unauthorized access for product id: {}",id);
             throw new AccessDeniedException("Access Denied");
         }
 
-        //Map ProductDto object to Product entity using mapper
-        Product updateProd = ProductMapper.updateEntity(product,productUpdate);
+        List<StockHistoryPoint> points = rollups.find(id,buckets,start,end);
+
+        //The level going into the range, from the coarser rollups when the finer ones are past retention
+        Integer opening = null;
+        for(int i = buckets.ordinal(); opening == null && i < StockRollup.Resolution.values().length; i++){
+            StockRollup.Resolution coarser = StockRollup.Resolution.values()[i];
+            opening = rollups.lastBefore(id,coarser,coarser.bucketOf(start)).orElse(null);
+        }
+        return new StockHistory(id,buckets,start,end,opening,points);
+    }
 
-        //Saves Product to repo
-        log.debug("Found and saving product id: {}",id);
-        repo.save(updateProd);
+    /**
+     * Subscribes the already authenticated user to the feed of product changes: creates, updates, deletes and stock
+     * changes of their products, or of every product for Admin, pushed as Server-Sent Events as they commit
+     *
+     * @param user the logged in user
+     * @param after the offset of the last change the subscriber saw, or null to only get changes from now on
+     * @return the emitter the changes are sent to
+     * @throws InvalidRequestException if the offset is negative
+     */
+    @Override
+    public SseEmitter streamChanges(CurrentUser user, Long after) {
+        if(after != null && after < 0){
+            throw new InvalidRequestException("Offset must not be negative");
+        }
+        log.info("Subscribing user: {} to product changes after offset {}",user.username(),after);
+        return changeFeed.subscribe(user.isAdmin() ? null : user.id(),after);
+    }
 
-        //Map Product entity to ProductDto Object using mapper
-        return ProductMapper.toDto(product);
+    /**
+     * Resolves a name search through the trigram index and loads only the requested page of matches.
+     * Admins search every product, everyone else only their own.
+     *
+     * @param user the logged in user
+     * @param search the part of the product name to filter by
+     * @param pageable the page and sorting to load
+     * @return the page of matching products, or empty if there is no search or the index cannot answer it
+     */
+    private Optional<Page<ProductDto>> searchByIndex(CurrentUser user, String search, Pageable pageable) {
+        if(search == null || search.trim().isEmpty()){
+            return Optional.empty();
+        }
+
+        Optional<List<Long>> ids = searchIndex.search(search,user.isAdmin() ? null : user.id());
+        if(ids.isEmpty()){
+            return Optional.empty();
+        }
+
+        //The index already knows the total, so no COUNT is needed
+        List<ProductDto> rows = ids.get().isEmpty() ? List.of() : repo.findByIdIn(ids.get(),pageable);
+        return Optional.of(new PageImpl<>(rows,pageable,ids.get().size()));
+    }
+
+    private static Pageable pageRequest(int page, int size, String sortBy, String direction) {
+        //Only fields with a (user_id, field, id) index can be sorted on, so a listing never sorts the whole table
+        String attribute = ProductSortField.from(sortBy).getAttribute();
+        //Configures sorting (ascending or descending)
+        Sort sort = direction.equalsIgnoreCase("desc") ? Sort.by(attribute).descending() : Sort.by(attribute).ascending();
+        return PageRequest.of(page,size,sort);
+    }
+
+    private static String searchTerm(String search) {
+        return search == null || search.trim().isEmpty() ? null : search;
+    }
+
+    //Admins search every product, everyone else only lists their own
+    private static Long listingOwner(CurrentUser user, String term) {
+        return user.isAdmin() && term != null ? null : user.id();
+    }
+
+    /**
+     * Works out why an ownership checked statement matched nothing. Only runs on the failure path.
+     *
+     * @param id the id of the product
+     * @return {@link ProductNotFoundException} if the product does not exist, otherwise {@link AccessDeniedException}
+     */
+    private RuntimeException notFoundOrDenied(Long id) {
+        if(!repo.existsById(id)){
+            log.error("Product not found id: {}",id);
+            return new ProductNotFoundException(id);
+        }
+        log.error("Unauthorized access for product id: {}",id);
+        return new AccessDeniedException("Access Denied");
+    }
+
+    /**
+     * Resolves the user behind a username, for callers that only have the username
+     *
+     * @param username the username of the user
+     * @return the {@link CurrentUser}
+     * @throws UserNotFoundException if no user was found with the given username
+     */
+    private CurrentUser currentUser(String username) {
+        User user = userCache.findByUsername(username)
+                .orElseThrow(()->{
+                    log.error("User not found: {}",username);
+                    return new UserNotFoundException(username);
+                });
+        return CurrentUser.from(user);
     }
 }
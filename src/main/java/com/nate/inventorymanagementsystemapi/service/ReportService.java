@@ -0,0 +1,105 @@
+package com.nate.inventorymanagementsystemapi.service;
+
+import com.nate.inventorymanagementsystemapi.dto.ReportJobDto;
+import com.nate.inventorymanagementsystemapi.dto.ReportRequest;
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
+import com.nate.inventorymanagementsystemapi.exception.ReportNotFoundException;
+import com.nate.inventorymanagementsystemapi.exception.ReportQueueFullException;
+import com.nate.inventorymanagementsystemapi.report.ReportJob;
+import com.nate.inventorymanagementsystemapi.report.ReportJobs;
+import com.nate.inventorymanagementsystemapi.report.ReportParams;
+import com.nate.inventorymanagementsystemapi.report.ReportType;
+import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Admin reports over every product. They read the whole product table, so they are run by {@link ReportJobs} in the
+ * background and polled for, instead of answered on the request thread.
+ */
+@Service
+public class ReportService implements IReportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportService.class);
+
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 1000;
+    static final int DEFAULT_STALE_DAYS = 90;
+
+    private final ProductRepository repo;
+    private final ReportJobs jobs;
+
+    public ReportService(ProductRepository repo, ReportJobs jobs) {
+        this.repo = repo;
+        this.jobs = jobs;
+    }
+
+    /**
+     * Queues a report, or returns the job of an equal report on unchanged data
+     *
+     * @param request the report and its parameters
+     * @return the {@link ReportJobDto} to poll
+     * @throws InvalidRequestException if the report is unknown or a parameter is out of range
+     * @throws ReportQueueFullException if too many reports are queued
+     */
+    @Override
+    public ReportJobDto submit(ReportRequest request) {
+        ReportParams params = paramsOf(request);
+        ReportJob job = jobs.submit(params, () -> run(params));
+        log.info("Report {} submitted as {}", params.report(), job.getId());
+        return toDto(job);
+    }
+
+    /**
+     * @param id the id of the job
+     * @return the {@link ReportJobDto}, with the result once it is done
+     * @throws ReportNotFoundException if there is no such job or it expired
+     */
+    @Override
+    public ReportJobDto getJob(UUID id) {
+        ReportJob job = jobs.get(id);
+        if (job == null) {
+            throw new ReportNotFoundException(id);
+        }
+        return toDto(job);
+    }
+
+    private Object run(ReportParams params) {
+        PageRequest first = PageRequest.of(0, params.limit());
+        return switch (params.report()) {
+            case VALUATION -> repo.valuationByOwner(first);
+            case TOP_VALUE -> repo.findTopByValue(first);
+            case STALE_STOCK -> repo.findStale(Instant.now().minus(Duration.ofDays(params.olderThanDays())), first);
+        };
+    }
+
+    private static ReportParams paramsOf(ReportRequest request) {
+        if (request == null) {
+            throw new InvalidRequestException("report is required");
+        }
+        ReportType type = ReportType.from(request.report());
+        int limit = request.limit() == null ? DEFAULT_LIMIT : request.limit();
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new InvalidRequestException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        Integer olderThanDays = null;
+        if (type == ReportType.STALE_STOCK) {
+            olderThanDays = request.olderThanDays() == null ? DEFAULT_STALE_DAYS : request.olderThanDays();
+            if (olderThanDays < 0) {
+                throw new InvalidRequestException("olderThanDays must not be negative");
+            }
+        }
+        return new ReportParams(type, limit, olderThanDays);
+    }
+
+    private static ReportJobDto toDto(ReportJob job) {
+        return new ReportJobDto(job.getId(), job.getParams(), job.getStatus(), job.getDataVersion(), job.getSubmittedAt(),
+                job.getCompletedAt(), job.getResult(), job.getError());
+    }
+}
@@ -0,0 +1,143 @@
+package com.nate.inventorymanagementsystemapi.service;
+
+import com.nate.inventorymanagementsystemapi.dto.Availability;
+import com.nate.inventorymanagementsystemapi.dto.ProductDto;
+import com.nate.inventorymanagementsystemapi.dto.ReservationDto;
+import com.nate.inventorymanagementsystemapi.dto.StockLevel;
+import com.nate.inventorymanagementsystemapi.exception.InsufficientStockException;
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
+import com.nate.inventorymanagementsystemapi.exception.ProductNotFoundException;
+import com.nate.inventorymanagementsystemapi.exception.ReservationNotFoundException;
+import com.nate.inventorymanagementsystemapi.model.CurrentUser;
+import com.nate.inventorymanagementsystemapi.model.StockMovement;
+import com.nate.inventorymanagementsystemapi.reservation.Hold;
+import com.nate.inventorymanagementsystemapi.reservation.ReservationLedger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Places, confirms and releases stock reservations. Holds live in the {@link ReservationLedger}, only a confirm
+ * writes to the product, as one stock decrement.
+ */
+@Service
+public class ReservationService implements IReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationService.class);
+
+    private final IProductService productService;
+    private final ReservationLedger ledger;
+    private final int defaultTtlSeconds;
+    private final int maxTtlSeconds;
+
+    public ReservationService(IProductService productService, ReservationLedger ledger,
+                              @Value("${inventory.reservations.default-ttl-seconds:900}") int defaultTtlSeconds,
+                              @Value("${inventory.reservations.max-ttl-seconds:86400}") int maxTtlSeconds) {
+        this.productService = productService;
+        this.ledger = ledger;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+    }
+
+    /**
+     * Holds units of a product for a limited time, if that many are available
+     *
+     * @param productId the id of the product
+     * @param quantity the units to hold
+     * @param ttlSeconds how long the hold lasts, null for the default
+     * @param user the logged in user
+     * @return the new {@link ReservationDto}
+     * @throws InvalidRequestException if the ttl is above the maximum
+     * @throws InsufficientStockException if fewer than quantity units are available
+     * @throws ProductNotFoundException if the product with the specified id is not found
+     * @throws AccessDeniedException if the user is not the owner or is not Admin
+     */
+    @Override
+    public ReservationDto reserve(Long productId, int quantity, Integer ttlSeconds, CurrentUser user) {
+        int ttl = ttlSeconds == null ? defaultTtlSeconds : ttlSeconds;
+        if(ttl > maxTtlSeconds){
+            throw new InvalidRequestException("ttlSeconds must be at most " + maxTtlSeconds);
+        }
+
+        //Checks the product is visible to the user and reads its stock, hot products included
+        ProductDto product = productService.getProduct(productId,user);
+        Hold hold = ledger.reserve(productId,product.getQuantity(),quantity,Instant.now().plusSeconds(ttl),user);
+        log.info("Reserved {} units of product id: {} as {}",quantity,productId,hold.getId());
+
+        return toDto(hold,product.getQuantity() - ledger.held(productId));
+    }
+
+    /**
+     * Confirms a reservation: the held units are taken off the stock of the product and the hold ends
+     *
+     * @param productId the id of the product
+     * @param reservationId the id of the reservation
+     * @param user the logged in user
+     * @return the confirmed {@link ReservationDto}
+     * @throws ReservationNotFoundException if there is no live reservation with that id on the product
+     * @throws AccessDeniedException if the user did not place the reservation and is not Admin
+     * @throws InsufficientStockException if the stock was reduced below the reservation some other way
+     */
+    @Override
+    public ReservationDto confirm(Long productId, UUID reservationId, CurrentUser user) {
+        Hold hold = ledger.beginConfirm(productId,reservationId,user);
+
+        StockLevel level;
+        try {
+            level = productService.adjustStock(productId,-hold.getQuantity(),StockMovement.Reason.RESERVATION,user);
+        } catch (RuntimeException e) {
+            //The hold stays live, so it can be confirmed again or released
+            ledger.reinstate(hold);
+            throw e;
+        }
+        ledger.confirmed(hold);
+        log.info("Confirmed reservation {} of product id: {}",reservationId,productId);
+
+        return toDto(hold,level.getQuantity() - ledger.held(productId));
+    }
+
+    /**
+     * Releases a reservation, its units become available again
+     *
+     * @param productId the id of the product
+     * @param reservationId the id of the reservation
+     * @param user the logged in user
+     * @return the released {@link ReservationDto}
+     * @throws ReservationNotFoundException if there is no live reservation with that id on the product
+     * @throws AccessDeniedException if the user did not place the reservation and is not Admin
+     */
+    @Override
+    public ReservationDto release(Long productId, UUID reservationId, CurrentUser user) {
+        Hold hold = ledger.release(productId,reservationId,user);
+        log.info("Released reservation {} of product id: {}",reservationId,productId);
+
+        ProductDto product = productService.getProduct(productId,user);
+        return toDto(hold,product.getQuantity() - ledger.held(productId));
+    }
+
+    /**
+     * Reports the stock of a product, how much of it is held and what is left
+     *
+     * @param productId the id of the product
+     * @param user the logged in user
+     * @return the {@link Availability} of the product
+     * @throws ProductNotFoundException if the product with the specified id is not found
+     * @throws AccessDeniedException if the user is not the owner or is not Admin
+     */
+    @Override
+    public Availability availability(Long productId, CurrentUser user) {
+        ProductDto product = productService.getProduct(productId,user);
+        long held = ledger.held(productId);
+        return new Availability(productId,product.getQuantity(),held,Math.max(0,product.getQuantity() - held));
+    }
+
+    private static ReservationDto toDto(Hold hold, long available) {
+        return new ReservationDto(hold.getId(),hold.getProductId(),hold.getQuantity(),hold.getStatus(),
+                hold.getExpiresAt(),Math.max(0,available));
+    }
+}
@@ -1,5 +1,7 @@
 package com.nate.inventorymanagementsystemapi.service;
 
+import com.nate.inventorymanagementsystemapi.cache.CacheStats;
+import com.nate.inventorymanagementsystemapi.cache.UserCache;
 import com.nate.inventorymanagementsystemapi.dto.JwtResponse;
 import com.nate.inventorymanagementsystemapi.dto.LoginDto;
 import com.nate.inventorymanagementsystemapi.dto.RegisterDto;
@@ -10,6 +12,7 @@ import com.nate.inventorymanagementsystemapi.model.CustomerDetails;
 import com.nate.inventorymanagementsystemapi.model.Role;
 import com.nate.inventorymanagementsystemapi.model.User;
 import com.nate.inventorymanagementsystemapi.repository.UserRepository;
+import com.nate.inventorymanagementsystemapi.security.TokenVersionRegistry;
 import com.nate.inventorymanagementsystemapi.util.JwtUtil;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
@@ -32,6 +35,8 @@ import java.util.List;
 public class UserService implements IUserService, UserDetailsService {
     private final UserRepository repo;
     private final PasswordEncoder encoder;
+    private final TokenVersionRegistry tokenVersions;
+    private final UserCache userCache;
     private static final Logger log = LoggerFactory.getLogger(UserService.class);
 
     /**
@@ -46,7 +51,7 @@ public class UserService implements IUserService, UserDetailsService {
         log.info("Fetches user by username: {}",username);
 
         //Finds user by username, throws exception if not found
-        User user = repo.findByUsername(username)
+        User user = userCache.findByUsername(username)
                 .orElseThrow(()-> {
                     log.error("User not found : {}",username);
                     return new UserNotFoundException(username);
@@ -82,6 +87,7 @@ public class UserService implements IUserService, UserDetailsService {
         //Saves User entity to repo
         log.debug("Saves registered user: {}", user.getUsername());
         repo.save(user);
+        userCache.invalidate(user.getUsername());
 
         //Map User entity to UserDto object using mapper
         return UserMapper.toDto(user);
@@ -129,9 +135,52 @@ public class UserService implements IUserService, UserDetailsService {
         //Deletes user
         log.debug("Found user {} and deleting",username);
         repo.delete(user);
+        userCache.invalidate(username);
+
+        //Revokes every token issued to the deleted user
+        tokenVersions.bump(username);
         return true;
     }
 
+    /**
+     * Changes the role of a User
+     *
+     * @param username the username of the specified user
+     * @param role the new role
+     * @return the updated {@link UserDto} object
+     * @throws UserNotFoundException if user with the given username was not found
+     */
+    @Override
+    public UserDto updateRole(String username, Role role) {
+        log.info("Updating role of user {} to {}", username, role);
+
+        //Fetches user by username, throws exception if not found
+        User user = repo.findByUsername(username)
+                .orElseThrow(()-> {
+                    log.error("User not found: {}", username);
+                    return new UserNotFoundException(username);
+                });
+
+        user.setRole(role);
+        repo.save(user);
+        userCache.invalidate(username);
+
+        //Tokens carry the role, so the ones issued with the old role are revoked
+        tokenVersions.bump(username);
+
+        return UserMapper.toDto(user);
+    }
+
+    /**
+     * Gets the statistics of the user cache
+     *
+     * @return the current {@link CacheStats}
+     */
+    @Override
+    public CacheStats userCacheStats() {
+        return userCache.stats();
+    }
+
     /**
      * Logs in User
      *
@@ -153,7 +202,8 @@ public class UserService implements IUserService, UserDetailsService {
         }
 
         //Generating token
-        String token = JwtUtil.generateToken(details.getUsername(),details.getUser().getRole());
+        String token = JwtUtil.generateToken(details.getUser().getId(),details.getUsername(),details.getUser().getRole(),
+                tokenVersions.current(details.getUsername()));
 
         //Returns new JwtResponse
         return new JwtResponse(token);
@@ -171,8 +221,8 @@ public class UserService implements IUserService, UserDetailsService {
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         log.info("Fetches user by username: {}",username);
 
-        //Fetches user by username in database, throws exception if not found
-        User user = repo.findByUsername(username)
+        //Fetches user by username through the cache, throws exception if not found
+        User user = userCache.findByUsername(username)
                 .orElseThrow(()-> {
                     log.info("User not found: {}",username);
                     return new UserNotFoundException(username);
@@ -2,10 +2,12 @@ package com.nate.inventorymanagementsystemapi.util;
 
 import com.nate.inventorymanagementsystemapi.model.Role;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 
+import javax.crypto.SecretKey;
 import java.util.Date;
 
 public class JwtUtil {
@@ -13,22 +15,59 @@ public class JwtUtil {
     private static final String SECRET_KEY = "my-secret-key-should-be-long-for-login-for-me";
     private static  final long EXPIRE_TIME = 1000 * 60 * 60 * 24;
 
+    public static final String ROLE_CLAIM = "Role";
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String VERSION_CLAIM = "ver";
+
+    //Key and parser are immutable and thread-safe, so they are built once instead of per call
+    private static final SecretKey KEY = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private static final JwtParser PARSER = Jwts.parserBuilder().setSigningKey(KEY).build();
+
     public static String generateToken(String username, Role role){
         return Jwts.builder()
                 .setSubject(username)
-                .claim("Role",role)
+                .claim(ROLE_CLAIM,role)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRE_TIME))
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    /**
+     * Generates a token that carries enough claims to authenticate without loading the user
+     *
+     * @param userId the id of the user
+     * @param username the username, stored as the subject
+     * @param role the role of the user
+     * @param tokenVersion the current token version of the user, used for revocation
+     * @return the signed compact JWT
+     */
+    public static String generateToken(Long userId, String username, Role role, long tokenVersion){
+        return Jwts.builder()
+                .setSubject(username)
+                .claim(ROLE_CLAIM,role)
+                .claim(USER_ID_CLAIM,userId)
+                .claim(VERSION_CLAIM,tokenVersion)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRE_TIME))
-                .signWith(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()), SignatureAlgorithm.HS256)
+                .signWith(KEY, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Verifies the signature and expiry of the token and returns its claims
+     *
+     * @param token the compact JWT
+     * @return the verified {@link Claims}
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, expired or has a bad signature
+     */
+    public static Claims parseClaims(String token){
+        return PARSER.parseClaimsJws(token).getBody();
+    }
+
     public static boolean tokenValidation(String token){
         try{
-            Jwts.parserBuilder()
-                    .setSigningKey(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()))
-                    .build()
-                    .parseClaimsJws(token);
+            parseClaims(token);
 
             return true;
         }
@@ -38,13 +77,7 @@ public class JwtUtil {
     }
 
     public static String extractUsername(String token){
-        Claims claim = Jwts.parserBuilder()
-                .setSigningKey(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()))
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claim.getSubject();
+        return parseClaims(token).getSubject();
     }
 
 
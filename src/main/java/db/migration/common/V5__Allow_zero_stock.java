@@ -0,0 +1,46 @@
+package db.migration.common;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lets stock run down to zero: replaces the unnamed {@code CHECK (quantity >= 1)} from the baseline
+ * with a named {@code CHECK (quantity >= 0)}.
+ * <p>
+ * Written in Java because the old constraint was named by the database (product_quantity_check on PostgreSQL,
+ * a generated CONSTRAINT_nn on H2), so its name has to be looked up before it can be dropped.
+ */
+public class V5__Allow_zero_stock extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            List<String> checks = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery("""
+                    SELECT tc.constraint_name, cc.check_clause
+                    FROM information_schema.table_constraints tc
+                    JOIN information_schema.check_constraints cc
+                      ON cc.constraint_schema = tc.constraint_schema AND cc.constraint_name = tc.constraint_name
+                    WHERE LOWER(tc.table_name) = 'product' AND tc.constraint_type = 'CHECK'
+                    """)) {
+                while (rs.next()) {
+                    //PostgreSQL also reports NOT NULL columns here, only the quantity range check is wanted
+                    String clause = rs.getString(2).toLowerCase();
+                    if (clause.contains("quantity") && clause.contains(">=")) {
+                        checks.add(rs.getString(1));
+                    }
+                }
+            }
+
+            for (String name : checks) {
+                statement.execute("ALTER TABLE product DROP CONSTRAINT \"" + name + "\"");
+            }
+            statement.execute("ALTER TABLE product ADD CONSTRAINT ck_product_quantity CHECK (quantity >= 0)");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+-- Append-only ledger of stock movements: every quantity change of a product adds one row with the units moved and
+-- the quantity they left, so product.quantity can be audited movement by movement. GET /product/{id}/movements
+-- pages it newest first by (product_id, id).
+CREATE SEQUENCE IF NOT EXISTS stock_movement_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE stock_movement (
+    id          BIGINT PRIMARY KEY,
+    product_id  BIGINT NOT NULL,
+    user_id     BIGINT NOT NULL,
+    actor_id    BIGINT,
+    delta       INTEGER NOT NULL,
+    quantity    INTEGER NOT NULL,
+    reason      VARCHAR(16) NOT NULL,
+    occurred_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS ix_stock_movement_product ON stock_movement (product_id, id);
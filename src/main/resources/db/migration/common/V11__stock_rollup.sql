@@ -0,0 +1,15 @@
+-- Stock level history behind GET /product/{id}/history: the min, max and last quantity of a product per minute, hour
+-- and day bucket. Rows are merged in from the committed stock changes and purged per resolution once past retention.
+CREATE TABLE stock_rollup (
+    product_id   BIGINT NOT NULL,
+    resolution   VARCHAR(8) NOT NULL,
+    bucket       TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    min_quantity INTEGER NOT NULL,
+    max_quantity INTEGER NOT NULL,
+    last_quantity INTEGER NOT NULL,
+    last_version BIGINT NOT NULL,
+    PRIMARY KEY (product_id, resolution, bucket)
+);
+
+-- Retention purges drop the oldest buckets of a resolution across every product
+CREATE INDEX IF NOT EXISTS ix_stock_rollup_resolution_bucket ON stock_rollup (resolution, bucket);
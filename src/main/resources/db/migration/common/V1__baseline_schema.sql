@@ -0,0 +1,18 @@
+-- Schema as previously generated by ddl-auto=update. Existing databases are baselined at this version.
+
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role     VARCHAR(255) CHECK (role IN ('ADMIN', 'USER'))
+);
+
+CREATE TABLE IF NOT EXISTS product (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name     VARCHAR(255) NOT NULL,
+    quantity INTEGER NOT NULL CHECK (quantity >= 1),
+    price    NUMERIC(38, 2),
+    created  TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    user_id  BIGINT,
+    CONSTRAINT fk_product_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
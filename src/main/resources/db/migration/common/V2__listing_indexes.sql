@@ -0,0 +1,11 @@
+-- Logins and the user cache look users up by username
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_username ON users (username);
+
+-- One index per sortBy the product listing allows. The trailing id matches the keyset
+-- (sort key, id) order, so cursor pages are a single index range scan.
+CREATE INDEX IF NOT EXISTS ix_product_user_id ON product (user_id, id);
+CREATE INDEX IF NOT EXISTS ix_product_user_name ON product (user_id, name, id);
+CREATE INDEX IF NOT EXISTS ix_product_user_quantity ON product (user_id, quantity, id);
+CREATE INDEX IF NOT EXISTS ix_product_user_price ON product (user_id, price, id);
+CREATE INDEX IF NOT EXISTS ix_product_user_created ON product (user_id, created, id);
+CREATE INDEX IF NOT EXISTS ix_product_created ON product (created, id);
@@ -0,0 +1,2 @@
+-- Optimistic locking: bumped by every write to a product, exposed as the ETag
+ALTER TABLE product ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,8 @@
+-- Snapshot of the in-memory stock reservation ledger, rewritten periodically and only read back on startup
+CREATE TABLE stock_reservation (
+    id         UUID PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    user_id    BIGINT NOT NULL,
+    quantity   INTEGER NOT NULL,
+    expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,2 @@
+-- Reorder threshold of a product: it is low on stock at or below this quantity, null when it is not watched
+ALTER TABLE product ADD COLUMN reorder_threshold INTEGER;
@@ -0,0 +1,15 @@
+-- Transactional outbox of product changes: a row is appended in the transaction of every product write and later
+-- numbered by the relay (relay_seq, dense and in relay order), which is the offset clients of GET /product/changes
+-- resume from. Relayed rows are purged once they fall out of the in-memory buffer.
+CREATE SEQUENCE IF NOT EXISTS product_change_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE product_change (
+    id          BIGINT PRIMARY KEY,
+    relay_seq   BIGINT UNIQUE,
+    type        VARCHAR(16) NOT NULL,
+    product_id  BIGINT NOT NULL,
+    user_id     BIGINT NOT NULL,
+    quantity    INTEGER,
+    version     BIGINT,
+    occurred_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,3 @@
+-- H2 has no expression indexes, so the lower(name) indexes only exist on PostgreSQL.
+-- This version is kept so both vendors share the same migration history.
+SELECT 1;
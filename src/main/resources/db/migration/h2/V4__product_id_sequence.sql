@@ -0,0 +1,7 @@
+-- Product ids come from a sequence handed out in blocks of 50 (Hibernate pooled optimizer), so inserts
+-- can be JDBC batched. IDENTITY forces one INSERT per round trip to read the generated key.
+-- H2 databases are only used for tests and start empty, so the sequence starts at 1.
+CREATE SEQUENCE IF NOT EXISTS product_seq START WITH 1 INCREMENT BY 50;
+
+-- Rows must now get their id from the application, a database default would collide with allocated blocks
+ALTER TABLE product ALTER COLUMN id DROP IDENTITY;
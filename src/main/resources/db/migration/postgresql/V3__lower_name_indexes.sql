@@ -0,0 +1,4 @@
+-- Case-insensitive prefix lookups (suggestions, LOWER(name) LIKE 'x%'). Substring search
+-- is served by the in-memory trigram index, so no pg_trgm index is needed here.
+CREATE INDEX IF NOT EXISTS ix_product_lower_name ON product (lower(name) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS ix_product_user_lower_name ON product (user_id, lower(name) text_pattern_ops);
@@ -0,0 +1,9 @@
+-- Product ids come from a sequence handed out in blocks of 50 (Hibernate pooled optimizer), so inserts
+-- can be JDBC batched. IDENTITY forces one INSERT per round trip to read the generated key.
+CREATE SEQUENCE IF NOT EXISTS product_seq INCREMENT BY 50;
+
+-- The first block starts right after the existing rows
+SELECT setval('product_seq', COALESCE(MAX(id), 0) + 50, false) FROM product;
+
+-- Rows must now get their id from the application, a database default would collide with allocated blocks
+ALTER TABLE product ALTER COLUMN id DROP IDENTITY IF EXISTS;
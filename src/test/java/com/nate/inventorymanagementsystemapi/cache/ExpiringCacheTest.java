@@ -0,0 +1,57 @@
+package com.nate.inventorymanagementsystemapi.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    @DisplayName("Expiring Cache Test: entries are not returned after they expire")
+    void testExpiry(){
+        ExpiringCache<String,String> cache = new ExpiringCache<>(10, now::get);
+        cache.put("a","A",2_000);
+
+        assertEquals("A",cache.get("a"));
+
+        now.set(2_000);
+
+        assertNull(cache.get("a"),"entry should have expired");
+        assertEquals(1,cache.stats().evictions());
+        assertEquals(0,cache.size());
+    }
+
+    @Test
+    @DisplayName("Expiring Cache Test: stays within the maximum size")
+    void testBounded(){
+        ExpiringCache<Integer,Integer> cache = new ExpiringCache<>(100, now::get);
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(i,i,10_000 + i);
+        }
+
+        assertTrue(cache.size() <= 100,"should never hold more than the max size");
+        assertTrue(cache.stats().evictions() >= 900);
+        assertNotNull(cache.get(999),"the latest entry should be kept");
+    }
+
+    @Test
+    @DisplayName("Expiring Cache Test: counts hits and misses")
+    void testStats(){
+        ExpiringCache<String,String> cache = new ExpiringCache<>(10, now::get);
+        cache.put("a","A",5_000);
+
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+
+        CacheStats stats = cache.stats();
+        assertEquals(2,stats.hits());
+        assertEquals(1,stats.misses());
+        assertEquals(2.0/3,stats.hitRate(),1e-9);
+    }
+}
@@ -0,0 +1,325 @@
+package com.nate.inventorymanagementsystemapi.cache;
+
+import com.nate.inventorymanagementsystemapi.dto.ProductDto;
+import com.nate.inventorymanagementsystemapi.event.InventoryChangedEvent;
+import com.nate.inventorymanagementsystemapi.event.ProductChangedEvent;
+import com.nate.inventorymanagementsystemapi.event.StockLevelChangedEvent;
+import com.nate.inventorymanagementsystemapi.exception.InsufficientStockException;
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
+import com.nate.inventorymanagementsystemapi.model.CurrentUser;
+import com.nate.inventorymanagementsystemapi.model.ProductChange;
+import com.nate.inventorymanagementsystemapi.model.StockMovement;
+import com.nate.inventorymanagementsystemapi.model.Role;
+import com.nate.inventorymanagementsystemapi.repository.ProductOutbox;
+import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import com.nate.inventorymanagementsystemapi.repository.StockMovementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class HotStockCountersTest {
+
+    private static final CurrentUser OWNER = new CurrentUser(1L, "tester", Role.USER);
+
+    @Mock
+    private ProductRepository repo;
+
+    @Mock
+    private ProductOutbox outbox;
+
+    @Mock
+    private StockMovementRepository movements;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    private HotStockCounters counters;
+
+    @BeforeEach
+    void startUp() {
+        counters = new HotStockCounters(repo, outbox, movements, transactionManager, events, true, Set.of(5L), 1_000_000);
+    }
+
+    private void seed(long quantity) {
+        when(repo.findVisible(5L, null, true)).thenReturn(Optional.of(
+                new ProductDto(5L, "Hot", (int) quantity, BigDecimal.TEN, 1L, null, 0L)));
+    }
+
+    @Test
+    @DisplayName("Only configured products are hot, and only when enabled")
+    void testIsHot() {
+        assertTrue(counters.isHot(5L));
+        assertFalse(counters.isHot(6L));
+        assertFalse(new HotStockCounters(repo, outbox, movements, transactionManager, events, false, Set.of(5L), 10).isHot(5L));
+    }
+
+    @Test
+    @DisplayName("Adjustments are checked against the in-memory level and never go below zero")
+    void testAdjustBounds() {
+        seed(3);
+
+        assertEquals(5, counters.adjust(5L, 2, OWNER));
+        assertEquals(0, counters.adjust(5L, -5, OWNER));
+        assertThrows(InsufficientStockException.class, () -> counters.adjust(5L, -1, OWNER));
+        assertThrows(AccessDeniedException.class, () -> counters.adjust(5L, 1, new CurrentUser(2L, "other", Role.USER)));
+        assertEquals(1, counters.adjust(5L, 1, new CurrentUser(2L, "admin", Role.ADMIN)));
+
+        //Seeded once, nothing written until a flush
+        verify(repo, times(1)).findVisible(5L, null, true);
+        verify(repo, never()).addStock(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("An adjustment past the INT maximum is rejected and leaves the level as it was")
+    void testAdjustCeiling() {
+        seed(3);
+
+        assertThrows(InvalidRequestException.class, () -> counters.adjust(5L, Integer.MAX_VALUE, OWNER));
+        assertEquals(Integer.MAX_VALUE, counters.adjust(5L, Integer.MAX_VALUE - 3, OWNER));
+        assertThrows(InvalidRequestException.class, () -> counters.adjust(5L, 1, OWNER));
+        assertEquals(Integer.MAX_VALUE - 1, counters.adjust(5L, -1, OWNER));
+        verify(repo, never()).addStock(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("A flush writes the net movement of each product as one update")
+    void testFlushCoalesces() {
+        seed(10);
+        when(repo.addStock(5L, 100)).thenReturn(1);
+        for (int i = 0; i < 100; i++) {
+            counters.adjust(5L, i % 2 == 0 ? 3 : -1, OWNER);
+        }
+
+        counters.flush();
+        counters.flush();
+
+        verify(repo, times(1)).addStock(5L, 100);
+    }
+
+    @Test
+    @DisplayName("Reaching the threshold flushes without waiting for the schedule")
+    void testThresholdFlush() {
+        counters = new HotStockCounters(repo, outbox, movements, transactionManager, events, true, Set.of(5L), 3);
+        seed(10);
+        when(repo.addStock(5L, -3)).thenReturn(1);
+
+        counters.adjust(5L, -1, OWNER);
+        counters.adjust(5L, -1, OWNER);
+        verify(repo, never()).addStock(anyLong(), anyInt());
+
+        counters.adjust(5L, -1, OWNER);
+        verify(repo).addStock(5L, -3);
+        //The stock totals move with the write, at the price the counter was seeded with
+        verify(events).publishEvent(new InventoryChangedEvent(1L, 0, -3, new BigDecimal("-30")));
+        //So does the watchlist, with the version the write left on the row
+        verify(events).publishEvent(new StockLevelChangedEvent(5L, 1L, null, 7, 1L));
+        verify(outbox).append(argThat(change -> change.getType() == ProductChange.Type.STOCK
+                && change.getProductId() == 5L && change.getQuantity() == 7 && change.getVersion() == 1L));
+        //The ledger gets the net movement of the flush
+        verify(movements).save(argThat(movement -> movement.getReason() == StockMovement.Reason.HOT_FLUSH
+                && movement.getDelta() == -3 && movement.getQuantity() == 7 && movement.getActorId() == null));
+    }
+
+    @Test
+    @DisplayName("A failed flush is retried in full by the next one")
+    void testFailedFlushRetried() {
+        seed(10);
+        counters.adjust(5L, -4, OWNER);
+        when(repo.addStock(5L, -4)).thenThrow(new QueryTimeoutException("down"));
+
+        counters.flush();
+        counters.adjust(5L, -1, OWNER);
+        when(repo.addStock(5L, -5)).thenReturn(1);
+        counters.flush();
+
+        verify(repo).addStock(5L, -5);
+    }
+
+    @Test
+    @DisplayName("A product whose write fails does not hold up the others in the same flush")
+    void testFailedProductIsolated() {
+        counters = new HotStockCounters(repo, outbox, movements, transactionManager, events, true, Set.of(5L, 6L), 1_000_000);
+        seed(10);
+        when(repo.findVisible(6L, null, true)).thenReturn(Optional.of(
+                new ProductDto(6L, "Hot too", 10, BigDecimal.ONE, 1L, null, 0L)));
+        counters.adjust(5L, -4, OWNER);
+        counters.adjust(6L, -2, OWNER);
+        when(repo.addStock(5L, -4)).thenThrow(new QueryTimeoutException("down"));
+        when(repo.addStock(6L, -2)).thenReturn(1);
+
+        counters.flush();
+        counters.flush();
+
+        //Product 6 was written once and is settled, product 5 is retried by every flush
+        verify(repo, times(1)).addStock(6L, -2);
+        verify(repo, times(2)).addStock(5L, -4);
+    }
+
+    @Test
+    @DisplayName("A counter the row can no longer cover is dropped and reseeded instead of failing every flush")
+    void testGuardedWriteDrops() {
+        seed(10);
+        counters.adjust(5L, -4, OWNER);
+        //The row was lowered underneath the counter, so the guarded update matches nothing
+        when(repo.addStock(5L, -4)).thenReturn(0);
+
+        counters.flush();
+        counters.flush();
+
+        verify(repo, times(1)).addStock(5L, -4);
+        verify(outbox, never()).append(argThat(change -> true));
+        seed(2);
+        assertEquals(1, counters.adjust(5L, -1, OWNER));
+    }
+
+    @Test
+    @DisplayName("Crash safety: unflushed movements only live in memory, a restart reseeds from the database")
+    void testUnflushedMovementsAreLostOnCrash() {
+        seed(10);
+        counters.adjust(5L, -4, OWNER);
+
+        //A new instance stands in for a restart without a graceful shutdown
+        HotStockCounters restarted = new HotStockCounters(repo, outbox, movements, transactionManager, events, true, Set.of(5L), 1_000_000);
+        assertEquals(9, restarted.adjust(5L, -1, OWNER));
+        verify(repo, never()).addStock(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Reads show the in-memory level of hot products")
+    void testMerge() {
+        seed(10);
+        counters.adjust(5L, -4, OWNER);
+
+        ProductDto hot = new ProductDto();
+        hot.setId(5L);
+        hot.setQuantity(10);
+        ProductDto cold = new ProductDto();
+        cold.setId(6L);
+        cold.setQuantity(10);
+        counters.merge(hot);
+        counters.merge(cold);
+
+        assertEquals(6, hot.getQuantity());
+        assertEquals(10, cold.getQuantity());
+    }
+
+    @Test
+    @DisplayName("Release writes pending movements and the next adjustment reseeds from the row")
+    void testRelease() {
+        seed(10);
+        counters.adjust(5L, -4, OWNER);
+
+        counters.release(5L);
+        verify(repo).addStock(5L, -4);
+
+        //The quantity was set to 50 after the release
+        seed(50);
+        assertEquals(49, counters.adjust(5L, -1, OWNER));
+    }
+
+    @Test
+    @DisplayName("A counter reseeded from the old row while a PATCH runs is dropped once it commits")
+    void testUpdateDropsStaleCounter() {
+        seed(10);
+        counters.release(5L);
+        //An adjustment slips in before the PATCH commits and reseeds from the row it is about to replace
+        counters.adjust(5L, -1, OWNER);
+
+        counters.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 5L, 1L, "Hot"));
+        counters.flush();
+        verify(repo, never()).addStock(anyLong(), anyInt());
+
+        //The PATCH set 50, the next adjustment starts from it
+        seed(50);
+        assertEquals(49, counters.adjust(5L, -1, OWNER));
+    }
+
+    @Test
+    @DisplayName("A deleted product's counter is dropped without writing")
+    void testDeleteDrops() {
+        seed(10);
+        counters.adjust(5L, -4, OWNER);
+
+        counters.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 5L, 1L, null));
+        counters.flush();
+
+        verify(repo, never()).addStock(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Parallel adjustments and flushes lose nothing and never oversell")
+    void testParallelAdjustments() throws Exception {
+        seed(5000);
+        AtomicLong written = new AtomicLong();
+        doAnswer(inv -> {
+            written.addAndGet(inv.getArgument(1, Integer.class));
+            return 1;
+        }).when(repo).addStock(anyLong(), anyInt());
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(pool.submit(() -> {
+                    long removed = 0;
+                    for (int i = 0; i < 2000; i++) {
+                        try {
+                            counters.adjust(5L, -1, OWNER);
+                            removed++;
+                        } catch (InsufficientStockException e) {
+                            //Sold out
+                        }
+                        if (i % 500 == 0) {
+                            counters.flush();
+                        }
+                    }
+                    return removed;
+                }));
+            }
+            long removed = 0;
+            for (Future<Long> result : results) {
+                removed += result.get();
+            }
+            counters.flush();
+
+            assertEquals(5000, removed);
+            assertEquals(-5000, written.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.nate.inventorymanagementsystemapi.cache;
+
+import com.nate.inventorymanagementsystemapi.dto.ReorderLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LowStockIndexTest {
+
+    private LowStockIndex index;
+
+    @BeforeEach
+    void startUp() {
+        index = new LowStockIndex();
+        index.put(new ReorderLevel(1L, 10L, "Laptop", 4, 5), 0);
+        index.put(new ReorderLevel(2L, 10L, "Lamp", 0, 3), 0);
+        index.put(new ReorderLevel(3L, 20L, "Mouse", 2, 20), 0);
+        index.put(new ReorderLevel(4L, 20L, "Monitor", 9, 5), 0);
+        index.put(new ReorderLevel(5L, 20L, "Cable", 0, 0), 0);
+    }
+
+    private List<Long> low(Long ownerId, int limit) {
+        return index.low(ownerId, limit).stream().map(ReorderLevel::productId).toList();
+    }
+
+    @Test
+    @DisplayName("Only products at or below the threshold are listed, out of stock first, then by fill ratio")
+    void testLow_Urgency() {
+        assertEquals(List.of(2L, 5L, 3L, 1L), low(null, 10));
+        assertEquals(List.of(2L, 5L), low(null, 2));
+        assertEquals(List.of(2L, 1L), low(10L, 10));
+        assertEquals(List.of(), low(30L, 10));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    @DisplayName("Levels move products on and off the list, older versions are ignored")
+    void testUpdate() {
+        index.update(4L, null, 1, 2);
+        index.update(3L, "Mice", 15, 1);
+        //Arrives after the newer level, and twice
+        index.update(4L, null, 8, 1);
+        index.update(4L, null, 1, 2);
+
+        assertEquals(List.of(2L, 5L, 4L, 3L, 1L), low(null, 10));
+        assertEquals(List.of(5L, 4L, 3L), low(20L, 10));
+        assertEquals(new ReorderLevel(4L, 20L, "Monitor", 1, 5), index.low(20L, 10).get(1));
+    }
+
+    @Test
+    @DisplayName("A threshold read at an older version keeps the newer quantity, null or removal unwatches")
+    void testThresholdAndRemove() {
+        index.update(1L, "Laptop Pro", 10, 3);
+        index.put(new ReorderLevel(1L, 10L, "Laptop", 4, 12), 1);
+        assertEquals(List.of(new ReorderLevel(1L, 10L, "Laptop Pro", 10, 12)), index.low(10L, 10).subList(1, 2));
+
+        index.put(new ReorderLevel(2L, 10L, "Lamp", 0, null), 0);
+        index.remove(5L);
+        //Products that are not watched are ignored
+        index.update(2L, null, 0, 9);
+
+        assertEquals(List.of(3L, 1L), low(null, 10));
+        assertEquals(3, index.size());
+    }
+}
@@ -0,0 +1,72 @@
+package com.nate.inventorymanagementsystemapi.cache;
+
+import com.nate.inventorymanagementsystemapi.event.ProductChangedEvent;
+import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductCountersTest {
+
+    @Mock
+    private ProductRepository repo;
+
+    private ProductCounters counters;
+
+    @BeforeEach
+    void startUp() {
+        counters = new ProductCounters(repo);
+    }
+
+    @Test
+    @DisplayName("Counts are seeded once and then moved by events")
+    void testSeededThenIncremental() {
+        when(repo.countByUserId(1L)).thenReturn(3L);
+
+        assertEquals(3, counters.count(1L));
+        counters.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, 10L, 1L, null));
+        counters.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, 11L, 1L, null));
+        counters.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 10L, 1L, null));
+        counters.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, 11L, 1L, null));
+
+        assertEquals(4, counters.count(1L));
+        verify(repo, times(1)).countByUserId(1L);
+    }
+
+    @Test
+    @DisplayName("Events for users that were never counted are ignored")
+    void testUnseededIgnored() {
+        counters.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, 10L, 2L, null));
+        when(repo.countByUserId(2L)).thenReturn(1L);
+
+        assertEquals(1, counters.count(2L));
+    }
+
+    @Test
+    @DisplayName("Reconcile replaces drifted counts and drops users without products")
+    void testReconcile() {
+        when(repo.countByUserId(1L)).thenReturn(3L);
+        when(repo.countByUserId(2L)).thenReturn(5L);
+        counters.count(1L);
+        counters.count(2L);
+        counters.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED, 10L, 1L, null));
+
+        when(repo.countPerUser()).thenReturn(List.<Object[]>of(new Object[]{1L, 6L}));
+        counters.reconcile();
+
+        assertEquals(6, counters.count(1L));
+        when(repo.countByUserId(2L)).thenReturn(0L);
+        assertEquals(0, counters.count(2L));
+    }
+}
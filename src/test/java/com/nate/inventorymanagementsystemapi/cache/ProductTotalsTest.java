@@ -0,0 +1,82 @@
+package com.nate.inventorymanagementsystemapi.cache;
+
+import com.nate.inventorymanagementsystemapi.dto.ProductSummary;
+import com.nate.inventorymanagementsystemapi.event.InventoryChangedEvent;
+import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductTotalsTest {
+
+    @Mock
+    private ProductRepository repo;
+
+    private ProductTotals totals;
+
+    @BeforeEach
+    void startUp() {
+        totals = new ProductTotals(repo);
+    }
+
+    @Test
+    @DisplayName("Totals are seeded once and then moved by events")
+    void testSeededThenIncremental() {
+        when(repo.summarizeByUserId(1L)).thenReturn(new ProductSummary(2, 10, new BigDecimal("100.00")));
+        when(repo.summarizeAll()).thenReturn(new ProductSummary(3, 12, new BigDecimal("150.00")));
+
+        totals.ofUser(1L);
+        totals.ofAll();
+        totals.onInventoryChanged(new InventoryChangedEvent(1L, 1, 5, new BigDecimal("50")));
+        totals.onInventoryChanged(new InventoryChangedEvent(1L, 0, -2, new BigDecimal("-20")));
+        totals.onInventoryChanged(new InventoryChangedEvent(1L, -1, -1, new BigDecimal("-10")));
+
+        assertEquals(new ProductSummary(2, 12, new BigDecimal("120.00")), totals.ofUser(1L));
+        assertEquals(new ProductSummary(3, 14, new BigDecimal("170.00")), totals.ofAll());
+        verify(repo, times(1)).summarizeByUserId(1L);
+        verify(repo, times(1)).summarizeAll();
+    }
+
+    @Test
+    @DisplayName("Events for totals that were never seeded are ignored")
+    void testUnseededIgnored() {
+        totals.onInventoryChanged(new InventoryChangedEvent(2L, 1, 5, new BigDecimal("50")));
+        when(repo.summarizeByUserId(2L)).thenReturn(new ProductSummary(1, 5, new BigDecimal("50")));
+        when(repo.summarizeAll()).thenReturn(new ProductSummary(1, 5, new BigDecimal("50")));
+
+        assertEquals(new ProductSummary(1, 5, new BigDecimal("50")), totals.ofUser(2L));
+        assertEquals(new ProductSummary(1, 5, new BigDecimal("50")), totals.ofAll());
+    }
+
+    @Test
+    @DisplayName("Reconcile replaces drifted totals and drops users without products")
+    void testReconcile() {
+        when(repo.summarizeByUserId(1L)).thenReturn(new ProductSummary(2, 10, new BigDecimal("100")));
+        when(repo.summarizeByUserId(2L)).thenReturn(new ProductSummary(1, 1, BigDecimal.ONE));
+        when(repo.summarizeAll()).thenReturn(new ProductSummary(3, 11, new BigDecimal("101")));
+        totals.ofUser(1L);
+        totals.ofUser(2L);
+        totals.ofAll();
+        totals.onInventoryChanged(new InventoryChangedEvent(1L, 1, 1, BigDecimal.TEN));
+
+        when(repo.summarizePerUser()).thenReturn(List.<Object[]>of(new Object[]{1L, 2L, 9L, new BigDecimal("90")}));
+        totals.reconcile();
+
+        assertEquals(new ProductSummary(2, 9, new BigDecimal("90")), totals.ofUser(1L));
+        assertEquals(new ProductSummary(2, 9, new BigDecimal("90")), totals.ofAll());
+        when(repo.summarizeByUserId(2L)).thenReturn(ProductSummary.EMPTY);
+        assertEquals(ProductSummary.EMPTY, totals.ofUser(2L));
+    }
+}
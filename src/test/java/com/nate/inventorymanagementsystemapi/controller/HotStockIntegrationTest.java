@@ -0,0 +1,141 @@
+package com.nate.inventorymanagementsystemapi.controller;
+
+import com.nate.inventorymanagementsystemapi.cache.HotStockCounters;
+import com.nate.inventorymanagementsystemapi.model.Product;
+import com.nate.inventorymanagementsystemapi.model.Role;
+import com.nate.inventorymanagementsystemapi.model.User;
+import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import com.nate.inventorymanagementsystemapi.repository.UserRepository;
+import com.nate.inventorymanagementsystemapi.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Hot product mode end to end. The scheduled flush is pushed out of the way so the test decides when
+ * movements reach the database.
+ */
+@SpringBootTest(properties = {
+        "inventory.stock.hot-skus.enabled=true",
+        "inventory.stock.hot-skus.product-ids=1",
+        "inventory.stock.hot-skus.flush-ms=3600000",
+        "inventory.stock.hot-skus.flush-threshold=1000000"})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class HotStockIntegrationTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserRepository repo;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private PasswordEncoder encoder;
+
+    @Autowired
+    private HotStockCounters hotStock;
+
+    private String token;
+
+    @BeforeEach
+    void startUp() {
+        User testUser = new User();
+        testUser.setUsername("tester");
+        testUser.setRole(Role.USER);
+        testUser.setPassword(encoder.encode("tester123"));
+        repo.save(testUser);
+
+        Product product = new Product();
+        product.setName("Laptop");
+        product.setQuantity(1000);
+        product.setPrice(BigDecimal.valueOf(300));
+        product.setUser(testUser);
+        product.setCreated(Instant.now());
+        assertEquals(1L, repository.save(product).getId());
+
+        token = JwtUtil.generateToken(testUser.getUsername(), testUser.getRole());
+    }
+
+    private int adjust(int delta) throws Exception {
+        return mvc.perform(post("/product/1/stock")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":" + delta + "}"))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @Test
+    @DisplayName("Parallel removals are held in memory, read back merged and written by the flush")
+    void testParallelRemovalsThenFlush() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Integer> statuses = new ArrayList<>();
+        try {
+            List<Callable<Integer>> calls = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                calls.add(() -> adjust(-1));
+            }
+            for (Future<Integer> result : pool.invokeAll(calls)) {
+                statuses.add(result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(1000, statuses.stream().filter(s -> s == 200).count());
+        assertEquals(1000, statuses.stream().filter(s -> s == 409).count());
+
+        //Not written yet, but reads already show the in-memory level
+        assertEquals(1000, repository.findQuantity(1L).orElseThrow());
+        mvc.perform(get("/product/1").header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$.quantity").value(0));
+
+        hotStock.flush();
+        assertEquals(0, repository.findQuantity(1L).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("PATCH of a hot product writes pending movements first, then its quantity wins")
+    void testPatchReleasesCounter() throws Exception {
+        adjust(-10);
+
+        mvc.perform(patch("/product/1")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Laptop\",\"quantity\":50,\"price\":300}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(50));
+
+        adjust(-1);
+        hotStock.flush();
+        assertEquals(49, repository.findQuantity(1L).orElseThrow());
+    }
+}
@@ -0,0 +1,178 @@
+package com.nate.inventorymanagementsystemapi.controller;
+
+import com.nate.inventorymanagementsystemapi.feed.ProductChangeFeed;
+import com.nate.inventorymanagementsystemapi.model.Role;
+import com.nate.inventorymanagementsystemapi.model.User;
+import com.nate.inventorymanagementsystemapi.repository.UserRepository;
+import com.nate.inventorymanagementsystemapi.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The change feed end to end. The scheduled relay is pushed out of the way so the test decides when committed
+ * changes reach the subscribers, and the ring only holds 4 changes.
+ */
+@SpringBootTest(properties = {
+        "inventory.changes.relay-ms=3600000",
+        "inventory.changes.buffer-size=4"})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ProductChangeFeedIntegrationTest {
+
+    //Only complete events count, a send writes its lines one at a time
+    private static final Pattern EVENT = Pattern.compile("event:(\\w+)\nid:(\\d+)\ndata:[^\n]*\n\n");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserRepository repo;
+
+    @Autowired
+    private PasswordEncoder encoder;
+
+    @Autowired
+    private ProductChangeFeed feed;
+
+    private String token;
+    private String adminToken;
+
+    @BeforeEach
+    void startUp() {
+        User testUser = new User();
+        testUser.setUsername("tester");
+        testUser.setRole(Role.USER);
+        testUser.setPassword(encoder.encode("tester123"));
+        repo.save(testUser);
+
+        User admin = new User();
+        admin.setUsername("tester2");
+        admin.setRole(Role.ADMIN);
+        admin.setPassword(encoder.encode("tester123"));
+        repo.save(admin);
+
+        token = JwtUtil.generateToken(testUser.getUsername(), testUser.getRole());
+        adminToken = JwtUtil.generateToken(admin.getUsername(), admin.getRole());
+    }
+
+    private void create(String bearer, String name) throws Exception {
+        mvc.perform(post("/product")
+                        .header("Authorization", "Bearer " + bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\",\"quantity\":5,\"price\":10}"))
+                .andExpect(status().isCreated());
+    }
+
+    private MvcResult subscribe(MockHttpServletRequestBuilder request) throws Exception {
+        return mvc.perform(request.accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    //The "name:offset" of every event received so far
+    private static List<String> events(MvcResult subscription) throws Exception {
+        Matcher matcher = EVENT.matcher(subscription.getResponse().getContentAsString());
+        return matcher.results().map(m -> m.group(1) + ":" + m.group(2)).toList();
+    }
+
+    //Sends run on the feed's own threads, so the relay returns before they arrive
+    private static void awaitEvents(List<String> expected, MvcResult subscription) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!events(subscription).equals(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, events(subscription));
+    }
+
+    @Test
+    @DisplayName("Committed changes are relayed to subscribers, users only see their own products")
+    void testChangesRelayed() throws Exception {
+        MvcResult mine = subscribe(get("/product/changes").header("Authorization", "Bearer " + token));
+        MvcResult all = subscribe(get("/product/changes").header("Authorization", "Bearer " + adminToken));
+        assertEquals(2, feed.subscriberCount());
+
+        create(token, "Laptop");
+        create(adminToken, "Phone");
+        mvc.perform(post("/product/1/stock")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":3}"))
+                .andExpect(status().isOk());
+        //Nothing is sent before the relay picks the changes up
+        assertEquals(List.of(), events(all));
+
+        assertEquals(3, feed.relay());
+        awaitEvents(List.of("product:1", "product:3"), mine);
+        awaitEvents(List.of("product:1", "product:2", "product:3"), all);
+        String body = mine.getResponse().getContentAsString();
+        assertTrue(body.contains("\"type\":\"STOCK\""));
+        assertTrue(body.contains("\"quantity\":8"));
+    }
+
+    @Test
+    @DisplayName("A subscriber resumes after its Last-Event-ID")
+    void testResume() throws Exception {
+        create(token, "Laptop");
+        create(token, "Phone");
+        mvc.perform(delete("/product/1").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        feed.relay();
+
+        MvcResult resumed = subscribe(get("/product/changes")
+                .header("Authorization", "Bearer " + token)
+                .header("Last-Event-ID", "1"));
+        assertEquals(List.of("product:2", "product:3"), events(resumed));
+        assertTrue(resumed.getResponse().getContentAsString().contains("\"type\":\"DELETED\""));
+    }
+
+    @Test
+    @DisplayName("Resuming after a change that fell out of the ring sends a reset first")
+    void testResetWhenTooOld() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            create(token, "Laptop " + i);
+        }
+        feed.relay();
+
+        MvcResult resumed = subscribe(get("/product/changes")
+                .header("Authorization", "Bearer " + token)
+                .param("after", "1"));
+        create(token, "Phone");
+        feed.relay();
+
+        awaitEvents(List.of("reset:6", "product:7"), resumed);
+    }
+
+    @Test
+    @DisplayName("A negative offset is rejected")
+    void testNegativeOffset() throws Exception {
+        mvc.perform(get("/product/changes")
+                        .header("Authorization", "Bearer " + token)
+                        .param("after", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nate.inventorymanagementsystemapi.dto.PostProduct;
 import com.nate.inventorymanagementsystemapi.dto.ProductDto;
 import com.nate.inventorymanagementsystemapi.dto.RegisterDto;
+import com.nate.inventorymanagementsystemapi.history.StockRollupPipeline;
 import com.nate.inventorymanagementsystemapi.model.Product;
 import com.nate.inventorymanagementsystemapi.model.Role;
 import com.nate.inventorymanagementsystemapi.model.User;
@@ -21,13 +22,18 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.client.ExpectedCount;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.List;
 
@@ -59,6 +65,9 @@ public class ProductControllerIntegrationTest {
     @Autowired
     private ProductRepository repository;
 
+    @Autowired
+    private StockRollupPipeline rollups;
+
 
     private User testUser;
     private User testUser2;
@@ -255,6 +264,635 @@ public class ProductControllerIntegrationTest {
         }
     }
 
+    @DisplayName("Testing Search: All Results")
+    @Nested
+    class SearchTests {
+        @Test
+        void testSearch_FindsProductsAddedAfterStartup() throws Exception {
+            PostProduct postProduct = new PostProduct("Gaming Monitor",3,BigDecimal.valueOf(100));
+            mvc.perform(post("/product")
+                            .header("Authorization", "Bearer "+token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(postProduct)))
+                    .andExpect(status().isCreated());
+
+            mvc.perform(get("/product")
+                            .param("search","MONITOR")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalItems").value(1))
+                    .andExpect(jsonPath("$.data[0].name").value("Gaming Monitor"));
+        }
+
+        @Test
+        void testSearch_OtherUsersProductsHidden() throws Exception {
+            String adminToken = JwtUtil.generateToken(testUser2.getUsername(),testUser2.getRole());
+            PostProduct postProduct = new PostProduct("Studio Monitor",3,BigDecimal.valueOf(100));
+            mvc.perform(post("/product")
+                            .header("Authorization", "Bearer "+adminToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(postProduct)))
+                    .andExpect(status().isCreated());
+
+            mvc.perform(get("/product")
+                            .param("search","monitor")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalItems").value(0));
+
+            mvc.perform(get("/product")
+                            .param("search","monitor")
+                            .header("Authorization", "Bearer "+adminToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalItems").value(1));
+        }
+    }
+
+    @DisplayName("Testing Suggest: All Results")
+    @Nested
+    class SuggestTests {
+        @Test
+        void testSuggest_ScopedToCaller() throws Exception {
+            String adminToken = JwtUtil.generateToken(testUser2.getUsername(),testUser2.getRole());
+            for (String[] product : new String[][]{{"Lamp", token}, {"Laser Printer", token}, {"Lathe", adminToken}}) {
+                mvc.perform(post("/product")
+                                .header("Authorization", "Bearer "+product[1])
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(new PostProduct(product[0],1,BigDecimal.valueOf(10)))))
+                        .andExpect(status().isCreated());
+            }
+
+            mvc.perform(get("/product/suggest")
+                            .param("prefix","la")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2))
+                    .andExpect(jsonPath("$[0]").value("Lamp"))
+                    .andExpect(jsonPath("$[1]").value("Laser Printer"));
+
+            mvc.perform(get("/product/suggest")
+                            .param("prefix","LA")
+                            .param("limit","2")
+                            .header("Authorization", "Bearer "+adminToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2))
+                    .andExpect(jsonPath("$[0]").value("Lamp"))
+                    .andExpect(jsonPath("$[1]").value("Laser Printer"));
+        }
+
+        @Test
+        void testSuggest_FailLimitTooLarge() throws Exception {
+            mvc.perform(get("/product/suggest")
+                            .param("prefix","la")
+                            .param("limit","1000")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @DisplayName("Testing Bulk Create: All Results")
+    @Nested
+    class BulkCreateTests {
+        @Test
+        void testBulkCreate_ReportsEveryItem() throws Exception {
+            List<PostProduct> products = List.of(
+                    new PostProduct("Keyboard",2,BigDecimal.valueOf(40)),
+                    new PostProduct("",2,BigDecimal.valueOf(40)),
+                    new PostProduct("Mouse",1,BigDecimal.valueOf(20)));
+
+            mvc.perform(post("/product/bulk")
+                            .header("Authorization", "Bearer "+token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(products)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.created").value(2))
+                    .andExpect(jsonPath("$.rejected").value(1))
+                    .andExpect(jsonPath("$.results[0].id").isNumber())
+                    .andExpect(jsonPath("$.results[1].id").doesNotExist())
+                    .andExpect(jsonPath("$.results[1].errors[0]").value("name: Product name cannot be empty"))
+                    .andExpect(jsonPath("$.results[2].id").isNumber());
+
+            mvc.perform(get("/product")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(jsonPath("$.totalItems").value(3));
+        }
+
+        @Test
+        void testBulkCreate_FailEmpty() throws Exception {
+            mvc.perform(post("/product/bulk")
+                            .header("Authorization", "Bearer "+token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[]"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    //Streamed responses are written on an async dispatch, so the body is only there after it ran
+    private String streamedBody(MockHttpServletRequestBuilder request) throws Exception {
+        return streamedBody(request, token);
+    }
+
+    private String streamedBody(MockHttpServletRequestBuilder request, String bearer) throws Exception {
+        MvcResult started = mvc.perform(request.header("Authorization", "Bearer "+bearer))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    @DisplayName("Testing Export Products: All Results")
+    @Nested
+    class ExportTests {
+        @Test
+        void testExportNdjson_OnlyOwnProducts() throws Exception {
+            String body = streamedBody(get("/product/export"));
+
+            List<String> lines = body.lines().toList();
+            assertEquals(1, lines.size());
+            ProductDto product = mapper.readValue(lines.get(0), ProductDto.class);
+            assertEquals(testProduct.getId(), product.getId());
+            assertEquals("Laptop", product.getName());
+        }
+
+        @Test
+        void testExportCsv_AdminGetsEveryProductInIdOrder() throws Exception {
+            Product desk = new Product();
+            desk.setName("Desk, \"oak\"");
+            desk.setQuantity(2);
+            desk.setPrice(new BigDecimal("120.50"));
+            desk.setUser(testUser);
+            desk.setCreated(Instant.now());
+            repository.save(desk);
+
+            String adminToken = JwtUtil.generateToken(testUser2.getUsername(), testUser2.getRole());
+            List<String> lines = streamedBody(get("/product/export").param("format","csv"), adminToken).lines().toList();
+
+            assertEquals(4, lines.size());
+            assertEquals("id,name,quantity,price,userId,createdAt", lines.get(0));
+            assertTrue(lines.get(1).startsWith("1,Laptop,4,300.00,"));
+            assertTrue(lines.get(2).startsWith("2,Laptop,4,300.00,"));
+            assertTrue(lines.get(3).startsWith("3,\"Desk, \"\"oak\"\"\",2,120.50,"));
+        }
+
+        @Test
+        void testExport_FailUnsupportedFormat() throws Exception {
+            mvc.perform(get("/product/export")
+                            .param("format","xml")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @DisplayName("Testing Optimistic Locking: All Results")
+    @Nested
+    class OptimisticLockingTests {
+        private ResultActions patchWith(String ifMatch, int quantity) throws Exception {
+            var request = patch("/product/1")
+                    .header("Authorization", "Bearer "+token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(new PostProduct("Laptop",quantity,BigDecimal.valueOf(300))));
+            if(ifMatch != null){
+                request.header("If-Match", ifMatch);
+            }
+            return mvc.perform(request);
+        }
+
+        @Test
+        void testVersionExposedAsETag() throws Exception {
+            mvc.perform(get("/product/1")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag","\"0\""))
+                    .andExpect(jsonPath("$.version").value(0));
+
+            patchWith("\"0\"",5)
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag","\"1\""))
+                    .andExpect(jsonPath("$.version").value(1));
+        }
+
+        @Test
+        void testStaleIfMatch_FailPreconditionFailed() throws Exception {
+            patchWith(null,5).andExpect(status().isOk());
+
+            patchWith("\"0\"",6)
+                    .andExpect(status().isPreconditionFailed());
+            assertEquals(5, repository.findQuantity(1L).orElseThrow());
+
+            //Stock adjustments are writes too
+            mvc.perform(post("/product/1/stock")
+                    .header("Authorization", "Bearer "+token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"delta\":1}"));
+            patchWith("W/\"1\"",6).andExpect(status().isPreconditionFailed());
+            patchWith("\"2\"",6).andExpect(status().isOk());
+        }
+
+        @Test
+        void testIfMatch_FailBadRequestOrNotOwner() throws Exception {
+            patchWith("\"abc\"",5).andExpect(status().isBadRequest());
+
+            mvc.perform(patch("/product/2")
+                            .header("Authorization", "Bearer "+token)
+                            .header("If-Match","\"0\"")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(new PostProduct("Laptop",5,BigDecimal.valueOf(300)))))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    @DisplayName("Testing Import Products: All Results")
+    @Nested
+    class ImportTests {
+        @Test
+        void testImportCsvFile_ReportsRejectedRows() throws Exception {
+            String csv = """
+                    name,quantity,price
+                    Keyboard,2,40
+                    "Desk, oak",1,120.50
+                    Mouse,0,20
+                    Cable,two,5
+                    """;
+            MockMultipartFile file = new MockMultipartFile("file","products.csv","text/csv",csv.getBytes(StandardCharsets.UTF_8));
+
+            String report = streamedBody(multipart("/product/import").file(file));
+
+            assertEquals(List.of(
+                    "{\"line\":4,\"errors\":[\"quantity: Quantity must be at least 1\"]}",
+                    "{\"line\":5,\"errors\":[\"quantity: not a whole number\"]}",
+                    "{\"imported\":2,\"rejected\":2}"), report.lines().toList());
+
+            mvc.perform(get("/product")
+                            .param("search","oak")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(jsonPath("$.data[0].name").value("Desk, oak"));
+        }
+
+        @Test
+        void testImportNdjsonBody_SavesEveryChunk() throws Exception {
+            StringBuilder body = new StringBuilder();
+            for(int i = 0; i < 1200; i++){
+                body.append("{\"name\":\"Item ").append(i).append("\",\"quantity\":1,\"price\":9.99}\n");
+            }
+            body.append("{not json}\n");
+
+            String report = streamedBody(post("/product/import")
+                    .contentType("application/x-ndjson")
+                    .content(body.toString()));
+
+            List<String> lines = report.lines().toList();
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(0).startsWith("{\"line\":1201,\"errors\":[\"Malformed JSON"));
+            assertEquals("{\"imported\":1200,\"rejected\":1}", lines.get(1));
+            assertEquals(1202, repository.count());
+        }
+
+        @Test
+        void testImportCsv_MissingHeaderColumns() throws Exception {
+            MockMultipartFile file = new MockMultipartFile("file","products.csv","text/csv","name,price\nKeyboard,40".getBytes(StandardCharsets.UTF_8));
+
+            mvc.perform(multipart("/product/import").file(file)
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("CSV header must contain name, quantity and price columns"));
+        }
+
+        @Test
+        void testImport_FailUnsupportedFormat() throws Exception {
+            MockMultipartFile file = new MockMultipartFile("file","products.xlsx","application/octet-stream",new byte[]{1,2,3});
+
+            mvc.perform(multipart("/product/import").file(file)
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+        @DisplayName("Testing Adjust Stock: All Results")
+    @Nested
+    class StockTests {
+        private ResultActions adjust(long id, String body) throws Exception {
+            return mvc.perform(post("/product/" + id + "/stock")
+                    .header("Authorization", "Bearer "+token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body));
+        }
+
+        @Test
+        void testAdjustStock_Success() throws Exception {
+            adjust(1,"{\"delta\":6}")
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.productId").value(1))
+                    .andExpect(jsonPath("$.quantity").value(10));
+
+            //Stock may run out completely
+            adjust(1,"{\"delta\":-10}")
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.quantity").value(0));
+        }
+
+        @Test
+        void testAdjustStock_FailInsufficient() throws Exception {
+            adjust(1,"{\"delta\":-5}")
+                    .andExpect(status().isConflict());
+
+            assertEquals(4, repository.findQuantity(1L).orElseThrow());
+        }
+
+        @Test
+        void testAdjustStock_FailNotOwnerOrMissing() throws Exception {
+            adjust(2,"{\"delta\":1}").andExpect(status().isForbidden());
+            adjust(99,"{\"delta\":1}").andExpect(status().isNotFound());
+        }
+
+        @Test
+        void testAdjustStock_FailBadRequest() throws Exception {
+            adjust(1,"{\"delta\":0}").andExpect(status().isBadRequest());
+            adjust(1,"{}").andExpect(status().isBadRequest());
+        }
+
+        @Test
+        void testAdjustStock_FailPastMaximum() throws Exception {
+            adjust(1,"{\"delta\":2147483647}")
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Stock cannot exceed 2147483647 units"));
+
+            assertEquals(4, repository.findQuantity(1L).orElseThrow());
+        }
+    }
+
+    @DisplayName("Testing Stock Summary: All Results")
+    @Nested
+    class SummaryTests {
+        private ResultActions summary(String bearer) throws Exception {
+            return mvc.perform(get("/product/summary")
+                    .header("Authorization", "Bearer "+bearer));
+        }
+
+        @Test
+        void testSummary_UserSeesOwnTotals() throws Exception {
+            summary(token)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.user.skus").value(1))
+                    .andExpect(jsonPath("$.user.units").value(4))
+                    .andExpect(jsonPath("$.user.value").value(1200))
+                    .andExpect(jsonPath("$.global").doesNotExist());
+        }
+
+        @Test
+        void testSummary_AdminSeesGlobalTotals() throws Exception {
+            String adminToken = JwtUtil.generateToken(testUser2.getUsername(),testUser2.getRole());
+
+            summary(adminToken)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.user.skus").value(1))
+                    .andExpect(jsonPath("$.global.skus").value(2))
+                    .andExpect(jsonPath("$.global.units").value(8))
+                    .andExpect(jsonPath("$.global.value").value(2400));
+        }
+
+        @Test
+        void testSummary_FollowsWrites() throws Exception {
+            summary(token).andExpect(status().isOk());
+
+            mvc.perform(post("/product")
+                            .header("Authorization", "Bearer "+token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(new PostProduct("TV",2,BigDecimal.valueOf(50)))))
+                    .andExpect(status().isCreated());
+            mvc.perform(patch("/product/1")
+                            .header("Authorization", "Bearer "+token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(new PostProduct("Laptop",5,BigDecimal.valueOf(200)))))
+                    .andExpect(status().isOk());
+            mvc.perform(post("/product/1/stock")
+                            .header("Authorization", "Bearer "+token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"delta\":-1}"))
+                    .andExpect(status().isOk());
+
+            //4 units at 200 + 2 units at 50
+            summary(token)
+                    .andExpect(jsonPath("$.user.skus").value(2))
+                    .andExpect(jsonPath("$.user.units").value(6))
+                    .andExpect(jsonPath("$.user.value").value(900));
+
+            mvc.perform(delete("/product/1")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk());
+
+            summary(token)
+                    .andExpect(jsonPath("$.user.skus").value(1))
+                    .andExpect(jsonPath("$.user.units").value(2))
+                    .andExpect(jsonPath("$.user.value").value(100));
+        }
+    }
+
+    @DisplayName("Testing Low Stock Watchlist: All Results")
+    @Nested
+    class LowStockTests {
+        private ResultActions threshold(long id, String body) throws Exception {
+            return mvc.perform(put("/product/" + id + "/reorder-threshold")
+                    .header("Authorization", "Bearer "+token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body));
+        }
+
+        private ResultActions lowStock(String bearer) throws Exception {
+            return mvc.perform(get("/product/low-stock")
+                    .header("Authorization", "Bearer "+bearer));
+        }
+
+        private void adjust(int delta) throws Exception {
+            mvc.perform(post("/product/1/stock")
+                            .header("Authorization", "Bearer "+token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"delta\":" + delta + "}"))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        void testLowStock_FollowsStockMovements() throws Exception {
+            threshold(1,"{\"threshold\":5}")
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.quantity").value(4))
+                    .andExpect(jsonPath("$.threshold").value(5))
+                    .andExpect(jsonPath("$.low").value(true));
+            lowStock(token)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].productId").value(1))
+                    .andExpect(jsonPath("$[0].name").value("Laptop"));
+
+            adjust(3);
+            lowStock(token).andExpect(jsonPath("$.length()").value(0));
+
+            adjust(-7);
+            lowStock(token)
+                    .andExpect(jsonPath("$[0].productId").value(1))
+                    .andExpect(jsonPath("$[0].quantity").value(0));
+
+            threshold(1,"{\"threshold\":null}")
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.low").value(false));
+            lowStock(token).andExpect(jsonPath("$.length()").value(0));
+        }
+
+        @Test
+        void testLowStock_AdminSeesEveryUserMostUrgentFirst() throws Exception {
+            String adminToken = JwtUtil.generateToken(testUser2.getUsername(),testUser2.getRole());
+            threshold(1,"{\"threshold\":8}").andExpect(status().isOk());
+            mvc.perform(put("/product/2/reorder-threshold")
+                            .header("Authorization", "Bearer "+adminToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"threshold\":4}"))
+                    .andExpect(status().isOk());
+
+            //4 of 4 is fuller than 4 of 8
+            lowStock(adminToken)
+                    .andExpect(jsonPath("$.length()").value(2))
+                    .andExpect(jsonPath("$[0].productId").value(1))
+                    .andExpect(jsonPath("$[1].productId").value(2));
+            lowStock(token).andExpect(jsonPath("$.length()").value(1));
+
+            mvc.perform(delete("/product/1")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk());
+            lowStock(adminToken)
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].productId").value(2));
+        }
+
+        @Test
+        void testLowStock_Fail() throws Exception {
+            threshold(2,"{\"threshold\":5}").andExpect(status().isForbidden());
+            threshold(99,"{\"threshold\":5}").andExpect(status().isNotFound());
+            threshold(1,"{\"threshold\":-1}").andExpect(status().isBadRequest());
+            mvc.perform(get("/product/low-stock").param("limit","0")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @DisplayName("Testing Stock Reservations: All Results")
+    @Nested
+    class ReservationTests {
+        private ResultActions reserve(long id, String body, String bearer) throws Exception {
+            return mvc.perform(post("/product/" + id + "/reservations")
+                    .header("Authorization", "Bearer "+bearer)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(body));
+        }
+
+        private String reservationId(ResultActions result) throws Exception {
+            return mapper.readTree(result.andReturn().getResponse().getContentAsString()).get("id").asText();
+        }
+
+        private ResultActions availability() throws Exception {
+            return mvc.perform(get("/product/1/availability")
+                    .header("Authorization", "Bearer "+token));
+        }
+
+        @Test
+        void testReserveAndConfirm_Success() throws Exception {
+            String id = reservationId(reserve(1,"{\"quantity\":3}",token)
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.status").value("ACTIVE"))
+                    .andExpect(jsonPath("$.available").value(1)));
+
+            //Holding does not touch the stock
+            assertEquals(4, repository.findQuantity(1L).orElseThrow());
+            availability()
+                    .andExpect(jsonPath("$.quantity").value(4))
+                    .andExpect(jsonPath("$.held").value(3))
+                    .andExpect(jsonPath("$.available").value(1));
+
+            mvc.perform(post("/product/1/reservations/" + id + "/confirm")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.status").value("CONFIRMED"))
+                    .andExpect(jsonPath("$.available").value(1));
+            assertEquals(1, repository.findQuantity(1L).orElseThrow());
+
+            //A confirmed reservation is settled
+            mvc.perform(post("/product/1/reservations/" + id + "/confirm")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        void testReserveAndRelease_Success() throws Exception {
+            String id = reservationId(reserve(1,"{\"quantity\":4}",token).andExpect(status().isCreated()));
+            reserve(1,"{\"quantity\":1}",token).andExpect(status().isConflict());
+
+            mvc.perform(delete("/product/1/reservations/" + id)
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.status").value("RELEASED"))
+                    .andExpect(jsonPath("$.available").value(4));
+
+            availability().andExpect(jsonPath("$.held").value(0));
+            assertEquals(4, repository.findQuantity(1L).orElseThrow());
+        }
+
+        @Test
+        void testHeldUnits_NotRemovableByAdjustOrUpdate() throws Exception {
+            String id = reservationId(reserve(1,"{\"quantity\":3}",token).andExpect(status().isCreated()));
+
+            //4 in stock, 3 held: removing 2 would eat into the held units
+            mvc.perform(post("/product/1/stock")
+                            .header("Authorization", "Bearer "+token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"delta\":-2}"))
+                    .andExpect(status().isConflict());
+            mvc.perform(patch("/product/1")
+                            .header("Authorization", "Bearer "+token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(new PostProduct("Laptop",2,BigDecimal.valueOf(300)))))
+                    .andExpect(status().isConflict());
+            assertEquals(4, repository.findQuantity(1L).orElseThrow());
+
+            //The unreserved unit can still go
+            mvc.perform(post("/product/1/stock")
+                            .header("Authorization", "Bearer "+token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"delta\":-1}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.quantity").value(3));
+
+            //And the reservation takes its own units
+            mvc.perform(post("/product/1/reservations/" + id + "/confirm")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk());
+            assertEquals(0, repository.findQuantity(1L).orElseThrow());
+        }
+
+        @Test
+        void testReserve_FailNotOwnerOrMissing() throws Exception {
+            reserve(2,"{\"quantity\":1}",token).andExpect(status().isForbidden());
+            reserve(99,"{\"quantity\":1}",token).andExpect(status().isNotFound());
+
+            //Only the user who reserved, or Admin, can settle a reservation
+            String adminToken = JwtUtil.generateToken(testUser2.getUsername(),testUser2.getRole());
+            String id = reservationId(reserve(2,"{\"quantity\":1}",adminToken).andExpect(status().isCreated()));
+            mvc.perform(delete("/product/2/reservations/" + id)
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isForbidden());
+            mvc.perform(delete("/product/1/reservations/" + id)
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        void testReserve_FailBadRequest() throws Exception {
+            reserve(1,"{\"quantity\":0}",token).andExpect(status().isBadRequest());
+            reserve(1,"{\"quantity\":1,\"ttlSeconds\":100000000}",token).andExpect(status().isBadRequest());
+            mvc.perform(post("/product/1/reservations/not-a-uuid/confirm")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
     @DisplayName("Testing Update Product: All Results")
     @Nested
     class UpdateProductTests {
@@ -273,6 +911,29 @@ public class ProductControllerIntegrationTest {
         }
 
 
+        @Test
+        void testUpdateProduct_SuccessZeroQuantity() throws Exception {
+            PostProduct postProduct = new PostProduct("Laptop",0,BigDecimal.valueOf(700));
+
+            mvc.perform(patch("/product/1")
+                    .header("Authorization", "Bearer "+token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(postProduct)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.quantity").value(0));
+        }
+
+        @Test
+        void testUpdateProduct_FailNegativeQuantity() throws Exception {
+            PostProduct postProduct = new PostProduct("Laptop",-1,BigDecimal.valueOf(700));
+
+            mvc.perform(patch("/product/1")
+                    .header("Authorization", "Bearer "+token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(postProduct)))
+                    .andExpect(status().isBadRequest());
+        }
+
         @Test
         void testUpdateProduct_FailBadRequest() throws Exception {
             mvc.perform(patch("/product/Invalid-id")
@@ -370,4 +1031,302 @@ public class ProductControllerIntegrationTest {
             assertFalse(repository.findById(1L).isPresent());
         }
     }
+
+    @DisplayName("Testing Cursor Pagination: All Results")
+    @Nested
+    class CursorPaginationTests {
+        @Test
+        void testGetProductsAfter_PagesThroughAllRows() throws Exception {
+            for (String name : List.of("Mouse", "Keyboard", "Monitor", "Camera")) {
+                Product product = new Product();
+                product.setName(name);
+                product.setQuantity(2);
+                product.setPrice(BigDecimal.valueOf(50));
+                product.setUser(testUser);
+                product.setCreated(Instant.now());
+                repository.save(product);
+            }
+
+            String first = mvc.perform(get("/product")
+                            .param("after","")
+                            .param("size","3")
+                            .param("sortBy","name")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.length()").value(3))
+                    .andExpect(jsonPath("$.data[0].name").value("Camera"))
+                    .andExpect(jsonPath("$.data[2].name").value("Laptop"))
+                    .andExpect(jsonPath("$.hasNext").value(true))
+                    .andReturn().getResponse().getContentAsString();
+
+            String cursor = mapper.readTree(first).get("nextCursor").asText();
+
+            mvc.perform(get("/product")
+                            .param("after",cursor)
+                            .param("size","3")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.length()").value(2))
+                    .andExpect(jsonPath("$.data[0].name").value("Monitor"))
+                    .andExpect(jsonPath("$.data[1].name").value("Mouse"))
+                    .andExpect(jsonPath("$.hasNext").value(false))
+                    .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        }
+
+        @Test
+        void testGetProductsAfter_FailInvalidCursor() throws Exception {
+            mvc.perform(get("/product")
+                            .param("after","not-a-cursor")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        void testGetProductsAfter_FailUnknownSortField() throws Exception {
+            mvc.perform(get("/product")
+                            .param("after","")
+                            .param("sortBy","password")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @DisplayName("Testing Range Filters: All Results")
+    @Nested
+    class FilterTests {
+        private void addProducts() throws Exception {
+            for (PostProduct postProduct : List.of(new PostProduct("TV",3,BigDecimal.valueOf(100)),
+                    new PostProduct("Mouse",20,BigDecimal.valueOf(15)),
+                    new PostProduct("Cable",2,BigDecimal.valueOf(5)))) {
+                mvc.perform(post("/product")
+                                .header("Authorization", "Bearer "+token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(mapper.writeValueAsString(postProduct)))
+                        .andExpect(status().isCreated());
+            }
+        }
+
+        @Test
+        void testGetAllUserProduct_PriceAndQuantityRanges() throws Exception {
+            addProducts();
+
+            mvc.perform(get("/product")
+                            .param("minPrice","10")
+                            .param("maxPrice","150")
+                            .param("minQty","1")
+                            .param("sortBy","price")
+                            .param("direction","desc")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalItems").value(2))
+                    .andExpect(jsonPath("$.data[0].name").value("TV"))
+                    .andExpect(jsonPath("$.data[1].name").value("Mouse"));
+        }
+
+        @Test
+        void testGetProductSliceAndCursor_CreatedRange() throws Exception {
+            addProducts();
+            String from = testProduct.getCreated().plusMillis(1).toString();
+
+            mvc.perform(get("/product")
+                            .param("slice","true")
+                            .param("size","2")
+                            .param("createdFrom",from)
+                            .param("maxQty","5")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.length()").value(2))
+                    .andExpect(jsonPath("$.data[0].name").value("Cable"))
+                    .andExpect(jsonPath("$.hasNext").value(false));
+
+            mvc.perform(get("/product")
+                            .param("after","")
+                            .param("size","1")
+                            .param("sortBy","quantity")
+                            .param("maxQty","5")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data[0].name").value("Cable"))
+                    .andExpect(jsonPath("$.hasNext").value(true));
+        }
+
+        @Test
+        void testGetAllUserProduct_FailInvertedRange() throws Exception {
+            mvc.perform(get("/product")
+                            .param("minPrice","100")
+                            .param("maxPrice","10")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        void testGetAllUserProduct_FailUnknownSortField() throws Exception {
+            mvc.perform(get("/product")
+                            .param("sortBy","password")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @DisplayName("Testing Slice Listing and Totals: All Results")
+    @Nested
+    class SliceAndTotalsTests {
+        @Test
+        void testGetProductSlice_Success() throws Exception {
+            mvc.perform(get("/product")
+                            .param("slice","true")
+                            .param("page","0")
+                            .param("size","1")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.length()").value(1))
+                    .andExpect(jsonPath("$.hasNext").value(false))
+                    .andExpect(jsonPath("$.totalItems").doesNotExist());
+        }
+
+        @Test
+        void testGetProductSlice_WithAfterIsCursor() throws Exception {
+            mvc.perform(get("/product")
+                            .param("slice","true")
+                            .param("after","")
+                            .param("size","1")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.length()").value(1))
+                    .andExpect(jsonPath("$.hasNext").value(false))
+                    .andExpect(jsonPath("$.currentPage").doesNotExist());
+        }
+
+        @Test
+        void testGetAllUserProduct_TotalsFollowCreateAndDelete() throws Exception {
+            mvc.perform(get("/product")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(jsonPath("$.totalItems").value(1));
+
+            PostProduct postProduct = new PostProduct("TV",3,BigDecimal.valueOf(100));
+            mvc.perform(post("/product")
+                            .header("Authorization", "Bearer "+token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(postProduct)))
+                    .andExpect(status().isCreated());
+
+            mvc.perform(get("/product")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(jsonPath("$.totalItems").value(2));
+
+            String adminToken = JwtUtil.generateToken(testUser2.getUsername(),testUser2.getRole());
+            mvc.perform(delete("/product/1")
+                            .header("Authorization", "Bearer "+adminToken))
+                    .andExpect(status().isOk());
+
+            mvc.perform(get("/product")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(jsonPath("$.totalItems").value(1))
+                    .andExpect(jsonPath("$.data[0].name").value("TV"));
+        }
+    }
+
+    @DisplayName("Testing Stock Movements: All Results")
+    @Nested
+    class StockMovementTests {
+        @Test
+        void testGetMovements_PagesNewestFirst() throws Exception {
+            PostProduct postProduct = new PostProduct("TV",3,BigDecimal.valueOf(100));
+            mvc.perform(post("/product")
+                            .header("Authorization", "Bearer "+token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(postProduct)))
+                    .andExpect(status().isCreated());
+            mvc.perform(post("/product/3/stock")
+                            .header("Authorization", "Bearer "+token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"delta\":-2}"))
+                    .andExpect(status().isOk());
+            mvc.perform(patch("/product/3")
+                            .header("Authorization", "Bearer "+token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\":\"TV\",\"quantity\":10,\"price\":100}"))
+                    .andExpect(status().isOk());
+
+            String body = mvc.perform(get("/product/3/movements")
+                            .param("size","2")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.length()").value(2))
+                    .andExpect(jsonPath("$.data[0].reason").value("SET"))
+                    .andExpect(jsonPath("$.data[0].delta").value(9))
+                    .andExpect(jsonPath("$.data[0].quantity").value(10))
+                    .andExpect(jsonPath("$.data[1].reason").value("ADJUSTED"))
+                    .andExpect(jsonPath("$.data[1].delta").value(-2))
+                    .andExpect(jsonPath("$.hasNext").value(true))
+                    .andReturn().getResponse().getContentAsString();
+
+            mvc.perform(get("/product/3/movements")
+                            .param("size","2")
+                            .param("before",mapper.readTree(body).get("nextCursor").asText())
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.length()").value(1))
+                    .andExpect(jsonPath("$.data[0].reason").value("CREATED"))
+                    .andExpect(jsonPath("$.data[0].quantity").value(3))
+                    .andExpect(jsonPath("$.data[0].actorId").value(testUser.getId()))
+                    .andExpect(jsonPath("$.hasNext").value(false));
+        }
+
+        @Test
+        void testGetMovements_FailNotOwner() throws Exception {
+            mvc.perform(get("/product/2/movements")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    @Nested
+    class StockHistoryTests {
+        @Test
+        void testGetHistory_FoldsChangesIntoBuckets() throws Exception {
+            PostProduct postProduct = new PostProduct("TV",3,BigDecimal.valueOf(100));
+            mvc.perform(post("/product")
+                            .header("Authorization", "Bearer "+token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(postProduct)))
+                    .andExpect(status().isCreated());
+            mvc.perform(post("/product/3/stock")
+                            .header("Authorization", "Bearer "+token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"delta\":-2}"))
+                    .andExpect(status().isOk());
+            mvc.perform(patch("/product/3")
+                            .header("Authorization", "Bearer "+token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\":\"TV\",\"quantity\":10,\"price\":100}"))
+                    .andExpect(status().isOk());
+            rollups.flush();
+
+            mvc.perform(get("/product/3/history")
+                            .param("resolution","day")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.productId").value(3))
+                    .andExpect(jsonPath("$.resolution").value("DAY"))
+                    .andExpect(jsonPath("$.opening").doesNotExist())
+                    .andExpect(jsonPath("$.points[-1:].max").value(10))
+                    .andExpect(jsonPath("$.points[-1:].last").value(10));
+        }
+
+        @Test
+        void testGetHistory_FailNotOwner() throws Exception {
+            mvc.perform(get("/product/2/history")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isForbidden());
+        }
+
+        @Test
+        void testGetHistory_FailUnknownResolution() throws Exception {
+            mvc.perform(get("/product/1/history")
+                            .param("resolution","week")
+                            .header("Authorization", "Bearer "+token))
+                    .andExpect(status().isBadRequest());
+        }
+    }
 }
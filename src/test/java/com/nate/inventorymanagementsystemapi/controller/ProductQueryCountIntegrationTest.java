@@ -0,0 +1,287 @@
+package com.nate.inventorymanagementsystemapi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nate.inventorymanagementsystemapi.dto.PostProduct;
+import com.nate.inventorymanagementsystemapi.model.Product;
+import com.nate.inventorymanagementsystemapi.model.Role;
+import com.nate.inventorymanagementsystemapi.model.User;
+import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import com.nate.inventorymanagementsystemapi.repository.UserRepository;
+import com.nate.inventorymanagementsystemapi.util.JwtUtil;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Asserts how many SQL statements a single product request runs, so redundant lookups
+ * do not creep back onto the hot path. The change feed relay and the stock history flush are pushed
+ * out of the way, their statements would be counted too.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "inventory.changes.relay-ms=3600000",
+        "inventory.history.flush-ms=3600000"})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ProductQueryCountIntegrationTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private UserRepository repo;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private PasswordEncoder encoder;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    private Statistics statistics;
+    private String token;
+    private Long productId;
+
+    @BeforeEach
+    void startUp() {
+        User testUser = new User();
+        testUser.setUsername("tester");
+        testUser.setRole(Role.USER);
+        testUser.setPassword(encoder.encode("tester123"));
+        repo.save(testUser);
+
+        Product product = new Product();
+        product.setName("Laptop");
+        product.setQuantity(4);
+        product.setPrice(BigDecimal.valueOf(300));
+        product.setUser(testUser);
+        product.setCreated(Instant.now());
+        productId = repository.save(product).getId();
+
+        token = JwtUtil.generateToken(testUser.getUsername(), testUser.getRole());
+
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private long statementsFor(Runnable request) {
+        statistics.clear();
+        request.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void adjustStock(int delta) {
+        try {
+            mvc.perform(post("/product/" + productId + "/stock")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"delta\":" + delta + "}"))
+                    .andExpect(status().isOk());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    //Pooled sequences fetch a block on their first id and again on their second, the outbox and ledger ones start cold
+    private void warmOutbox() {
+        adjustStock(1);
+        adjustStock(1);
+    }
+
+    private void getProduct() {
+        try {
+            mvc.perform(get("/product/" + productId)
+                            .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("Get Product: one user lookup for a cold cache, then only the product select")
+    void testGetProductStatementCount() {
+        assertEquals(2, statementsFor(this::getProduct), "user lookup + product select");
+        assertEquals(1, statementsFor(this::getProduct), "user is cached, only the product select");
+    }
+
+    @Test
+    @DisplayName("Create Product: the owner is referenced, not reloaded, the change goes to the outbox and the ledger")
+    void testCreateProductStatementCount() throws Exception {
+        getProduct();
+
+        PostProduct postProduct = new PostProduct("TV", 3, BigDecimal.valueOf(100));
+        String body = mapper.writeValueAsString(postProduct);
+        Runnable create = () -> {
+            try {
+                mvc.perform(post("/product")
+                                .header("Authorization", "Bearer " + token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                        .andExpect(status().isCreated());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        };
+
+        //The first ids of a fresh sequence block cost a nextval, after that ids come from memory.
+        //The outbox and ledger sequences start cold, so it takes two writes to get there
+        create.run();
+        create.run();
+        assertEquals(3, statementsFor(create), "product insert + outbox insert + movement insert");
+    }
+
+    private void listProducts(String... params) {
+        try {
+            var request = get("/product")
+                    .param("page", "0")
+                    .param("size", "5")
+                    .header("Authorization", "Bearer " + token);
+            for (int i = 0; i < params.length; i += 2) {
+                request.param(params[i], params[i + 1]);
+            }
+            mvc.perform(request).andExpect(status().isOk());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("List Products: the count is only run to seed the per-user counter")
+    void testListProductsStatementCount() {
+        getProduct();
+
+        assertEquals(2, statementsFor(this::listProducts), "page select + counter seed");
+        assertEquals(1, statementsFor(this::listProducts), "counter is seeded, only the page select");
+    }
+
+    @Test
+    @DisplayName("List and get Products: rows are projected, no entity is loaded")
+    void testListProductsLoadsNoEntities() {
+        getProduct();
+
+        statistics.clear();
+        listProducts();
+        listProducts("slice", "true");
+        listProducts("after", "");
+        getProduct();
+
+        assertEquals(0, statistics.getEntityLoadCount(), "no Product or User entity should be hydrated");
+    }
+
+    @Test
+    @DisplayName("List Products as a slice: never counts")
+    void testSliceProductsStatementCount() {
+        getProduct();
+
+        assertEquals(1, statementsFor(() -> listProducts("slice", "true")), "only the slice select");
+    }
+
+    @Test
+    @DisplayName("Bulk create: inserts are sent in JDBC batches, not one statement per product")
+    void testBulkCreateStatementCount() throws Exception {
+        getProduct();
+
+        List<PostProduct> products = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            products.add(new PostProduct("Item " + i, 1, BigDecimal.TEN));
+        }
+        String body = mapper.writeValueAsString(products);
+
+        long count = statementsFor(() -> {
+            try {
+                mvc.perform(post("/product/bulk")
+                                .header("Authorization", "Bearer " + token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                        .andExpect(status().isOk());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        assertTrue(count <= 14, "a few sequence calls and product, outbox and movement insert batches, was " + count);
+        assertEquals(121, repository.count());
+    }
+
+    @Test
+    @DisplayName("Update Product: the row is read, then the versioned UPDATE, the outbox and movement inserts")
+    void testUpdateProductStatementCount() throws Exception {
+        getProduct();
+        warmOutbox();
+
+        PostProduct postProduct = new PostProduct("Laptop", 11, BigDecimal.valueOf(700));
+        String body = mapper.writeValueAsString(postProduct);
+
+        long count = statementsFor(() -> {
+            try {
+                mvc.perform(patch("/product/" + productId)
+                                .header("Authorization", "Bearer " + token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                        .andExpect(status().isOk());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        assertEquals(4, count, "read + update + outbox insert + movement insert");
+    }
+
+    @Test
+    @DisplayName("Adjust Stock: conditional UPDATE, then the new level is read back and appended to the outbox and the ledger")
+    void testAdjustStockStatementCount() {
+        getProduct();
+        warmOutbox();
+
+        assertEquals(4, statementsFor(() -> adjustStock(-1)), "update + read back + outbox insert + movement insert");
+    }
+
+    @Test
+    @DisplayName("Delete Product: the row is read for the totals, then the versioned DELETE and the outbox insert")
+    void testDeleteProductStatementCount() {
+        getProduct();
+        warmOutbox();
+
+        long count = statementsFor(() -> {
+            try {
+                mvc.perform(delete("/product/" + productId)
+                                .header("Authorization", "Bearer " + token))
+                        .andExpect(status().isOk());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        assertEquals(3, count, "read + delete + outbox insert");
+    }
+}
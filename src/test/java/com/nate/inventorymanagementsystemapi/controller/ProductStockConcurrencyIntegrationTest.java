@@ -0,0 +1,177 @@
+package com.nate.inventorymanagementsystemapi.controller;
+
+import com.nate.inventorymanagementsystemapi.exception.ProductVersionConflictException;
+import com.nate.inventorymanagementsystemapi.model.CurrentUser;
+import com.nate.inventorymanagementsystemapi.model.Product;
+import com.nate.inventorymanagementsystemapi.model.Role;
+import com.nate.inventorymanagementsystemapi.model.User;
+import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import com.nate.inventorymanagementsystemapi.repository.UserRepository;
+import com.nate.inventorymanagementsystemapi.service.OptimisticRetry;
+import com.nate.inventorymanagementsystemapi.service.ProductService;
+import com.nate.inventorymanagementsystemapi.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Fires many stock adjustments and read-modify-write updates at one product at the same time and checks none of
+ * them is lost.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ProductStockConcurrencyIntegrationTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserRepository repo;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private PasswordEncoder encoder;
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private OptimisticRetry retry;
+
+    private String token;
+    private Long productId;
+    private CurrentUser user;
+
+    @BeforeEach
+    void startUp() {
+        User testUser = new User();
+        testUser.setUsername("tester");
+        testUser.setRole(Role.USER);
+        testUser.setPassword(encoder.encode("tester123"));
+        repo.save(testUser);
+
+        Product product = new Product();
+        product.setName("Laptop");
+        product.setQuantity(1000);
+        product.setPrice(BigDecimal.valueOf(300));
+        product.setUser(testUser);
+        product.setCreated(Instant.now());
+        productId = repository.save(product).getId();
+
+        token = JwtUtil.generateToken(testUser.getUsername(), testUser.getRole());
+        user = CurrentUser.from(testUser);
+    }
+
+    private List<Integer> adjustInParallel(List<Integer> deltas) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Integer>> calls = new ArrayList<>();
+            for (int delta : deltas) {
+                calls.add(() -> mvc.perform(post("/product/" + productId + "/stock")
+                                .header("Authorization", "Bearer " + token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"delta\":" + delta + "}"))
+                        .andReturn().getResponse().getStatus());
+            }
+            List<Integer> statuses = new ArrayList<>();
+            for (Future<Integer> result : pool.invokeAll(calls)) {
+                statuses.add(result.get());
+            }
+            return statuses;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel adds and removes all apply: no update is lost")
+    void testParallelAdjustmentsAllApply() throws Exception {
+        List<Integer> deltas = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            deltas.add(3);
+            deltas.add(-1);
+        }
+
+        List<Integer> statuses = adjustInParallel(deltas);
+
+        assertEquals(deltas.size(), statuses.stream().filter(s -> s == 200).count());
+        assertEquals(1000 + 1500 * 3 - 1500, repository.findQuantity(productId).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Parallel removals never oversell: exactly the stock on hand is handed out")
+    void testParallelRemovalsNeverOversell() throws Exception {
+        List<Integer> deltas = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            deltas.add(-1);
+        }
+
+        List<Integer> statuses = adjustInParallel(deltas);
+
+        assertEquals(1000, statuses.stream().filter(s -> s == 200).count());
+        assertEquals(1000, statuses.stream().filter(s -> s == 409).count());
+        assertEquals(0, repository.findQuantity(productId).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Parallel read-modify-write updates with retry: a conflicting write is never applied")
+    void testParallelModifyNeverLosesUpdates() throws Exception {
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger gaveUp = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Void>> calls = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                calls.add(() -> {
+                    try {
+                        retry.run(() -> service.modifyProduct(productId, p -> {
+                            p.setQuantity(p.getQuantity() + 1);
+                            return p;
+                        }, user));
+                        applied.incrementAndGet();
+                    } catch (ProductVersionConflictException e) {
+                        gaveUp.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> result : pool.invokeAll(calls)) {
+                result.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        //Every increment either landed or was reported, none was silently overwritten
+        assertEquals(400, applied.get() + gaveUp.get());
+        assertEquals(1000 + applied.get(), repository.findQuantity(productId).orElseThrow());
+        assertEquals(applied.get(), repository.findVisible(productId, user.id(), false).orElseThrow().getVersion());
+    }
+}
@@ -0,0 +1,178 @@
+package com.nate.inventorymanagementsystemapi.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nate.inventorymanagementsystemapi.dto.ReportRequest;
+import com.nate.inventorymanagementsystemapi.model.Product;
+import com.nate.inventorymanagementsystemapi.model.Role;
+import com.nate.inventorymanagementsystemapi.model.User;
+import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import com.nate.inventorymanagementsystemapi.repository.UserRepository;
+import com.nate.inventorymanagementsystemapi.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ReportControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private UserRepository users;
+
+    @Autowired
+    private ProductRepository products;
+
+    @Autowired
+    private PasswordEncoder encoder;
+
+    private String adminToken;
+    private String userToken;
+
+    @BeforeEach
+    void startUp() {
+        User user = new User();
+        user.setUsername("tester");
+        user.setRole(Role.USER);
+        user.setPassword(encoder.encode("tester123"));
+        User admin = new User();
+        admin.setUsername("tester2");
+        admin.setRole(Role.ADMIN);
+        admin.setPassword(encoder.encode("tester123"));
+        users.save(user);
+        users.save(admin);
+
+        products.save(product(user, "Laptop", 4, 300, Instant.now().minus(Duration.ofDays(200))));
+        products.save(product(user, "Mouse", 10, 20, Instant.now()));
+        products.save(product(admin, "TV", 1, 900, Instant.now()));
+
+        adminToken = JwtUtil.generateToken(admin.getUsername(), admin.getRole());
+        userToken = JwtUtil.generateToken(user.getUsername(), user.getRole());
+    }
+
+    private static Product product(User owner, String name, int quantity, int price, Instant created) {
+        Product product = new Product();
+        product.setUser(owner);
+        product.setName(name);
+        product.setQuantity(quantity);
+        product.setPrice(BigDecimal.valueOf(price));
+        product.setCreated(created);
+        return product;
+    }
+
+    private JsonNode submit(ReportRequest request) throws Exception {
+        String body = mvc.perform(post("/reports")
+                        .header("Authorization", "Bearer "+adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(body);
+    }
+
+    private JsonNode await(JsonNode job) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!job.get("status").asText().equals("DONE")) {
+            assertTrue(System.nanoTime() < deadline, "Report did not finish: " + job);
+            Thread.sleep(20);
+            String body = mvc.perform(get("/reports/" + job.get("id").asText())
+                            .header("Authorization", "Bearer "+adminToken))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            job = mapper.readTree(body);
+        }
+        return job;
+    }
+
+    @Test
+    void testValuation_PerOwnerHighestFirst() throws Exception {
+        JsonNode result = await(submit(new ReportRequest("valuation", null, null))).get("result");
+
+        assertEquals(2, result.size());
+        assertEquals("tester", result.get(0).get("username").asText());
+        assertEquals(1400, result.get(0).get("value").decimalValue().intValue());
+        assertEquals(14, result.get(0).get("units").asInt());
+        assertEquals(900, result.get(1).get("value").decimalValue().intValue());
+    }
+
+    @Test
+    void testTopValueAndStaleStock() throws Exception {
+        JsonNode top = await(submit(new ReportRequest("top-value", 2, null))).get("result");
+        assertEquals(2, top.size());
+        assertEquals("Laptop", top.get(0).get("name").asText());
+        assertEquals("TV", top.get(1).get("name").asText());
+
+        JsonNode stale = await(submit(new ReportRequest("stale-stock", null, 90))).get("result");
+        assertEquals(1, stale.size());
+        assertEquals("Laptop", stale.get(0).get("name").asText());
+    }
+
+    @Test
+    void testSubmit_ReusedUntilAWriteCommits() throws Exception {
+        JsonNode first = await(submit(new ReportRequest("top-value", null, null)));
+        assertEquals(first.get("id"), submit(new ReportRequest("top-value", null, null)).get("id"));
+
+        mvc.perform(post("/product/1/stock")
+                        .header("Authorization", "Bearer "+userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":1}"))
+                .andExpect(status().isOk());
+
+        JsonNode second = submit(new ReportRequest("top-value", null, null));
+        assertTrue(!first.get("id").equals(second.get("id")));
+        assertTrue(second.get("dataVersion").asLong() > first.get("dataVersion").asLong());
+    }
+
+    @Test
+    void testSubmit_FailNotAdmin() throws Exception {
+        mvc.perform(post("/reports")
+                        .header("Authorization", "Bearer "+userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"report\":\"valuation\"}"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testSubmit_FailUnknownReport() throws Exception {
+        mvc.perform(post("/reports")
+                        .header("Authorization", "Bearer "+adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"report\":\"sales\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetReport_FailNotFound() throws Exception {
+        mvc.perform(get("/reports/" + UUID.randomUUID())
+                        .header("Authorization", "Bearer "+adminToken))
+                .andExpect(status().isNotFound());
+    }
+}
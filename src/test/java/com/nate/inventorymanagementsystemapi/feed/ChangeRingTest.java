@@ -0,0 +1,71 @@
+package com.nate.inventorymanagementsystemapi.feed;
+
+import com.nate.inventorymanagementsystemapi.dto.ChangeEvent;
+import com.nate.inventorymanagementsystemapi.model.ProductChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ChangeRingTest {
+
+    private ChangeRing ring;
+
+    @BeforeEach
+    void startUp() {
+        ring = new ChangeRing(4);
+    }
+
+    private static ChangeEvent change(long offset) {
+        return new ChangeEvent(offset, ProductChange.Type.STOCK, offset * 10, 1L, 1, offset, Instant.EPOCH);
+    }
+
+    private List<Long> after(long offset, int limit) {
+        return ring.after(offset, limit).orElseThrow().stream().map(ChangeEvent::offset).toList();
+    }
+
+    @Test
+    @DisplayName("Changes after an offset are returned in order, up to the limit")
+    void testAfter() {
+        for (long offset = 1; offset <= 3; offset++) {
+            ring.append(change(offset));
+        }
+
+        assertEquals(List.of(1L, 2L, 3L), after(0, 10));
+        assertEquals(List.of(2L), after(1, 1));
+        assertEquals(List.of(), after(3, 10));
+        assertThrows(IllegalArgumentException.class, () -> ring.append(change(5)));
+    }
+
+    @Test
+    @DisplayName("Offsets that fell out of the ring, or are ahead of it, cannot be resumed")
+    void testOverwritten() {
+        for (long offset = 1; offset <= 6; offset++) {
+            ring.append(change(offset));
+        }
+
+        assertEquals(List.of(3L, 4L, 5L, 6L), after(2, 10));
+        assertEquals(Optional.empty(), ring.after(1, 10));
+        assertEquals(Optional.empty(), ring.after(7, 10));
+        assertEquals(6, ring.last());
+    }
+
+    @Test
+    @DisplayName("A reset keeps the latest changes that fit and continues after the last offset")
+    void testReset() {
+        ring.reset(List.of(change(7), change(8), change(9), change(10), change(11)), 11);
+
+        assertEquals(List.of(8L, 9L, 10L, 11L), after(7, 10));
+        assertEquals(Optional.empty(), ring.after(6, 10));
+
+        ring.append(change(12));
+        assertEquals(List.of(12L), after(11, 10));
+        assertEquals(Optional.empty(), ring.after(7, 10));
+    }
+}
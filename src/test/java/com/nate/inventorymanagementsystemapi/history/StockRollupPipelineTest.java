@@ -0,0 +1,131 @@
+package com.nate.inventorymanagementsystemapi.history;
+
+import com.nate.inventorymanagementsystemapi.event.ProductChangedEvent;
+import com.nate.inventorymanagementsystemapi.model.StockRollup;
+import com.nate.inventorymanagementsystemapi.repository.StockRollupStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class StockRollupPipelineTest {
+
+    private static final Instant T = Instant.parse("2025-01-01T10:00:00Z");
+
+    @Mock
+    private StockRollupStore store;
+
+    private StockRollupPipeline pipeline;
+
+    @BeforeEach
+    void startUp() {
+        pipeline = new StockRollupPipeline(store, 2, 90, 1825);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<StockRollup.Key, StockRollup> flushed(int times) {
+        ArgumentCaptor<Collection<StockRollup>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(store, times(times)).merge(captor.capture());
+        return captor.getValue().stream().collect(Collectors.toMap(
+                r -> new StockRollup.Key(r.getProductId(), r.getResolution(), r.getBucket()), Function.identity()));
+    }
+
+    private static List<Integer> levels(StockRollup rollup) {
+        return List.of(rollup.getMinQuantity(), rollup.getMaxQuantity(), rollup.getLastQuantity());
+    }
+
+    @Test
+    @DisplayName("Changes are folded into min, max and last per bucket of every resolution")
+    void testRollup() {
+        pipeline.record(1L, 10, 1, T.plusSeconds(5));
+        pipeline.record(1L, 4, 2, T.plusSeconds(20));
+        pipeline.record(1L, 7, 3, T.plusSeconds(50));
+        pipeline.record(1L, 12, 4, T.plusSeconds(65));
+
+        pipeline.flush();
+        Map<StockRollup.Key, StockRollup> rollups = flushed(1);
+
+        assertEquals(4, rollups.size());
+        assertEquals(List.of(4, 10, 7), levels(rollups.get(new StockRollup.Key(1L, StockRollup.Resolution.MINUTE, T))));
+        assertEquals(List.of(12, 12, 12), levels(rollups.get(new StockRollup.Key(1L, StockRollup.Resolution.MINUTE, T.plusSeconds(60)))));
+        assertEquals(List.of(4, 12, 12), levels(rollups.get(new StockRollup.Key(1L, StockRollup.Resolution.HOUR, T))));
+        StockRollup day = rollups.get(new StockRollup.Key(1L, StockRollup.Resolution.DAY, Instant.parse("2025-01-01T00:00:00Z")));
+        assertEquals(List.of(4, 12, 12), levels(day));
+        assertEquals(4L, day.getLastVersion());
+
+        //Nothing pending any more
+        pipeline.flush();
+        verify(store, times(1)).merge(any());
+    }
+
+    @Test
+    @DisplayName("A change that arrives late does not replace the last level of a newer version")
+    void testOutOfOrder() {
+        pipeline.record(1L, 5, 3, T);
+        pipeline.record(1L, 9, 2, T.plusSeconds(1));
+
+        pipeline.flush();
+
+        assertEquals(List.of(5, 9, 5), levels(flushed(1).get(new StockRollup.Key(1L, StockRollup.Resolution.MINUTE, T))));
+    }
+
+    @Test
+    @DisplayName("A failed flush is merged back under the changes recorded since and retried")
+    void testFailedFlushRetried() {
+        pipeline.record(1L, 5, 1, T);
+        doThrow(new QueryTimeoutException("down")).when(store).merge(any());
+        pipeline.flush();
+
+        pipeline.record(1L, 8, 2, T.plusSeconds(1));
+        reset(store);
+        pipeline.flush();
+
+        assertEquals(List.of(5, 8, 8), levels(flushed(1).get(new StockRollup.Key(1L, StockRollup.Resolution.MINUTE, T))));
+    }
+
+    @Test
+    @DisplayName("Deleting a product drops its pending and stored buckets")
+    void testDelete() {
+        pipeline.record(1L, 5, 1, T);
+        pipeline.record(2L, 3, 1, T);
+
+        pipeline.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 1L, 1L, null));
+        pipeline.flush();
+
+        verify(store).deleteProducts(List.of(1L));
+        assertEquals(3, flushed(1).size());
+
+        pipeline.flush();
+        verify(store, times(1)).deleteProducts(any());
+    }
+
+    @Test
+    @DisplayName("Every resolution is purged at its own retention")
+    void testPurge() {
+        pipeline.purge();
+
+        verify(store).purgeBefore(eq(StockRollup.Resolution.MINUTE), any());
+        verify(store).purgeBefore(eq(StockRollup.Resolution.HOUR), any());
+        verify(store).purgeBefore(eq(StockRollup.Resolution.DAY), any());
+    }
+}
@@ -0,0 +1,98 @@
+package com.nate.inventorymanagementsystemapi.importer;
+
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ProductRowReaderTest {
+
+    private static ProductRowReader reader(String text, ImportFormat format) throws IOException {
+        return new ProductRowReader(new BufferedReader(new StringReader(text)), format);
+    }
+
+    @Test
+    @DisplayName("CSV columns are found by header name, quoted fields may hold commas and quotes")
+    void testCsv_HeaderAndQuotes() throws IOException {
+        ProductRowReader rows = reader("\uFEFFprice,Name,sku,quantity\n12.50,\"Desk, \"\"oak\"\"\",D1,3\n\n5,Lamp,L1,1\n", ImportFormat.CSV);
+
+        ImportRow first = rows.next();
+        assertEquals(2, first.line());
+        assertEquals("Desk, \"oak\"", first.product().getName());
+        assertEquals(3, first.product().getQuantity());
+        assertEquals(new BigDecimal("12.50"), first.product().getPrice());
+
+        //Blank lines are skipped but still counted
+        assertEquals(4, rows.next().line());
+        assertNull(rows.next());
+    }
+
+    @Test
+    @DisplayName("Unparseable CSV rows are returned with an error instead of failing the import")
+    void testCsv_RowErrors() throws IOException {
+        ProductRowReader rows = reader("name,quantity,price\nA,x,1\nB,1\nC,1,\"2\n", ImportFormat.CSV);
+
+        assertEquals("quantity: not a whole number", rows.next().error());
+        assertEquals("Expected at least 3 columns, found 2", rows.next().error());
+        assertEquals("Unterminated quoted field", rows.next().error());
+        assertNull(rows.next());
+    }
+
+    @Test
+    @DisplayName("A CSV without the required header columns is refused")
+    void testCsv_BadHeader() {
+        assertThrows(InvalidRequestException.class, () -> reader("name,price\n", ImportFormat.CSV));
+        assertThrows(InvalidRequestException.class, () -> reader("", ImportFormat.CSV));
+    }
+
+    @Test
+    @DisplayName("NDJSON is read one object per line")
+    void testNdjson() throws IOException {
+        ProductRowReader rows = reader("{\"name\":\"Lamp\",\"quantity\":2,\"price\":5}\n[1,2]\n", ImportFormat.NDJSON);
+
+        ImportRow first = rows.next();
+        assertEquals("Lamp", first.product().getName());
+        assertNull(first.error());
+
+        ImportRow second = rows.next();
+        assertEquals(2, second.line());
+        assertNull(second.product());
+        assertNull(rows.next());
+    }
+
+    @Test
+    @DisplayName("A line over the length limit is rejected and skipped, the next line is still read")
+    void testLineTooLong() throws IOException {
+        String longName = "x".repeat(ProductRowReader.MAX_LINE_LENGTH);
+        ProductRowReader rows = reader("name,quantity,price\r\n" + longName + ",1,2\r\nLamp,1,5\r\n", ImportFormat.CSV);
+
+        ImportRow first = rows.next();
+        assertEquals(2, first.line());
+        assertNull(first.product());
+        assertEquals("Line is longer than " + ProductRowReader.MAX_LINE_LENGTH + " characters", first.error());
+
+        ImportRow second = rows.next();
+        assertEquals(3, second.line());
+        assertEquals("Lamp", second.product().getName());
+        assertNull(rows.next());
+
+        InvalidRequestException e = assertThrows(InvalidRequestException.class, () -> reader("name,quantity,price," + longName + "\n", ImportFormat.CSV));
+        assertEquals("CSV header is longer than " + ProductRowReader.MAX_LINE_LENGTH + " characters", e.getMessage());
+    }
+
+    @Test
+    @DisplayName("The format comes from the content type, then the file extension")
+    void testDetect() {
+        assertEquals(ImportFormat.CSV, ImportFormat.detect("text/csv; charset=UTF-8", null));
+        assertEquals(ImportFormat.NDJSON, ImportFormat.detect("application/octet-stream", "Products.NDJSON"));
+        assertThrows(InvalidRequestException.class, () -> ImportFormat.detect(null, "products.xlsx"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.nate.inventorymanagementsystemapi.report;
+
+import com.nate.inventorymanagementsystemapi.event.InventoryChangedEvent;
+import com.nate.inventorymanagementsystemapi.exception.ReportQueueFullException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportJobsTest {
+
+    private static final ReportParams TOP = new ReportParams(ReportType.TOP_VALUE, 10, null);
+
+    private ReportJobs jobs;
+
+    @BeforeEach
+    void startUp() {
+        jobs = new ReportJobs(1, 1, 100, 300, 3600);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobs.shutdown();
+    }
+
+    private static ReportJob await(ReportJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (job.getStatus() == ReportStatus.QUEUED || job.getStatus() == ReportStatus.RUNNING) {
+            assertTrue(System.nanoTime() < deadline, "Report did not finish");
+            Thread.sleep(5);
+        }
+        return job;
+    }
+
+    @Test
+    @DisplayName("Equal reports on unchanged data share one job, a committed write starts a new one")
+    void testResultReusedUntilDataChanges() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+
+        ReportJob first = await(jobs.submit(TOP, () -> List.of(runs.incrementAndGet())));
+        ReportJob again = jobs.submit(TOP, () -> List.of(runs.incrementAndGet()));
+
+        assertSame(first, again);
+        assertEquals(ReportStatus.DONE, first.getStatus());
+        assertEquals(List.of(1), first.getResult());
+        assertSame(first, jobs.get(first.getId()));
+
+        jobs.onInventoryChanged(new InventoryChangedEvent(1L, 0, 1, BigDecimal.ONE));
+        ReportJob fresh = await(jobs.submit(TOP, () -> List.of(runs.incrementAndGet())));
+
+        assertNotSame(first, fresh);
+        assertEquals(first.getDataVersion() + 1, fresh.getDataVersion());
+        assertEquals(List.of(2), fresh.getResult());
+        assertNotSame(first, jobs.submit(new ReportParams(ReportType.TOP_VALUE, 20, null), () -> List.of()));
+    }
+
+    @Test
+    @DisplayName("A failed report is kept for polling but not reused")
+    void testFailedNotReused() throws Exception {
+        ReportJob failed = await(jobs.submit(TOP, () -> { throw new IllegalStateException("boom"); }));
+
+        assertEquals(ReportStatus.FAILED, failed.getStatus());
+        assertEquals("boom", failed.getError());
+        assertSame(failed, jobs.get(failed.getId()));
+        assertNotSame(failed, await(jobs.submit(TOP, List::of)));
+    }
+
+    @Test
+    @DisplayName("Reports past the queue are turned away instead of piling up")
+    void testQueueBounded() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ReportJob busy = jobs.submit(TOP, () -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of();
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        ReportJob queued = jobs.submit(new ReportParams(ReportType.VALUATION, 10, null), List::of);
+
+        ReportParams rejected = new ReportParams(ReportType.STALE_STOCK, 10, 90);
+        assertThrows(ReportQueueFullException.class, () -> jobs.submit(rejected, List::of));
+
+        release.countDown();
+        assertEquals(ReportStatus.DONE, await(busy).getStatus());
+        assertEquals(ReportStatus.DONE, await(queued).getStatus());
+        assertEquals(ReportStatus.DONE, await(jobs.submit(rejected, List::of)).getStatus());
+    }
+}
@@ -0,0 +1,251 @@
+package com.nate.inventorymanagementsystemapi.repository;
+
+import com.nate.inventorymanagementsystemapi.dto.ProductFilter;
+import com.nate.inventorymanagementsystemapi.model.StockRollup;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs every repository query, asks H2 to {@code EXPLAIN} the SQL Hibernate generated for it and fails if
+ * the plan reads the whole table or a whole index. Queries that have to read every row by design are listed in {@link #scansByDesign}.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.nate.inventorymanagementsystemapi.repository.ProductRepositoryQueryPlanTest$CapturingInspector",
+        //Keeps the change feed relay and the history flush from adding their statements to the captured ones
+        "inventory.changes.relay-ms=3600000",
+        "inventory.history.flush-ms=3600000"})
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class ProductRepositoryQueryPlanTest {
+
+    //H2 prints the access path as /* table.tableScan */ or /* index */ for a full read, and /* index: condition */ for a lookup
+    private static final Pattern FULL_SCAN = Pattern.compile("/\\* public\\.[^:*]+ \\*/");
+
+    //Records the SQL Hibernate sends, so the real statements are explained rather than hand written copies
+    public static class CapturingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private ProductRepository repo;
+
+    @Autowired
+    private UserRepository users;
+
+    @Autowired
+    private ProductOutbox outbox;
+
+    @Autowired
+    private StockMovementRepository movements;
+
+    @Autowired
+    private StockRollupStore rollups;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private TransactionTemplate tx;
+
+    private final PageRequest page = PageRequest.of(1, 5, Sort.by("name"));
+
+    private static final ProductFilter RANGES = new ProductFilter(BigDecimal.ONE, BigDecimal.TEN, 1, 10,
+            Instant.parse("2025-01-01T00:00:00Z"), Instant.parse("2026-01-01T00:00:00Z"));
+
+    @Test
+    @DisplayName("User scoped listings and searches use an index")
+    void testListingPlans() {
+        assertIndexed(() -> repo.findSliceByUserId(1L, page));
+        assertIndexed(() -> repo.searchProductByUserAndName(1L, "lap", page));
+        assertIndexed(() -> repo.searchSliceByUserAndName(1L, "lap", page));
+        assertIndexed(() -> repo.findByIdIn(List.of(1L, 2L), page));
+        assertIndexed(() -> repo.countByUserId(1L));
+        assertIndexed(() -> repo.summarizeByUserId(1L));
+        assertIndexed(() -> repo.suggestNamesByUser(1L, "la", PageRequest.of(0, 5)));
+        assertIndexed(() -> tx.executeWithoutResult(s -> repo.streamByUserId(1L).forEach(p -> { })));
+    }
+
+    @Test
+    @DisplayName("Cursor pages use an index for every sort field")
+    void testCursorPlans() {
+        for (ProductSortField field : ProductSortField.values()) {
+            Comparable<?> key = switch (field) {
+                case NAME -> "Laptop";
+                case QUANTITY -> 1;
+                case PRICE -> BigDecimal.ONE;
+                case CREATED -> Instant.now();
+                case ID -> 1L;
+            };
+            assertIndexed(() -> repo.findPageAfter(1L, null, ProductFilter.NONE, field, false, key, 1L, 6));
+            assertIndexed(() -> repo.findPageAfter(1L, "lap", ProductFilter.NONE, field, true, null, null, 6));
+            assertIndexed(() -> repo.findPageAfter(1L, null, RANGES, field, false, key, 1L, 6));
+        }
+    }
+
+    @Test
+    @DisplayName("Range filtered listings seek on the index of the filtered column for every sort field")
+    void testFilteredPlans() {
+        ProductFilter price = new ProductFilter(BigDecimal.ONE, BigDecimal.TEN, null, null, null, null);
+        ProductFilter quantity = new ProductFilter(null, null, 1, 10, null, null);
+        ProductFilter created = new ProductFilter(null, null, null, null, RANGES.createdFrom(), RANGES.createdTo());
+        for (ProductSortField field : ProductSortField.values()) {
+            PageRequest sorted = PageRequest.of(1, 5, Sort.by(Sort.Direction.DESC, field.getAttribute()));
+            assertUses("ix_product_user_price", () -> repo.findFiltered(1L, null, price, sorted, 6));
+            assertUses("ix_product_user_quantity", () -> repo.findFiltered(1L, null, quantity, sorted, 6));
+            assertUses("ix_product_user_created", () -> repo.findFiltered(1L, null, created, sorted, 6));
+            assertIndexed(() -> repo.findFiltered(1L, null, RANGES, sorted, 6));
+            assertUses("ix_product_user_price", () -> repo.findFiltered(1L, "lap", price, sorted, 6));
+        }
+        assertUses("ix_product_user_price", () -> repo.countFiltered(1L, null, price));
+        assertUses("ix_product_user_quantity", () -> repo.countFiltered(1L, null, quantity));
+        assertUses("ix_product_user_created", () -> repo.countFiltered(1L, null, created));
+        assertIndexed(() -> repo.countFiltered(1L, null, RANGES));
+        assertUses("ix_product_user_quantity", () -> repo.countFiltered(1L, "lap", quantity));
+    }
+
+    @Test
+    @DisplayName("Single product operations use the primary key")
+    void testSingleRowPlans() {
+        assertIndexed(() -> repo.findVisible(1L, 1L, false));
+        assertIndexed(() -> repo.findOwnerId(1L));
+        assertIndexed(() -> repo.existsById(1L));
+        assertIndexed(() -> tx.executeWithoutResult(s -> repo.updateOwnedIfVersion(1L, "TV", 1, BigDecimal.ONE, 1L, false, 0L)));
+        assertIndexed(() -> tx.executeWithoutResult(s -> repo.adjustStockOwned(1L, -1, 0L, 1L, false)));
+        assertIndexed(() -> repo.findQuantity(1L));
+        assertIndexed(() -> tx.executeWithoutResult(s -> repo.addStock(1L, 1)));
+        assertIndexed(() -> tx.executeWithoutResult(s -> repo.setReorderThresholdIfVersion(1L, 5, 1L, false, 0L)));
+        assertIndexed(() -> tx.executeWithoutResult(s -> repo.deleteOwnedIfVersion(1L, 1L, false, 0L)));
+        assertIndexed(() -> users.findByUsername("tester"));
+    }
+
+    @Test
+    @DisplayName("The change outbox is read and purged through the relay offset index")
+    void testOutboxPlans() {
+        assertIndexed(() -> outbox.relay(0, 500));
+        assertIndexed(() -> outbox.purgeUpTo(1));
+    }
+
+    @Test
+    @DisplayName("Stock movement pages seek on the product index")
+    void testMovementPlans() {
+        assertIndexed(() -> movements.findLatest(1L, PageRequest.of(0, 51)));
+        assertIndexed(() -> movements.findBefore(1L, 100L, PageRequest.of(0, 51)));
+    }
+
+    @Test
+    @DisplayName("Stock history reads and merges seek on the rollup keys")
+    void testRollupPlans() {
+        Instant now = Instant.now();
+        StockRollup.Resolution minute = StockRollup.Resolution.MINUTE;
+        assertIndexed(() -> rollups.find(1L, minute, now.minusSeconds(3600), now));
+        assertIndexed(() -> rollups.lastBefore(1L, minute, now));
+        assertIndexed(() -> rollups.merge(List.of(new StockRollup(1L, minute, minute.bucketOf(now), 1, 4, 2, 3L))));
+        //The batched update is sent straight over JDBC, so the inspector does not see it
+        assertFalse(FULL_SCAN.matcher(explain(StockRollupStore.MERGE_UPDATE)).find());
+        assertIndexed(() -> tx.executeWithoutResult(s -> rollups.purgeBefore(minute, now)));
+        assertIndexed(() -> rollups.deleteProducts(List.of(1L, 2L)));
+    }
+
+    @Test
+    @DisplayName("The stale stock report walks the created index")
+    void testReportPlans() {
+        assertIndexed(() -> repo.findStale(Instant.now(), PageRequest.of(0, 50)));
+    }
+
+    @Test
+    @DisplayName("Queries that read every row are the known ones")
+    void scansByDesign() {
+        //Admin substring search across every product, served by the trigram index instead
+        assertScans(() -> repo.findByNameContainingIgnoreCase("lap", page));
+        assertScans(() -> repo.findSliceByNameContainingIgnoreCase("lap", page));
+        //Global prefix search: PostgreSQL has a lower(name) index for it, H2 cannot index expressions
+        assertScans(() -> repo.suggestNames("la", PageRequest.of(0, 5)));
+        //Load and reconcile the in-memory indexes and counters
+        assertScans(() -> repo.findAllNames());
+        assertScans(() -> repo.findWatched());
+        assertScans(() -> repo.countPerUser());
+        assertScans(() -> repo.summarizeAll());
+        assertScans(() -> repo.summarizePerUser());
+        //Refills the change feed on startup, walks the relay offset index from the newest row
+        assertScans(() -> outbox.latest(10000));
+        //Admin reports, run in the background on a pool of their own
+        assertScans(() -> repo.valuationByOwner(PageRequest.of(0, 50)));
+        assertScans(() -> repo.findTopByValue(PageRequest.of(0, 50)));
+        //Admin export of every product, read in primary key order
+        assertScans(() -> tx.executeWithoutResult(s -> repo.streamAll().forEach(p -> { })));
+    }
+
+    private void assertIndexed(Runnable query) {
+        for (String plan : plansOf(query)) {
+            assertFalse(FULL_SCAN.matcher(plan).find(), "Query plan regressed to a full scan:\n" + plan);
+        }
+    }
+
+    //The range is a seek on the index only when the plan names it with a condition
+    private void assertUses(String index, Runnable query) {
+        for (String plan : plansOf(query)) {
+            assertTrue(plan.contains("/* public." + index + ":"), "Expected a seek on " + index + ":\n" + plan);
+        }
+    }
+
+    private void assertScans(Runnable query) {
+        assertTrue(plansOf(query).stream().anyMatch(plan -> FULL_SCAN.matcher(plan).find()),
+                "Expected a full scan, move the query to the indexed tests");
+    }
+
+    private List<String> plansOf(Runnable query) {
+        CapturingInspector.STATEMENTS.clear();
+        query.run();
+        List<String> plans = new ArrayList<>();
+        for (String sql : CapturingInspector.STATEMENTS) {
+            plans.add(explain(sql));
+        }
+        assertFalse(plans.isEmpty(), "Query did not reach the database");
+        return plans;
+    }
+
+    //The plan does not depend on the values, so every parameter is bound to 1
+    private String explain(String sql) {
+        return jdbc.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = ps.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    ps.setObject(i, 1);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return rs.getString(1);
+                }
+            }
+        });
+    }
+}
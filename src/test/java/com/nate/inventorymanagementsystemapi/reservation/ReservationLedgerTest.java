@@ -0,0 +1,175 @@
+package com.nate.inventorymanagementsystemapi.reservation;
+
+import com.nate.inventorymanagementsystemapi.event.ProductChangedEvent;
+import com.nate.inventorymanagementsystemapi.exception.InsufficientStockException;
+import com.nate.inventorymanagementsystemapi.exception.ReservationNotFoundException;
+import com.nate.inventorymanagementsystemapi.model.CurrentUser;
+import com.nate.inventorymanagementsystemapi.model.Role;
+import com.nate.inventorymanagementsystemapi.model.StockReservation;
+import com.nate.inventorymanagementsystemapi.repository.ReservationSnapshotStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReservationLedgerTest {
+
+    private static final CurrentUser OWNER = new CurrentUser(1L, "owner", Role.USER);
+    private static final CurrentUser OTHER = new CurrentUser(2L, "other", Role.USER);
+    private static final CurrentUser ADMIN = new CurrentUser(3L, "admin", Role.ADMIN);
+
+    private ReservationSnapshotStore store;
+    private ReservationLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        store = mock(ReservationSnapshotStore.class);
+        ledger = new ReservationLedger(store, 100);
+    }
+
+    private static Instant in(long seconds) {
+        return Instant.now().plusSeconds(seconds);
+    }
+
+    @Test
+    @DisplayName("Holds never add up to more than the stock, releasing gives the units back")
+    void testReserveWithinStock() {
+        Hold first = ledger.reserve(7L, 10, 6, in(60), OWNER);
+        assertThrows(InsufficientStockException.class, () -> ledger.reserve(7L, 10, 5, in(60), OWNER));
+        ledger.reserve(7L, 10, 4, in(60), OWNER);
+        assertEquals(10, ledger.held(7L));
+
+        ledger.release(7L, first.getId(), OWNER);
+        assertEquals(4, ledger.held(7L));
+        assertEquals(ReservationStatus.RELEASED, first.getStatus());
+        assertThrows(ReservationNotFoundException.class, () -> ledger.release(7L, first.getId(), OWNER));
+    }
+
+    @Test
+    @DisplayName("Only the user who reserved or Admin can settle, and only on the same product")
+    void testSettleChecks() {
+        Hold hold = ledger.reserve(7L, 10, 1, in(60), OWNER);
+
+        assertThrows(AccessDeniedException.class, () -> ledger.release(7L, hold.getId(), OTHER));
+        assertThrows(ReservationNotFoundException.class, () -> ledger.release(8L, hold.getId(), OWNER));
+        assertThrows(ReservationNotFoundException.class, () -> ledger.release(7L, UUID.randomUUID(), OWNER));
+        ledger.release(7L, hold.getId(), ADMIN);
+    }
+
+    @Test
+    @DisplayName("A confirm keeps the units held until it finishes, a failed one can be retried")
+    void testConfirm() {
+        Hold hold = ledger.reserve(7L, 10, 3, in(60), OWNER);
+
+        ledger.beginConfirm(7L, hold.getId(), OWNER);
+        assertThrows(ReservationNotFoundException.class, () -> ledger.release(7L, hold.getId(), OWNER));
+        assertEquals(3, ledger.held(7L));
+
+        ledger.reinstate(hold);
+        assertEquals(ReservationStatus.ACTIVE, hold.getStatus());
+
+        ledger.beginConfirm(7L, hold.getId(), OWNER);
+        ledger.confirmed(hold);
+        assertEquals(ReservationStatus.CONFIRMED, hold.getStatus());
+        assertEquals(0, ledger.held(7L));
+    }
+
+    @Test
+    @DisplayName("Holds expire on the wheel, one being confirmed is kept until it is settled")
+    void testExpiry() {
+        Hold expiring = ledger.reserve(7L, 10, 2, in(1), OWNER);
+        Hold confirming = ledger.reserve(7L, 10, 3, in(1), OWNER);
+        Hold lasting = ledger.reserve(7L, 10, 4, in(3600), OWNER);
+        ledger.beginConfirm(7L, confirming.getId(), OWNER);
+
+        long later = System.currentTimeMillis() + 5_000;
+        assertEquals(1, ledger.expire(later));
+        assertEquals(ReservationStatus.EXPIRED, expiring.getStatus());
+        assertEquals(7, ledger.held(7L));
+
+        //The failed confirm puts it back and the next tick expires it
+        ledger.reinstate(confirming);
+        assertEquals(1, ledger.expire(later + 200));
+        assertEquals(ReservationStatus.EXPIRED, confirming.getStatus());
+        assertEquals(ReservationStatus.ACTIVE, lasting.getStatus());
+        assertEquals(4, ledger.held(7L));
+    }
+
+    @Test
+    @DisplayName("Deleting a product drops its holds")
+    void testProductDeleted() {
+        Hold hold = ledger.reserve(7L, 10, 2, in(60), OWNER);
+        ledger.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 7L, 1L, null));
+
+        assertEquals(0, ledger.held(7L));
+        assertThrows(ReservationNotFoundException.class, () -> ledger.beginConfirm(7L, hold.getId(), OWNER));
+    }
+
+    @Test
+    @DisplayName("Snapshots are only written after a change, and restore skips expired holds")
+    @SuppressWarnings("unchecked")
+    void testSnapshotAndRestore() {
+        ledger.snapshot();
+        verify(store, never()).replace(any());
+
+        Hold hold = ledger.reserve(7L, 10, 2, in(60), OWNER);
+        ledger.snapshot();
+        ledger.snapshot();
+        ArgumentCaptor<List<StockReservation>> rows = ArgumentCaptor.forClass(List.class);
+        verify(store, times(1)).replace(rows.capture());
+        assertEquals(hold.getId(), rows.getValue().get(0).getId());
+
+        when(store.load()).thenReturn(List.of(
+                new StockReservation(UUID.randomUUID(), 8L, 1L, 5, in(60)),
+                new StockReservation(UUID.randomUUID(), 8L, 1L, 3, Instant.now().minusSeconds(1))));
+        ReservationLedger restored = new ReservationLedger(store, 100);
+        restored.restore();
+        assertEquals(5, restored.held(8L));
+    }
+
+    @Test
+    @DisplayName("Parallel reservations hand out exactly the stock")
+    void testParallelReservations() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Callable<Boolean>> calls = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                calls.add(() -> {
+                    try {
+                        ledger.reserve(7L, 1000, 1, in(60), OWNER);
+                        return true;
+                    } catch (InsufficientStockException e) {
+                        return false;
+                    }
+                });
+            }
+            int reserved = 0;
+            for (Future<Boolean> result : pool.invokeAll(calls)) {
+                reserved += result.get() ? 1 : 0;
+            }
+            assertEquals(1000, reserved);
+            assertEquals(1000, ledger.held(7L));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.nate.inventorymanagementsystemapi.reservation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimingWheelTest {
+
+    @Test
+    @DisplayName("Entries expire once their deadline has passed, never before")
+    void testExpiresAtDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 0);
+        wheel.schedule("a", 25);
+        wheel.schedule("b", 40);
+
+        List<String> expired = new ArrayList<>();
+        wheel.advance(20, expired::add);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(30, expired::add);
+        assertEquals(List.of("a"), expired);
+
+        wheel.advance(45, expired::add);
+        assertEquals(List.of("a", "b"), expired);
+    }
+
+    @Test
+    @DisplayName("Deadlines more than one turn away wait for their turn")
+    void testDeadlinesBeyondOneTurn() {
+        //8 slots of 10 ms: 15 and 95 share a slot
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 0);
+        wheel.schedule("near", 15);
+        wheel.schedule("far", 95);
+
+        List<String> expired = new ArrayList<>();
+        wheel.advance(50, expired::add);
+        assertEquals(List.of("near"), expired);
+
+        wheel.advance(90, expired::add);
+        assertEquals(List.of("near"), expired);
+
+        wheel.advance(100, expired::add);
+        assertEquals(List.of("near", "far"), expired);
+    }
+
+    @Test
+    @DisplayName("A long pause expires everything due in one sweep, past deadlines expire on the next tick")
+    void testLongPauseAndPastDeadlines() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 8, 0);
+        for (int i = 1; i <= 100; i++) {
+            wheel.schedule(i, i * 10L);
+        }
+
+        List<Integer> expired = new ArrayList<>();
+        assertEquals(50, wheel.advance(500, expired::add));
+        assertEquals(50, expired.size());
+
+        wheel.schedule(0, 0);
+        assertEquals(2, wheel.advance(510, expired::add));
+        assertTrue(expired.contains(0));
+        assertTrue(expired.contains(51));
+    }
+}
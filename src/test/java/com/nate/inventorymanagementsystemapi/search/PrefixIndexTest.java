@@ -0,0 +1,51 @@
+package com.nate.inventorymanagementsystemapi.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PrefixIndexTest {
+
+    private PrefixIndex index;
+
+    @BeforeEach
+    void startUp() {
+        index = new PrefixIndex();
+        index.put(1L, 10L, "Laptop");
+        index.put(2L, 10L, "Lamp");
+        index.put(3L, 20L, "laptop");
+        index.put(4L, 20L, "Mouse");
+        index.put(5L, 20L, "Lathe");
+    }
+
+    @Test
+    @DisplayName("Suggestions are distinct, case insensitive and alphabetical")
+    void testSuggest_Global() {
+        assertEquals(List.of("Lamp", "Laptop", "Lathe"), index.suggest("LA", null, 10));
+        assertEquals(List.of("Lamp", "Laptop"), index.suggest("la", null, 2));
+        assertEquals(List.of(), index.suggest("x", null, 10));
+    }
+
+    @Test
+    @DisplayName("Suggestions can be scoped to one owner")
+    void testSuggest_Owner() {
+        assertEquals(List.of("laptop", "Lathe"), index.suggest("la", 20L, 10));
+        assertEquals(List.of("Lamp", "Laptop"), index.suggest("", 10L, 10));
+    }
+
+    @Test
+    @DisplayName("A shared name stays until its last product is removed")
+    void testRemoveAndRename() {
+        index.remove(1L);
+        assertEquals(List.of("Lamp", "Laptop", "Lathe"), index.suggest("la", null, 10));
+
+        index.put(3L, 20L, "Monitor");
+        assertEquals(List.of("Lamp", "Lathe"), index.suggest("la", null, 10));
+        assertEquals(List.of("Monitor", "Mouse"), index.suggest("mo", 20L, 10));
+        assertEquals(4, index.size());
+    }
+}
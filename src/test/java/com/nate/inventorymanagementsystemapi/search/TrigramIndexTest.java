@@ -0,0 +1,77 @@
+package com.nate.inventorymanagementsystemapi.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    void startUp() {
+        index = new TrigramIndex();
+        index.put(1L, 10L, "Gaming Laptop");
+        index.put(2L, 10L, "Laptop Stand");
+        index.put(3L, 20L, "laptop bag");
+        index.put(4L, 20L, "Mouse");
+    }
+
+    @Test
+    @DisplayName("Search is a case insensitive substring match")
+    void testSearch_Substring() {
+        assertEquals(List.of(1L, 2L, 3L), index.search("LAPTOP", null, 100));
+        assertEquals(List.of(2L), index.search("top st", null, 100));
+        assertEquals(List.of(), index.search("keyboard", null, 100));
+    }
+
+    @Test
+    @DisplayName("Trigrams matching out of order are not returned")
+    void testSearch_VerifiesCandidates() {
+        index.put(5L, 10L, "abcxbcd");
+
+        assertEquals(List.of(), index.search("abcd", null, 100));
+    }
+
+    @Test
+    @DisplayName("Search can be scoped to one owner")
+    void testSearch_Owner() {
+        assertEquals(List.of(3L), index.search("laptop", 20L, 100));
+    }
+
+    @Test
+    @DisplayName("Terms shorter than a trigram and too many matches are left to the caller")
+    void testSearch_CannotAnswer() {
+        assertNull(index.search("la", null, 100));
+        assertNull(index.search("laptop", null, 2));
+    }
+
+    @Test
+    @DisplayName("Updated and removed names are no longer found")
+    void testPutAndRemove() {
+        index.put(1L, 10L, "Gaming Mouse");
+        index.remove(2L);
+
+        assertEquals(List.of(3L), index.search("laptop", null, 100));
+        assertEquals(List.of(4L, 1L), index.search("mouse", null, 100));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    @DisplayName("Compaction keeps every live document searchable")
+    void testCompaction() {
+        for (long round = 0; round < 3; round++) {
+            for (long id = 100; id < 1600; id++) {
+                index.put(id, 30L, "item " + round + " " + id);
+            }
+        }
+
+        assertEquals(1504, index.size());
+        assertEquals(List.of(1599L), index.search("2 1599", null, 100));
+        assertEquals(List.of(3L), index.search("laptop bag", null, 100));
+    }
+}
@@ -0,0 +1,112 @@
+package com.nate.inventorymanagementsystemapi.search;
+
+import com.nate.inventorymanagementsystemapi.model.Role;
+import com.nate.inventorymanagementsystemapi.model.User;
+import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import com.nate.inventorymanagementsystemapi.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the trigram index with the SQL {@code LIKE '%x%'} search on a million generated products.
+ * Run with {@code mvn test -Dtest=TrigramSearchBenchmarkTest -Dbenchmark=true}.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class TrigramSearchBenchmarkTest {
+
+    private static final int ROWS = 1_000_000;
+    private static final int ROUNDS = 20;
+    private static final String[] WORDS = {"laptop", "mouse", "keyboard", "monitor", "cable", "charger", "stand",
+            "camera", "speaker", "headset", "router", "printer", "tablet", "phone", "drive", "dock"};
+    private static final List<String> TERMS = List.of("keyboard dock", "aptop 4", "monitor", "rinter stand");
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private UserRepository users;
+
+    @Autowired
+    private ProductRepository repo;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Test
+    @DisplayName("Benchmark: trigram index vs LIKE on 1M products")
+    void benchmark() {
+        User owner = new User();
+        owner.setUsername("bench");
+        owner.setPassword("bench");
+        owner.setRole(Role.ADMIN);
+        Long ownerId = users.save(owner).getId();
+
+        long start = System.currentTimeMillis();
+        Random random = new Random(42);
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(1000);
+            batch.add(new Object[]{i + 1L, name, 1 + random.nextInt(100), 10 + random.nextInt(1000), ownerId, now});
+            if (batch.size() == 10_000) {
+                insert(batch);
+            }
+        }
+        insert(batch);
+        System.out.printf("Inserted %d products in %d ms%n", ROWS, System.currentTimeMillis() - start);
+
+        start = System.currentTimeMillis();
+        searchIndex.rebuild();
+        System.out.printf("Built trigram index in %d ms%n", System.currentTimeMillis() - start);
+
+        PageRequest page = PageRequest.of(0, 20, Sort.by("name"));
+        for (String term : TERMS) {
+            long matches = repo.findByNameContainingIgnoreCase(term, page).getTotalElements();
+
+            long sqlNanos = time(() -> repo.findByNameContainingIgnoreCase(term, page));
+            //Same path as the service: the index when it can answer, SQL otherwise
+            long indexNanos = time(() -> searchIndex.search(term, null).ifPresentOrElse(
+                    ids -> repo.findByIdIn(ids, page),
+                    () -> repo.findByNameContainingIgnoreCase(term, page)));
+
+            boolean answered = searchIndex.search(term, null).isPresent();
+            searchIndex.search(term, null).ifPresent(ids -> assertEquals(matches, ids.size(), term));
+            System.out.printf("%-16s matches=%7d  sql=%8.2f ms  index=%8.2f ms%s%n",
+                    "'" + term + "'", matches, sqlNanos / 1e6, indexNanos / 1e6, answered ? "" : " (fell back to sql)");
+        }
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbc.batchUpdate("INSERT INTO product (id, name, quantity, price, user_id, created) VALUES (?, ?, ?, ?, ?, ?)", batch);
+        batch.clear();
+    }
+
+    //Average of a few runs after one warm up
+    private static long time(Runnable search) {
+        search.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            search.run();
+        }
+        return (System.nanoTime() - start) / ROUNDS;
+    }
+}
@@ -1,8 +1,11 @@
 package com.nate.inventorymanagementsystemapi.security;
 
 import com.nate.inventorymanagementsystemapi.model.CustomerDetails;
+import com.nate.inventorymanagementsystemapi.model.Role;
 import com.nate.inventorymanagementsystemapi.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,12 +22,14 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 
 import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.util.AssertionErrors.assertNotNull;
 
 public class JwtFilterAuthTest {
 
     private JwtFilterAuth jwtFilterAuth;
     private UserDetailsService detailsService;
+    private TokenVersionRegistry tokenVersions;
     private HttpServletResponse response;
     private HttpServletRequest request;
     private FilterChain filterChain;
@@ -34,7 +39,8 @@ public class JwtFilterAuthTest {
     @BeforeEach
     void startUp(){
         detailsService = mock(UserDetailsService.class);
-        jwtFilterAuth = new JwtFilterAuth(detailsService);
+        tokenVersions = new TokenVersionRegistry();
+        jwtFilterAuth = new JwtFilterAuth(detailsService, new VerifiedTokenCache(100, 60), tokenVersions, false);
         request = mock(HttpServletRequest.class);
         response = mock(HttpServletResponse.class);
         filterChain = mock(FilterChain.class);
@@ -79,14 +85,95 @@ public class JwtFilterAuthTest {
 
         when(detailsService.loadUserByUsername("tester")).thenReturn(customerDetails);
 
+        Claims claims = Jwts.claims().setSubject("tester");
+
+        try (MockedStatic<JwtUtil> jwtMock = Mockito.mockStatic(JwtUtil.class)) {
+            jwtMock.when(()-> JwtUtil.parseClaims("validToken")).thenReturn(claims);
+
+            jwtFilterAuth.doFilterInternal(request,response,filterChain);
+        }
+
+        verify(filterChain).doFilter(request,response);
+    }
+
+    @Test
+    void shouldReturn401WhenTokenInvalid() throws ServletException, IOException {
+        when(request.getServletPath()).thenReturn("/product/1");
+        when(request.getHeader("Authorization")).thenReturn("Bearer fake-token-test");
+
+        jwtFilterAuth.doFilterInternal(request,response,filterChain);
+
+        verify(response).setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        verify(filterChain, never()).doFilter(request,response);
+        verify(detailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void shouldOnlyVerifyRepeatedTokenOnce() throws ServletException, IOException {
+        when(request.getServletPath()).thenReturn("/product/1");
+        when(request.getHeader("Authorization")).thenReturn("Bearer validToken");
+
+        CustomerDetails customerDetails = mock(CustomerDetails.class);
+        when(detailsService.loadUserByUsername("tester")).thenReturn(customerDetails);
+
+        Claims claims = Jwts.claims().setSubject("tester");
+
         try (MockedStatic<JwtUtil> jwtMock = Mockito.mockStatic(JwtUtil.class)) {
-            jwtMock.when(()-> JwtUtil.tokenValidation("validToken")).thenReturn(true);
-            jwtMock.when(()-> JwtUtil.extractUsername("validToken")).thenReturn("tester");
+            jwtMock.when(()-> JwtUtil.parseClaims("validToken")).thenReturn(claims);
 
             jwtFilterAuth.doFilterInternal(request,response,filterChain);
+            jwtFilterAuth.doFilterInternal(request,response,filterChain);
+
+            jwtMock.verify(()-> JwtUtil.parseClaims("validToken"), times(1));
         }
 
+        verify(filterChain, times(2)).doFilter(request,response);
+    }
+
+    @Test
+    void shouldAuthenticateFromClaimsWhenStateless() throws ServletException, IOException {
+        JwtFilterAuth statelessFilter = new JwtFilterAuth(detailsService, new VerifiedTokenCache(100, 60), tokenVersions, true);
+        String token = JwtUtil.generateToken(7L,"tester", Role.USER, tokenVersions.current("tester"));
+        when(request.getServletPath()).thenReturn("/product/1");
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+
+        statelessFilter.doFilterInternal(request,response,filterChain);
+
         verify(filterChain).doFilter(request,response);
+        verify(detailsService, never()).loadUserByUsername(anyString());
+
+        CustomerDetails principal = (CustomerDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        assertEquals(7L, principal.getUser().getId());
+        assertEquals(Role.USER, principal.getUser().getRole());
+    }
+
+    @Test
+    void shouldRejectRevokedTokenWhenStateless() throws ServletException, IOException {
+        JwtFilterAuth statelessFilter = new JwtFilterAuth(detailsService, new VerifiedTokenCache(100, 60), tokenVersions, true);
+        String token = JwtUtil.generateToken(7L,"tester", Role.USER, tokenVersions.current("tester"));
+        tokenVersions.bump("tester");
+        when(request.getServletPath()).thenReturn("/product/1");
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+
+        statelessFilter.doFilterInternal(request,response,filterChain);
+
+        verify(response).setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        verify(filterChain, never()).doFilter(request,response);
     }
 
+    @Test
+    void shouldFallBackToLookupForTokenWithoutUserIdWhenStateless() throws ServletException, IOException {
+        JwtFilterAuth statelessFilter = new JwtFilterAuth(detailsService, new VerifiedTokenCache(100, 60), tokenVersions, true);
+        String token = JwtUtil.generateToken("tester", Role.USER);
+        when(request.getServletPath()).thenReturn("/product/1");
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+
+        CustomerDetails customerDetails = mock(CustomerDetails.class);
+        when(detailsService.loadUserByUsername("tester")).thenReturn(customerDetails);
+
+        statelessFilter.doFilterInternal(request,response,filterChain);
+
+        verify(detailsService).loadUserByUsername("tester");
+        verify(filterChain).doFilter(request,response);
+    }
 }
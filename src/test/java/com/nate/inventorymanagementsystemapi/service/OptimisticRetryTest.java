@@ -0,0 +1,50 @@
+package com.nate.inventorymanagementsystemapi.service;
+
+import com.nate.inventorymanagementsystemapi.exception.ProductVersionConflictException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OptimisticRetryTest {
+
+    @Test
+    @DisplayName("Conflicting attempts are retried until one succeeds")
+    void testRetriesConflicts() {
+        OptimisticRetry retry = new OptimisticRetry(3, 1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retry.run(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ProductVersionConflictException(1L, 0, 1L);
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    @DisplayName("Gives up after the maximum attempts and other failures are not retried")
+    void testBounded() {
+        OptimisticRetry retry = new OptimisticRetry(4, 0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ProductVersionConflictException.class, () -> retry.run(() -> {
+            attempts.incrementAndGet();
+            throw new ProductVersionConflictException(1L, 0, 1L);
+        }));
+        assertEquals(4, attempts.get());
+
+        attempts.set(0);
+        assertThrows(IllegalStateException.class, () -> retry.run(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(1, attempts.get());
+    }
+}
@@ -0,0 +1,154 @@
+package com.nate.inventorymanagementsystemapi.service;
+
+import com.nate.inventorymanagementsystemapi.exception.ProductVersionConflictException;
+import com.nate.inventorymanagementsystemapi.model.CurrentUser;
+import com.nate.inventorymanagementsystemapi.model.Product;
+import com.nate.inventorymanagementsystemapi.model.Role;
+import com.nate.inventorymanagementsystemapi.model.User;
+import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import com.nate.inventorymanagementsystemapi.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares read-modify-write throughput of optimistic locking (versioned update plus {@link OptimisticRetry})
+ * with pessimistic locking ({@code SELECT ... FOR UPDATE}) under contention, from one hot product to a spread of
+ * products, plus the full {@link ProductService#modifyProduct} path. Run with {@code mvn test -Dtest=ProductLockingBenchmarkTest -Dbenchmark=true}.
+ */
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "inventory.product.update.max-attempts=10",
+        "logging.level.com.nate.inventorymanagementsystemapi=WARN"})
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ProductLockingBenchmarkTest {
+
+    private static final int THREADS = 16;
+    private static final int UPDATES = 4000;
+    private static final int[] PRODUCTS = {1, 4, 16, 64};
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private UserRepository users;
+
+    @Autowired
+    private ProductRepository repo;
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private OptimisticRetry retry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Benchmark: optimistic versioned updates vs SELECT ... FOR UPDATE")
+    void benchmark() throws Exception {
+        User owner = new User();
+        owner.setUsername("bench");
+        owner.setPassword("bench");
+        owner.setRole(Role.USER);
+        CurrentUser user = CurrentUser.from(users.save(owner));
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        for (int products : PRODUCTS) {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < products; i++) {
+                ids.add(repo.save(new Product(null, "Bench " + i, 1, BigDecimal.TEN, owner, Instant.now(), null, null)).getId());
+            }
+
+            AtomicInteger gaveUp = new AtomicInteger();
+            //Both sides are the same plain JDBC read-modify-write, only the locking differs
+            long optimistic = run(ids, id -> {
+                try {
+                    retry.run(() -> tx.execute(s -> {
+                        Map<String, Object> row = jdbc.queryForMap("SELECT quantity, version FROM product WHERE id = ?", id);
+                        long version = ((Number) row.get("version")).longValue();
+                        int quantity = ((Number) row.get("quantity")).intValue();
+                        if (jdbc.update("UPDATE product SET quantity = ?, version = version + 1 WHERE id = ? AND version = ?",
+                                quantity + 1, id, version) == 0) {
+                            throw new ProductVersionConflictException(id, version, null);
+                        }
+                        return quantity + 1;
+                    }));
+                } catch (ProductVersionConflictException e) {
+                    gaveUp.incrementAndGet();
+                }
+            });
+
+            //The full service path: projection read, versioned update, read back and change event
+            long service = run(ids, id -> {
+                try {
+                    retry.run(() -> this.service.modifyProduct(id, p -> {
+                        p.setQuantity(p.getQuantity() + 1);
+                        return p;
+                    }, user));
+                } catch (ProductVersionConflictException e) {
+                    gaveUp.incrementAndGet();
+                }
+            });
+
+            long pessimistic = run(ids, id -> tx.executeWithoutResult(s -> {
+                int quantity = jdbc.queryForObject("SELECT quantity FROM product WHERE id = ? FOR UPDATE", Integer.class, id);
+                jdbc.update("UPDATE product SET quantity = ?, version = version + 1 WHERE id = ?", quantity + 1, id);
+            }));
+
+            long total = ids.stream().mapToLong(id -> repo.findQuantity(id).orElseThrow()).sum();
+            assertEquals(products + 3L * UPDATES - gaveUp.get(), total, "no update may be lost");
+
+            System.out.printf("products=%3d  optimistic=%8.0f/s  for-update=%8.0f/s  service modifyProduct=%8.0f/s  (%d gave up)%n",
+                    products, rate(optimistic), rate(pessimistic), rate(service), gaveUp.get());
+        }
+    }
+
+    //Time in nanos for UPDATES read-modify-writes spread at random over the products
+    private long run(List<Long> ids, LongConsumer update) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Void>> calls = new ArrayList<>();
+            for (int i = 0; i < UPDATES; i++) {
+                calls.add(() -> {
+                    update.accept(ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+                    return null;
+                });
+            }
+            long start = System.nanoTime();
+            for (Future<Void> result : pool.invokeAll(calls)) {
+                result.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static double rate(long nanos) {
+        return UPDATES / (nanos / 1e9);
+    }
+}
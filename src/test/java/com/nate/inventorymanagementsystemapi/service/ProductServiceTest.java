@@ -1,15 +1,51 @@
 package com.nate.inventorymanagementsystemapi.service;
 
+import com.nate.inventorymanagementsystemapi.cache.HotStockCounters;
+import com.nate.inventorymanagementsystemapi.cache.LowStockWatchlist;
+import com.nate.inventorymanagementsystemapi.cache.ProductCounters;
+import com.nate.inventorymanagementsystemapi.cache.ProductTotals;
+import com.nate.inventorymanagementsystemapi.cache.UserCache;
+import com.nate.inventorymanagementsystemapi.dto.BulkResponse;
+import com.nate.inventorymanagementsystemapi.dto.CursorResponse;
 import com.nate.inventorymanagementsystemapi.dto.PostProduct;
 import com.nate.inventorymanagementsystemapi.dto.ProductDto;
+import com.nate.inventorymanagementsystemapi.dto.ProductFilter;
+import com.nate.inventorymanagementsystemapi.dto.ReorderLevel;
+import com.nate.inventorymanagementsystemapi.dto.SummaryResponse;
+import com.nate.inventorymanagementsystemapi.dto.ProductSummary;
+import com.nate.inventorymanagementsystemapi.dto.StockHistory;
+import com.nate.inventorymanagementsystemapi.dto.StockHistoryPoint;
+import com.nate.inventorymanagementsystemapi.dto.StockLevel;
+import com.nate.inventorymanagementsystemapi.dto.StockMovementDto;
 import com.nate.inventorymanagementsystemapi.dto.UserDto;
+import com.nate.inventorymanagementsystemapi.event.InventoryChangedEvent;
+import com.nate.inventorymanagementsystemapi.event.ProductChangedEvent;
+import com.nate.inventorymanagementsystemapi.event.ReorderThresholdChangedEvent;
+import com.nate.inventorymanagementsystemapi.event.StockLevelChangedEvent;
+import com.nate.inventorymanagementsystemapi.exception.InsufficientStockException;
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
 import com.nate.inventorymanagementsystemapi.exception.ProductNotFoundException;
+import com.nate.inventorymanagementsystemapi.exception.ProductVersionConflictException;
 import com.nate.inventorymanagementsystemapi.exception.UserNotFoundException;
+import com.nate.inventorymanagementsystemapi.feed.ProductChangeFeed;
+import com.nate.inventorymanagementsystemapi.mapper.ProductMapper;
+import com.nate.inventorymanagementsystemapi.model.CurrentUser;
 import com.nate.inventorymanagementsystemapi.model.Product;
+import com.nate.inventorymanagementsystemapi.model.ProductChange;
 import com.nate.inventorymanagementsystemapi.model.Role;
+import com.nate.inventorymanagementsystemapi.model.StockMovement;
+import com.nate.inventorymanagementsystemapi.model.StockRollup;
 import com.nate.inventorymanagementsystemapi.model.User;
+import com.nate.inventorymanagementsystemapi.repository.ProductBatchWriter;
+import com.nate.inventorymanagementsystemapi.repository.ProductOutbox;
 import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import com.nate.inventorymanagementsystemapi.repository.StockMovementRepository;
+import com.nate.inventorymanagementsystemapi.repository.StockRollupStore;
 import com.nate.inventorymanagementsystemapi.repository.UserRepository;
+import com.nate.inventorymanagementsystemapi.reservation.ReservationLedger;
+import com.nate.inventorymanagementsystemapi.search.ProductSearchIndex;
+import com.nate.inventorymanagementsystemapi.search.ProductSuggester;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,16 +53,29 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.convert.DataSizeUnit;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,15 +86,37 @@ public class ProductServiceTest {
     private ProductRepository repo;
     @Mock
     private UserRepository repoU;
+    @Mock
+    private ApplicationEventPublisher events;
+    @Mock
+    private ProductBatchWriter batchWriter;
+    @Mock
+    private ProductOutbox outbox;
+    @Mock
+    private ProductChangeFeed changeFeed;
+    @Mock
+    private StockMovementRepository movements;
+    @Mock
+    private StockRollupStore rollups;
+    @Mock
+    private ReservationLedger reservations;
 
     private IProductService service;
+    private ProductSearchIndex searchIndex;
+    private ProductSuggester suggester;
+    private LowStockWatchlist lowStock;
 
     private Product mockProduct;
     private User mockUser;
 
     @BeforeEach
     void startUp(){
-        service = new ProductService(repo,repoU);
+        searchIndex = new ProductSearchIndex(repo,true,10000);
+        suggester = new ProductSuggester(repo,true);
+        lowStock = new LowStockWatchlist(repo);
+        service = new ProductService(repo,repoU,new UserCache(repoU,100,60),new ProductCounters(repo),searchIndex,suggester,events,batchWriter,
+                Validation.buildDefaultValidatorFactory().getValidator(),new HotStockCounters(repo,outbox,movements,mock(PlatformTransactionManager.class),events,false,Set.of(),1000),
+                new ProductTotals(repo),lowStock,outbox,changeFeed,movements,rollups,new OptimisticRetry(3,0),reservations);
 
         mockProduct = new Product();
         mockUser = new User();
@@ -59,12 +130,12 @@ public class ProductServiceTest {
     @Test
     @DisplayName("Get all User Product by Username Test: Success")
     void testGetAllUserProductByUsername_Success(){
-        Product prod = mock(Product.class);
+        ProductDto prod = mock(ProductDto.class);
         Pageable pageable = PageRequest.of(0,5, Sort.by("name").descending());
-        Page<Product> productPage = new PageImpl<>(List.of(mockProduct,prod));
+        Slice<ProductDto> productSlice = new SliceImpl<>(List.of(ProductMapper.toDto(mockProduct),prod));
 
-        when(prod.getUser()).thenReturn(mockUser);
-        when(repo.findByUserUsername("Tester",pageable)).thenReturn(productPage);
+        when(repo.findSliceByUserId(1L,pageable)).thenReturn(productSlice);
+        when(repo.countByUserId(1L)).thenReturn(2L);
         when(repoU.findByUsername("Tester")).thenReturn(Optional.of(mockUser));
 
         Page<ProductDto> productDtos = service.getAllUserProductsByUsername("Tester",0,5,"name","desc","");
@@ -78,12 +149,11 @@ public class ProductServiceTest {
     @Test
     @DisplayName("Get all User Product by Username Test: Success")
     void testGetAllUserProductByUsername_SuccessSearchByName(){
-        Product prod = mock(Product.class);
+        ProductDto prod = mock(ProductDto.class);
         Pageable pageable = PageRequest.of(0,5, Sort.by("name").descending());
-        Page<Product> productPage = new PageImpl<>(List.of(mockProduct,prod));
+        Page<ProductDto> productPage = new PageImpl<>(List.of(ProductMapper.toDto(mockProduct),prod));
 
-        when(prod.getUser()).thenReturn(mockUser);
-        when(repo.searchProductByUserAndName("Tester","laptop",pageable)).thenReturn(productPage);
+        when(repo.searchProductByUserAndName(1L,"laptop",pageable)).thenReturn(productPage);
         when(repoU.findByUsername("Tester")).thenReturn(Optional.of(mockUser));
 
         Page<ProductDto> productDtos = service.getAllUserProductsByUsername("Tester",0,5,"name","desc","laptop");
@@ -97,9 +167,9 @@ public class ProductServiceTest {
     @DisplayName("Get all User Product by Username Test: No Items present")
     void testGetAllUserProductByUsername_NoItemsPresent(){
         Pageable pageable = PageRequest.of(0,5,Sort.by("name").ascending());
-        Page<Product> productPage = new PageImpl<>(List.of());
+        Slice<ProductDto> productSlice = new SliceImpl<>(List.of());
         when(repoU.findByUsername("Tester")).thenReturn(Optional.of(mockUser));
-        when(repo.findByUserUsername("Tester",pageable)).thenReturn(productPage);
+        when(repo.findSliceByUserId(1L,pageable)).thenReturn(productSlice);
         Page<ProductDto> productDtos = service.getAllUserProductsByUsername("Tester",0,5,"name","asc","");
 
         assertTrue(productDtos.isEmpty(),"Should be empty");
@@ -112,6 +182,7 @@ public class ProductServiceTest {
         mockProduct.setName(post.getName());
         mockProduct.setPrice(post.getPrice());
         mockProduct.setQuantity(post.getQuantity());
+        mockProduct.setVersion(0L);
 
         when(repoU.findByUsername("Tester")).thenReturn(Optional.of(mockUser));
         when(repo.save(any(Product.class))).thenReturn(mockProduct);
@@ -139,7 +210,7 @@ public class ProductServiceTest {
     void testGetProduct_Success(){
         mockProduct.setName("Dryer");
         mockProduct.setId(1L);
-        when(repo.findById(1L)).thenReturn(Optional.of(mockProduct));
+        when(repo.findVisible(1L,1L,false)).thenReturn(Optional.of(ProductMapper.toDto(mockProduct)));
         when(repoU.findByUsername("Tester")).thenReturn(Optional.of(mockUser));
 
         ProductDto prod = service.getProduct(1L,mockUser.getUsername());
@@ -176,13 +247,18 @@ public class ProductServiceTest {
     @DisplayName("Delete Product Test: Success")
     void testDeleteProduct(){
         when(repoU.findByUsername("Tester")).thenReturn(Optional.of(mockUser));
-        when(repo.findById(2L)).thenReturn(Optional.of(mockProduct));
-
-        mockProduct.setId(2L);
+        when(repo.findVisible(2L,1L,false)).thenReturn(Optional.of(new ProductDto(2L,"TV",3,new BigDecimal("100.50"),1L,null,0L)));
+        when(repo.deleteOwnedIfVersion(2L,1L,false,0L)).thenReturn(1);
 
         boolean verify = service.deleteProduct(2L,"Tester");
 
         assertTrue(verify);
+        verify(repo,never()).findById(2L);
+        verify(events).publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.DELETED,2L,1L,null));
+        verify(events).publishEvent(new InventoryChangedEvent(1L,-1,-3,new BigDecimal("-301.50")));
+        //The change goes to the outbox in the delete's transaction
+        verify(outbox).append(argThat(change -> change.getType() == ProductChange.Type.DELETED
+                && change.getProductId() == 2L && change.getUserId() == 1L));
 
     }
 
@@ -221,11 +297,15 @@ public class ProductServiceTest {
         prod.setPrice(dto.getPrice());
         prod.setQuantity(dto.getQuantity());
 
-        mockProduct.setId(3L);
+        prod.setUser(mockUser);
+
 
+        prod.setQuantity(5);
+        prod.setPrice(new BigDecimal("8000"));
+        prod.setVersion(4L);
 
-        when(repo.findById(3L)).thenReturn(Optional.of(mockProduct));
-        when(repo.save(any(Product.class))).thenReturn(prod);
+        when(repo.findVisible(3L,1L,false)).thenReturn(Optional.of(ProductMapper.toDto(prod)));
+        when(repo.updateOwnedIfVersion(3L,"PS5",2,new BigDecimal("9000"),1L,false,4L)).thenReturn(1);
         when(repoU.findByUsername("Tester")).thenReturn(Optional.of(mockUser));
 
         ProductDto updated = service.udpateProduct(3L,dto,mockUser.getUsername());
@@ -234,7 +314,85 @@ public class ProductServiceTest {
         assertEquals("PS5",updated.getName());
         assertEquals(2,updated.getQuantity());
         assertEquals(new BigDecimal("9000"),updated.getPrice());
+        assertEquals(5L,updated.getVersion());
+        //5 units at 8000 became 2 units at 9000
+        verify(events).publishEvent(new InventoryChangedEvent(1L,0,-3,new BigDecimal("-22000")));
+
+    }
+
+    @Test
+    @DisplayName("Update Product Test: Fail, changed since the expected version")
+    void testUpdateProduct_FailVersionConflict(){
+        ProductDto dto = new ProductDto();
+        dto.setName("PS5");
+        dto.setQuantity(2);
+        dto.setPrice(new BigDecimal("9000"));
+        ProductDto current = new ProductDto(3L,"PS5",1,new BigDecimal("9000"),1L,null,5L);
+
+        when(repo.findVisible(3L,1L,false)).thenReturn(Optional.of(current));
+
+        assertThrows(ProductVersionConflictException.class,()->{
+            service.udpateProduct(3L,dto,4L,CurrentUser.from(mockUser));
+        });
+        verify(repo,never()).updateOwnedIfVersion(any(),any(),any(Integer.class),any(),any(),any(Boolean.class),any(Long.class));
+    }
+
+    @Test
+    @DisplayName("Update Product Test: without If-Match a lost race is retried on a fresh read, the delta is for the version replaced")
+    void testUpdateProduct_RetriesLostRace(){
+        ProductDto dto = new ProductDto();
+        dto.setName("PS5");
+        dto.setQuantity(2);
+        dto.setPrice(new BigDecimal("10"));
 
+        //Somebody else sets the quantity to 8 between the first read and its write
+        when(repo.findVisible(3L,1L,false)).thenReturn(
+                Optional.of(new ProductDto(3L,"PS5",5,new BigDecimal("10"),1L,null,4L)),
+                Optional.of(new ProductDto(3L,"PS5",8,new BigDecimal("10"),1L,null,5L)));
+        when(repo.updateOwnedIfVersion(3L,"PS5",2,new BigDecimal("10"),1L,false,4L)).thenReturn(0);
+        when(repo.updateOwnedIfVersion(3L,"PS5",2,new BigDecimal("10"),1L,false,5L)).thenReturn(1);
+
+        ProductDto updated = service.udpateProduct(3L,dto,CurrentUser.from(mockUser));
+
+        assertEquals(6L,updated.getVersion());
+        //8 units were replaced, not the 5 of the first read
+        verify(events).publishEvent(new InventoryChangedEvent(1L,0,-6,new BigDecimal("-60")));
+        verify(events,times(1)).publishEvent(any(InventoryChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Update Product Test: with If-Match a write that loses the race answers a conflict instead of retrying")
+    void testUpdateProduct_IfMatchLostRaceConflicts(){
+        ProductDto dto = new ProductDto();
+        dto.setName("PS5");
+        dto.setQuantity(2);
+        dto.setPrice(new BigDecimal("10"));
+        when(repo.findVisible(3L,1L,false)).thenReturn(
+                Optional.of(new ProductDto(3L,"PS5",5,new BigDecimal("10"),1L,null,4L)),
+                Optional.of(new ProductDto(3L,"PS5",8,new BigDecimal("10"),1L,null,5L)));
+
+        assertThrows(ProductVersionConflictException.class,()->{
+            service.udpateProduct(3L,dto,4L,CurrentUser.from(mockUser));
+        });
+        verify(repo,times(1)).updateOwnedIfVersion(any(),any(),any(Integer.class),any(),any(),any(Boolean.class),any(Long.class));
+    }
+
+    @Test
+    @DisplayName("Modify Product Test: writes back against the version that was read")
+    void testModifyProduct_UsesReadVersion(){
+        ProductDto current = new ProductDto(3L,"PS5",1,new BigDecimal("9000"),1L,null,7L);
+
+        when(repo.findVisible(3L,1L,false)).thenReturn(Optional.of(current));
+        when(repo.updateOwnedIfVersion(3L,"PS5",2,new BigDecimal("9000"),1L,false,7L)).thenReturn(1);
+
+        ProductDto updated = service.modifyProduct(3L,p->{
+            p.setQuantity(p.getQuantity() + 1);
+            return p;
+        },CurrentUser.from(mockUser));
+
+        assertEquals(8L,updated.getVersion());
+        //The change got a copy, so the delta is taken from the untouched read
+        verify(events).publishEvent(new InventoryChangedEvent(1L,0,1,new BigDecimal("9000")));
     }
 
     @Test
@@ -261,4 +419,458 @@ public class ProductServiceTest {
 
         assertTrue(ex.getMessage().contains(mockUser.getUsername()));
     }
+
+    @Test
+    @DisplayName("Get Product Test: authenticated user is not looked up again")
+    void testGetProduct_WithCurrentUserSkipsUserLookup(){
+        mockProduct.setName("Dryer");
+        mockProduct.setId(1L);
+        when(repo.findVisible(1L,1L,false)).thenReturn(Optional.of(ProductMapper.toDto(mockProduct)));
+
+        ProductDto prod = service.getProduct(1L,CurrentUser.from(mockUser));
+
+        assertEquals("Dryer",prod.getName(),"should have the same name");
+        verify(repoU,never()).findByUsername(anyString());
+    }
+
+    @Test
+    @DisplayName("Add Product Test: authenticated user is only referenced, not loaded")
+    void testAddProduct_WithCurrentUserSkipsUserLookup(){
+        PostProduct post = new PostProduct("TV",2, new BigDecimal("2000"));
+        mockProduct.setName(post.getName());
+        mockProduct.setVersion(0L);
+
+        when(repoU.getReferenceById(1L)).thenReturn(mockUser);
+        when(repo.save(any(Product.class))).thenReturn(mockProduct);
+
+        ProductDto prod = service.addProduct(post,CurrentUser.from(mockUser));
+
+        assertEquals("TV",prod.getName(),"Should be TV");
+        assertEquals(mockUser.getId(),prod.getUserId());
+        verify(repoU,never()).findByUsername(anyString());
+    }
+
+    @Test
+    @DisplayName("Get Product Test: Fail, product belongs to another user")
+    void testGetProduct_FailNotOwner(){
+        when(repo.existsById(1L)).thenReturn(true);
+
+        assertThrows(AccessDeniedException.class,()->{
+            service.getProduct(1L,CurrentUser.from(mockUser));
+        });
+    }
+
+    @Test
+    @DisplayName("Delete Product Test: Fail, product belongs to another user")
+    void testDeleteProduct_FailNotOwner(){
+        when(repo.existsById(2L)).thenReturn(true);
+
+        assertThrows(AccessDeniedException.class,()->{
+            service.deleteProduct(2L,CurrentUser.from(mockUser));
+        });
+    }
+
+    @Test
+    @DisplayName("Update Product Test: Fail, product belongs to another user")
+    void testUpdateProduct_FailNotOwner(){
+        ProductDto dto = new ProductDto();
+        dto.setName("PS5");
+        when(repo.existsById(3L)).thenReturn(true);
+
+        assertThrows(AccessDeniedException.class,()->{
+            service.udpateProduct(3L,dto,CurrentUser.from(mockUser));
+        });
+    }
+
+    @Test
+    @DisplayName("Get all User Product Test: totals come from the counter, counted once")
+    void testGetAllUserProduct_TotalsFromCounter(){
+        Pageable pageable = PageRequest.of(0,1,Sort.by("name").ascending());
+        when(repo.findSliceByUserId(1L,pageable)).thenReturn(new SliceImpl<>(List.of(ProductMapper.toDto(mockProduct)),pageable,true));
+        when(repo.countByUserId(1L)).thenReturn(7L);
+
+        Page<ProductDto> first = service.getAllUserProducts(CurrentUser.from(mockUser),0,1,"name","asc",null);
+        Page<ProductDto> second = service.getAllUserProducts(CurrentUser.from(mockUser),0,1,"name","asc",null);
+
+        assertEquals(7,first.getTotalElements());
+        assertEquals(7,second.getTotalPages());
+        verify(repo,times(1)).countByUserId(1L);
+    }
+
+    @Test
+    @DisplayName("Get User Product Slice Test: no count query")
+    void testGetUserProductSlice_Success(){
+        Pageable pageable = PageRequest.of(0,1,Sort.by("name").ascending());
+        when(repo.findSliceByUserId(1L,pageable)).thenReturn(new SliceImpl<>(List.of(ProductMapper.toDto(mockProduct)),pageable,true));
+
+        Slice<ProductDto> slice = service.getUserProductSlice(CurrentUser.from(mockUser),0,1,"name","asc","");
+
+        assertEquals(1,slice.getContent().size());
+        assertTrue(slice.hasNext());
+        verify(repo,never()).countByUserId(any());
+    }
+
+    @Test
+    @DisplayName("Get all User Product Test: range filters run as one query, counted only past a full page")
+    void testGetAllUserProduct_Filtered(){
+        ProductFilter filter = new ProductFilter(new BigDecimal("10"),null,null,5,null,null);
+        Pageable pageable = PageRequest.of(0,2,Sort.by("price").descending());
+        when(repo.findFiltered(1L,null,filter,pageable,2)).thenReturn(List.of(ProductMapper.toDto(mockProduct)));
+
+        Page<ProductDto> productDtos = service.getAllUserProducts(CurrentUser.from(mockUser),0,2,"price","desc","",filter);
+
+        assertEquals(1,productDtos.getTotalElements());
+        verify(repo,never()).countFiltered(any(),any(),any());
+        verify(repo,never()).findSliceByUserId(any(),any());
+    }
+
+    @Test
+    @DisplayName("Get all User Product Test: Fail, empty range or unknown sort field")
+    void testGetAllUserProduct_FailInvalidFilter(){
+        CurrentUser user = CurrentUser.from(mockUser);
+        ProductFilter inverted = new ProductFilter(null,null,10,5,null,null);
+
+        assertThrows(InvalidRequestException.class, () -> service.getAllUserProducts(user,0,5,"name","asc",null,inverted));
+        assertThrows(InvalidRequestException.class, () -> service.getUserProductSlice(user,0,5,"name","asc",null,inverted));
+        assertThrows(InvalidRequestException.class, () -> service.getAllUserProducts(user,0,5,"password","asc",null));
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    @DisplayName("Delete Product Test: admin delete reports the real owner")
+    void testDeleteProduct_AdminPublishesOwner(){
+        User admin = new User();
+        admin.setId(9L);
+        admin.setUsername("Admin");
+        admin.setRole(Role.ADMIN);
+        when(repo.findVisible(2L,9L,true)).thenReturn(Optional.of(new ProductDto(2L,"TV",3,new BigDecimal("100"),1L,null,0L)));
+        when(repo.deleteOwnedIfVersion(2L,9L,true,0L)).thenReturn(1);
+
+        assertTrue(service.deleteProduct(2L,CurrentUser.from(admin)));
+
+        verify(events).publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.DELETED,2L,1L,null));
+    }
+
+    @Test
+    @DisplayName("Get all User Product Test: search answered by the trigram index")
+    void testGetAllUserProduct_SearchUsesIndex(){
+        searchIndex.rebuild();
+        searchIndex.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED,5L,1L,"Gaming Laptop"));
+        searchIndex.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED,6L,2L,"Laptop Stand"));
+        searchIndex.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED,7L,1L,"Mouse"));
+
+        Pageable pageable = PageRequest.of(0,5,Sort.by("name").ascending());
+        when(repo.findByIdIn(List.of(5L),pageable)).thenReturn(List.of(ProductMapper.toDto(mockProduct)));
+
+        Page<ProductDto> productDtos = service.getAllUserProducts(CurrentUser.from(mockUser),0,5,"name","asc","LAPTOP");
+
+        assertEquals(1,productDtos.getTotalElements());
+        verify(repo,never()).searchProductByUserAndName(any(),any(),any());
+    }
+
+    @Test
+    @DisplayName("Suggest Product Names Test: SQL until the suggester is built")
+    void testSuggestProductNames_FallsBackToSql(){
+        when(repo.suggestNamesByUser(1L,"lap",PageRequest.of(0,5))).thenReturn(List.of("Laptop"));
+
+        assertEquals(List.of("Laptop"),service.suggestProductNames(CurrentUser.from(mockUser),"lap",5));
+    }
+
+    @Test
+    @DisplayName("Suggest Product Names Test: served from memory, scoped to the user")
+    void testSuggestProductNames_FromIndex(){
+        suggester.rebuild();
+        suggester.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED,5L,1L,"Laptop"));
+        suggester.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.CREATED,6L,2L,"Lamp"));
+
+        assertEquals(List.of("Laptop"),service.suggestProductNames(CurrentUser.from(mockUser),"LA",5));
+        verify(repo,never()).suggestNamesByUser(any(),any(),any());
+    }
+
+    @Test
+    @DisplayName("Suggest Product Names Test: Fail, limit out of range")
+    void testSuggestProductNames_FailLimit(){
+        assertThrows(InvalidRequestException.class,()->{
+            service.suggestProductNames(CurrentUser.from(mockUser),"la",500);
+        });
+    }
+
+    @Test
+    @DisplayName("Bulk Add Products Test: valid items are inserted, invalid ones reported by index")
+    void testBulkAddProducts_MixedItems(){
+        when(batchWriter.getMaxItems()).thenReturn(100);
+        when(repoU.getReferenceById(1L)).thenReturn(mockUser);
+        doAnswer(invocation -> {
+            List<Product> products = invocation.getArgument(0);
+            long id = 10;
+            for (Product product : products) {
+                product.setId(id++);
+                product.setVersion(0L);
+            }
+            return null;
+        }).when(batchWriter).insertAll(any());
+
+        List<PostProduct> posts = new java.util.ArrayList<>();
+        posts.add(new PostProduct("TV",2,new BigDecimal("2000")));
+        posts.add(new PostProduct("",0,new BigDecimal("10")));
+        posts.add(null);
+        posts.add(new PostProduct("Radio",1,new BigDecimal("0.50")));
+        posts.add(new PostProduct("Mouse",1,new BigDecimal("20")));
+
+        BulkResponse response = service.bulkAddProducts(posts,CurrentUser.from(mockUser));
+
+        assertEquals(2,response.getCreated());
+        assertEquals(3,response.getRejected());
+        assertEquals(10L,response.getResults().get(0).getId());
+        assertEquals(List.of("name: Product name cannot be empty","quantity: Quantity must be at least 1"),
+                response.getResults().get(1).getErrors());
+        assertEquals(List.of("Product is required"),response.getResults().get(2).getErrors());
+        assertEquals(1,response.getResults().get(3).getErrors().size(),"price below the entity minimum");
+        assertEquals(11L,response.getResults().get(4).getId());
+        verify(events).publishEvent(new ProductChangedEvent(ProductChangedEvent.Type.CREATED,11L,1L,"Mouse"));
+        verify(events).publishEvent(new StockLevelChangedEvent(11L,1L,"Mouse",1,0L));
+    }
+
+    @Test
+    @DisplayName("Bulk Add Products Test: Fail, too many items")
+    void testBulkAddProducts_FailTooMany(){
+        when(batchWriter.getMaxItems()).thenReturn(1);
+        List<PostProduct> posts = List.of(new PostProduct("TV",2,new BigDecimal("2000")),new PostProduct("PS5",2,new BigDecimal("2000")));
+
+        assertThrows(InvalidRequestException.class,()->{
+            service.bulkAddProducts(posts,CurrentUser.from(mockUser));
+        });
+        verify(batchWriter,never()).insertAll(any());
+    }
+
+    @Test
+    @DisplayName("Adjust Stock Test: Success, returns the new level")
+    void testAdjustStock_Success(){
+        when(repo.adjustStockOwned(5L,-2,0L,1L,false)).thenReturn(1);
+        when(repo.findVisible(5L,1L,false)).thenReturn(Optional.of(new ProductDto(5L,"TV",3,new BigDecimal("10"),1L,null,1L)));
+
+        StockLevel level = service.adjustStock(5L,-2,CurrentUser.from(mockUser));
+
+        assertEquals(5L,level.getProductId());
+        assertEquals(3,level.getQuantity());
+        verify(events).publishEvent(new InventoryChangedEvent(1L,0,-2,new BigDecimal("-20")));
+        verify(movements).save(argThat(movement -> movement.getReason() == StockMovement.Reason.ADJUSTED
+                && movement.getDelta() == -2 && movement.getQuantity() == 3 && movement.getActorId() == 1L));
+    }
+
+    @Test
+    @DisplayName("Adjust Stock Test: Fail, not enough stock")
+    void testAdjustStock_FailInsufficient(){
+        when(repo.adjustStockOwned(5L,-9,0L,1L,false)).thenReturn(0);
+        when(repo.findOwnerId(5L)).thenReturn(Optional.of(1L));
+
+        assertThrows(InsufficientStockException.class,()->{
+            service.adjustStock(5L,-9,CurrentUser.from(mockUser));
+        });
+        verify(repo,never()).findVisible(any(),any(),any(Boolean.class));
+    }
+
+    @Test
+    @DisplayName("Adjust Stock Test: removals stop at the units held by reservations, a confirm only at the other holds")
+    void testAdjustStock_KeepsHeldUnits(){
+        when(reservations.held(5L)).thenReturn(3L);
+        when(repo.adjustStockOwned(5L,-2,3L,1L,false)).thenReturn(0);
+        when(repo.findOwnerId(5L)).thenReturn(Optional.of(1L));
+
+        assertThrows(InsufficientStockException.class,()-> service.adjustStock(5L,-2,CurrentUser.from(mockUser)));
+
+        when(repo.adjustStockOwned(5L,-2,1L,1L,false)).thenReturn(1);
+        when(repo.findVisible(5L,1L,false)).thenReturn(Optional.of(new ProductDto(5L,"TV",3,new BigDecimal("10"),1L,null,1L)));
+        assertEquals(3,service.adjustStock(5L,-2,StockMovement.Reason.RESERVATION,CurrentUser.from(mockUser)).getQuantity());
+    }
+
+    @Test
+    @DisplayName("Update Product Test: Fail, the quantity would drop below the units held by reservations")
+    void testUpdateProduct_FailBelowHeld(){
+        ProductDto dto = new ProductDto();
+        dto.setName("PS5");
+        dto.setQuantity(2);
+        dto.setPrice(new BigDecimal("10"));
+        when(reservations.held(3L)).thenReturn(3L);
+        when(repo.findVisible(3L,1L,false)).thenReturn(Optional.of(new ProductDto(3L,"PS5",5,new BigDecimal("10"),1L,null,4L)));
+
+        assertThrows(InsufficientStockException.class,()-> service.udpateProduct(3L,dto,CurrentUser.from(mockUser)));
+        verify(repo,never()).updateOwnedIfVersion(any(),any(),any(Integer.class),any(),any(),any(Boolean.class),any(Long.class));
+    }
+
+    @Test
+    @DisplayName("Update Product Test: Fail, price below the product minimum")
+    void testUpdateProduct_FailPriceBelowOne(){
+        ProductDto dto = new ProductDto();
+        dto.setName("PS5");
+        dto.setQuantity(5);
+        dto.setPrice(new BigDecimal("0.5"));
+        when(repo.findVisible(3L,1L,false)).thenReturn(Optional.of(new ProductDto(3L,"PS5",5,new BigDecimal("10"),1L,null,4L)));
+
+        assertThrows(InvalidRequestException.class,()-> service.udpateProduct(3L,dto,CurrentUser.from(mockUser)));
+        verify(repo,never()).updateOwnedIfVersion(any(),any(),any(Integer.class),any(),any(),any(Boolean.class),any(Long.class));
+    }
+
+    @Test
+    @DisplayName("Adjust Stock Test: Fail, not the owner or missing")
+    void testAdjustStock_FailNotOwnerOrMissing(){
+        when(repo.adjustStockOwned(any(),any(Integer.class),any(Long.class),any(),any(Boolean.class))).thenReturn(0);
+        when(repo.findOwnerId(5L)).thenReturn(Optional.of(2L));
+        when(repo.findOwnerId(6L)).thenReturn(Optional.empty());
+
+        assertThrows(AccessDeniedException.class,()-> service.adjustStock(5L,1,CurrentUser.from(mockUser)));
+        assertThrows(ProductNotFoundException.class,()-> service.adjustStock(6L,1,CurrentUser.from(mockUser)));
+        assertThrows(InvalidRequestException.class,()-> service.adjustStock(5L,0,CurrentUser.from(mockUser)));
+    }
+
+    @Test
+    @DisplayName("Movements Test: Success, newest first with the cursor of the next page")
+    void testGetMovements_Success(){
+        when(repo.findOwnerId(5L)).thenReturn(Optional.of(1L));
+        List<StockMovementDto> rows = List.of(
+                new StockMovementDto(30L,5L,-1,4,StockMovement.Reason.ADJUSTED,1L,null),
+                new StockMovementDto(20L,5L,2,5,StockMovement.Reason.SET,1L,null),
+                new StockMovementDto(10L,5L,3,3,StockMovement.Reason.CREATED,1L,null));
+        when(movements.findLatest(5L,PageRequest.of(0,3))).thenReturn(rows);
+        when(movements.findBefore(5L,20L,PageRequest.of(0,3))).thenReturn(rows.subList(2,3));
+
+        CursorResponse<StockMovementDto> first = service.getMovements(5L,"",2,CurrentUser.from(mockUser));
+        assertEquals(rows.subList(0,2),first.getData());
+        assertTrue(first.isHasNext());
+        assertEquals("20",first.getNextCursor());
+
+        CursorResponse<StockMovementDto> second = service.getMovements(5L,first.getNextCursor(),2,CurrentUser.from(mockUser));
+        assertEquals(rows.subList(2,3),second.getData());
+        assertFalse(second.isHasNext());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Movements Test: Fail, bad cursor or size, not the owner or missing")
+    void testGetMovements_Fail(){
+        assertThrows(InvalidRequestException.class,()-> service.getMovements(5L,"abc",10,CurrentUser.from(mockUser)));
+        assertThrows(InvalidRequestException.class,()-> service.getMovements(5L,null,0,CurrentUser.from(mockUser)));
+        when(repo.findOwnerId(5L)).thenReturn(Optional.of(2L));
+        when(repo.findOwnerId(6L)).thenReturn(Optional.empty());
+        assertThrows(AccessDeniedException.class,()-> service.getMovements(5L,null,10,CurrentUser.from(mockUser)));
+        assertThrows(ProductNotFoundException.class,()-> service.getMovements(6L,null,10,CurrentUser.from(mockUser)));
+        verify(movements,never()).findLatest(any(),any());
+    }
+
+    @Test
+    @DisplayName("History Test: Success, rollup points with the opening level from a coarser resolution")
+    void testGetHistory_Success(){
+        Instant from = Instant.parse("2025-01-01T10:00:00Z");
+        Instant to = Instant.parse("2025-01-01T12:00:00Z");
+        List<StockHistoryPoint> points = List.of(new StockHistoryPoint(Instant.parse("2025-01-01T10:05:00Z"),3,5,4));
+        when(repo.findOwnerId(5L)).thenReturn(Optional.of(1L));
+        when(rollups.find(5L,StockRollup.Resolution.MINUTE,from,to)).thenReturn(points);
+        when(rollups.lastBefore(5L,StockRollup.Resolution.MINUTE,from)).thenReturn(Optional.empty());
+        when(rollups.lastBefore(5L,StockRollup.Resolution.HOUR,from)).thenReturn(Optional.of(7));
+
+        StockHistory history = service.getHistory(5L,from.plusSeconds(30),to,"minute",CurrentUser.from(mockUser));
+
+        assertEquals(new StockHistory(5L,StockRollup.Resolution.MINUTE,from,to,7,points),history);
+        verify(rollups,never()).lastBefore(5L,StockRollup.Resolution.DAY,from);
+    }
+
+    @Test
+    @DisplayName("History Test: Fail, bad resolution or range, not the owner or missing")
+    void testGetHistory_Fail(){
+        Instant to = Instant.parse("2025-06-01T00:00:00Z");
+        CurrentUser user = CurrentUser.from(mockUser);
+        assertThrows(InvalidRequestException.class,()-> service.getHistory(5L,null,to,"week",user));
+        assertThrows(InvalidRequestException.class,()-> service.getHistory(5L,to,to,"day",user));
+        //Five months of minutes is far more than one request may return, days are fine
+        assertThrows(InvalidRequestException.class,()-> service.getHistory(5L,to.minus(Duration.ofDays(150)),to,"minute",user));
+        when(repo.findOwnerId(5L)).thenReturn(Optional.of(2L));
+        when(repo.findOwnerId(6L)).thenReturn(Optional.empty());
+        assertThrows(AccessDeniedException.class,()-> service.getHistory(5L,to.minus(Duration.ofDays(150)),to,"day",user));
+        assertThrows(ProductNotFoundException.class,()-> service.getHistory(6L,null,to,"day",user));
+        verify(rollups,never()).find(any(),any(),any(),any());
+    }
+
+    @Test
+    @DisplayName("Summary Test: seeded once, then moved by deltas, global totals only for Admin")
+    void testGetSummary(){
+        ProductTotals totals = new ProductTotals(repo);
+        service = new ProductService(repo,repoU,new UserCache(repoU,100,60),new ProductCounters(repo),searchIndex,suggester,events,batchWriter,
+                Validation.buildDefaultValidatorFactory().getValidator(),new HotStockCounters(repo,outbox,movements,mock(PlatformTransactionManager.class),events,false,Set.of(),1000),
+                totals,lowStock,outbox,changeFeed,movements,rollups,new OptimisticRetry(3,0),reservations);
+        User admin = new User();
+        admin.setId(9L);
+        admin.setUsername("Admin");
+        admin.setRole(Role.ADMIN);
+        when(repo.summarizeByUserId(1L)).thenReturn(new ProductSummary(2,10,new BigDecimal("100.00")));
+        when(repo.summarizeByUserId(9L)).thenReturn(ProductSummary.EMPTY);
+        when(repo.summarizeAll()).thenReturn(new ProductSummary(2,10,new BigDecimal("100.00")));
+
+        SummaryResponse summary = service.getSummary(CurrentUser.from(mockUser));
+        assertNull(summary.global());
+        service.getSummary(CurrentUser.from(admin));
+
+        totals.onInventoryChanged(new InventoryChangedEvent(1L,1,4,new BigDecimal("40.00")));
+        summary = service.getSummary(CurrentUser.from(admin));
+
+        assertEquals(new ProductSummary(3,14,new BigDecimal("140.00")),service.getSummary(CurrentUser.from(mockUser)).user());
+        assertEquals(new ProductSummary(3,14,new BigDecimal("140.00")),summary.global());
+        assertEquals(ProductSummary.EMPTY,summary.user());
+        verify(repo,times(1)).summarizeByUserId(1L);
+        verify(repo,times(1)).summarizeAll();
+    }
+
+    @Test
+    @DisplayName("Reorder Threshold Test: Success, the product at the version written goes to the watchlist")
+    void testSetReorderThreshold_Success(){
+        when(repo.findVisible(2L,1L,false)).thenReturn(Optional.of(new ProductDto(2L,"TV",3,BigDecimal.TEN,1L,null,4L)));
+        when(repo.setReorderThresholdIfVersion(2L,5,1L,false,4L)).thenReturn(1);
+
+        ReorderLevel level = service.setReorderThreshold(2L,5,CurrentUser.from(mockUser));
+
+        assertEquals(new ReorderLevel(2L,1L,"TV",3,5),level);
+        assertTrue(level.isLow());
+        verify(events).publishEvent(new ReorderThresholdChangedEvent(2L,1L,"TV",3,4L,5));
+    }
+
+    @Test
+    @DisplayName("Reorder Threshold Test: Fail, negative threshold or missing product")
+    void testSetReorderThreshold_Fail(){
+        assertThrows(InvalidRequestException.class,()-> service.setReorderThreshold(2L,-1,CurrentUser.from(mockUser)));
+        when(repo.existsById(99L)).thenReturn(false);
+        assertThrows(ProductNotFoundException.class,()-> service.setReorderThreshold(99L,5,CurrentUser.from(mockUser)));
+        verify(repo,never()).setReorderThresholdIfVersion(any(),any(),any(),any(Boolean.class),any(Long.class));
+    }
+
+    @Test
+    @DisplayName("Low Stock Test: own products for a User, every product for Admin, limit checked")
+    void testGetLowStock(){
+        when(repo.findWatched()).thenReturn(List.of(
+                new Object[]{1L,1L,"TV",2,5,0L},
+                new Object[]{2L,9L,"Lamp",0,1,0L},
+                new Object[]{3L,1L,"Laptop",9,5,0L}));
+        User admin = new User();
+        admin.setId(9L);
+        admin.setUsername("Admin");
+        admin.setRole(Role.ADMIN);
+
+        assertEquals(List.of(new ReorderLevel(1L,1L,"TV",2,5)),service.getLowStock(CurrentUser.from(mockUser),10));
+        assertEquals(List.of(2L,1L),service.getLowStock(CurrentUser.from(admin),10).stream().map(ReorderLevel::productId).toList());
+        assertThrows(InvalidRequestException.class,()-> service.getLowStock(CurrentUser.from(mockUser),0));
+    }
+
+    @Test
+    @DisplayName("Change Feed Test: Users follow their own products, Admin every product")
+    void testStreamChanges(){
+        User admin = new User();
+        admin.setId(9L);
+        admin.setUsername("Admin");
+        admin.setRole(Role.ADMIN);
+
+        service.streamChanges(CurrentUser.from(mockUser),5L);
+        service.streamChanges(CurrentUser.from(admin),null);
+
+        verify(changeFeed).subscribe(1L,5L);
+        verify(changeFeed).subscribe(null,null);
+        assertThrows(InvalidRequestException.class,()-> service.streamChanges(CurrentUser.from(mockUser),-1L));
+    }
 }
@@ -0,0 +1,107 @@
+package com.nate.inventorymanagementsystemapi.service;
+
+import com.nate.inventorymanagementsystemapi.dto.OwnerValuation;
+import com.nate.inventorymanagementsystemapi.dto.ReportJobDto;
+import com.nate.inventorymanagementsystemapi.dto.ReportRequest;
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
+import com.nate.inventorymanagementsystemapi.exception.ReportNotFoundException;
+import com.nate.inventorymanagementsystemapi.report.ReportJobs;
+import com.nate.inventorymanagementsystemapi.report.ReportParams;
+import com.nate.inventorymanagementsystemapi.report.ReportStatus;
+import com.nate.inventorymanagementsystemapi.report.ReportType;
+import com.nate.inventorymanagementsystemapi.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReportServiceTest {
+
+    @Mock
+    private ProductRepository repo;
+
+    private ReportJobs jobs;
+    private ReportService service;
+
+    @BeforeEach
+    void setUp() {
+        jobs = new ReportJobs(1, 10, 100, 300, 3600);
+        service = new ReportService(repo, jobs);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobs.shutdown();
+    }
+
+    private ReportJobDto await(ReportJobDto job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (job.status() == ReportStatus.QUEUED || job.status() == ReportStatus.RUNNING) {
+            assertTrue(System.nanoTime() < deadline, "Report did not finish");
+            Thread.sleep(5);
+            job = service.getJob(job.id());
+        }
+        return job;
+    }
+
+    @Test
+    @DisplayName("Submit Test: Success, the report runs in the background with the default limit")
+    void testSubmit_Valuation() throws Exception {
+        List<OwnerValuation> rows = List.of(new OwnerValuation(1L, "tester", 2, 10, new BigDecimal("100")));
+        when(repo.valuationByOwner(PageRequest.of(0, ReportService.DEFAULT_LIMIT))).thenReturn(rows);
+
+        ReportJobDto job = await(service.submit(new ReportRequest("valuation", null, 7)));
+
+        assertEquals(ReportStatus.DONE, job.status());
+        assertEquals(new ReportParams(ReportType.VALUATION, ReportService.DEFAULT_LIMIT, null), job.params());
+        assertEquals(rows, job.result());
+    }
+
+    @Test
+    @DisplayName("Submit Test: Success, stale stock is read from the cutoff the days give")
+    void testSubmit_StaleStock() throws Exception {
+        Instant before = Instant.now().minus(Duration.ofDays(30));
+        await(service.submit(new ReportRequest("stale-stock", 5, 30)));
+
+        ArgumentCaptor<Instant> cutoff = ArgumentCaptor.forClass(Instant.class);
+        verify(repo).findStale(cutoff.capture(), eq(PageRequest.of(0, 5)));
+        assertTrue(!cutoff.getValue().isBefore(before) && cutoff.getValue().isBefore(Instant.now().minus(Duration.ofDays(29))));
+    }
+
+    @Test
+    @DisplayName("Submit Test: Fail, unknown report or parameters out of range")
+    void testSubmit_FailInvalid() {
+        assertThrows(InvalidRequestException.class, () -> service.submit(new ReportRequest("sales", null, null)));
+        assertThrows(InvalidRequestException.class, () -> service.submit(new ReportRequest("top-value", 0, null)));
+        assertThrows(InvalidRequestException.class, () -> service.submit(new ReportRequest("top-value", ReportService.MAX_LIMIT + 1, null)));
+        assertThrows(InvalidRequestException.class, () -> service.submit(new ReportRequest("stale-stock", null, -1)));
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    @DisplayName("Get Job Test: Fail, unknown job")
+    void testGetJob_FailNotFound() {
+        assertThrows(ReportNotFoundException.class, () -> service.getJob(UUID.randomUUID()));
+    }
+}
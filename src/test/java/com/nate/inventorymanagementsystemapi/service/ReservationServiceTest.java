@@ -0,0 +1,80 @@
+package com.nate.inventorymanagementsystemapi.service;
+
+import com.nate.inventorymanagementsystemapi.dto.ProductDto;
+import com.nate.inventorymanagementsystemapi.dto.ReservationDto;
+import com.nate.inventorymanagementsystemapi.exception.InsufficientStockException;
+import com.nate.inventorymanagementsystemapi.exception.InvalidRequestException;
+import com.nate.inventorymanagementsystemapi.model.CurrentUser;
+import com.nate.inventorymanagementsystemapi.model.Role;
+import com.nate.inventorymanagementsystemapi.model.StockMovement;
+import com.nate.inventorymanagementsystemapi.repository.ReservationSnapshotStore;
+import com.nate.inventorymanagementsystemapi.reservation.ReservationLedger;
+import com.nate.inventorymanagementsystemapi.reservation.ReservationStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReservationServiceTest {
+
+    private static final CurrentUser USER = new CurrentUser(1L, "tester", Role.USER);
+
+    @Mock
+    private IProductService productService;
+
+    private ReservationLedger ledger;
+    private ReservationService service;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new ReservationLedger(mock(ReservationSnapshotStore.class), 100);
+        service = new ReservationService(productService, ledger, 900, 3600);
+    }
+
+    @Test
+    @DisplayName("Reserve Test: Success, availability is the stock minus the holds")
+    void testReserve_Success() {
+        when(productService.getProduct(5L, USER)).thenReturn(new ProductDto(5L, "PS5", 10, new BigDecimal("9000"), 1L, null, 0L));
+
+        service.reserve(5L, 4, null, USER);
+        ReservationDto second = service.reserve(5L, 3, 60, USER);
+
+        assertEquals(3, second.getAvailable());
+        assertEquals(ReservationStatus.ACTIVE, second.getStatus());
+        assertEquals(7, service.availability(5L, USER).getHeld());
+    }
+
+    @Test
+    @DisplayName("Reserve Test: Fail, ttl above the maximum")
+    void testReserve_FailTtlTooLong() {
+        assertThrows(InvalidRequestException.class, () -> service.reserve(5L, 1, 3601, USER));
+        verify(productService, never()).getProduct(any(Long.class), any(CurrentUser.class));
+    }
+
+    @Test
+    @DisplayName("Confirm Test: Fail, the stock decrement is refused and the hold stays live")
+    void testConfirm_FailKeepsHold() {
+        when(productService.getProduct(5L, USER)).thenReturn(new ProductDto(5L, "PS5", 10, new BigDecimal("9000"), 1L, null, 0L));
+        when(productService.adjustStock(5L, -4, StockMovement.Reason.RESERVATION, USER)).thenThrow(new InsufficientStockException(5L, -4));
+
+        ReservationDto reservation = service.reserve(5L, 4, null, USER);
+
+        assertThrows(InsufficientStockException.class, () -> service.confirm(5L, reservation.getId(), USER));
+        assertEquals(4, ledger.held(5L));
+        assertEquals(ReservationStatus.RELEASED, service.release(5L, reservation.getId(), USER).getStatus());
+        assertEquals(0, ledger.held(5L));
+    }
+}
@@ -1,5 +1,7 @@
 package com.nate.inventorymanagementsystemapi.service;
 
+import com.nate.inventorymanagementsystemapi.cache.CacheStats;
+import com.nate.inventorymanagementsystemapi.cache.UserCache;
 import com.nate.inventorymanagementsystemapi.dto.RegisterDto;
 import com.nate.inventorymanagementsystemapi.dto.UserDto;
 import com.nate.inventorymanagementsystemapi.exception.UserNotFoundException;
@@ -7,6 +9,7 @@ import com.nate.inventorymanagementsystemapi.model.CustomerDetails;
 import com.nate.inventorymanagementsystemapi.model.Role;
 import com.nate.inventorymanagementsystemapi.model.User;
 import com.nate.inventorymanagementsystemapi.repository.UserRepository;
+import com.nate.inventorymanagementsystemapi.security.TokenVersionRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -33,6 +36,8 @@ public class UserServiceTest {
 
     private User mockUser;
 
+    private TokenVersionRegistry tokenVersions;
+
     private UserService service;
 
     @BeforeEach
@@ -41,7 +46,8 @@ public class UserServiceTest {
         mockUser.setUsername("tester");
         mockUser.setPassword("tester123");
         mockUser.setRole(Role.USER);
-        service = new UserService(repo,encoder);
+        tokenVersions = new TokenVersionRegistry();
+        service = new UserService(repo,encoder,tokenVersions,new UserCache(repo,100,60));
     }
 
     @Test
@@ -156,6 +162,7 @@ public class UserServiceTest {
         assertTrue(verify);
 
         verify(repo,atLeast(1)).delete(any(User.class));
+        assertEquals(1,tokenVersions.current("tester"),"deleting should revoke the user's tokens");
     }
 
     @Test
@@ -182,5 +189,55 @@ public class UserServiceTest {
                 .anyMatch(a-> a.getAuthority().equals("ROLE_USER")));
     }
 
+    @Test
+    @DisplayName("Update Role Test: Success, revokes existing tokens")
+    void updateRoleTest_Success(){
+        when(repo.findByUsername("tester")).thenReturn(Optional.of(mockUser));
+
+        UserDto dto = service.updateRole("tester",Role.ADMIN);
+
+        assertEquals(Role.ADMIN,dto.getRole(),"should have the new role");
+        assertEquals(1,tokenVersions.current("tester"),"should bump the token version");
+        verify(repo).save(mockUser);
+    }
+
+    @Test
+    @DisplayName("Update Role Test: Fail, should throw an exception")
+    void updateRoleTest_FailShouldThrowException(){
+        Exception ex = assertThrows(UserNotFoundException.class,()->{
+            service.updateRole("tester",Role.ADMIN);
+        });
+
+        assertTrue(ex.getMessage().contains("tester"));
+        assertEquals(0,tokenVersions.current("tester"),"should not bump the token version");
+    }
 
+    @Test
+    @DisplayName("User Cache Test: repeated lookups only hit the repository once")
+    void userCacheTest_ReadThrough(){
+        when(repo.findByUsername("tester")).thenReturn(Optional.of(mockUser));
+
+        service.loadUserByUsername("tester");
+        service.getByUsername("tester");
+        service.loadUserByUsername("tester");
+
+        verify(repo,times(1)).findByUsername("tester");
+
+        CacheStats stats = service.userCacheStats();
+        assertEquals(2,stats.hits(),"should have 2 hits");
+        assertEquals(1,stats.misses(),"should have 1 miss");
+    }
+
+    @Test
+    @DisplayName("User Cache Test: role update invalidates the cached user")
+    void userCacheTest_InvalidatedOnRoleUpdate(){
+        when(repo.findByUsername("tester")).thenReturn(Optional.of(mockUser));
+
+        service.loadUserByUsername("tester");
+        service.updateRole("tester",Role.ADMIN);
+        UserDetails details = service.loadUserByUsername("tester");
+
+        assertTrue(details.getAuthorities().stream()
+                .anyMatch(a-> a.getAuthority().equals("ROLE_ADMIN")),"should see the new role");
+    }
 }
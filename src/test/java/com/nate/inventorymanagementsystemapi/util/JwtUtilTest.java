@@ -1,6 +1,8 @@
 package com.nate.inventorymanagementsystemapi.util;
 
 import com.nate.inventorymanagementsystemapi.model.Role;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,4 +38,25 @@ public class JwtUtilTest {
         assertNotNull(badToken);
         assertFalse(JwtUtil.tokenValidation(badToken),"should fail because not a valid token");
     }
+
+    @Test
+    void testParseClaims(){
+        String token = JwtUtil.generateToken(username,role);
+
+        Claims claims = JwtUtil.parseClaims(token);
+
+        assertEquals(username,claims.getSubject(),"subject should be the username");
+        assertEquals(role.name(),claims.get("Role"),"role claim should be present");
+        assertNotNull(claims.getExpiration(),"token should expire");
+    }
+
+    @Test
+    void testParseClaims_FailTamperedToken(){
+        String token = JwtUtil.generateToken(username,role);
+        String[] parts = token.split("\\.");
+        char first = parts[2].charAt(0);
+        String tampered = parts[0] + "." + parts[1] + "." + (first == 'A' ? 'B' : 'A') + parts[2].substring(1);
+
+        assertThrows(JwtException.class,()-> JwtUtil.parseClaims(tampered));
+    }
 }